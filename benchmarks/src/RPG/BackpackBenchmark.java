@@ -0,0 +1,122 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the queries on the content of a backpack, at increasing numbers of stored items.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BackpackBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int nbOfItems;
+
+    Hero hero;
+
+    Backpack backpack;
+
+    /**
+     * An item in the middle of the content of the backpack.
+     */
+    Equipable storedItem;
+
+    /**
+     * An item that is not stored in the backpack.
+     */
+    Equipable groundItem;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        hero = new Hero("Benchmark Hero", 100, 118.68948, 20, new Armor(2, 10, ArmorType.DEFAULT, 50));
+        backpack = new Backpack(0, 5, 50, Integer.MAX_VALUE);
+        hero.pickUp(backpack, AnchorType.RUG);
+        for(int i = 0; i < nbOfItems; i++){
+            Equipable item = (i % 2 == 0) ? new Weapon(1, 14, 20) : new Purse(1);
+            backpack.addEquipable(item);
+            if(i == nbOfItems / 2)
+                storedItem = item;
+        }
+        groundItem = new Weapon(1, 14, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+        CombatSimulator.collectItems(hero, items);
+        items.add(groundItem);
+        CombatSimulator.destroyItems(items);
+    }
+
+    @Benchmark
+    public int getTotalWeight() {
+        return backpack.getTotalWeight();
+    }
+
+    @Benchmark
+    public int getTotalValue() {
+        return backpack.getTotalValue();
+    }
+
+    @Benchmark
+    public boolean containsStoredItem() {
+        return backpack.contains(storedItem);
+    }
+
+    @Benchmark
+    public boolean containsGroundItem() {
+        return backpack.contains(groundItem);
+    }
+
+    @Benchmark
+    public ArrayList<Equipable> getAllItems() {
+        return backpack.getAllItems();
+    }
+
+    @Benchmark
+    public boolean containsIdOfStoredItem() {
+        return backpack.containsID(storedItem.getId());
+    }
+
+    /**
+     * Takes the stored item out of the backpack and puts it back in.
+     */
+    @Benchmark
+    public int removeAndAddStoredItem() throws Exception {
+        backpack.removeEquipable(storedItem);
+        backpack.addEquipable(storedItem);
+        return backpack.getNbOfItems();
+    }
+
+    /**
+     * Sums the weights of the items in the backpack by visiting them, without copying them into a list.
+     */
+    @Benchmark
+    public int forEachItem() {
+        int[] weight = {0};
+        backpack.forEachItem(item -> weight[0] += item.getWeight());
+        return weight[0];
+    }
+}
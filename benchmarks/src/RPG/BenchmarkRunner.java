@@ -0,0 +1,27 @@
+package RPG;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the inventory and combat hot paths.
+ *
+ * The benchmarks live in the separate benchmarks module, which depends on the main module and on JMH. Building that
+ * module runs the JMH annotation processor, after which this class can be run from the IDE. A regular expression given
+ * as the first argument only runs the benchmarks whose name matches it, for example "Backpack".
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "RPG\\..*Benchmark";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,115 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the combat stats of a hero and for complete fights, in which the creatures hit each other until one
+ * of them dies and the winner loots and heals.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatBenchmark {
+
+    /**
+     * A hero with a weapon in each hand and an armor on its body.
+     */
+    @State(Scope.Thread)
+    public static class ArmedHero {
+
+        Hero hero;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            hero = new Hero("Benchmark Hero", 100, 118.68948, 20, new Armor(2, 10, ArmorType.DEFAULT, 50),
+                    new Weapon(10, 42, 20), new Weapon(10, 28, 20));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ArrayList<Equipable> items = new ArrayList<Equipable>();
+            CombatSimulator.collectItems(hero, items);
+            CombatSimulator.destroyItems(items);
+        }
+    }
+
+    /**
+     * A new hero and monster for every fight, drawing their randomness from a seeded generator.
+     */
+    @State(Scope.Thread)
+    public static class Fight {
+
+        SplittableRandom random = new SplittableRandom(42);
+
+        Hero hero;
+
+        Monster monster;
+
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            hero = new Hero("James o'Hara", 100, 118.68948, 20, new Armor(2, 100, ArmorType.DEFAULT, 50),
+                    new Weapon(50, 45, 20));
+            monster = new Monster("Destroyer o'Hope", 300, 300, ArmorType.SCALE, 10, 4,
+                    new Armor(2, 100, ArmorType.DEFAULT, 150), new Weapon(50, 20, 50), new Purse(5));
+            hero.setRandom(random);
+            monster.setRandom(random);
+            CombatSimulator.collectItems(hero, items);
+            CombatSimulator.collectItems(monster, items);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            CombatSimulator.destroyItems(items);
+            items.clear();
+        }
+    }
+
+    @Benchmark
+    public int getTotalDamage(ArmedHero state) {
+        return state.hero.getTotalDamage();
+    }
+
+    @Benchmark
+    public int getTotalProtection(ArmedHero state) {
+        return state.hero.getTotalProtection();
+    }
+
+    /**
+     * Lets the hero and the monster hit each other in turns until one of them dies, is looted and the winner heals.
+     */
+    @Benchmark
+    public int fightToTheDeath(Fight state) {
+        int rounds = 0;
+        boolean heroTurn = state.random.nextBoolean();
+        while(state.hero.isAlive() && state.monster.isAlive()){
+            if(heroTurn)
+                state.hero.Hit(state.monster);
+            else state.monster.Hit(state.hero);
+            heroTurn = !heroTurn;
+            rounds++;
+        }
+        return rounds;
+    }
+}
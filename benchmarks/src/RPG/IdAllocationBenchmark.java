@@ -0,0 +1,77 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for constructing armors and backpacks, of which the identification number is probed upwards from the
+ * given number until a free one is found. A number of armors and backpacks is kept alive with the identification
+ * numbers right after the probed number, so the constructors have to skip that many numbers. Every constructed item is
+ * destroyed again, so the number of live items stays the same during a trial.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IdAllocationBenchmark {
+
+    @Param({"0", "100", "10000"})
+    int nbOfLiveItems;
+
+    /**
+     * The armors and backpacks kept alive during the trial.
+     */
+    ArrayList<Equipable> liveItems = new ArrayList<Equipable>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for(int i = 0; i < nbOfLiveItems; i++){
+            liveItems.add(new Armor(2, 10, ArmorType.DEFAULT, 50));
+            liveItems.add(new Backpack(0, 5, 50, 100));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CombatSimulator.destroyItems(liveItems);
+        liveItems.clear();
+    }
+
+    @Benchmark
+    public long newArmor() {
+        Armor armor = new Armor(2, 10, ArmorType.DEFAULT, 50);
+        armor.destroy();
+        return armor.getId();
+    }
+
+    @Benchmark
+    public long newBackpack() {
+        Backpack backpack = new Backpack(0, 5, 50, 100);
+        backpack.destroy();
+        return backpack.getId();
+    }
+
+    @Benchmark
+    public long newWeapon() {
+        return new Weapon(10, 14, 20).getId();
+    }
+}
@@ -0,0 +1,141 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for moving items in and out of the inventory of a creature: picking items up, storing them in a backpack
+ * and dropping them again. Every benchmark leaves the inventory as it found it, so each invocation does the same work.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    /**
+     * A hero carrying an empty backpack on its back, and a weapon lying on the ground.
+     */
+    @State(Scope.Thread)
+    public static class HeroInventory {
+
+        Hero hero;
+
+        Backpack backpack;
+
+        Weapon weapon;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            hero = new Hero("Benchmark Hero", 100, 118.68948, 20, new Armor(2, 10, ArmorType.DEFAULT, 50));
+            backpack = new Backpack(0, 5, 50, 1000);
+            hero.pickUp(backpack, AnchorType.RUG);
+            weapon = new Weapon(10, 14, 20);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ArrayList<Equipable> items = new ArrayList<Equipable>();
+            CombatSimulator.collectItems(hero, items);
+            items.add(weapon);
+            CombatSimulator.destroyItems(items);
+        }
+    }
+
+    /**
+     * A monster of which all anchors but the last one hold a purse, and a weapon lying on the ground.
+     */
+    @State(Scope.Thread)
+    public static class MonsterInventory {
+
+        @Param({"4", "64", "1024"})
+        int nbOfAnchors;
+
+        Monster monster;
+
+        Weapon weapon;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            monster = new Monster("Benchmark Monster", 100, Integer.MAX_VALUE - 1, ArmorType.SCALE, 14, nbOfAnchors);
+            for(int i = 0; i < nbOfAnchors - 1; i++)
+                monster.pickUp(new Purse(1));
+            weapon = new Weapon(10, 14, 20);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ArrayList<Equipable> items = new ArrayList<Equipable>();
+            CombatSimulator.collectItems(monster, items);
+            items.add(weapon);
+            CombatSimulator.destroyItems(items);
+        }
+    }
+
+    /**
+     * Picks a weapon up in the right hand of a hero and drops it again.
+     */
+    @Benchmark
+    public int heroPickUpAndDrop(HeroInventory state) throws Exception {
+        state.hero.pickUp(state.weapon, AnchorType.RECHTERHAND);
+        state.hero.drop(state.weapon);
+        return state.hero.getCapacity();
+    }
+
+    /**
+     * Picks a weapon up, stores it in the backpack of the hero and drops it out of the backpack again.
+     */
+    @Benchmark
+    public int heroPickUpStoreAndDrop(HeroInventory state) throws Exception {
+        state.hero.pickUp(state.weapon, AnchorType.RECHTERHAND);
+        state.hero.store(state.weapon, state.backpack);
+        state.hero.drop(state.weapon);
+        return state.hero.getCapacity();
+    }
+
+    /**
+     * Picks a weapon up straight into the backpack of the hero and drops it out of the backpack again.
+     */
+    @Benchmark
+    public int heroPickUpAndStoreAndDrop(HeroInventory state) throws Exception {
+        state.hero.pickUpAndStore(state.weapon, state.backpack);
+        state.hero.drop(state.weapon);
+        return state.hero.getCapacity();
+    }
+
+    /**
+     * Picks a weapon up in the only free anchor of a monster and drops it again.
+     */
+    @Benchmark
+    public int monsterPickUpAndDrop(MonsterInventory state) throws Exception {
+        state.monster.pickUp(state.weapon);
+        state.monster.drop(state.weapon);
+        return state.monster.getCapacity();
+    }
+
+    /**
+     * Sums the value of the items of a monster, scanning its compact inventory.
+     */
+    @Benchmark
+    public int monsterTotalValue(MonsterInventory state) {
+        return state.monster.getTotalValueOfItems();
+    }
+}
@@ -0,0 +1,116 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the validation of the names of heroes and monsters, comparing the validators with the regular
+ * expressions that were used before, over a spawn table of names that keep coming back.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NameValidationBenchmark {
+
+    /**
+     * The names of a spawn table, both valid and invalid ones.
+     */
+    String[] names = {"Hero: One", "James o'Hara", "Destroyer o'Hope", "MonsterTwo", "James' o'Hara'", "James:Hara",
+            "goblin", "Orc Warlord of the Eastern Marches", "Troll2", "Dragon: Elder"};
+
+    /**
+     * Validators that remember no outcomes, to measure the single pass over the characters on its own.
+     */
+    NameValidator uncachedHero = new NameValidator(2, NameValidator.ColonRule.FOLLOWED_BY_SPACE, 0);
+
+    NameValidator uncachedMonster = new NameValidator(Integer.MAX_VALUE, NameValidator.ColonRule.FORBIDDEN, 0);
+
+    @Benchmark
+    public void regexHero(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(regexHeroName(name));
+    }
+
+    @Benchmark
+    public void regexMonster(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(regexMonsterName(name));
+    }
+
+    @Benchmark
+    public void singlePassHero(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(uncachedHero.isValid(name));
+    }
+
+    @Benchmark
+    public void singlePassMonster(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(uncachedMonster.isValid(name));
+    }
+
+    @Benchmark
+    public void cachedHero(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(NameValidator.HERO.isValid(name));
+    }
+
+    @Benchmark
+    public void cachedMonster(Blackhole blackhole) {
+        for(String name : names)
+            blackhole.consume(NameValidator.MONSTER.isValid(name));
+    }
+
+    /**
+     * The check for the names of creatures as it was done with regular expressions.
+     */
+    private static boolean regexCreatureName(String name){
+        return name.matches(Creature.validCharacters) && name != null && name.matches("^[A-Z].*");
+    }
+
+    /**
+     * The check for the names of heroes as it was done with regular expressions.
+     */
+    private static boolean regexHeroName(String name){
+        int apostrophecount = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == '\'') {
+                apostrophecount++;
+            }
+        }
+        Pattern pattern = Pattern.compile(":\\S");
+        Matcher matcher = pattern.matcher(name);
+        boolean allColonsFollowedBySpace = !matcher.find() && !(name.charAt(name.length() - 1) == ':');
+        return regexCreatureName(name) && apostrophecount < 3 && allColonsFollowedBySpace;
+    }
+
+    /**
+     * The check for the names of monsters as it was done with regular expressions.
+     */
+    private static boolean regexMonsterName(String name){
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == ':') {
+                return false;
+            }
+        }
+        return regexCreatureName(name);
+    }
+}
@@ -0,0 +1,83 @@
+package RPG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for spawning a monster with a weapon, a purse and a backpack holding an armor, once through the public
+ * constructor and once from a template. The items of every spawn are destroyed after the invocation, so the number of
+ * live identification numbers stays the same during a trial.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpawnBenchmark {
+
+    CreatureTemplate<Monster> template;
+
+    ArrayList<Equipable> items = new ArrayList<Equipable>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        template = CreatureTemplate.of(construct());
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        CombatSimulator.destroyItems(items);
+        items.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void releaseTemplate() {
+        template.release();
+    }
+
+    /**
+     * Builds the monster through its public constructor.
+     */
+    Monster construct() {
+        Backpack backpack = new Backpack(0, 5, 50, 100);
+        Monster monster = new Monster("Spawned Monster", 100, 300, ArmorType.SCALE, 20, 4,
+                new Weapon(10, 14, 20), new Purse(1), backpack);
+        try {
+            monster.pickUpAndStore(new Armor(2, 10, ArmorType.DEFAULT, 50), backpack);
+        } catch (OtherPlayersItemException | CarryLimitReachedException | ItemAlreadyobtainedException e) {
+            throw new RuntimeException(e);
+        }
+        return monster;
+    }
+
+    @Benchmark
+    public Monster spawnByConstructor() {
+        Monster monster = construct();
+        CombatSimulator.collectItems(monster, items);
+        return monster;
+    }
+
+    @Benchmark
+    public Monster spawnFromTemplate() {
+        Monster monster = template.spawn();
+        CombatSimulator.collectItems(monster, items);
+        return monster;
+    }
+}
@@ -28,6 +28,16 @@ public class Anchor {
      */
     private final Creature owner;
 
+    /**
+     * The position of this anchor among the anchors with the same type of its owner, or -1 if the anchor is not indexed.
+     */
+    private int typeIndex = -1;
+
+    /**
+     * The position of this anchor among the anchors of its owner, or -1 if the anchor is not placed yet.
+     */
+    private int position = -1;
+
     /**
      * return The AnchorType of the anchor
      */
@@ -50,10 +60,64 @@ public class Anchor {
      *        The item that the Anchor needs to hold.
      * @post  The item it hold is set to the given equipable
      *        |this.item == item
+     * @post  The given equipable knows it is held in this anchor. The previous item no longer references this anchor,
+     *        unless it has already been moved to another anchor.
+     *        |item.getAnchor() == this
+     *        |if(old.getItem().getAnchor() == this) then new.old.getItem().getAnchor() == null
+     * @effect The owner is notified that the item of this anchor changed.
+     *         |getOwner().anchorChanged(this, old.getItem(), item)
      */
     @Raw
     public void setItem(Equipable item) {
+        Equipable oldItem = this.item;
         this.item = item;
+        if(oldItem != null && oldItem.getAnchor() == this)
+            oldItem.setAnchor(null);
+        if(item != null)
+            item.setAnchor(this);
+        if(getOwner() != null)
+            getOwner().anchorChanged(this, oldItem, item);
+    }
+
+    /**
+     * Returns the position of this anchor among the anchors with the same type of its owner, or -1 if the anchor is
+     * not indexed.
+     */
+    @Basic @Raw
+    public int getTypeIndex() {
+        return typeIndex;
+    }
+
+    /**
+     * Sets the position of this anchor among the anchors with the same type of its owner.
+     * @param typeIndex
+     *        The new position.
+     * @post  The position is set to the given position.
+     *        |this.typeIndex == typeIndex
+     */
+    @Raw
+    void setTypeIndex(int typeIndex) {
+        this.typeIndex = typeIndex;
+    }
+
+    /**
+     * Returns the position of this anchor among the anchors of its owner, or -1 if the anchor is not placed yet.
+     */
+    @Basic @Raw
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the position of this anchor among the anchors of its owner.
+     * @param position
+     *        The new position.
+     * @post  The position is set to the given position.
+     *        |this.position == position
+     */
+    @Raw
+    void setPosition(int position) {
+        this.position = position;
     }
 
     /**
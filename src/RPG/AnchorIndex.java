@@ -0,0 +1,156 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * A class of indexes over the anchors of a creature, keyed by the type of the anchors.
+ *
+ * For each anchor type the index keeps the anchors of that type in the order of the creature's anchors and a bitset
+ * of the free ones, so that finding the first free anchor of a type and iterating over the anchors of a type do not
+ * scan the anchors of other types.
+ * The owner of the anchors keeps the index up to date every time the item of one of its anchors changes.
+ *
+ * @invar Each anchor in the index is free if and only if it does not hold an item.
+ *        | for each anchor in index: isFree(anchor) == (anchor.getItem() == null)
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class AnchorIndex {
+
+    /**
+     * Initialize a new index over the given anchors.
+     *
+     * @param anchors
+     *        The anchors to index, in the order of the anchors of their owner.
+     * @effect Each of the given anchors is added to the index.
+     *         |for each anchor in anchors: add(anchor)
+     */
+    public AnchorIndex(List<Anchor> anchors){
+        for(Anchor anchor : anchors){
+            add(anchor);
+        }
+    }
+
+    /**
+     * A map referencing, for each anchor type, the anchors of that type in the order of the anchors of their owner.
+     */
+    private final EnumMap<AnchorType, ArrayList<Anchor>> anchorsByType = new EnumMap<AnchorType, ArrayList<Anchor>>(AnchorType.class);
+
+    /**
+     * A map referencing, for each anchor type, the positions of the free anchors within the list of anchors of that type.
+     */
+    private final EnumMap<AnchorType, BitSet> freeByType = new EnumMap<AnchorType, BitSet>(AnchorType.class);
+
+    /**
+     * Adds the given anchor to this index.
+     *
+     * @param anchor
+     *        The anchor to add.
+     * @post  The anchor is the last anchor of its type in this index.
+     *        |new.getAnchors(anchor.getAnchorType()).get(last) == anchor
+     * @post  The anchor is free in this index if and only if it does not hold an item.
+     */
+    @Model
+    private void add(Anchor anchor){
+        AnchorType type = anchor.getAnchorType();
+        ArrayList<Anchor> anchors = anchorsByType.get(type);
+        if(anchors == null){
+            anchors = new ArrayList<Anchor>();
+            anchorsByType.put(type, anchors);
+            freeByType.put(type, new BitSet());
+        }
+        anchor.setTypeIndex(anchors.size());
+        anchors.add(anchor);
+        if(anchor.getItem() == null)
+            freeByType.get(type).set(anchor.getTypeIndex());
+    }
+
+    /**
+     * Returns the anchors with the given type, in the order of the anchors of their owner.
+     *
+     * @param type
+     *        The type of the anchors.
+     * @return An unmodifiable list of the anchors with the given type, empty if there are none.
+     */
+    @Basic
+    public List<Anchor> getAnchors(AnchorType type){
+        ArrayList<Anchor> anchors = anchorsByType.get(type);
+        if(anchors == null)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(anchors);
+    }
+
+    /**
+     * Returns the first free anchor with the given type.
+     *
+     * @param type
+     *        The type of the anchor.
+     * @return The first anchor with the given type that does not hold an item, or null if there is no such anchor.
+     *         |result == first anchor in getAnchors(type) with anchor.getItem() == null
+     */
+    public Anchor getFreeAnchor(AnchorType type){
+        BitSet free = freeByType.get(type);
+        if(free == null)
+            return null;
+        int index = free.nextSetBit(0);
+        if(index < 0)
+            return null;
+        return anchorsByType.get(type).get(index);
+    }
+
+    /**
+     * Returns the number of free anchors with the given type.
+     *
+     * @param type
+     *        The type of the anchors.
+     * @return The number of anchors with the given type that do not hold an item.
+     */
+    public int getNbOfFreeAnchors(AnchorType type){
+        BitSet free = freeByType.get(type);
+        if(free == null)
+            return 0;
+        return free.cardinality();
+    }
+
+    /**
+     * Returns the positions of the free anchors with the given type.
+     *
+     * @param type
+     *        The type of the anchors.
+     * @return A new bitset with a bit set for the position of each anchor in getAnchors(type) that does not hold an
+     *         item. Changing the bitset does not change this index.
+     */
+    public BitSet getFreeAnchors(AnchorType type){
+        BitSet free = freeByType.get(type);
+        if(free == null)
+            return new BitSet();
+        return (BitSet) free.clone();
+    }
+
+    /**
+     * Updates this index after the item held by the given anchor changed.
+     *
+     * @param anchor
+     *        The anchor of which the item changed.
+     * @param newItem
+     *        The item the anchor holds now.
+     * @post  The anchor is free in this index if and only if the new item is not effective.
+     */
+    @Model
+    protected void update(Anchor anchor, Equipable newItem){
+        BitSet free = freeByType.get(anchor.getAnchorType());
+        if(free == null || anchor.getTypeIndex() < 0)
+            return;
+        if(newItem != null)
+            free.clear(anchor.getTypeIndex());
+        else free.set(anchor.getTypeIndex());
+    }
+}
@@ -2,6 +2,8 @@ package RPG;
 /**
  * A class for signaling illegal attempts to equip a certain item in an anchor that is not empty.
  *
+ * The exception does not record a stack trace.
+ *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
@@ -19,6 +21,7 @@ public class AnchorslotOccupiedException extends Exception{
      *        |this.anchor == anchor
      */
     public AnchorslotOccupiedException(Anchor anchor){
+        super(null, null, false, false);
         this.anchor = anchor;
     }
 
@@ -44,6 +44,11 @@ public class Armor extends Equipable{
      *         |setActualarmor(getMaxProtection())
      * @effect If the given value is valid, the value for this armor is set to the given value, else an exception is thrown
      *         |if(canHaveAsValue(value)) then this.value = value
+     * @effect The value of this armor is calculated from its protection.
+     *         |updateValue()
+     *
+     * @post The armor wears with the time of the default clock for armors, starting from now.
+     *       |new.getClock() == getDefaultClock() && new.getCheckMillis() == getDefaultClock().millis()
      *
      * @post The armor has the given armortype as its maxprotection
      *
@@ -53,13 +58,140 @@ public class Armor extends Equipable{
      */
     @Raw
     public Armor(long id, int weight, ArmorType armortype, int value) throws IllegalArgumentException{
-        super(weight);
+        this(weight, armortype, value, getDefaultClock());
         configurePrime(id);
+    }
+
+    /**
+     * Initialize a new hidden armor with given weight, armortype and maximum value, wearing with the given clock. A
+     * hidden armor has no identification number of its own: it keeps id 0 and claims no prime in the allocator of
+     * armor id's, so it never has to be destroyed.
+     * @param weight
+     *        The weight in kilograms of the new armor
+     * @param armortype
+     *        The type of armor, picked from the available list for this armor
+     * @param value
+     *        The maximum value in dukaten for this armor.
+     * @param clock
+     *        The clock the new armor wears with.
+     *
+     * @effect The new armor is an equipable item with the given weight
+     *         |super(weight)
+     * @effect The actual armorvalue for this armor is set to the maximum armorvalue that the armortype provides.
+     *         |setActualarmor(getMaxProtection())
+     * @effect The value of this armor is calculated from its protection.
+     *         |updateValue()
+     * @post The armor has no identification number of its own.
+     *       |new.getId() == 0
+     * @post The armor wears with the time of the given clock, starting from now.
+     *       |new.getClock() == clock && new.getCheckMillis() == clock.millis()
+     *
+     * @throws IllegalArgumentException
+     *         the given maximum value is smaller than 1 or bigger than 1000
+     *         value < 1 || value > 1000
+     */
+    @Raw @Model
+    protected Armor(int weight, ArmorType armortype, int value, GameClock clock) throws IllegalArgumentException{
+        super(weight);
         this.maxprotection = armortype;
         setActualarmor(getMaxProtection());
         if(!canHaveAsValue(value))
             throw new IllegalArgumentException();
         this.maxvalue = value;
+        this.clock = clock;
+        this.checkMillis = clock.millis();
+        this.nextWearMillis = checkMillis + GameClock.HOUR;
+        updateValue();
+    }
+
+    /**
+     * Initialize an armor that existed before, with its identification number, weight, armortype, maximum value and
+     * wear. This rebuilds an armor read from a save or taken from an item catalog: the identification number is
+     * claimed as it is, without looking for the next free prime, or adopted if it is still claimed for the armor.
+     * @param id
+     *        The identification number the armor had.
+     * @param weight
+     *        The weight in kilograms of the armor
+     * @param armortype
+     *        The type of the armor
+     * @param value
+     *        The maximum value in dukaten of the armor.
+     * @param actualarmor
+     *        The armorvalue the armor had at the given time of its last check.
+     * @param checkMillis
+     *        The time of the last check of the armor, in milliseconds of the default clock for armors.
+     * @param claimed
+     *        Whether the given id is still claimed for this armor in the allocator of armor id's.
+     *
+     * @effect The new armor is an equipable item with the given weight
+     *         |super(weight)
+     * @effect The armorvalue of the armor is set to the given armorvalue, limited to the valid armorvalues.
+     *         |updateArmor(actualarmor)
+     * @post   The armor has the given id, claimed in the allocator of armor id's.
+     *         |new.getId() == id && getPrimeIds().isAllocated(id)
+     * @post   The armor wears with the default clock for armors, from the given time of its last check or from now if
+     *         that time lies ahead of the clock.
+     *         |new.getClock() == getDefaultClock()
+     *         |new.getCheckMillis() == Math.min(checkMillis, getDefaultClock().millis())
+     * @throws IllegalArgumentException
+     *         The given id is not a valid, free id for an armor if it is not claimed yet, or not a claimed prime if it
+     *         is, or the given maximum value is not valid.
+     *         |(!claimed && !canHaveAsId(id)) || (claimed && !getPrimeIds().contains(id)) || !canHaveAsValue(value)
+     */
+    @Raw @Model
+    protected Armor(long id, int weight, ArmorType armortype, int value, int actualarmor, long checkMillis,
+                    boolean claimed) throws IllegalArgumentException{
+        super(weight);
+        if(claimed){
+            adoptId(id);
+            if(getId() != id || !getPrimeIds().contains(id))
+                throw new IllegalArgumentException();
+        }
+        else {
+            setId(id);
+            if(getId() != id || !getPrimeIds().claim(id))
+                throw new IllegalArgumentException();
+        }
+        this.maxprotection = armortype;
+        if(!canHaveAsValue(value))
+            throw new IllegalArgumentException();
+        this.maxvalue = value;
+        this.clock = getDefaultClock();
+        setCheckMillis(Math.min(checkMillis, clock.millis()));
+        updateArmor(actualarmor);
+    }
+
+    /**
+     * Initialize a new armor like the given prototype, as it was when it was new, with the first free prime from the
+     * given id onwards as its identification number. The prime is found and claimed in one step of the allocator, so
+     * no other armor can take it in between and it is never probed twice.
+     * @param prototype
+     *        The armor to copy.
+     * @param id
+     *        The lower bound for the identification number.
+     *
+     * @effect The new armor is an equipable item with the weight of the prototype.
+     *         |super(prototype.getWeight())
+     * @post   The armor has the first free prime from the given id onwards as its id, claimed in the allocator of armor
+     *         id's.
+     *         |new.getId() == old.getPrimeIds().nextFree(id) && getPrimeIds().isAllocated(new.getId())
+     * @post   The armor has the armortype and maximum value of the prototype and the full protection of its type.
+     *         |new.getArmorType() == prototype.getArmorType() && new.getMaxvalue() == prototype.getMaxvalue()
+     *         |new.getCurrentArmor() == prototype.getArmorType().getMaxvalue()
+     * @post   The armor wears with the time of the default clock for armors, starting from now.
+     *         |new.getClock() == getDefaultClock() && new.getCheckMillis() == getDefaultClock().millis()
+     */
+    @Raw @Model
+    protected Armor(Armor prototype, long id){
+        super(prototype.getWeight());
+        adoptId(getPrimeIds().claimNext(id));
+        this.maxprotection = prototype.getArmorType();
+        setActualarmor(getMaxProtection());
+        this.maxvalue = prototype.getMaxvalue();
+        this.clock = getDefaultClock();
+        this.checkMillis = clock.millis();
+        this.nextWearMillis = checkMillis + GameClock.HOUR;
+        updateValue();
     }
 
     /**
@@ -80,13 +212,39 @@ public class Armor extends Equipable{
 
 
     /**
-     * Static variable containing the set of previous Armor id's.
+     * Static variable referencing the allocator of the id's of the existing armors.
+     *
+     * @invar Each allocated id must be prime
+     *        | for each long id in primeIds:
+     *        | PrimeIdAllocator.isPrime(id) == true
+     */
+    private static PrimeIdAllocator primeIds = new PrimeIdAllocator();
+
+    /**
+     * Returns the allocator of the id's of the existing armors.
+     */
+    @Basic
+    public static PrimeIdAllocator getPrimeIds() {
+        return primeIds;
+    }
+
+    /**
+     * Sets the allocator of the id's of armors to the given allocator. Armors created afterwards
+     * get their id from the given allocator.
      *
-     * @invar Each element in the set must be prime
-     *        | for each long in set:
-     *        | isPrime(set) == true
+     * @param primeIds
+     *        the new allocator for the id's of armors.
+     * @post  The allocator for the id's of armors is set to the given allocator.
+     *        |getPrimeIds() == primeIds
+     * @throws IllegalArgumentException
+     *         The given allocator is not effective.
+     *         |primeIds == null
      */
-    private static Set<Long> primeidSet = new HashSet<>();
+    public static void setPrimeIds(PrimeIdAllocator primeIds) throws IllegalArgumentException {
+        if(primeIds == null)
+            throw new IllegalArgumentException();
+        Armor.primeIds = primeIds;
+    }
 
 
     /**
@@ -94,38 +252,13 @@ public class Armor extends Equipable{
      * @param id
      *        the id to be checked
      * @return False if the idcounter is negative, greater than the maximum integer value, not prime or already an existant id for another armor.
-     *         |if(idcounter < 0 || idcounter > Integer.MAX_VALUE || !isPrime(id) || primeidSet.contains(id) )
+     *         |if(idcounter < 0 || idcounter > Integer.MAX_VALUE || !PrimeIdAllocator.isPrime(id) || getPrimeIds().isAllocated(id) )
      *         | then result == false
      *
      */
     @Override @Model @Raw
     protected boolean canHaveAsId(long id){
-        return(super.canHaveAsId(id) && isPrime(id) && !primeidSet.contains(id));
-    }
-
-    /**
-     * Checks if a number is prime or not
-     *
-     * @param num
-     *        the number to be checked
-     * @return False if the number is not prime
-     *         |for(i< num/2)
-     *         | if(num%i ! 0)
-     *         |then result == False
-     */
-    @Model
-    private boolean isPrime(long num)
-    {
-        if(num<=1)
-        {
-            return false;
-        }
-        for(int i=2;i<=num/2;i++)
-        {
-            if((num%i)==0)
-                return  false;
-        }
-        return true;
+        return(super.canHaveAsId(id) && PrimeIdAllocator.isPrime(id) && !getPrimeIds().isAllocated(id));
     }
 
     /**
@@ -133,20 +266,39 @@ public class Armor extends Equipable{
      * @param id
      *        the value of the given id
      * @post If the given id is unique and prime, the armor id is set to the specified id,
-     *       otherwise the id is set to the closest, bigger next prime integer.
+     *       otherwise the id is set to the closest, bigger next prime integer that has not been allocated yet.
      *       | if(canHaveAsId(id))
      * 	     | then new.getId().equals(id)
-     * 	     | else new.getId().equals(closestBiggerPrime(id))
+     * 	     | else new.getId().equals(getPrimeIds().nextFree(id))
+     * @effect If the id is valid, it is allocated so that no other armor can get it. If another armor allocated the
+     *         same id in the meantime, the next free prime is tried.
+     *         | getPrimeIds().claim(getId())
      */
     @Model @Raw
     private void configurePrime(long id){
-
-        while(!canHaveAsId(id)){
-                id++;}
-
-        setId(id);
-        primeidSet.add(id);
+        PrimeIdAllocator allocator = getPrimeIds();
+        while(true){
+            id = allocator.nextFree(id);
+            setId(id);
+            if(getId() == id){
+                if(allocator.claim(id))
+                    return;
+            }
+            else if(!super.canHaveAsId(id))
+                return;
         }
+    }
+
+    /**
+     * Releases the id of this armor in the allocator of armor id's.
+     *
+     * @effect The id of this armor is released.
+     *         | getPrimeIds().release(getId())
+     */
+    @Override @Model
+    protected void releaseId(){
+        getPrimeIds().release(getId());
+    }
 
     /***********
      * Protection
@@ -167,8 +319,8 @@ public class Armor extends Equipable{
      *
      * Returns the armortype of this armor
      */
-    @Immutable @Model @Basic
-    private ArmorType getArmorType(){
+    @Immutable @Basic
+    public ArmorType getArmorType(){
         return maxprotection;
     }
 
@@ -187,16 +339,15 @@ public class Armor extends Equipable{
      *
      * @pre The given delta must not be 0
      *      |delta !=0
-     * @effect The protectionvalue of this armor is adapted with the given delta.
-     *         | setActualarmor(getActualarmor()+delta)
-     * @effect The time when this armor was last checked is updated.
-     *         The effects of wear in time are accounted for here.
+     * @effect The effects of wear in time are accounted for first.
      *         |checkarmor()
+     * @effect The protectionvalue of this armor is adapted with the given delta.
+     *         | updateArmor(getActualarmor()+delta)
      */
     @Model
     private void changeArmor(int delta){
-        setActualarmor(getActualarmor()+delta);
         checkarmor();
+        updateArmor(getActualarmor()+delta);
     }
 
     /**
@@ -233,6 +384,24 @@ public class Armor extends Equipable{
     /**
      * Checks if the actual protection value should be updated to account for degradation
      * through time and updates the value for this armor if needed.
+     * As long as no full hour has passed since the last check, nothing changes and no work is done,
+     * so reading the protection or the value of an armor is cheap.
+     *
+     * @effect If at least one hour has passed since the last check, the protection value is decremented
+     *         by one for each full hour that has passed.
+     *         |if(getClock().millis() >= nextWearMillis)
+     *         |then updateArmor(getActualarmor() - getWear())
+     */
+    @Model @Raw
+    private void checkarmor() {
+        if(getClock().millis() < nextWearMillis)
+            return;
+        updateArmor(getActualarmor() - getWear());
+    }
+
+    /**
+     * Sets the protection value of this armor to the given value, limited to the valid protection values,
+     * and updates the value for this armor.
      * if the new protection value is valid, the protection value is updated to the new protection value.
      * if the new protection value is not valid and greater than the maximum protection value, the
      * new protection value is set to the maximum protection value for this armor. If
@@ -244,19 +413,18 @@ public class Armor extends Equipable{
      * |  else actualarmorvalue = setActualarmor(1)
      * |then setActualarmor(newactualarmorvalue)
      *
-     * @effect The value for this armor is updated to account for the degradation in time.
+     * @param newactualarmorvalue
+     *        the new protection value.
+     * @effect The value for this armor is updated to account for the new protection value.
      *          |updateValue()
-     *
-     *
      */
     @Model @Raw
-    private void checkarmor() {
-        int newactualarmorvalue = (int) (getActualarmor() - getWear());
-        if(!isValidArmorValue(newactualarmorvalue))
-            if(newactualarmorvalue > getMaxProtection())
-                setActualarmor(getMaxProtection());
-            else setActualarmor(1);
-        else setActualarmor(newactualarmorvalue);
+    private void updateArmor(long newactualarmorvalue) {
+        if(newactualarmorvalue > getMaxProtection())
+            setActualarmor(getMaxProtection());
+        else if(newactualarmorvalue < 1)
+            setActualarmor(1);
+        else setActualarmor((int) newactualarmorvalue);
 
         //Value
         updateValue();
@@ -267,10 +435,16 @@ public class Armor extends Equipable{
      *
      * @param actualarmor
      *        the new actual armorvalue
+     * @effect If the armor is held in an anchor of a creature and its armorvalue changed, that creature is told.
+     *        |if(getAnchor() != null && getAnchor().getOwner() != null && actualarmor != getActualarmor())
+     *        |    then getAnchor().getOwner().itemStatsChanged(getAnchor())
      */
     @Model @Raw
     private void setActualarmor(int actualarmor)  {
+        boolean changed = actualarmor != this.actualarmor;
         this.actualarmor = actualarmor;
+        if(changed && getAnchor() != null && getAnchor().getOwner() != null)
+            getAnchor().getOwner().itemStatsChanged(getAnchor());
     }
 
     /**
@@ -309,27 +483,101 @@ public class Armor extends Equipable{
 
 
     /**
-     * Variable referencing the time the armor was last checked.
+     * Variable referencing the default clock for armors, which new armors wear with.
+     */
+    private static GameClock defaultClock = GameClock.SYSTEM;
+
+    /**
+     * Returns the default clock for armors.
+     */
+    @Basic
+    public static GameClock getDefaultClock() {
+        return defaultClock;
+    }
+
+    /**
+     * Sets the default clock for armors to the given clock. Armors created afterwards wear with the given clock.
+     *
+     * @param clock
+     *        the new default clock for armors.
+     * @post  The default clock for armors is set to the given clock.
+     *        |getDefaultClock() == clock
+     * @throws IllegalArgumentException
+     *         The given clock is not effective.
+     *         |clock == null
+     */
+    public static void setDefaultClock(GameClock clock) throws IllegalArgumentException {
+        if(clock == null)
+            throw new IllegalArgumentException();
+        Armor.defaultClock = clock;
+    }
+
+    /**
+     * Variable referencing the clock this armor wears with.
+     */
+    private final GameClock clock;
+
+    /**
+     * Returns the clock this armor wears with.
+     */
+    @Basic @Immutable
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Variable referencing the time, in milliseconds of the clock of this armor, up to which the wear of this armor
+     * has been accounted for.
+     */
+    private long checkMillis;
+
+    /**
+     * Variable referencing the time, in milliseconds of the clock of this armor, at which this armor wears again.
+     * This is always one hour after the last check.
      */
-    private Date checkTime = new Date();
+    private long nextWearMillis;
 
     /**
-     * Return the time at which this disk item was last checked.
+     * Return the time, in milliseconds of the clock of this armor, up to which the wear of this armor has been
+     * accounted for.
      */
+    @Basic
+    public long getCheckMillis() {
+        return checkMillis;
+    }
 
+    /**
+     * Return the time, in milliseconds of the clock of this armor, at which this armor wears again.
+     * Until then the current armorvalue of this armor does not change by itself.
+     */
     @Basic
+    public long getNextWearMillis() {
+        return nextWearMillis;
+    }
+
+    /**
+     * Return the time at which this armor was last checked.
+     *
+     * @return The time up to which the wear of this armor has been accounted for, as a date.
+     *         |result.getTime() == getCheckMillis()
+     */
     public Date getCheckTime() {
-        return checkTime;
+        return new Date(getCheckMillis());
     }
 
     /**
-     * Set the time the armor was last checked to the given time;
+     * Set the time the armor was last checked to the given time.
      *
-     * @param date
-     *        the new date that the armor was last checked for this armor.
+     * @param millis
+     *        the new time that the armor was last checked, in milliseconds of the clock of this armor.
+     * @post  The time of the last check is the given time and the armor wears again one hour later.
+     *        |new.getCheckMillis() == millis && new.nextWearMillis == millis + GameClock.HOUR
      */
     @Model
-    private void setCheckTime(Date date){checkTime = date;}
+    private void setCheckMillis(long millis){
+        checkMillis = millis;
+        nextWearMillis = millis + GameClock.HOUR;
+    }
 
     /**
      * Check whether the given date is a valid creation time.
@@ -352,20 +600,19 @@ public class Armor extends Equipable{
     }
 
     /**
-     * Returns the amount of hours that have passed since this method was last called.
+     * Returns the amount of full hours that have passed since this method was last called.
      *
-     * @effect If the amount of hours is greater than one, the old time is also updated to the new time.
+     * @effect If the amount of hours is at least one, the time of the last check is moved forward by that amount of
+     *         full hours. The part of an hour that has not passed completely yet still counts for the next check.
      *         |if(difference >= 1)
-     *         |    setCheckTime(now)
+     *         |    setCheckMillis(getCheckMillis() + difference * GameClock.HOUR)
      */
     @Model
     private long getWear(){
-        Date now = new Date();
-
-        long difference = (now.getTime() - checkTime.getTime()) / (1000*60*60);
+        long difference = (getClock().millis() - getCheckMillis()) / GameClock.HOUR;
 
         if(difference >= 1)
-            setCheckTime(now);
+            setCheckMillis(getCheckMillis() + difference * GameClock.HOUR);
 
         return difference;
     }
@@ -395,6 +642,7 @@ public class Armor extends Equipable{
      *
      * @effect If more than 1 hour has passed since the creation of this armor than
      *         the current protection value is decremented by 1 for each hour that has passed. Thus, the value of this armor also decreases.
+     *         Otherwise the value calculated at the last change of the protection is returned.
      *         |checkarmor()
      * @return Returns the updated value for this armor.
      */
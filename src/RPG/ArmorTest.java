@@ -0,0 +1,109 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for testing the wear of armors through time.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class ArmorTest {
+
+    /**
+     * A clock that only moves when it is told to.
+     */
+    private static class ManualClock implements GameClock {
+
+        private long millis = 1000;
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        private void advance(long millis) {
+            this.millis += millis;
+        }
+    }
+
+    private ManualClock clock;
+
+    private Armor armor;
+
+    @Before
+    public void setUpArmor(){
+        clock = new ManualClock();
+        Armor.setDefaultClock(clock);
+        armor = new Armor(2, 10, ArmorType.DEFAULT, 100);
+    }
+
+    @After
+    public void restoreClock(){
+        armor.destroy();
+        Armor.setDefaultClock(GameClock.SYSTEM);
+    }
+
+    @Test
+    public void testNoWearWithinTheHour(){
+        Assert.assertSame(armor.getClock(), clock);
+        Assert.assertEquals(armor.getCurrentArmor(), 50);
+        Assert.assertEquals(armor.getValue(), 100);
+        clock.advance(GameClock.HOUR - 1);
+        Assert.assertEquals(armor.getCurrentArmor(), 50);
+        Assert.assertEquals(armor.getValue(), 100);
+        Assert.assertEquals(armor.getCheckMillis(), 1000);
+    }
+
+    @Test
+    public void testWearPerFullHour(){
+        clock.advance(GameClock.HOUR);
+        Assert.assertEquals(armor.getCurrentArmor(), 49);
+        Assert.assertEquals(armor.getValue(), 98);
+        // The part of an hour that passed is not lost at the next check.
+        clock.advance(GameClock.HOUR / 2);
+        Assert.assertEquals(armor.getCurrentArmor(), 49);
+        clock.advance(GameClock.HOUR / 2 + 2 * GameClock.HOUR);
+        Assert.assertEquals(armor.getCurrentArmor(), 46);
+        Assert.assertEquals(armor.getCheckMillis(), 1000 + 4 * GameClock.HOUR);
+        Assert.assertEquals(armor.getCheckTime().getTime(), armor.getCheckMillis());
+    }
+
+    @Test
+    public void testHeroProtectionFollowsWear(){
+        Hero hero = new Hero("Wearer", 100, 10, 5, armor);
+        Assert.assertEquals(hero.getTotalProtection(), 55);
+        clock.advance(GameClock.HOUR - 1);
+        Assert.assertEquals(hero.getTotalProtection(), 55);
+        clock.advance(1);
+        Assert.assertEquals(hero.getTotalProtection(), 54);
+        armor.DecrementArmor(3);
+        Assert.assertEquals(hero.getTotalProtection(), 51);
+        hero.setProtection(8);
+        Assert.assertEquals(hero.getTotalProtection(), 54);
+        hero.dropItemAtAnchor(3);
+        Assert.assertEquals(hero.getTotalProtection(), 8);
+    }
+
+    @Test
+    public void testWearNeverBelowOne(){
+        clock.advance(1000 * GameClock.HOUR);
+        Assert.assertEquals(armor.getCurrentArmor(), 1);
+        Assert.assertEquals(armor.getValue(), 1);
+    }
+
+    @Test
+    public void testRepairAfterWear(){
+        clock.advance(10 * GameClock.HOUR);
+        armor.RepairArmor(5);
+        Assert.assertEquals(armor.getCurrentArmor(), 45);
+        armor.RepairArmor(20);
+        Assert.assertEquals(armor.getCurrentArmor(), 50);
+        armor.DecrementArmor(25);
+        Assert.assertEquals(armor.getCurrentArmor(), 25);
+        Assert.assertEquals(armor.getValue(), 50);
+    }
+}
@@ -4,21 +4,22 @@ import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Immutable;
 
 /**
- * A class for signaling illegal attempts to store a certain backpack that is not empty in a different backpack.
+ * A class for signaling illegal attempts to store a certain backpack in a backpack that is stored in it, directly or
+ * through other backpacks, or in itself.
  *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
 public class BackPackNotEmptyException extends Exception {
     /**
-     * Variable stating which backpack is not empty.
+     * Variable stating which backpack could not be stored.
      */
     private final Backpack backpack;
 
     /**
      * Creates a new exception.
      * @param backpack
-     *        the backpack that is not empty.
+     *        the backpack that could not be stored.
      * @post  sets the backpack that is involved in the exception to the given backpack.
      *        |this.backpack == backpack
      */
@@ -6,9 +6,7 @@ import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * A class for backpacks within an RPG
@@ -62,6 +60,80 @@ public class Backpack extends Equipable{
         else this.capacity = capacity;
     }
 
+    /**
+     * Initialize a new empty backpack like the given prototype, with the first free id from the given id onwards as its
+     * identification number. Every id is tried by registering it right away, so a taken id costs one look-up.
+     *
+     * @param prototype
+     *        The backpack to copy.
+     * @param id
+     *        The lower bound for the identification number.
+     * @effect The new backpack is an equipable with the weight of the prototype as its weight.
+     *         |super(prototype.getWeight())
+     * @post   The backpack has the first id from the given id onwards that was not registered, registered in the
+     *         registry of backpack id's.
+     *         |new.getId() >= id && getIdRegistry().contains(new.getId())
+     * @post   The backpack has the value and capacity of the prototype.
+     *         |new.getValue() == prototype.getValue() && new.getCapacity() == prototype.getCapacity()
+     */
+    @Raw @Model
+    protected Backpack(Backpack prototype, long id){
+        super(prototype.getWeight());
+        IdRegistry registry = getIdRegistry();
+        while(!registry.register(id))
+            id++;
+        adoptId(id);
+        setValue(prototype.getValue());
+        this.capacity = prototype.getCapacity();
+    }
+
+    /**
+     * Initialize a backpack that existed before, with its identification number, weight, value and capacity, and no
+     * content. This rebuilds a backpack read from a save or taken from an item catalog: the identification number is
+     * registered as it is, or adopted if it is still registered for the backpack.
+     *
+     * @param id
+     *        The identification number the backpack had.
+     * @param weight
+     *        The weight in kilograms of the backpack
+     * @param value
+     *        The value in 'dukaten' of the backpack
+     * @param capacity
+     *        The maximum capacity of the backpack in kilograms.
+     * @param claimed
+     *        Whether the given id is still registered for this backpack in the registry of backpack id's.
+     * @effect The new backpack is an equipable with the given weight as its weight.
+     *         |super(weight)
+     * @post   The backpack has the given id, registered in the registry of backpack id's.
+     *         |new.getId() == id && getIdRegistry().contains(id)
+     * @post   The backpack has the given value and capacity, or a capacity of 30 kilograms if the given capacity is
+     *         not valid.
+     * @throws IllegalArgumentException
+     *         The given id is not a valid, free id for a backpack if it is not registered yet, or not registered if it
+     *         is, or the given value is not valid.
+     *         |(!claimed && !canHaveAsId(id)) || (claimed && !getIdRegistry().contains(id)) || !canHaveAsValue(value)
+     */
+    @Raw @Model
+    protected Backpack(long id, int weight, int value, int capacity, boolean claimed) throws IllegalArgumentException{
+        super(weight);
+        if(claimed){
+            adoptId(id);
+            if(getId() != id || !getIdRegistry().contains(id))
+                throw new IllegalArgumentException();
+        }
+        else {
+            setId(id);
+            if(getId() != id || !getIdRegistry().register(id))
+                throw new IllegalArgumentException();
+        }
+        if(!canHaveAsValue(value))
+            throw new IllegalArgumentException();
+        setValue(value);
+        if(!canHaveAsCapacity(capacity))
+            this.capacity = 30;
+        else this.capacity = capacity;
+    }
+
     /**
      * A static final value referencing the maximum allowed value in dukaten for backpacks.
      */
@@ -79,9 +151,35 @@ public class Backpack extends Equipable{
 
 
     /**
-     * Static variable containing the set of previous Backpack id's.
+     * Static variable referencing the registry of the id's of the existing backpacks.
+     */
+    private static IdRegistry idRegistry = new LongIdRegistry();
+
+    /**
+     * Returns the registry of the id's of the existing backpacks.
+     */
+    @Basic
+    public static IdRegistry getIdRegistry() {
+        return idRegistry;
+    }
+
+    /**
+     * Sets the registry of the id's of backpacks to the given registry. Backpacks created afterwards
+     * are registered in the given registry.
+     *
+     * @param idRegistry
+     *        the new registry for the id's of backpacks.
+     * @post  The registry for the id's of backpacks is set to the given registry.
+     *        |getIdRegistry() == idRegistry
+     * @throws IllegalArgumentException
+     *         The given registry is not effective.
+     *         |idRegistry == null
      */
-    private static Set<Long> idSet = new HashSet<>();
+    public static void setIdRegistry(IdRegistry idRegistry) throws IllegalArgumentException {
+        if(idRegistry == null)
+            throw new IllegalArgumentException();
+        Backpack.idRegistry = idRegistry;
+    }
 
 
     /**
@@ -89,12 +187,12 @@ public class Backpack extends Equipable{
      * @param id
      *        the id to be checked
      * @return False if the idcounter is negative, greater than the maximum integer value or already an existant id for another backpack.
-     *         |if(idcounter < 0 || idcounter > Integer.MAX_VALUE || idSet.contains(id))
+     *         |if(idcounter < 0 || idcounter > Integer.MAX_VALUE || getIdRegistry().contains(id))
      *         | then result == false
      */
     @Override  @Model @Raw
     protected boolean canHaveAsId(long id){
-        return(super.canHaveAsId(id) && !idSet.contains(id));
+        return(super.canHaveAsId(id) && !getIdRegistry().contains(id));
     }
 
     /**
@@ -106,15 +204,54 @@ public class Backpack extends Equipable{
      *       | if(canHaveAsId(id))
      * 	     | then new.getId().equals(id)
      * 	     | else new.getId().equals(closestBiggerInteger(id))
+     * @effect The id is registered, so that no other backpack can get it. If another backpack registered the same id
+     *         in the meantime, the next bigger integer is tried.
+     *         | getIdRegistry().register(getId())
      */
     @Model @Raw
     private void configure(long id){
+        while(true){
+            while(!canHaveAsId(id)){
+                id++;}
 
-        while(!canHaveAsId(id)){
-            id++;}
+            setId(id);
+            if(getId() == id && getIdRegistry().register(id))
+                return;
+        }
+    }
 
-        setId(id);
-        idSet.add(id);
+    /**
+     * Releases the id of this backpack in the registry of backpack id's.
+     *
+     * @effect The id of this backpack is released.
+     *         | getIdRegistry().release(getId())
+     */
+    @Override @Model
+    protected void releaseId(){
+        getIdRegistry().release(getId());
+    }
+
+    /**
+     * Destroys this backpack and every item in it without releasing their identification numbers.
+     *
+     * @effect This backpack and every item in it are handed over.
+     *         | super.handOver() && forEachItem(item -> item.handOver())
+     */
+    @Override @Model
+    void handOver(){
+        super.handOver();
+        forEachItem(Equipable::handOver);
+    }
+
+    /**
+     * Checks whether this backpack can be destroyed.
+     *
+     * @return True if this backpack can be destroyed as an equipable and is empty.
+     *         | result == super.canBeDestroyed() && getNbOfItems() == 0
+     */
+    @Override @Model
+    protected boolean canBeDestroyed(){
+        return super.canBeDestroyed() && getNbOfItems() == 0;
     }
 
     /***************
@@ -122,60 +259,86 @@ public class Backpack extends Equipable{
      **************/
 
     /**
-     * A variable referencing a hashmap which contains the equipable items
-     * contained by this backpack. The key of the hashmap references the id of the
-     * equipable item. Because different equipable items can have the same id, the values in this hashmap are lists of equipable items
-     * with the same id. Content can only be added or removed in the constructor of Monster, hero and through
+     * A variable referencing a map which contains the equipable items
+     * contained by this backpack. The key of the map references the id of the
+     * equipable item. Because different equipable items can have the same id, several items can be stored with the same id.
+     * Content can only be added or removed in the constructor of Monster, hero and through
      * the pickup method in the hero class and the drop, store and equip methods in the creature class.
      *
      * @invar The total weight of the backpacks content cannot exceed its carrying capacity.
      *        |item.getWeight() != ((Backpack) item).getTotalWeight()
-     * @invar content references an effective hashmap.
+     * @invar content references an effective map.
      *        |content != null
-     * @invar Every key in the hashmap references an effective id
+     * @invar Every key in the map references an effective id
      *        |for each key in content
-     *        |isValidId(key) && key !=null
-     * @invar Every value in the hashmap references an effective arraylist
-     *        |for each value in content
-     *        |value != null
-     * @invar The id of every equipable item in the arraylist of each value in the hashmap is the correct
-     *        id of the equipable item
-     *        |for each list in content
-     *        |  for each equipable in list
-     *        |    equipable.getId() == content.key(listAtIndex(i))
+     *        |isValidId(key)
+     * @invar The id of every equipable item in the map is the key it is stored with.
+     *        |for each key in content
+     *        |  for each equipable stored with key
+     *        |    equipable.getId() == key
      *
      * @note in this implementation, Monster or hero will be the controlling class for calling these methods.
      */
-    private HashMap<Long, ArrayList<Equipable>> content = new HashMap<Long, ArrayList<Equipable>>();
+    private final LongItemMap content = new LongItemMap();
 
     /**
-     * Returns the content of the hashmap
+     * Returns the content of this backpack.
      */
     @Model
     @Basic
-    protected HashMap<Long, ArrayList<Equipable>> getContent() {
+    protected LongItemMap getContent() {
         return content;
     }
 
     /**
-     * Gives all the items in the backpack in a list.
+     * Gives all the items in the backpack in a list, including the items in the backpacks stored in this backpack.
+     * The content of a stored backpack comes before the stored backpack itself.
+     *
+     * @note This copies every item into a new list. Use forEachItem to visit the items without copying them.
      */
     @Model
     protected ArrayList<Equipable> getAllItems(){
-        ArrayList<Equipable> AllItems = new ArrayList<Equipable>();
-        for(ArrayList<Equipable> list : getContent().values()){
-           for(Equipable item:list){
-               AllItems.add(item);
-           }
-        }
+        ArrayList<Equipable> AllItems = new ArrayList<Equipable>(getContent().getNbOfItems());
+        forEachItem(AllItems::add);
         return AllItems;
     }
 
+    /**
+     * Performs the given action for every item in this backpack, including the items in the backpacks stored in this
+     * backpack. The content of a stored backpack is visited before the stored backpack itself. Nothing is allocated per
+     * item.
+     *
+     * @param action
+     *        The action to perform. The action must not add items to or remove items from the visited backpacks.
+     */
+    public void forEachItem(Consumer<? super Equipable> action){
+        getContent().forEach(item -> {
+            if(item instanceof Backpack)
+                ((Backpack) item).forEachItem(action);
+            action.accept(item);
+        });
+    }
+
+    /**
+     * Checks whether this backpack is the given backpack or is stored, directly or indirectly, in the given backpack.
+     * @param backpack
+     *        The backpack to check.
+     * @return True if the given backpack is this backpack or one of the backpacks this backpack is nested in.
+     *         |result == (this == backpack || (getParentbackpack() != null && getParentbackpack().isWithin(backpack)))
+     */
+    public boolean isWithin(Backpack backpack){
+        for(Backpack current = this; current != null; current = current.getParentbackpack()){
+            if(current == backpack)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Checks if the content of this backpack contains an equipable item with the given id as its id.
      * @param id
      *        the id to be checked
-     * @return True if the given id is stored as one of the keys in the content hashmap.
+     * @return True if the given id is stored as one of the keys in the content map.
      *         |getContent().containsKey(id)
      */
     public boolean containsID(long id){
@@ -186,48 +349,199 @@ public class Backpack extends Equipable{
      * Checks if the content of this backpack contains this equipable item.
      * @param item
      *        the item to be checked
-     * @return True if the given item is stored in one of the arraylists, which are the values of the content hashmap.
-     *         False if the id of the item is not stored as one of the keys in the content hashmap.
-     *         else False
-     *         |if(getContent().get(id).contains(item))
-     *         |   return true;
-     *         |else return false
+     * @return True if the given item is stored in the content of this backpack.
+     *         Each stored item references this backpack as its parent backpack, so this is checked directly.
+     *         |result == (item.getParentbackpack() == this)
      */
     public boolean contains(Equipable item){
-        long id = item.getId();
-        if(!containsID(id))
-            return false;
-
-        else if(getContent().get(id).contains(item))
-            return true;
-
-        else return false;
-
+        return item.getParentbackpack() == this;
     }
 
     /**
      * Returns the total number of items stored in this backpack
      */
     public int getNbOfItems() {
-        int total = 0;
-        for (ArrayList<Equipable> list : getContent().values()) {
-            total = total + list.size();
-        }
-        return total;
+        if(isCheckingAggregates())
+            checkAggregates();
+        return nbOfItems;
     }
 
     /**
-     * Returns the number of armors stored in a backpack
+     * Returns the number of armors stored in a backpack, including the armors in the backpacks stored in it.
      */
     public int getNbOfArmors(){
-        int total = 0;
-        for(ArrayList<Equipable> list : getContent().values()){
-            for(int i=0; i<list.size(); i++){
-                 if(list.get(i) instanceof Armor)
-                     total++;
-            }
+        if(isCheckingAggregates())
+            checkAggregates();
+        return nbOfArmors;
+    }
+
+    /**************
+     * Aggregates
+     **************/
+
+    /**
+     * A variable referencing the number of items stored in this backpack.
+     */
+    private int nbOfItems = 0;
+
+    /**
+     * A variable referencing the sum of the weights of all the items stored in this backpack, including the content of
+     * the backpacks stored in it, not including the weight of the backpack itself.
+     */
+    private int contentWeight = 0;
+
+    /**
+     * A variable referencing the sum of the values of all the items stored in this backpack, including the content of
+     * the backpacks stored in it, not including the value of the backpack itself.
+     *
+     * @note The value of an armor changes through time. The stored armors are therefore kept in a separate list,
+     *       so that their wear can be accounted for before the total value is returned.
+     */
+    private int contentValue = 0;
+
+    /**
+     * A variable referencing the number of armors stored in this backpack, including the armors in the backpacks
+     * stored in it.
+     */
+    private int nbOfArmors = 0;
+
+    /**
+     * A list referencing the armors stored directly in this backpack.
+     */
+    private final ArrayList<Armor> armors = new ArrayList<Armor>();
+
+    /**
+     * A list referencing the backpacks stored directly in this backpack.
+     */
+    private final ArrayList<Backpack> backpacks = new ArrayList<Backpack>();
+
+    /**
+     * A static variable stating whether the aggregates of every backpack are recomputed and compared
+     * with the cached values each time they are read. This is enabled by default when assertions are enabled.
+     */
+    private static boolean checkingAggregates = Backpack.class.desiredAssertionStatus();
+
+    /**
+     * Returns true if the aggregates of backpacks are checked each time they are read.
+     */
+    @Basic
+    public static boolean isCheckingAggregates() {
+        return checkingAggregates;
+    }
+
+    /**
+     * Enables or disables the checking of the aggregates of backpacks.
+     *
+     * @param checkingAggregates
+     *        True if the cached aggregates need to be checked each time they are read.
+     * @post  The aggregates are checked if and only if the given flag is true.
+     *        |isCheckingAggregates() == checkingAggregates
+     */
+    public static void setCheckingAggregates(boolean checkingAggregates) {
+        Backpack.checkingAggregates = checkingAggregates;
+    }
+
+    /**
+     * Changes the cached value of the content of this backpack with the given delta.
+     *
+     * @param delta
+     *        The amount by which the value of one of the stored items has changed.
+     * @effect The cached content of this backpack and of every backpack it is nested in changes with the given delta.
+     *         |changeContent(0, delta, 0)
+     */
+    @Model
+    protected void changeContentValue(int delta){
+        changeContent(0, delta, 0);
+    }
+
+    /**
+     * Changes the cached aggregates of the content of this backpack and of every backpack this backpack is nested in.
+     *
+     * @param weight
+     *        The change of the weight of the content.
+     * @param value
+     *        The change of the value of the content.
+     * @param armors
+     *        The change of the number of armors in the content.
+     * @post  The cached aggregates of this backpack and of each backpack it is nested in are incremented with the given
+     *        changes.
+     *        |for each backpack with isWithin(backpack):
+     *        |    new.backpack.contentWeight == backpack.contentWeight + weight
+     *        |    new.backpack.contentValue == backpack.contentValue + value
+     *        |    new.backpack.nbOfArmors == backpack.nbOfArmors + armors
+     * @effect The holder of this backpack, if any, is told that the content of the anchor holding the outermost
+     *        backpack changed.
+     *        |if(getHolder() != null)
+     *        |    then getHolder().contentChanged(root.getAnchor()) with root the outermost backpack
+     */
+    @Model
+    private void changeContent(int weight, int value, int armors){
+        Backpack root = this;
+        for(Backpack current = this; current != null; current = current.getParentbackpack()){
+            current.contentWeight += weight;
+            current.contentValue += value;
+            current.nbOfArmors += armors;
+            root = current;
         }
-      return total;
+        if(getHolder() != null)
+            getHolder().contentChanged(root.getAnchor());
+    }
+
+    /**
+     * Recomputes the aggregates of this backpack by walking its content and compares them with the cached values.
+     *
+     * @throws IllegalStateException
+     *         One of the recomputed aggregates differs from the cached aggregate.
+     *         |computeNbOfItems() != nbOfItems || computeNbOfArmors() != nbOfArmors
+     *         || computeContentWeight() != contentWeight || computeContentValue() != contentValue
+     * @note   The totals of the backpacks stored in this backpack are read from their own cached aggregates, which are
+     *         checked in turn.
+     */
+    @Model
+    private void checkAggregates() throws IllegalStateException{
+        int[] totals = new int[4];
+        getContent().forEach(item -> {
+            totals[0]++;
+            totals[1] += getNbOfArmors(item);
+            totals[2] += getTotalWeight(item);
+            totals[3] += getTotalValue(item);
+        });
+        if(totals[0] != nbOfItems || totals[1] != nbOfArmors || totals[2] != contentWeight || totals[3] != contentValue)
+            throw new IllegalStateException("Cached aggregates of backpack " + getId() + " are out of date: items "
+                    + nbOfItems + "/" + totals[0] + ", armors " + nbOfArmors + "/" + totals[1] + ", weight "
+                    + contentWeight + "/" + totals[2] + ", value " + contentValue + "/" + totals[3]);
+    }
+
+    /**
+     * Returns the weight of the given item, including its content if it is a backpack.
+     */
+    @Model
+    private static int getTotalWeight(Equipable item){
+        if(item instanceof Backpack)
+            return ((Backpack) item).getTotalWeight();
+        return item.getWeight();
+    }
+
+    /**
+     * Returns the value of the given item, including its content if it is a backpack.
+     */
+    @Model
+    private static int getTotalValue(Equipable item){
+        if(item instanceof Backpack)
+            return ((Backpack) item).getTotalValue();
+        return item.getValue();
+    }
+
+    /**
+     * Returns the number of armors the given item counts for: one for an armor, its stored armors for a backpack.
+     */
+    @Model
+    private static int getNbOfArmors(Equipable item){
+        if(item instanceof Armor)
+            return 1;
+        if(item instanceof Backpack)
+            return ((Backpack) item).getNbOfArmors();
+        return 0;
     }
 
     /**************
@@ -242,14 +556,9 @@ public class Backpack extends Equipable{
      *                              getItemAt(i).getTotalWeight} + this.getWeight()
      */
     public int getTotalWeight(){
-        int sum = 0;
-        for(ArrayList<Equipable> list : getContent().values()){
-            for(int i=0; i<list.size(); i++){
-                sum += list.get(i).getWeight();
-            }
-        }
-        sum += this.getWeight();
-        return sum;
+        if(isCheckingAggregates())
+            checkAggregates();
+        return contentWeight + this.getWeight();
     }
 
     /**************
@@ -263,16 +572,34 @@ public class Backpack extends Equipable{
      * @return the sum of the total value for each equipable item stored in this backpack plus the value of the backpack itself.
      *          |result == sum {for(int i 0: content.size)
      *                              getItemAt(i).getTotalValue} + this.getValue()
+     * @effect The value of each armor stored in this backpack or in the backpacks stored in it is updated to account for
+     *         its wear, which updates the cached content value.
+     *         |updateWear()
      */
     public int getTotalValue(){
-        int sum = 0;
-        for(ArrayList<Equipable> list : getContent().values()){
-            for(int i=0; i<list.size(); i++){
-                sum += list.get(i).getValue();
-            }
+        updateWear();
+        if(isCheckingAggregates())
+            checkAggregates();
+        return contentValue + this.getValue();
+    }
+
+    /**
+     * Updates the value of the armors stored in this backpack and in the backpacks stored in it to account for their wear.
+     * Only the stored armors and backpacks are visited, not the other items.
+     *
+     * @effect The value of each armor stored directly in this backpack is updated, and the wear of each backpack stored
+     *         directly in this backpack is updated.
+     *         |for each armor in armors: armor.getValue()
+     *         |for each backpack in backpacks: backpack.updateWear()
+     */
+    @Model
+    private void updateWear(){
+        for(int i=0; i<armors.size(); i++){
+            armors.get(i).getValue();
+        }
+        for(int i=0; i<backpacks.size(); i++){
+            backpacks.get(i).updateWear();
         }
-        sum += this.getValue();
-        return sum;
     }
 
     /*********
@@ -304,29 +631,56 @@ public class Backpack extends Equipable{
         return capacity;
     }
 
+    /**
+     * Checks whether the given item can be added to this backpack without exceeding the capacity of this backpack or of
+     * any backpack this backpack is nested in.
+     *
+     * @param item
+     *        The item to check.
+     * @return False if the weight of the item, including its content if it is a backpack, does not fit in the remaining
+     *         capacity of this backpack or of one of the backpacks it is nested in.
+     *         |result == for each backpack with isWithin(backpack):
+     *         |              backpack.getTotalWeight() + totalWeight(item) <= backpack.getCapacity()
+     */
+    public boolean hasRoomFor(Equipable item){
+        int weight = getTotalWeight(item);
+        for(Backpack current = this; current != null; current = current.getParentbackpack()){
+            if(current.getCapacity() < current.getTotalWeight() + weight)
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Add the given equipable item to the items registered in this backpack
-     * and sets the indentification of the item as the key in the hashmap.
+     * and sets the indentification of the item as the key in the content map.
      * @param item
      *        The equipable item to be added.
      *
-     * @effect The holder of the item is set to the current holder of this backpack.
+     * @effect The holder of the item, and of all the items in it if it is a backpack, is set to the current holder of
+     *         this backpack.
      *         |item.setHolder(this.getHolder())
+     *         |if(item instanceof Backpack)
+     *         |    then ((Backpack) item).forEachItem(content -> content.setHolder(this.getHolder()))
      * @effect The parent backpack of the equipable item is set to this backpack
      *         |item.setParentbackpack(this)
-     * @post if the identification number is already used as an identification number,
-     *       the list linked to the key is appended with the given item.
-     *       if the identification number hasn't been used yet, a new entry is created.
-     *       |  if(!containsID(id)){
-     *       |      getContent().put(id, new ArrayList<Equipable>())
-     *       |  getContent().get(id).add(item);
+     * @post The item is stored in the content with its identification number as its key.
+     *       |getContent().add(id, item)
+     * @post The cached weight, value and armors of this backpack and of every backpack it is nested in are updated to
+     *       account for the added item, including its content if it is a backpack. The number of items of this backpack
+     *       is incremented.
+     *       |for each backpack with isWithin(backpack):
+     *       |    new.backpack.getTotalWeight() == backpack.getTotalWeight() + totalWeight(item)
+     *       |new.getNbOfItems() == getNbOfItems() + 1
      *
      * @throws BackPackNotEmptyException
-     *         The item to be added is a backpack that hasn't been emptied.
-     *         |(Backpack) item.getWeight != (Backpack) item.getTotalWeight()
+     *         The item to be added is this backpack or a backpack this backpack is nested in, so adding it would put
+     *         a backpack inside itself.
+     *         |item instanceof Backpack && isWithin((Backpack) item)
      * @throws CarryLimitReachedException
-     *         The item cannot be added because the maximum carrying capacity has been reached.
-     *         |this.getCapacity() < this.getTotalWeight()+item.getWeight()
+     *         The item cannot be added because the maximum carrying capacity of this backpack or of a backpack it is
+     *         nested in has been reached.
+     *         |!hasRoomFor(item)
      * @throws ItemAlreadyobtainedException
      *         The item is already being stored in this backpack
      *         |this.contains(item) == True
@@ -342,10 +696,10 @@ public class Backpack extends Equipable{
     protected void addEquipable(Equipable item) throws BackPackNotEmptyException, CarryLimitReachedException, OtherPlayersItemException, ItemAlreadyobtainedException,
             NullPointerException{
         if(item instanceof Backpack){
-            if(item.getWeight() != ((Backpack) item).getTotalWeight())
+            if(isWithin((Backpack) item))
                 throw new BackPackNotEmptyException((Backpack) item);
         }
-        if(getCapacity() < getTotalWeight()+item.getWeight())
+        if(!hasRoomFor(item))
             throw new CarryLimitReachedException(item);
 
         if(contains(item))
@@ -354,14 +708,54 @@ public class Backpack extends Equipable{
         if(getHolder() == null)
             throw new NullPointerException();
 
-        item.setHolder(this.getHolder());
-        long id = item.getId();
+        putEquipable(item);
+    }
 
-        if(!containsID(id)){
-            getContent().put(id, new ArrayList<Equipable>());
-        }
+    /**
+     * Adds the given item to the content of this backpack while this backpack is rebuilt outside of any creature,
+     * such as a backpack taken from an item catalog with its content.
+     *
+     * @param item
+     *        The equipable item to be added, lying on the ground.
+     * @effect The item is added to the content of this backpack.
+     *         |putEquipable(item)
+     * @throws IllegalArgumentException
+     *         This backpack is held by a creature, the item does not lie on the ground, the item would put a backpack
+     *         inside itself, or there is no room for the item.
+     *         |getHolder() != null || item.getHolder() != null || item.getParentbackpack() != null
+     *         || (item instanceof Backpack && isWithin((Backpack) item)) || !hasRoomFor(item)
+     */
+    @Model
+    protected void restoreEquipable(Equipable item) throws IllegalArgumentException{
+        if(getHolder() != null || item.getHolder() != null || item.getParentbackpack() != null)
+            throw new IllegalArgumentException();
+        if((item instanceof Backpack && isWithin((Backpack) item)) || !hasRoomFor(item))
+            throw new IllegalArgumentException();
+        putEquipable(item);
+    }
 
-        getContent().get(id).add(item);
+    /**
+     * Stores the given item in this backpack, with the holder of this backpack as its holder, and updates the cached
+     * aggregates.
+     *
+     * @param item
+     *        The equipable item to be stored.
+     */
+    @Model
+    private void putEquipable(Equipable item){
+        item.setHolder(this.getHolder());
+        if(item instanceof Backpack){
+            Creature holder = getHolder();
+            ((Backpack) item).forEachItem(content -> content.setHolder(holder));
+        }
+        getContent().add(item.getId(), item);
+
+        nbOfItems++;
+        changeContent(getTotalWeight(item), getTotalValue(item), getNbOfArmors(item));
+        if(item instanceof Armor)
+            armors.add((Armor) item);
+        if(item instanceof Backpack)
+            backpacks.add((Backpack) item);
         item.setParentbackpack(this);
     }
 
@@ -372,11 +766,15 @@ public class Backpack extends Equipable{
      *        The item to remove.
      * @effect The parent backpack of the equipable item is set to null
      *         |item.setParentbackpack(null)
-     * @post If the size of the arraylist, belonging to the id key of the content hashmap is equal to one,
-     *       the entire entry is deleted, else only the item at the index where the equipable item was located is deleted,
-     *       decrementing the size of the arraylist by one
-     *       |getContent().get(id).remove(item);
-     *       |if(getContent().get(id).size() == 0) {getContent().remove(id)}
+     * @post The item is removed from the content. If it was the last item with its identification number,
+     *       the identification number is no longer a key of the content.
+     *       |getContent().remove(id, item)
+     * @post The cached weight, value and armors of this backpack and of every backpack it is nested in are updated to
+     *       account for the removed item, including its content if it is a backpack. The number of items of this
+     *       backpack is decremented.
+     *       |for each backpack with isWithin(backpack):
+     *       |    new.backpack.getTotalWeight() == backpack.getTotalWeight() - totalWeight(item)
+     *       |new.getNbOfItems() == getNbOfItems() - 1
      *
      * @throws IllegalArgumentException
      *         The item to be removed is not contained within the contents of content.
@@ -387,12 +785,14 @@ public class Backpack extends Equipable{
         if(!contains(item))
             throw new IllegalArgumentException();
 
-        long id = item.getId();
-        getContent().get(id).remove(item);
+        getContent().remove(item.getId(), item);
+        nbOfItems--;
+        changeContent(-getTotalWeight(item), -getTotalValue(item), -getNbOfArmors(item));
+        if(item instanceof Armor)
+            armors.remove(item);
+        if(item instanceof Backpack)
+            backpacks.remove(item);
 
-        if(getContent().get(id).size() == 0){
-            getContent().remove(id);
-        }
         item.setParentbackpack(null);
     }
 
@@ -404,8 +804,9 @@ public class Backpack extends Equipable{
      *
      * @effect The item equiped in the given anchorslot is set to this item.
      *         |anchor.setItem(this)
-     * @effect The holder of this backpack is set to the owner of the anchor
+     * @effect The holder of this backpack and of all the items in it is set to the owner of the anchor
      *         |setHolder(anchor.getOwner());
+     *         |forEachItem(item -> item.setHolder(anchor.getOwner()))
      * @effect The capacity of the owner is reduced to account for the weight of the item.
      *         |anchor.getOwner().ChangeCapacity(-this.getTotalWeight())
      */
@@ -414,9 +815,8 @@ public class Backpack extends Equipable{
     protected void equip(Anchor anchor){
         anchor.setItem(this);
         setHolder(anchor.getOwner());
-        for(Equipable item: getAllItems()){
-            setHolder(anchor.getOwner());
-        }
+        Creature owner = anchor.getOwner();
+        forEachItem(item -> item.setHolder(owner));
         anchor.getOwner().ChangeCapacity(-this.getTotalWeight());
     }
 
@@ -5,6 +5,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.*;
 
+import java.util.ArrayList;
+
 /**
  * A JUnit test class for testing the non-private methods of the Backpack Class.
  *
@@ -97,13 +99,66 @@ import org.junit.*;
         Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight()+ StoredBackpack.getWeight());
     }
 
-    @Test(expected = BackPackNotEmptyException.class)
+    @Test
      public void testStoreLoadedBackpack() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
         testHero2.pickUp(GroundBackpack,AnchorType.RUG);
         GroundBackpack.addEquipable(StoredWeapon);
         testHero2.drop(GroundBackpack);
         HeroBackpack.addEquipable(GroundBackpack);
 
+        Assert.assertEquals(StoredWeapon.getHolder(), testHero);
+        Assert.assertEquals(HeroBackpack.getNbOfItems(),1);
+        Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight() + GroundBackpack.getWeight() + StoredWeapon.getWeight());
+        Assert.assertEquals(HeroBackpack.getTotalValue(),HeroBackpack.getValue() + GroundBackpack.getValue() + StoredWeapon.getValue());
+    }
+
+    @Test(expected = BackPackNotEmptyException.class)
+     public void testStoreBackpackInItself() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
+        HeroBackpack.addEquipable(StoredBackpack);
+        StoredBackpack.addEquipable(HeroBackpack);
+    }
+
+    @Test
+     public void testNestedAggregatesPropagate() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
+        Backpack inner = new Backpack(23, 1, 10, 20);
+        Weapon linked = new Weapon(3, 14);
+        HeroBackpack.addEquipable(GroundBackpack);
+        GroundBackpack.addEquipable(inner);
+        inner.addEquipable(linked);
+        inner.addEquipable(StoredArmor);
+        Assert.assertEquals(HeroBackpack.getNbOfItems(),1);
+        Assert.assertEquals(HeroBackpack.getNbOfArmors(),1);
+        Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight() + 4 + 1 + 3 + StoredArmor.getWeight());
+        int value = HeroBackpack.getTotalValue();
+
+        linked.EnhanceDamage(7);
+        Assert.assertEquals(HeroBackpack.getTotalValue(),value + 14);
+        Assert.assertEquals(GroundBackpack.getTotalValue(),GroundBackpack.getValue() + inner.getTotalValue());
+
+        GroundBackpack.removeEquipable(inner);
+        Assert.assertEquals(HeroBackpack.getNbOfArmors(),0);
+        Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight() + 4);
+        Assert.assertEquals(HeroBackpack.getTotalValue(),HeroBackpack.getValue() + GroundBackpack.getValue());
+    }
+
+    @Test
+     public void testForEachItemVisitsContentFirst() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
+        HeroBackpack.addEquipable(GroundBackpack);
+        GroundBackpack.addEquipable(StoredWeapon);
+        ArrayList<Equipable> visited = new ArrayList<Equipable>();
+        testHero.forEachItem(visited::add);
+        Assert.assertEquals(visited.size(), 4);
+        Assert.assertTrue(visited.indexOf(StoredWeapon) < visited.indexOf(GroundBackpack));
+        Assert.assertTrue(visited.indexOf(GroundBackpack) < visited.indexOf(HeroBackpack));
+        Assert.assertTrue(visited.contains(testArmor));
+        Assert.assertEquals(HeroBackpack.getAllItems().size(), 2);
+    }
+
+    @Test(expected = CarryLimitReachedException.class)
+     public void testNestedCarryLimit() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
+        Backpack roomy = new Backpack(24, 1, 10, 100);
+        HeroBackpack.addEquipable(roomy);
+        roomy.addEquipable(new Weapon(15, 14));
     }
 
     @Test(expected = CarryLimitReachedException.class)
@@ -132,6 +187,26 @@ import org.junit.*;
         Assert.assertEquals(HeroBackpack.getTotalWeight(),16);
     }
 
+    @Test
+     public void testAggregatesFollowContent() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
+        Weapon linked = new Weapon(3, 14);
+        Armor looseArmor = new Armor(31, 2, ArmorType.DEFAULT, 100);
+        HeroBackpack.addEquipable(linked);
+        HeroBackpack.addEquipable(looseArmor);
+        Assert.assertEquals(HeroBackpack.getNbOfItems(),2);
+        Assert.assertEquals(HeroBackpack.getNbOfArmors(),1);
+        Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight() + 3 + 2);
+        Assert.assertEquals(HeroBackpack.getTotalValue(),HeroBackpack.getValue() + 28 + looseArmor.getValue());
+
+        linked.EnhanceDamage(7);
+        Assert.assertEquals(HeroBackpack.getTotalValue(),HeroBackpack.getValue() + 42 + looseArmor.getValue());
+
+        HeroBackpack.removeEquipable(looseArmor);
+        Assert.assertEquals(HeroBackpack.getNbOfArmors(),0);
+        Assert.assertEquals(HeroBackpack.getTotalWeight(),HeroBackpack.getWeight() + 3);
+        Assert.assertEquals(HeroBackpack.getTotalValue(),HeroBackpack.getValue() + 42);
+    }
+
     @Test( expected = NullPointerException.class)
      public void testNullItemAdd() throws OtherPlayersItemException, ItemAlreadyobtainedException, CarryLimitReachedException, BackPackNotEmptyException {
         HeroBackpack.addEquipable(nullItem);
@@ -6,6 +6,8 @@ import be.kuleuven.cs.som.annotate.Immutable;
 /**
  * A class for signaling illegal attempts to equip an item that is not a purse in an anchor with anchortype RIEM.
  *
+ * The exception does not record a stack trace.
+ *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
@@ -23,7 +25,10 @@ public class BeltAnchorException extends RuntimeException {
      * @post  The item involved in this exception is set to the given item.
      *        |this.item == item
      */
-    public BeltAnchorException(Equipable item){this.item = item;}
+    public BeltAnchorException(Equipable item){
+        super(null, null, false, false);
+        this.item = item;
+    }
 
     /**
      * returns the item that is involved in the exception.
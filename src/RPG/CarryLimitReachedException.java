@@ -6,6 +6,10 @@ import be.kuleuven.cs.som.annotate.Immutable;
 /**
  * A class for signaling illegal attempts to equip or store an item that would exceed the carry limit.
  *
+ * Running out of room is an ordinary outcome of looting and trading, so the exception does not record a stack trace,
+ * which is the costly part of throwing it. The same holds for the other exceptions for broken inventory rules.
+ * Callers that only want to know whether a move works use the try methods of creatures, which throw nothing.
+ *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
@@ -23,6 +27,7 @@ public class CarryLimitReachedException extends Exception{
      *        |this.item == item
      */
     public CarryLimitReachedException(Equipable item){
+        super(null, null, false, false);
         this.item = item;
     }
 
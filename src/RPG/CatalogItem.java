@@ -0,0 +1,175 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+/**
+ * A class of views on the items in an item catalog.
+ *
+ * A view holds nothing but its catalog and the index of a record, and reads every property from the mapping of the
+ * catalog when it is asked for, so a million items in a catalog cost no objects on the heap. The properties mirror
+ * the ones of the Equipable the record was written from. A view on a record that has been taken out of the catalog
+ * no longer describes an item.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public final class CatalogItem {
+
+    /**
+     * Initialize a view on the record with the given index in the given catalog.
+     *
+     * @param catalog
+     *        The catalog.
+     * @param index
+     *        The index of the record.
+     */
+    @Model
+    CatalogItem(ItemCatalog catalog, int index){
+        this.catalog = catalog;
+        this.index = index;
+    }
+
+    /**
+     * The catalog this view reads from.
+     */
+    private final ItemCatalog catalog;
+
+    /**
+     * The index of the record this view reads.
+     */
+    private int index;
+
+    /**
+     * Returns the catalog this view reads from.
+     */
+    @Basic @Immutable
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns the index of the record this view reads.
+     */
+    @Basic
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Moves this view to the record with the given index, so that one view can walk over the whole catalog.
+     *
+     * @param index
+     *        The index of the record.
+     */
+    @Model
+    void moveTo(int index){
+        this.index = index;
+    }
+
+    /**
+     * Returns the int at the given offset in the record of this view.
+     */
+    @Model
+    private int getInt(int offset){
+        return catalog.getMapping().getInt(ItemCatalog.offsetOf(index) + offset);
+    }
+
+    /**
+     * Returns the byte at the given offset in the record of this view.
+     */
+    @Model
+    private byte getByte(int offset){
+        return catalog.getMapping().get(ItemCatalog.offsetOf(index) + offset);
+    }
+
+    /**
+     * Returns the identification number of the item.
+     */
+    public long getId(){
+        return getInt(ItemCatalog.ID);
+    }
+
+    /**
+     * Returns the tag of the kind of the item, as in CompactInventory.
+     */
+    public byte getTag(){
+        return getByte(ItemCatalog.TAG);
+    }
+
+    /**
+     * Returns the weight of the item.
+     */
+    public int getWeight(){
+        return getInt(ItemCatalog.WEIGHT);
+    }
+
+    /**
+     * Returns the value of the item.
+     */
+    public int getValue(){
+        return getInt(ItemCatalog.VALUE);
+    }
+
+    /**
+     * Returns the damage of the weapon.
+     *
+     * @throws IllegalStateException
+     *         The item is not a weapon.
+     *         |getTag() != CompactInventory.WEAPON
+     */
+    public int getDamage() throws IllegalStateException{
+        if(getTag() != CompactInventory.WEAPON)
+            throw new IllegalStateException();
+        return getInt(ItemCatalog.STAT);
+    }
+
+    /**
+     * Returns the armortype of the armor.
+     *
+     * @throws IllegalStateException
+     *         The item is not an armor.
+     *         |getTag() != CompactInventory.ARMOR
+     */
+    public ArmorType getArmorType() throws IllegalStateException{
+        if(getTag() != CompactInventory.ARMOR)
+            throw new IllegalStateException();
+        return ArmorType.values()[getByte(ItemCatalog.FLAGS)];
+    }
+
+    /**
+     * Returns the armorvalue the armor had at its last check before it was added to the catalog. The wear since that
+     * check is accounted for when the armor is taken out.
+     *
+     * @throws IllegalStateException
+     *         The item is not an armor.
+     *         |getTag() != CompactInventory.ARMOR
+     */
+    public int getActualArmor() throws IllegalStateException{
+        if(getTag() != CompactInventory.ARMOR)
+            throw new IllegalStateException();
+        return getInt(ItemCatalog.ARMOR);
+    }
+
+    /**
+     * Returns the capacity of the backpack.
+     *
+     * @throws IllegalStateException
+     *         The item is not a backpack.
+     *         |getTag() != CompactInventory.BACKPACK
+     */
+    public int getCapacity() throws IllegalStateException{
+        if(getTag() != CompactInventory.BACKPACK)
+            throw new IllegalStateException();
+        return getInt(ItemCatalog.STAT);
+    }
+
+    /**
+     * Returns the index of the record of the backpack this item is stored in, or ItemCatalog.NONE if the item lies
+     * on the ground.
+     */
+    public int getParentIndex(){
+        return getInt(ItemCatalog.PARENT);
+    }
+}
@@ -0,0 +1,342 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * A class of simulators that run large batches of independent fights between a hero and a monster.
+ *
+ * Every fight gets its own hero and monster, built from the templates of the simulator, so fights never share
+ * creatures or items and can run on several threads at the same time. The batch is split into ranges of fights that
+ * are run in parallel on a fork/join pool, and the results of the ranges are combined into statistics.
+ * Each range draws its randomness from its own split of a splittable random generator. Ranges are split the same way
+ * every time, so a batch simulated with the same seed gives the same statistics, whichever threads run the ranges.
+ * Nothing is printed during a fight. After a fight the items of both creatures are destroyed, so that their
+ * identification numbers can be used again by the next fights.
+ *
+ * @invar The maximum number of hits of a fight is strictly positive.
+ *        | getMaxRounds() > 0
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CombatSimulator {
+
+    /**
+     * Initialize a new simulator with the given templates, running on the common fork/join pool.
+     *
+     * @param heroTemplate
+     *        The template building a new hero for every fight.
+     * @param monsterTemplate
+     *        The template building a new monster for every fight.
+     * @effect The simulator is initialized with templates ignoring the random generator of the fight.
+     *         |this(random -> heroTemplate.get(), random -> monsterTemplate.get())
+     * @throws IllegalArgumentException
+     *         One of the templates is not effective.
+     *         |heroTemplate == null || monsterTemplate == null
+     */
+    public CombatSimulator(Supplier<? extends Hero> heroTemplate, Supplier<? extends Monster> monsterTemplate)
+            throws IllegalArgumentException{
+        this(ignoringRandom(heroTemplate), ignoringRandom(monsterTemplate));
+    }
+
+    /**
+     * Initialize a new simulator with the given templates, running on the common fork/join pool.
+     *
+     * @param heroTemplate
+     *        The template building a new hero for every fight from the random generator of the fight.
+     * @param monsterTemplate
+     *        The template building a new monster for every fight from the random generator of the fight.
+     * @effect The simulator is initialized with the given templates, the default maximum number of hits per fight
+     *         and the common fork/join pool.
+     *         |this(heroTemplate, monsterTemplate, getDefaultMaxRounds(), ForkJoinPool.commonPool())
+     */
+    public CombatSimulator(Function<? super RandomGenerator, ? extends Hero> heroTemplate,
+                           Function<? super RandomGenerator, ? extends Monster> monsterTemplate) throws IllegalArgumentException{
+        this(heroTemplate, monsterTemplate, getDefaultMaxRounds(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initialize a new simulator with the given templates, maximum number of hits per fight and pool.
+     *
+     * @param heroTemplate
+     *        The template building a new hero for every fight from the random generator of the fight.
+     * @param monsterTemplate
+     *        The template building a new monster for every fight from the random generator of the fight.
+     * @param maxRounds
+     *        The number of hits after which a fight ends without a winner.
+     * @param pool
+     *        The pool running the fights.
+     * @throws IllegalArgumentException
+     *         One of the templates or the pool is not effective, or the maximum number of hits is not strictly positive.
+     *         |heroTemplate == null || monsterTemplate == null || pool == null || maxRounds <= 0
+     */
+    public CombatSimulator(Function<? super RandomGenerator, ? extends Hero> heroTemplate,
+                           Function<? super RandomGenerator, ? extends Monster> monsterTemplate,
+                           int maxRounds, ForkJoinPool pool) throws IllegalArgumentException{
+        if(heroTemplate == null || monsterTemplate == null || pool == null || maxRounds <= 0)
+            throw new IllegalArgumentException();
+        this.heroTemplate = heroTemplate;
+        this.monsterTemplate = monsterTemplate;
+        this.maxRounds = maxRounds;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns a template that builds its creature with the given supplier, ignoring the random generator of the fight.
+     * @throws IllegalArgumentException
+     *         The given supplier is not effective.
+     *         |template == null
+     */
+    @Model
+    private static <T> Function<RandomGenerator, T> ignoringRandom(Supplier<? extends T> template)
+            throws IllegalArgumentException{
+        if(template == null)
+            throw new IllegalArgumentException();
+        return random -> template.get();
+    }
+
+    /**
+     * The template building a new hero for every fight from the random generator of the fight.
+     */
+    private final Function<? super RandomGenerator, ? extends Hero> heroTemplate;
+
+    /**
+     * The template building a new monster for every fight from the random generator of the fight.
+     */
+    private final Function<? super RandomGenerator, ? extends Monster> monsterTemplate;
+
+    /**
+     * The number of hits after which a fight ends without a winner.
+     */
+    private final int maxRounds;
+
+    /**
+     * The pool running the fights.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The default number of hits after which a fight ends without a winner.
+     */
+    private static final int DEFAULT_MAX_ROUNDS = 10000;
+
+    /**
+     * The number of fights below which a range of fights is run by a single task instead of being split further.
+     */
+    private static final int FIGHTS_PER_TASK = 256;
+
+    /**
+     * Returns the default number of hits after which a fight ends without a winner.
+     */
+    @Basic @Immutable
+    public static int getDefaultMaxRounds() {
+        return DEFAULT_MAX_ROUNDS;
+    }
+
+    /**
+     * Returns the number of hits after which a fight ends without a winner.
+     */
+    @Basic @Immutable
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Returns the pool running the fights of this simulator.
+     */
+    @Basic @Immutable
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Runs the given number of independent fights with a random seed and returns their statistics.
+     *
+     * @param nbOfFights
+     *        The number of fights to run.
+     * @effect The fights are simulated with a seed drawn from the random generator of the current thread.
+     *         |simulate(nbOfFights, ThreadLocalRandom.current().nextLong())
+     */
+    public CombatStatistics simulate(long nbOfFights) throws IllegalArgumentException{
+        return simulate(nbOfFights, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Runs the given number of independent fights and returns their statistics.
+     *
+     * @param nbOfFights
+     *        The number of fights to run.
+     * @param seed
+     *        The seed of the randomness of the fights. Simulating the same number of fights with the same seed and
+     *        templates gives the same statistics.
+     * @return The combined statistics of the given number of fights, each between a new hero and a new monster.
+     *         |result.getNbOfFights() == nbOfFights
+     * @throws IllegalArgumentException
+     *         The number of fights is negative.
+     *         |nbOfFights < 0
+     */
+    public CombatStatistics simulate(long nbOfFights, long seed) throws IllegalArgumentException{
+        if(nbOfFights < 0)
+            throw new IllegalArgumentException();
+        return getPool().invoke(new FightRange(0, nbOfFights, new SplittableRandom(seed)));
+    }
+
+    /**
+     * A class of tasks running a range of fights, splitting it in two halves as long as it is large.
+     */
+    private class FightRange extends RecursiveTask<CombatStatistics> {
+
+        /**
+         * The version of the serialized form of fight ranges, which are never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The index of the first fight of the range.
+         */
+        private final long from;
+
+        /**
+         * The index after the last fight of the range.
+         */
+        private final long to;
+
+        /**
+         * The random generator of the fights of the range.
+         */
+        private final SplittableRandom random;
+
+        private FightRange(long from, long to, SplittableRandom random){
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected CombatStatistics compute() {
+            if(to - from <= FIGHTS_PER_TASK)
+                return runFights(from, to, random);
+            long middle = (from + to) >>> 1;
+            FightRange left = new FightRange(from, middle, random.split());
+            left.fork();
+            CombatStatistics right = new FightRange(middle, to, random).compute();
+            return left.join().combine(right);
+        }
+    }
+
+    /**
+     * Runs the fights with the given indices on the current thread.
+     *
+     * @param from
+     *        The index of the first fight.
+     * @param to
+     *        The index after the last fight.
+     * @param random
+     *        The random generator of the fights, used by the templates and by both creatures.
+     * @return The statistics of the fights.
+     */
+    @Model
+    private CombatStatistics runFights(long from, long to, RandomGenerator random){
+        long heroWins = 0, monsterWins = 0, draws = 0, totalRounds = 0, longestFight = 0, lootValue = 0;
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+        for(long i = from; i < to; i++){
+            Hero hero = heroTemplate.apply(random);
+            Monster monster = monsterTemplate.apply(random);
+            hero.setRandom(random);
+            monster.setRandom(random);
+            collectItems(hero, items);
+            collectItems(monster, items);
+
+            int rounds = fight(hero, monster, random.nextBoolean());
+            totalRounds += rounds;
+            longestFight = Math.max(longestFight, rounds);
+            if(!monster.isAlive()){
+                heroWins++;
+                lootValue += hero.getTotalValueOfItems();
+            }
+            else if(!hero.isAlive()){
+                monsterWins++;
+                lootValue += monster.getTotalValueOfItems();
+            }
+            else draws++;
+
+            destroyItems(items);
+            items.clear();
+        }
+        return new CombatStatistics(heroWins, monsterWins, draws, totalRounds, longestFight, lootValue);
+    }
+
+    /**
+     * Lets the given hero and monster hit each other in turns until one of them dies or the maximum number of hits
+     * is reached.
+     *
+     * @param hero
+     *        The hero fighting.
+     * @param monster
+     *        The monster fighting.
+     * @param heroFirst
+     *        Whether the hero hits first.
+     * @return The number of hits in the fight.
+     */
+    @Model
+    private int fight(Hero hero, Monster monster, boolean heroFirst){
+        boolean heroTurn = heroFirst;
+        int rounds = 0;
+        while(hero.isAlive() && monster.isAlive() && rounds < getMaxRounds()){
+            if(heroTurn)
+                hero.Hit(monster);
+            else monster.Hit(hero);
+            heroTurn = !heroTurn;
+            rounds++;
+        }
+        return rounds;
+    }
+
+    /**
+     * Adds the items the given creature carries to the given list. The content of a backpack is added before the
+     * backpack itself.
+     *
+     * @param creature
+     *        The creature of which the items are collected.
+     * @param items
+     *        The list to add the items to.
+     */
+    @Model
+    static void collectItems(Creature creature, ArrayList<Equipable> items){
+        creature.forEachItem(items::add);
+    }
+
+    /**
+     * Takes each of the given items away from wherever it ended up after a fight and destroys it.
+     *
+     * @param items
+     *        The items to destroy, the content of each backpack before the backpack itself.
+     * @effect Each item is dropped by its holder, or taken out of its backpack if it has no holder, and destroyed.
+     *         |for each item in items: item.getHolder().drop(item) && item.destroy()
+     */
+    @Model
+    static void destroyItems(ArrayList<Equipable> items){
+        for(Equipable item : items){
+            try {
+                if(item.getHolder() != null)
+                    item.getHolder().drop(item);
+                else if(item.getParentbackpack() != null)
+                    item.getParentbackpack().removeEquipable(item);
+            } catch (OtherPlayersItemException e) {
+                throw new RuntimeException(e);
+            }
+            item.destroy();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A JUnit test class for testing the non-private methods of the CombatSimulator and CombatStatistics classes.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CombatSimulatorTest {
+
+    private CombatSimulator simulator;
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUpSimulator(){
+        pool = new ForkJoinPool(4);
+        simulator = new CombatSimulator(
+                random -> new Hero("James o'Hara", 100, 118.68948, 20, new Armor(2, 100, ArmorType.DEFAULT, 50),
+                        new Weapon(50, random)),
+                random -> new Monster("Destroyer o'Hope", 300, 300, ArmorType.SCALE, 10, 4,
+                        new Armor(2, 100, ArmorType.DEFAULT, 150), new Weapon(50, 20, 50), new Purse(5)),
+                CombatSimulator.getDefaultMaxRounds(), pool);
+    }
+
+    @After
+    public void shutDownPool(){
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSimulateCountsEveryFight(){
+        CombatStatistics statistics = simulator.simulate(2000);
+        Assert.assertEquals(statistics.getNbOfFights(), 2000);
+        Assert.assertEquals(statistics.getNbOfHeroWins() + statistics.getNbOfMonsterWins() + statistics.getNbOfDraws(), 2000);
+        Assert.assertTrue(statistics.getTotalRounds() >= 2000);
+        Assert.assertTrue(statistics.getLongestFight() <= simulator.getMaxRounds());
+        Assert.assertTrue(statistics.getHeroWinRate() >= 0 && statistics.getHeroWinRate() <= 1);
+        Assert.assertTrue(statistics.getAverageLootValue() > 0);
+    }
+
+    @Test
+    public void testSimulateReleasesArmorIds(){
+        long allocated = Armor.getPrimeIds().size();
+        simulator.simulate(1000);
+        Assert.assertEquals(Armor.getPrimeIds().size(), allocated);
+    }
+
+    @Test
+    public void testRoundLimitEndsInDraw(){
+        CombatSimulator limited = new CombatSimulator(
+                random -> new Hero("Hero", 100, 10, 200, new Armor(2, 100, ArmorType.DEFAULT, 50)),
+                random -> new Monster("Monster", 100, 300, ArmorType.SCALE, 10, 2),
+                50, ForkJoinPool.commonPool());
+        CombatStatistics statistics = limited.simulate(10);
+        Assert.assertEquals(statistics.getNbOfFights(), 10);
+        Assert.assertEquals(statistics.getLongestFight(), 50);
+    }
+
+    @Test
+    public void testSimulateIsReproducibleFromSeed(){
+        CombatStatistics first = simulator.simulate(1500, 42);
+        CombatStatistics second = simulator.simulate(1500, 42);
+        Assert.assertEquals(first.getNbOfHeroWins(), second.getNbOfHeroWins());
+        Assert.assertEquals(first.getTotalRounds(), second.getTotalRounds());
+        Assert.assertEquals(first.getLongestFight(), second.getLongestFight());
+        Assert.assertEquals(first.getTotalLootValue(), second.getTotalLootValue());
+    }
+
+    @Test
+    public void testCombine(){
+        CombatStatistics first = new CombatStatistics(3, 1, 0, 40, 15, 300);
+        CombatStatistics second = new CombatStatistics(1, 2, 1, 60, 20, 100);
+        CombatStatistics both = first.combine(second);
+        Assert.assertEquals(both.getNbOfFights(), 8);
+        Assert.assertEquals(both.getLongestFight(), 20);
+        Assert.assertEquals(both.getAverageRounds(), 12.5, 1e-9);
+        Assert.assertEquals(both.getAverageLootValue(), 400.0 / 7, 1e-9);
+        Assert.assertEquals(CombatStatistics.EMPTY.combine(first).getNbOfHeroWins(), 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeNumberOfFights(){
+        simulator.simulate(-1);
+    }
+}
@@ -0,0 +1,191 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+
+/**
+ * A class of immutable statistics over a batch of simulated fights between heroes and monsters.
+ *
+ * @invar Each fight is either won by the hero, won by the monster or ended undecided.
+ *        | getNbOfFights() == getNbOfHeroWins() + getNbOfMonsterWins() + getNbOfDraws()
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@Immutable
+public class CombatStatistics {
+
+    /**
+     * Statistics over no fights at all.
+     */
+    public static final CombatStatistics EMPTY = new CombatStatistics(0, 0, 0, 0, 0, 0);
+
+    /**
+     * Initialize new statistics with the given counts.
+     *
+     * @param nbOfHeroWins
+     *        The number of fights won by the hero.
+     * @param nbOfMonsterWins
+     *        The number of fights won by the monster.
+     * @param nbOfDraws
+     *        The number of fights that ended without a winner.
+     * @param totalRounds
+     *        The total number of hits over all the fights.
+     * @param longestFight
+     *        The number of hits in the longest fight.
+     * @param totalLootValue
+     *        The total value of the items the winners ended up with.
+     */
+    public CombatStatistics(long nbOfHeroWins, long nbOfMonsterWins, long nbOfDraws, long totalRounds, long longestFight,
+                            long totalLootValue){
+        this.nbOfHeroWins = nbOfHeroWins;
+        this.nbOfMonsterWins = nbOfMonsterWins;
+        this.nbOfDraws = nbOfDraws;
+        this.totalRounds = totalRounds;
+        this.longestFight = longestFight;
+        this.totalLootValue = totalLootValue;
+    }
+
+    /**
+     * The number of fights won by the hero.
+     */
+    private final long nbOfHeroWins;
+
+    /**
+     * The number of fights won by the monster.
+     */
+    private final long nbOfMonsterWins;
+
+    /**
+     * The number of fights that ended without a winner.
+     */
+    private final long nbOfDraws;
+
+    /**
+     * The total number of hits over all the fights.
+     */
+    private final long totalRounds;
+
+    /**
+     * The number of hits in the longest fight.
+     */
+    private final long longestFight;
+
+    /**
+     * The total value of the items the winners ended up with.
+     */
+    private final long totalLootValue;
+
+    /**
+     * Returns the number of fights won by the hero.
+     */
+    @Basic @Immutable
+    public long getNbOfHeroWins() {
+        return nbOfHeroWins;
+    }
+
+    /**
+     * Returns the number of fights won by the monster.
+     */
+    @Basic @Immutable
+    public long getNbOfMonsterWins() {
+        return nbOfMonsterWins;
+    }
+
+    /**
+     * Returns the number of fights that ended without a winner because they took too long.
+     */
+    @Basic @Immutable
+    public long getNbOfDraws() {
+        return nbOfDraws;
+    }
+
+    /**
+     * Returns the total number of hits over all the fights.
+     */
+    @Basic @Immutable
+    public long getTotalRounds() {
+        return totalRounds;
+    }
+
+    /**
+     * Returns the number of hits in the longest fight.
+     */
+    @Basic @Immutable
+    public long getLongestFight() {
+        return longestFight;
+    }
+
+    /**
+     * Returns the total value of the items the winners ended up with.
+     */
+    @Basic @Immutable
+    public long getTotalLootValue() {
+        return totalLootValue;
+    }
+
+    /**
+     * Returns the number of fights.
+     * @return The number of fights won by either side or ended without a winner.
+     *         |result == getNbOfHeroWins() + getNbOfMonsterWins() + getNbOfDraws()
+     */
+    public long getNbOfFights() {
+        return getNbOfHeroWins() + getNbOfMonsterWins() + getNbOfDraws();
+    }
+
+    /**
+     * Returns the fraction of the fights won by the hero.
+     * @return The number of fights won by the hero divided by the number of fights, 0 if there were no fights.
+     *         |result == getNbOfHeroWins() / getNbOfFights()
+     */
+    public double getHeroWinRate() {
+        if(getNbOfFights() == 0)
+            return 0;
+        return (double) getNbOfHeroWins() / getNbOfFights();
+    }
+
+    /**
+     * Returns the average number of hits per fight.
+     * @return The total number of hits divided by the number of fights, 0 if there were no fights.
+     *         |result == getTotalRounds() / getNbOfFights()
+     */
+    public double getAverageRounds() {
+        if(getNbOfFights() == 0)
+            return 0;
+        return (double) getTotalRounds() / getNbOfFights();
+    }
+
+    /**
+     * Returns the average value of the items the winner ended up with.
+     * @return The total loot value divided by the number of fights that had a winner, 0 if there were no such fights.
+     *         |result == getTotalLootValue() / (getNbOfHeroWins() + getNbOfMonsterWins())
+     */
+    public double getAverageLootValue() {
+        long decided = getNbOfHeroWins() + getNbOfMonsterWins();
+        if(decided == 0)
+            return 0;
+        return (double) getTotalLootValue() / decided;
+    }
+
+    /**
+     * Returns the statistics over the fights of these statistics and the given statistics together.
+     * @param other
+     *        The statistics to combine with.
+     * @return Statistics of which each count is the sum of both counts and the longest fight is the longest of both.
+     *         |result.getNbOfFights() == getNbOfFights() + other.getNbOfFights()
+     *         |result.getLongestFight() == Math.max(getLongestFight(), other.getLongestFight())
+     */
+    public CombatStatistics combine(CombatStatistics other) {
+        return new CombatStatistics(getNbOfHeroWins() + other.getNbOfHeroWins(),
+                getNbOfMonsterWins() + other.getNbOfMonsterWins(), getNbOfDraws() + other.getNbOfDraws(),
+                getTotalRounds() + other.getTotalRounds(), Math.max(getLongestFight(), other.getLongestFight()),
+                getTotalLootValue() + other.getTotalLootValue());
+    }
+
+    @Override
+    public String toString() {
+        return getNbOfFights() + " fights: hero wins " + getNbOfHeroWins() + ", monster wins " + getNbOfMonsterWins()
+                + ", draws " + getNbOfDraws() + ", average rounds " + getAverageRounds() + ", longest fight "
+                + getLongestFight() + ", average loot value " + getAverageLootValue();
+    }
+}
@@ -0,0 +1,233 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.List;
+
+/**
+ * A class of compact inventories, mirroring the items held by a fixed row of anchors in parallel primitive arrays.
+ *
+ * For every anchor the inventory keeps the item, a tag for the kind of the item, its weight and its value next to
+ * the ones of the other anchors, so that scans over thousands of anchors walk through a few arrays instead of
+ * following a reference from every anchor to its item.
+ * The values of weapons and purses are kept in the array and updated by the owner of the anchors whenever they
+ * change. Armors lose value while time passes and backpacks change value with their content, so the value of any
+ * other item is always asked to the item itself.
+ *
+ * @invar The tag of each position is the tag of the item at that position.
+ *        | for each i in 0..getSize()-1: getTag(i) == tagOf(getItem(i))
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CompactInventory {
+
+    /**
+     * The tag of a position that holds no item.
+     */
+    public static final byte EMPTY = 0;
+
+    /**
+     * The tag of a position that holds a weapon.
+     */
+    public static final byte WEAPON = 1;
+
+    /**
+     * The tag of a position that holds a piece of armor.
+     */
+    public static final byte ARMOR = 2;
+
+    /**
+     * The tag of a position that holds a purse.
+     */
+    public static final byte PURSE = 3;
+
+    /**
+     * The tag of a position that holds a backpack.
+     */
+    public static final byte BACKPACK = 4;
+
+    /**
+     * The tag of a position that holds any other item.
+     */
+    public static final byte OTHER = 5;
+
+    /**
+     * The shiny value of the items of each tag, indexed by the tag.
+     */
+    private static final int[] SHINY_VALUES = {0, 1, 2, 3, 0, 0};
+
+    /**
+     * Initialize a new inventory mirroring the given anchors.
+     *
+     * @param anchors
+     *        The anchors to mirror, in order.
+     * @effect Each position is set to the item held by the anchor at that position.
+     *         |for each i in 0..anchors.size()-1: set(i, anchors.get(i).getItem())
+     */
+    public CompactInventory(List<Anchor> anchors){
+        int size = anchors.size();
+        this.items = new Equipable[size];
+        this.tags = new byte[size];
+        this.weights = new int[size];
+        this.values = new int[size];
+        for(int i = 0; i < size; i++)
+            set(i, anchors.get(i).getItem());
+    }
+
+    /**
+     * The items at each position, null for an empty position.
+     */
+    private final Equipable[] items;
+
+    /**
+     * The tags of the items at each position.
+     */
+    private final byte[] tags;
+
+    /**
+     * The weights of the items at each position, without the content of backpacks.
+     */
+    private final int[] weights;
+
+    /**
+     * The values of the weapons and purses at each position.
+     */
+    private final int[] values;
+
+    /**
+     * Returns the number of positions of this inventory.
+     */
+    @Basic @Immutable
+    public int getSize() {
+        return items.length;
+    }
+
+    /**
+     * Returns the item at the given position, or null if the position is empty.
+     */
+    @Basic
+    public Equipable getItem(int i) {
+        return items[i];
+    }
+
+    /**
+     * Returns the tag of the item at the given position.
+     */
+    @Basic
+    public byte getTag(int i) {
+        return tags[i];
+    }
+
+    /**
+     * Returns the tag for the given item.
+     *
+     * @param item
+     *        The item to tag.
+     * @return EMPTY if the item is not effective, otherwise the tag for the class of the item.
+     */
+    public static byte tagOf(Equipable item){
+        if(item == null) return EMPTY;
+        if(item instanceof Weapon) return WEAPON;
+        if(item instanceof Armor) return ARMOR;
+        if(item instanceof Purse) return PURSE;
+        if(item instanceof Backpack) return BACKPACK;
+        return OTHER;
+    }
+
+    /**
+     * Sets the item at the given position.
+     *
+     * @param i
+     *        The position.
+     * @param item
+     *        The item now held at that position, or null if the position became empty.
+     * @post  The item, its tag, its weight and its value are stored at the given position.
+     *        |new.getItem(i) == item && new.getTag(i) == tagOf(item)
+     */
+    @Model
+    protected void set(int i, Equipable item){
+        byte tag = tagOf(item);
+        items[i] = item;
+        tags[i] = tag;
+        weights[i] = (item == null) ? 0 : item.getWeight();
+        values[i] = (tag == WEAPON || tag == PURSE) ? item.getValue() : 0;
+    }
+
+    /**
+     * Updates the value kept for the item at the given position after its value changed.
+     *
+     * @param i
+     *        The position.
+     * @param delta
+     *        The difference between the new and the old value of the item.
+     */
+    @Model
+    protected void changeValue(int i, int delta){
+        values[i] += delta;
+    }
+
+    /**
+     * Returns the total value of the items in this inventory.
+     *
+     * @return The sum of the values of the items, counting the content of backpacks.
+     *         |result == sum of (getItem(i) instanceof Backpack ? ((Backpack) getItem(i)).getTotalValue() : getItem(i).getValue())
+     *         |          over each position i that is not empty
+     */
+    public int getTotalValue(){
+        int total = 0;
+        for(int i = 0; i < tags.length; i++){
+            byte tag = tags[i];
+            if(tag == WEAPON || tag == PURSE)
+                total += values[i];
+            else if(tag == BACKPACK)
+                total += ((Backpack) items[i]).getTotalValue();
+            else if(tag != EMPTY)
+                total += items[i].getValue();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the first empty position of this inventory.
+     *
+     * @return The first position of which the tag is EMPTY, -1 if there is no such position.
+     *         |result == first i with tags[i] == EMPTY
+     */
+    public int findEmptyPosition(){
+        for(int i = 0; i < tags.length; i++){
+            if(tags[i] == EMPTY)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first position where an item with the given shiny value and weight can be looted.
+     *
+     * @param shinyValue
+     *        The shiny value of the item to loot.
+     * @param weight
+     *        The weight of the item to loot.
+     * @param capacity
+     *        The remaining capacity of the creature looting.
+     * @return The first position that is empty while the item fits in the capacity, or that holds a less shiny item
+     *         that is not more than the capacity heavier than the item to loot. -1 if there is no such position.
+     *         |if tags[i] == EMPTY then weight <= capacity
+     *         |else shinyValue > SHINY_VALUES[tags[i]] && weights[i] - weight <= capacity
+     */
+    public int findLootPosition(int shinyValue, int weight, int capacity){
+        for(int i = 0; i < tags.length; i++){
+            byte tag = tags[i];
+            if(tag == EMPTY){
+                if(weight <= capacity)
+                    return i;
+            }
+            else if(shinyValue > SHINY_VALUES[tag] && weights[i] - weight <= capacity)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * A JUnit test class for testing the compact inventory of monsters.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CompactInventoryTest {
+
+    private Monster monster;
+
+    private Weapon weapon;
+
+    private Purse purse;
+
+    private Backpack backpack;
+
+    @Before
+    public void setUpMonster(){
+        weapon = new Weapon(5, 14);
+        purse = new Purse(1);
+        backpack = new Backpack(0, 2, 40, 100);
+        monster = new Monster("Dragon", 500, 1000, ArmorType.SCALE, 20, 100, weapon, purse, backpack);
+    }
+
+    @After
+    public void destroyItems(){
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+        CombatSimulator.collectItems(monster, items);
+        CombatSimulator.destroyItems(items);
+    }
+
+    /**
+     * Returns the total value of the items of the given creature, asked to each anchor.
+     */
+    private static int valueThroughAnchors(Creature creature){
+        int total = 0;
+        for(int i = 0; i < creature.getNbOfAnchors(); i++){
+            Equipable item = creature.getAnchorAt(i).getItem();
+            if(item instanceof Backpack)
+                total += ((Backpack) item).getTotalValue();
+            else if(item != null)
+                total += item.getValue();
+        }
+        return total;
+    }
+
+    @Test
+    public void testInventoryMirrorsAnchors() throws Exception{
+        Assert.assertEquals(monster.getInventory().getSize(), 100);
+        for(int i = 0; i < monster.getNbOfAnchors(); i++)
+            Assert.assertSame(monster.getAnchorItemAt(i), monster.getAnchorAt(i).getItem());
+        Assert.assertEquals(monster.getInventory().getTag(0), CompactInventory.WEAPON);
+        Assert.assertEquals(monster.getInventory().getTag(1), CompactInventory.PURSE);
+        Assert.assertEquals(monster.getInventory().getTag(2), CompactInventory.BACKPACK);
+        Assert.assertEquals(monster.getInventory().getTag(3), CompactInventory.EMPTY);
+
+        monster.moveAnchorItemtoAnchor(0, 99);
+        Assert.assertNull(monster.getAnchorItemAt(0));
+        Assert.assertSame(monster.getAnchorItemAt(99), weapon);
+        Assert.assertEquals(monster.getInventory().getTag(99), CompactInventory.WEAPON);
+    }
+
+    @Test
+    public void testFreeAnchorFollowsTags() throws Exception{
+        Assert.assertEquals(monster.getInventory().findEmptyPosition(), 3);
+        Weapon axe = new Weapon(3, 14);
+        Assert.assertEquals(monster.tryPickUp(axe), InventoryResult.SUCCESS);
+        Assert.assertSame(monster.getAnchorItemAt(3), axe);
+        Assert.assertEquals(monster.getInventory().findEmptyPosition(), 4);
+
+        monster.drop(purse);
+        Assert.assertEquals(monster.getInventory().findEmptyPosition(), 1);
+        Assert.assertSame(monster.getFreeAnchor(AnchorType.OTHER), monster.getAnchorAt(1));
+        Assert.assertNull(monster.getFreeAnchor(AnchorType.RUG));
+        Assert.assertEquals(monster.tryPickUp(purse, AnchorType.RUG), InventoryResult.NO_FREE_ANCHOR);
+        monster.pickUp(purse);
+        Assert.assertSame(monster.getAnchorItemAt(1), purse);
+    }
+
+    @Test
+    public void testTotalValueFollowsItems() throws Exception{
+        Assert.assertEquals(monster.getTotalValueOfItems(), valueThroughAnchors(monster));
+        int before = monster.getTotalValueOfItems();
+
+        weapon.EnhanceDamage(7);
+        Assert.assertEquals(monster.getTotalValueOfItems(), valueThroughAnchors(monster));
+        Assert.assertTrue(weapon.isDmgValLink());
+        Assert.assertEquals(monster.getTotalValueOfItems(), before + 14);
+
+        Weapon stored = new Weapon(1, 20, 30);
+        monster.pickUpAndStore(stored, backpack);
+        Assert.assertEquals(monster.getTotalValueOfItems(), valueThroughAnchors(monster));
+
+        monster.drop(weapon);
+        Assert.assertEquals(monster.getTotalValueOfItems(), valueThroughAnchors(monster));
+        weapon.destroy();
+    }
+}
@@ -2,8 +2,15 @@ package RPG;
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * An abstract class of creatures.
@@ -29,6 +36,9 @@ import java.util.ArrayList;
  * 			to determine the validity of the name, it still is important
  * 			which subclass the object belongs to.
  * 			Hence the object-dependency of the checker.
+ * @note    The inventory of a creature is guarded by the lock of that creature. A move between two creatures, such as
+ *          a hit with its loot or a trade, takes both locks in the global lock order, and an item changing hands over
+ *          the ground is also guarded by its stripe in ItemLocks.
  */
 public abstract class Creature {
     /**
@@ -68,6 +78,33 @@ public abstract class Creature {
 
     }
 
+    /**
+     * Creates a new creature like the given prototype, with full health and an empty inventory.
+     * The name of the prototype was checked when the prototype was made, so it is not checked again.
+     * @param prototype
+     *        The creature to copy.
+     * @post  The new creature has the name, maximum capacity and maximum amount of hitpoints of the prototype.
+     *        |new.getName() == prototype.getName() && new.getMaxCapacity() == prototype.getMaxCapacity()
+     *        |new.getMaxHitPoints() == prototype.getMaxHitPoints()
+     * @post  The new creature has full health and its whole capacity left.
+     *        |new.getHitPoints() == prototype.getMaxHitPoints() && new.getCapacity() == prototype.getMaxCapacity()
+     */
+    @Raw @Model
+    protected Creature(Creature prototype){
+        this.name = prototype.getName();
+        setMaxCapacity(prototype.getMaxCapacity());
+        setCapacity(prototype.getMaxCapacity());
+        setMaxHitPoints(prototype.getMaxHitPoints());
+        setHitPoints(prototype.getMaxHitPoints());
+    }
+
+    /**
+     * Returns a new creature of the class of this creature, made by its copy constructor, with full health and
+     * without items. Every subclass of creature returns an instance of its own class.
+     */
+    @Model
+    protected abstract Creature copy();
+
     /**
      * variable containing the name of the Creature
      */
@@ -102,8 +139,20 @@ public abstract class Creature {
         return isAlive;
     }
 
-    private void setAlive(boolean alive) {
+    /**
+     * Sets whether this creature is alive.
+     *
+     * @param alive
+     *        Whether the creature is alive.
+     * @post  The creature is alive if and only if the given flag is true.
+     *        | new.isAlive() == alive
+     * @post  The stats of this creature are marked as changed for the journal.
+     *        | new.statsChanged == true
+     */
+    @Model
+    protected void setAlive(boolean alive) {
         isAlive = alive;
+        statsChanged = true;
     }
 
     /**
@@ -174,10 +223,13 @@ public abstract class Creature {
      *        | canHaveAsHitpoints(hitPoints)
      * @post  the amount of hitpoints is now the given amount.
      *        | this.hitPoints == hitPoints
+     * @post  the stats of this creature are marked as changed for the journal.
+     *        | new.statsChanged == true
      */
     @Raw @Model
     protected void setHitPoints(int hitPoints) {
         this.hitPoints = hitPoints;
+        statsChanged = true;
     }
     /**
      * Sets a new given remaining capacity.
@@ -201,10 +253,13 @@ public abstract class Creature {
      *        | canHaveAsCapacity(getCapacity() - capacity)
      * @effect  the amount of remaining capacity is now the previous amount plus the given weight.
      *        | setCapacity(getCapacity() + capacity)
+     * @effect  the inventory is marked as changed.
+     *        | inventoryChanged()
      */
     @Model @Raw
     protected void ChangeCapacity(int capacity) {
         setCapacity(getCapacity() + capacity);
+        inventoryChanged();
     }
     /**
      * Sets a new given maximum capacity.
@@ -273,10 +328,11 @@ public abstract class Creature {
      * @return False if one of the characters in the given name isn't a valid character, the name is  null
      *          or the first character is not a capital letter.
      *        | if !name.matches(validCharacters) || name == null || !name.matches("^[A-Z].*") then result == False
+     *        | result == NameValidator.CREATURE.isValid(name)
      */
     @Raw
     public boolean canHaveAsName(String name){
-        return name.matches(validCharacters) && name != null && name.matches("^[A-Z].*");
+        return NameValidator.CREATURE.isValid(name);
     }
 
     /**
@@ -299,6 +355,327 @@ public abstract class Creature {
         }
     }
 
+    /********
+     * Locking
+     */
+
+    /**
+     * The source of the lock orders of creatures.
+     */
+    private static final AtomicLong lockOrders = new AtomicLong();
+
+    /**
+     * The position of this creature in the global order in which creature locks are taken.
+     */
+    private final long lockOrder = lockOrders.getAndIncrement();
+
+    /**
+     * The lock guarding the inventory of this creature.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Returns the lock guarding the inventory of this creature.
+     * Every method that changes the inventory holds it, so a thread that holds it sees and keeps the inventory stable.
+     */
+    @Basic
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Returns the position of this creature in the global order in which creature locks are taken.
+     */
+    @Basic
+    public long getLockOrder() {
+        return lockOrder;
+    }
+
+    /**
+     * Takes the locks of the given creatures, the one with the lowest lock order first, so that two threads locking
+     * the same creatures never wait for each other.
+     *
+     * @param first
+     *        A creature to lock.
+     * @param second
+     *        Another creature to lock, or the same creature.
+     */
+    public static void lock(Creature first, Creature second){
+        if(first.getLockOrder() > second.getLockOrder()){
+            Creature swap = first;
+            first = second;
+            second = swap;
+        }
+        first.getLock().lock();
+        second.getLock().lock();
+    }
+
+    /**
+     * Releases the locks of the given creatures, taken by lock.
+     *
+     * @param first
+     *        A locked creature.
+     * @param second
+     *        Another locked creature, or the same creature.
+     */
+    public static void unlock(Creature first, Creature second){
+        second.unlockInventory();
+        first.unlockInventory();
+    }
+
+    /**
+     * Releases the lock of this creature and, if this thread no longer holds it and the inventory changed while it
+     * was held, publishes a new snapshot of the inventory first.
+     *
+     * @effect If the lock is held once and the inventory changed, a new snapshot is published.
+     *         |if(getLock().getHoldCount() == 1 && inventoryChanged)
+     *         |    then publishSnapshot()
+     * @effect If the lock is held once, the changed stats and anchors are appended to the journal of this creature, if
+     *         any.
+     *         |if(getLock().getHoldCount() == 1)
+     *         |    then journalChanges()
+     * @effect The lock is released.
+     *         |getLock().unlock()
+     * @effect If the pending records of the journal fill its batch, they are written once the lock is released.
+     *         |getJournal().flush()
+     */
+    @Model
+    protected void unlockInventory(){
+        boolean flush = false;
+        try {
+            if(getLock().getHoldCount() == 1){
+                if(inventoryChanged)
+                    publishSnapshot();
+                flush = journalChanges();
+            }
+        } finally {
+            getLock().unlock();
+        }
+        if(flush)
+            getJournal().flush();
+    }
+
+    /********
+     * Journal
+     */
+
+    /**
+     * The journal the changes to the inventory of this creature are appended to, or null.
+     */
+    private volatile InventoryJournal journal;
+
+    /**
+     * The key of this creature in its journal.
+     */
+    private int journalKey;
+
+    /**
+     * The indexes of the anchors of which the content changed since the changes were last appended to the journal.
+     */
+    private final BitSet changedAnchors = new BitSet();
+
+    /**
+     * Whether the hit points or the alive flag of this creature changed since they were last appended to the journal.
+     */
+    private boolean statsChanged;
+
+    /**
+     * Returns the journal the changes to the inventory of this creature are appended to, or null if there is none.
+     */
+    @Basic
+    public InventoryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the key of this creature in its journal.
+     */
+    @Basic
+    public int getJournalKey() {
+        return journalKey;
+    }
+
+    /**
+     * Sets the journal of this creature. The caller holds the lock of this creature and has just appended a
+     * checkpoint of the whole creature to the journal.
+     *
+     * @param journal
+     *        The new journal.
+     * @param key
+     *        The key of this creature in the journal.
+     * @post  The journal and the key are set and no stats or anchor are marked as changed.
+     *        |new.getJournal() == journal && new.getJournalKey() == key
+     */
+    @Model
+    protected void setJournal(InventoryJournal journal, int key) {
+        this.journal = journal;
+        this.journalKey = key;
+        statsChanged = false;
+        synchronized (changedAnchors) {
+            changedAnchors.clear();
+        }
+    }
+
+    /**
+     * Marks the content of the given anchor as changed for the journal, or every anchor if the anchor is not known.
+     * The change is appended when the lock of this creature is released next. A change made while nobody held the
+     * lock, like the wear of an armor, stays pending until then or until the changes are flushed.
+     *
+     * @param anchor
+     *        The anchor of which the content changed, or null.
+     */
+    @Model @Raw
+    private void markChanged(Anchor anchor){
+        if(getJournal() == null)
+            return;
+        int index = anchor == null || anchor.getOwner() != this ? -1 : anchor.getPosition();
+        synchronized (changedAnchors) {
+            if(index < 0)
+                changedAnchors.set(0, getNbOfAnchors());
+            else
+                changedAnchors.set(index);
+        }
+    }
+
+    /**
+     * Publishes the pending changes to the inventory of this creature and appends them to its journal, if any. Changes
+     * made while nobody held the lock of this creature, like the wear of an armor, are only appended by the next
+     * holder of the lock, or by this method.
+     *
+     * @effect The lock of this creature is taken and released.
+     *         |getLock().lock()
+     *         |unlockInventory()
+     */
+    public void flushChanges(){
+        getLock().lock();
+        unlockInventory();
+    }
+
+    /**
+     * Keeps this creature up to date after the content of a backpack held by one of its anchors changed.
+     *
+     * @param anchor
+     *        The anchor holding the outermost backpack, or null if it is not known.
+     * @effect The inventory is marked as changed, and the anchor for the journal.
+     *         |inventoryChanged()
+     */
+    @Model @Raw
+    protected void contentChanged(Anchor anchor){
+        inventoryChanged();
+        markChanged(anchor);
+    }
+
+    /**
+     * Appends the hit points and the alive flag, if they changed, and the anchors of which the content changed to the
+     * journal of this creature, if any. The caller holds the lock of this creature.
+     *
+     * @return True if the journal should write its pending records.
+     */
+    @Model
+    private boolean journalChanges(){
+        InventoryJournal journal = getJournal();
+        if(journal == null)
+            return false;
+        boolean full = false;
+        if(statsChanged){
+            statsChanged = false;
+            full = journal.appendStats(this);
+        }
+        synchronized (changedAnchors) {
+            if(changedAnchors.isEmpty())
+                return full;
+            full |= journal.appendChanges(this, changedAnchors);
+            changedAnchors.clear();
+            return full;
+        }
+    }
+
+    /********
+     * Snapshots
+     */
+
+    /**
+     * The latest published snapshot of the inventory of this creature, or null if none was published yet.
+     */
+    private volatile InventorySnapshot snapshot;
+
+    /**
+     * Whether the inventory changed since the latest snapshot was published.
+     */
+    private volatile boolean inventoryChanged = true;
+
+    /**
+     * Marks the inventory of this creature as changed, so that a new snapshot is published when the lock of this
+     * creature is released.
+     *
+     * @post The inventory is marked as changed.
+     *       |new.inventoryChanged == true
+     */
+    @Model @Raw
+    protected void inventoryChanged(){
+        inventoryChanged = true;
+    }
+
+    /**
+     * Returns the latest snapshot of the inventory of this creature.
+     * The snapshot is read without waiting for the lock while another thread changes the inventory; that thread
+     * publishes a newer snapshot when it releases the lock.
+     *
+     * @return The latest published snapshot, after publishing a new one if the inventory changed and no other thread
+     *         holds the lock.
+     */
+    public InventorySnapshot getSnapshot(){
+        InventorySnapshot current = snapshot;
+        if(current != null && !inventoryChanged)
+            return current;
+        if(current == null)
+            getLock().lock();
+        else if(!getLock().tryLock())
+            return current;
+        try {
+            if(inventoryChanged)
+                publishSnapshot();
+            return snapshot;
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes a new snapshot of the inventory of this creature, with the version after the latest snapshot.
+     * The caller holds the lock of this creature. The inventory is no longer marked as changed before the snapshot is
+     * taken, so that a change marked while it is taken is published by the next snapshot.
+     *
+     * @post The inventory is no longer marked as changed.
+     *       |new.inventoryChanged == false
+     * @post The new snapshot holds the items of the anchors, the content of the backpacks this creature carries and the
+     *       current aggregates of this creature.
+     *       |new.getSnapshot().getTotalValueOfItems() == getTotalValueOfItems()
+     *       |new.getSnapshot().getTotalDamage() == getTotalDamage()
+     *       |new.getSnapshot().getTotalProtection() == getTotalProtection()
+     */
+    @Model
+    private void publishSnapshot(){
+        inventoryChanged = false;
+        Equipable[] items = new Equipable[getNbOfAnchors()];
+        IdentityHashMap<Backpack, List<Equipable>> contents = new IdentityHashMap<Backpack, List<Equipable>>();
+        for(int i = 0; i < items.length; i++){
+            items[i] = getAnchorItemAt(i);
+            if(items[i] instanceof Backpack){
+                Backpack backpack = (Backpack) items[i];
+                contents.put(backpack, new ArrayList<Equipable>());
+                backpack.forEachItem(item -> {
+                    if(item instanceof Backpack)
+                        contents.putIfAbsent((Backpack) item, new ArrayList<Equipable>());
+                    contents.computeIfAbsent(item.getParentbackpack(), key -> new ArrayList<Equipable>()).add(item);
+                });
+            }
+        }
+        long version = snapshot == null ? 1 : snapshot.getVersion() + 1;
+        snapshot = new InventorySnapshot(version, items, contents, getCapacity(), getMaxCapacity() - getCapacity(),
+                getTotalValueOfItems(), getTotalDamage(), getTotalProtection());
+    }
+
     /********
      * Anchors
      */
@@ -308,6 +685,17 @@ public abstract class Creature {
      */
     protected ArrayList<Anchor> anchors = new ArrayList<Anchor>();
 
+    /**
+     * The index over no anchors, shared by all creatures until their own anchors are set. An index without anchors
+     * never changes, so it does not need to be made for every creature.
+     */
+    private static final AnchorIndex NO_ANCHORS = new AnchorIndex(new ArrayList<Anchor>());
+
+    /**
+     * The index over the anchors of this creature, keyed by the type of the anchors.
+     */
+    private AnchorIndex anchorIndex = NO_ANCHORS;
+
     /**
      * Checks if the anchors are correctly set
      * @param anchors
@@ -342,10 +730,115 @@ public abstract class Creature {
      *        The new anchors for this creature
      * @post  The anchors are set to the given list.
      *        | this.anchors == anchors
+     * @post  Each anchor knows its position in the given list.
+     *        | for each i in 0..anchors.size()-1: anchors.get(i).getPosition() == i
+     * @post  The index over the anchors is rebuilt for the given list.
+     *        | new.getAnchorIndex() == new AnchorIndex(anchors)
      */
     @Model @Raw
     protected void setAnchors(ArrayList<Anchor> anchors) {
         this.anchors = anchors;
+        for(int i = 0; i < anchors.size(); i++)
+            anchors.get(i).setPosition(i);
+        this.anchorIndex = new AnchorIndex(anchors);
+    }
+
+    /**
+     * Returns the index over the anchors of this creature.
+     */
+    @Basic @Model
+    protected AnchorIndex getAnchorIndex() {
+        return anchorIndex;
+    }
+
+    /**
+     * Returns the first free anchor of this creature with the given type, which single moves equip items in.
+     * @param anchortype
+     *        The type of the anchor.
+     * @return The first anchor with the given type that does not hold an item, or null if there is none.
+     *         |result == getAnchorIndex().getFreeAnchor(anchortype)
+     */
+    @Model @Raw
+    protected Anchor getFreeAnchor(AnchorType anchortype) {
+        return getAnchorIndex().getFreeAnchor(anchortype);
+    }
+
+    /**
+     * Returns the anchors of this creature with the given type, in the order of the anchors of this creature.
+     * @param anchortype
+     *        The type of the anchors.
+     * @return An unmodifiable list of the anchors with the given type.
+     *         |result == getAnchorIndex().getAnchors(anchortype)
+     */
+    @Raw
+    public List<Anchor> getAnchorsOfType(AnchorType anchortype) {
+        return getAnchorIndex().getAnchors(anchortype);
+    }
+
+    /**
+     * Returns the anchor of this creature that holds the given item.
+     * @param item
+     *        The item to look for.
+     * @return The anchor that holds the given item, or null if the item is not held in one of the anchors of this creature.
+     *         |if(item.getAnchor() != null && item.getAnchor().getOwner() == this)
+     *         |then result == item.getAnchor()
+     *         |else result == null
+     */
+    @Raw
+    public Anchor getAnchorOf(Equipable item) {
+        Anchor anchor = item.getAnchor();
+        if(anchor == null || anchor.getOwner() != this)
+            return null;
+        return anchor;
+    }
+
+    /**
+     * Keeps this creature up to date after the item held by one of its anchors changed.
+     * @param anchor
+     *        The anchor of which the item changed.
+     * @param oldItem
+     *        The item the anchor held before.
+     * @param newItem
+     *        The item the anchor holds now.
+     * @effect The index over the anchors is updated.
+     *         |getAnchorIndex().update(anchor, newItem)
+     * @effect The inventory is marked as changed, and the anchor for the journal.
+     *         |inventoryChanged()
+     */
+    @Model @Raw
+    protected void anchorChanged(Anchor anchor, Equipable oldItem, Equipable newItem) {
+        getAnchorIndex().update(anchor, newItem);
+        inventoryChanged();
+        markChanged(anchor);
+    }
+
+    /**
+     * Keeps this creature up to date after the value of the item held by one of its anchors changed.
+     * @param anchor
+     *        The anchor holding the item.
+     * @param delta
+     *        The difference between the new and the old value of the item.
+     * @effect The inventory is marked as changed, and the anchor for the journal.
+     *         |inventoryChanged()
+     */
+    @Model @Raw
+    protected void itemValueChanged(Anchor anchor, int delta) {
+        inventoryChanged();
+        markChanged(anchor);
+    }
+
+    /**
+     * Keeps this creature up to date after the damage or the protection of the item held by one of its anchors
+     * changed.
+     * @param anchor
+     *        The anchor holding the item.
+     * @effect The inventory is marked as changed, and the anchor for the journal.
+     *         |inventoryChanged()
+     */
+    @Model @Raw
+    protected void itemStatsChanged(Anchor anchor) {
+        inventoryChanged();
+        markChanged(anchor);
     }
 
     /**
@@ -401,9 +894,12 @@ public abstract class Creature {
      * @throws ItemAlreadyobtainedException
      *         The item already has a holder which means it can't be picked up.
      *         |item.getHolder == null
-     * @throws IllegalArgumentException
+     * @throws NullPointerException
      *         The item is not effective
      *         |item == null
+     * @throws IllegalArgumentException
+     *         The item has been destroyed or lies in a backpack on the ground
+     *         |item.isDestroyed() || item.getParentbackpack() != null
      * @throws BeltAnchorException
      *         The user wants to equip an item that isn't a purse to the belt anchorslot of the creature.
      *         |anchortype.getName() == "Riem" && item not instanceof Purse
@@ -417,7 +913,8 @@ public abstract class Creature {
      *         The given item is can't be picked up because the creature cannot carry it anymore
      *         because the maximum carry capacity has been reached. In case the user wants to pick up a backpack,
      *         the contents of this backpack are also considered for the calculation of the weight of the item.
-     *         |item.getTotalWeight > getCapacity
+     *         The item also can't be picked up if it is a piece of armor and this creature cannot carry another one.
+     *         |item.getTotalWeight > getCapacity || (item instanceof Armor && !canCarryExtraArmors(1))
      * @throws IllegalCallerException
      *         the creature trying to pick up this item is dead.
      *         |this.isAlive() == false.
@@ -425,43 +922,154 @@ public abstract class Creature {
     @Raw @Model
     protected void pickUp(Equipable item, AnchorType anchortype) throws ItemAlreadyobtainedException,IllegalArgumentException,
             AnchorslotOccupiedException, CarryLimitReachedException, BeltAnchorException, IllegalCallerException {
-        if(!isAlive())
-            throw new IllegalCallerException();
-        if (item.getHolder() != null) {
-            throw new ItemAlreadyobtainedException(item);
+        switch(pickUpIfPossible(item, anchortype)){
+            case SUCCESS:
+                break;
+            case CREATURE_DEAD:
+                throw new IllegalCallerException();
+            case ILLEGAL_ITEM:
+                if(item == null)
+                    throw new NullPointerException();
+                throw new IllegalArgumentException();
+            case ALREADY_OBTAINED:
+                throw new ItemAlreadyobtainedException(item);
+            case BELT_ANCHOR:
+                throw new BeltAnchorException(item);
+            case CARRY_LIMIT:
+                throw new CarryLimitReachedException(item);
+            default:
+                throw new IllegalArgumentException();
         }
-        if (item == null)
-            throw new IllegalArgumentException();
-
-        if (anchortype == AnchorType.RIEM && !(item instanceof Purse))
-            throw new BeltAnchorException(item);
+    }
 
-        Anchor anchor = null;
+    /**
+     * Picks an item up from the ground and equips it in an empty anchor with the given anchortype, if possible.
+     *
+     * @param item
+     *        the item that will be picked up.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @effect If the item can be picked up, it is equipped in the first free anchor with the given type.
+     *         |if(checkPickUp(item, anchortype) == SUCCESS)
+     *         |then item.equip(getFreeAnchor(anchortype))
+     * @return The outcome of checking whether the item can be picked up. Nothing is thrown.
+     *         |result == checkPickUp(item, anchortype)
+     */
+    @Raw
+    public InventoryResult tryPickUp(Equipable item, AnchorType anchortype){
+        return pickUpIfPossible(item, anchortype);
+    }
 
-        ArrayList<Anchor> list = getAnchors();
-        for (int i = 0; i < list.size(); i++) {
-            Anchor curranchor = getAnchorAt(i);
-            if (curranchor.getAnchorType() == anchortype) {
-                if(curranchor.getItem() == null){
-                    anchor = curranchor;
-                    break;
-                }
-            }
+    /**
+     * Picks the given item up if checkPickUp allows it, holding the lock of this creature and the stripe of the item,
+     * so that no other creature claims the item from the ground at the same time.
+     */
+    @Model
+    private InventoryResult pickUpIfPossible(Equipable item, AnchorType anchortype){
+        ReentrantLock stripe = (item == null) ? null : ItemLocks.of(item);
+        getLock().lock();
+        if(stripe != null)
+            stripe.lock();
+        try {
+            InventoryResult result = checkPickUp(item, anchortype);
+            if(result.isSuccess())
+                item.equip(getFreeAnchor(anchortype));
+            return result;
+        } finally {
+            if(stripe != null)
+                stripe.unlock();
+            unlockInventory();
         }
+    }
 
-        if(anchor == null)
-            throw new IllegalArgumentException();
-
-        if (anchor.getItem() != null)
-            throw new AnchorslotOccupiedException(anchor);
+    /**
+     * Checks whether this creature can pick up the given item in an anchor with the given anchortype.
+     *
+     * @param item
+     *        the item to check.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @return CREATURE_DEAD if this creature is dead, ILLEGAL_ITEM if the item is not effective, ALREADY_OBTAINED if the
+     *         item has a holder, ILLEGAL_ITEM if it has been destroyed or lies in a backpack on the ground, in that order.
+     *         Otherwise the outcome of checking whether this creature has room to carry the item.
+     *         |result == checkCarry(item, anchortype)
+     * @effect The rules of a transaction on this creature in which nothing has been moved yet are checked.
+     *         |getInventoryView().checkPickUp(item, anchortype)
+     */
+    @Model @Raw
+    protected InventoryResult checkPickUp(Equipable item, AnchorType anchortype){
+        return getInventoryView().checkPickUp(item, anchortype);
+    }
 
-        int weight = item.getWeight();
-        if(item instanceof Backpack)
-            weight = ((Backpack) item).getTotalWeight();
+    /**
+     * Checks whether this creature has room to carry the given item in an anchor with the given anchortype.
+     *
+     * @param item
+     *        the effective item to check.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @return BELT_ANCHOR if a non-purse goes to the belt, NO_FREE_ANCHOR if no anchor with the given type is free,
+     *         CARRY_LIMIT if the item, with its content, or another armor is too much to carry, in that order.
+     *         SUCCESS otherwise.
+     * @effect The rules of a transaction on this creature in which nothing has been moved yet are checked.
+     *         |getInventoryView().checkCarry(item, anchortype)
+     */
+    @Model @Raw
+    protected InventoryResult checkCarry(Equipable item, AnchorType anchortype){
+        return getInventoryView().checkCarry(item, anchortype);
+    }
 
-        if (weight > getCapacity())
-            throw new CarryLimitReachedException(item);
-        item.equip(anchor);
+    /**
+     * Gives an item this creature carries to another creature, which equips it in an empty anchor with the given
+     * anchortype, if possible.
+     *
+     * @param item
+     *        the item to give.
+     * @param receiver
+     *        the creature receiving the item.
+     * @param anchortype
+     *        the type of the anchor where the receiver has to equip the item.
+     * @effect Both creatures are locked in their global order, and the item is locked against creatures picking it up
+     *         while it changes hands.
+     *         |lock(this, receiver)
+     * @effect If the item can be given, this creature drops it and the receiver equips it in its first free anchor
+     *         with the given type.
+     *         |drop(item) && item.equip(receiver.getFreeAnchor(anchortype))
+     * @return ILLEGAL_ITEM if the item is not effective, OTHER_PLAYERS_ITEM if this creature does not hold it,
+     *         ALREADY_OBTAINED if the receiver is this creature, CREATURE_DEAD if the receiver is dead, and otherwise
+     *         the outcome of checking whether the receiver can carry the item.
+     *         |result == receiver.checkCarry(item, anchortype)
+     * @throws IllegalArgumentException
+     *         The receiver is not effective.
+     *         |receiver == null
+     */
+    public InventoryResult tryGive(Equipable item, Creature receiver, AnchorType anchortype) throws IllegalArgumentException{
+        if(receiver == null)
+            throw new IllegalArgumentException();
+        if(item == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        ReentrantLock stripe = ItemLocks.of(item);
+        lock(this, receiver);
+        stripe.lock();
+        try {
+            if(item.getHolder() != this)
+                return InventoryResult.OTHER_PLAYERS_ITEM;
+            if(receiver == this)
+                return InventoryResult.ALREADY_OBTAINED;
+            if(!receiver.isAlive())
+                return InventoryResult.CREATURE_DEAD;
+            InventoryResult result = receiver.checkCarry(item, anchortype);
+            if(!result.isSuccess())
+                return result;
+            drop(item);
+            item.equip(receiver.getFreeAnchor(anchortype));
+            return result;
+        } catch (OtherPlayersItemException e) {
+            throw new RuntimeException(e);
+        } finally {
+            stripe.unlock();
+            unlock(this, receiver);
+        }
     }
 
     /**
@@ -496,42 +1104,33 @@ public abstract class Creature {
     public void drop(Equipable equipable) throws IllegalArgumentException, OtherPlayersItemException{
         if(equipable == null)
             throw new IllegalArgumentException();
-        if(equipable.getHolder() != this)
-            throw new OtherPlayersItemException(equipable);
-
-        Anchor itemanchor = null;
-
-        for(int i =0; i<getAnchors().size();i++){
-
-            Equipable currItem = getAnchorItemAt(i);
-
-            if(currItem == equipable){
-                itemanchor = getAnchorAt(i);
-                break;}
-
-            else if(currItem instanceof Backpack){
-                if(((Backpack) currItem).contains(equipable)){
-                    ((Backpack) currItem).removeEquipable(equipable);
-                    break;
-                }
+        ReentrantLock stripe = ItemLocks.of(equipable);
+        getLock().lock();
+        stripe.lock();
+        try {
+            if(equipable.getHolder() != this)
+                throw new OtherPlayersItemException(equipable);
+
+            Anchor itemanchor = getAnchorOf(equipable);
+            if(itemanchor != null)
+                itemanchor.setItem(null);
+            else if(equipable.getParentbackpack() != null)
+                equipable.getParentbackpack().removeEquipable(equipable);
+
+            equipable.setHolder(null);
+
+            int totalWeight = equipable.getWeight();
+            if(equipable instanceof Backpack) {
+                totalWeight = ((Backpack) equipable).getTotalWeight();
+                //all the items in the backpack also have no owner anymore.
+                ((Backpack) equipable).forEachItem(item -> item.setHolder(null));
             }
-        }
-
-        if(itemanchor != null)
-            itemanchor.setItem(null);
 
-        equipable.setHolder(null);
-
-        int totalWeight = equipable.getWeight();
-        if(equipable instanceof Backpack) {
-            totalWeight = ((Backpack) equipable).getTotalWeight();
-            //all the items in the backpack also have no owner anymore.
-            for (Equipable item : ((Backpack) equipable).getAllItems()) {
-                item.setHolder(null);
-            }
+            ChangeCapacity(totalWeight);
+        } finally {
+            stripe.unlock();
+            unlockInventory();
         }
-
-        ChangeCapacity(totalWeight);
     }
 
 
@@ -555,42 +1154,87 @@ public abstract class Creature {
      *         The item is not effective or the specified item is not an item of this hero
      *         |(item.getHolder() != this || item == null)
      * @throws IllegalArgumentException
-     *         The backpack or the item is currently not being stored in an anchor, meaning that they are being stored in a backpack.
-     *         Because backpacks in backpacks may not contain items and items already in a backpack cannot be stored away, an exception
-     *         is thrown.
+     *         The item is currently not being stored in an anchor, meaning that it is being stored in a backpack.
+     *         Items already in a backpack cannot be stored away, so an exception is thrown.
+     *         |getAnchorOf(item) == null
+     * @throws IllegalArgumentException
+     *         The item is the backpack itself or a backpack in which the given backpack is nested.
+     *         |item instanceof Backpack && backpack.isWithin((Backpack) item)
      */
     @Raw
     public void store(Equipable item, Backpack backpack) throws IllegalArgumentException{
+        switch(storeIfPossible(item, backpack)){
+            case SUCCESS:
+                break;
+            case CARRY_LIMIT:
+                throw new RuntimeException(new CarryLimitReachedException(item));
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
 
-        if(backpack.getHolder() != this || backpack == null)
-            throw new IllegalArgumentException();
-
-        if(item.getHolder() != this || item == null)
-            throw new IllegalArgumentException();
+    /**
+     * Stores an item, equipped in an anchorslot, away in a specified backpack, if possible.
+     *
+     * @param item
+     *        The item to be stored away.
+     * @param backpack
+     *        The backpack to store the item away in.
+     * @effect If the item can be stored, it is added to the backpack and its anchor is emptied.
+     *         |if(checkStore(item, backpack) == SUCCESS)
+     *         |then backpack.addEquipable(item) && getAnchorOf(item).setItem(null)
+     * @return The outcome of checking whether the item can be stored. Nothing is thrown.
+     *         |result == checkStore(item, backpack)
+     */
+    @Raw
+    public InventoryResult tryStore(Equipable item, Backpack backpack){
+        return storeIfPossible(item, backpack);
+    }
 
-        Anchor backpackanchor = null;
-        Anchor itemanchor = null;
-        //als rugzak niet in een anchor, throw error
-        for(int i= 0; i < getAnchors().size(); i++){
-            if(getAnchorItemAt(i) == backpack){
-                backpackanchor = getAnchorAt(i);
-            }
-            else if(getAnchorItemAt(i) == item)
-                itemanchor = getAnchorAt(i);
-        }
-        if(backpackanchor == null || itemanchor == null){
-            throw new IllegalArgumentException();
+    /**
+     * Stores the given item away in the given backpack if checkStore allows it, holding the lock of this creature.
+     */
+    @Model
+    private InventoryResult storeIfPossible(Equipable item, Backpack backpack){
+        getLock().lock();
+        try {
+            InventoryResult result = checkStore(item, backpack);
+            if(result.isSuccess())
+                moveToBackpack(item, backpack);
+            return result;
+        } finally {
+            unlockInventory();
         }
+    }
 
+    /**
+     * Checks whether this creature can store the given item away in the given backpack.
+     *
+     * @param item
+     *        The item to check.
+     * @param backpack
+     *        The backpack to store the item away in.
+     * @return ILLEGAL_BACKPACK if the backpack is not effective or not held by this creature, ILLEGAL_ITEM if the item
+     *         is not effective, not held by this creature or not in one of its anchors, ILLEGAL_BACKPACK if the backpack
+     *         is the item or stored in it, CARRY_LIMIT if the item does not fit, in that order. SUCCESS otherwise.
+     * @effect The rules of a transaction on this creature in which nothing has been moved yet are checked.
+     *         |getInventoryView().checkStore(item, backpack)
+     */
+    @Model @Raw
+    protected InventoryResult checkStore(Equipable item, Backpack backpack){
+        return getInventoryView().checkStore(item, backpack);
+    }
+
+    /**
+     * Moves the given item from its anchor to the given backpack, after checkStore allowed it.
+     */
+    @Model
+    private void moveToBackpack(Equipable item, Backpack backpack){
+        Anchor itemanchor = getAnchorOf(item);
         try {
             backpack.addEquipable(item);
-        } catch (BackPackNotEmptyException e) {
-            throw new RuntimeException(e);
-        } catch (CarryLimitReachedException e) {
-            throw new RuntimeException(e);
-        } catch (OtherPlayersItemException e) {
-            throw new RuntimeException(e);
-        } catch (ItemAlreadyobtainedException e) {
+        } catch (BackPackNotEmptyException | CarryLimitReachedException | OtherPlayersItemException
+                 | ItemAlreadyobtainedException e) {
             throw new RuntimeException(e);
         }
         itemanchor.setItem(null);
@@ -603,13 +1247,9 @@ public abstract class Creature {
      *        the item to be picked up.
      * @param backpack
      *        the backpack to store the item away in.
-     * @effect The item in the left or right hand that isn't the specified backpack is saved and temporarily set to null, the
-     *         specified item gets picked up.
-     *         |Equipable currholding = getAnchorItemAt(i);
-     *         |getAnchorAt(i).setItem(null);
-     *         |pickUp(item, getAnchorAt(i).getAnchorType());
-     * @effect The newly picked up item gets stored away in the specified backpack. Finally, the saved item is equiped again in the original anchorslot.
-     *         |store(item,backpack)
+     * @effect The item is picked up and stored away in the specified backpack as a transaction of a single move, so
+     *         no anchor of this creature is used on the way.
+     *         |beginTransaction().pickUpAndStore(item, backpack).commit()
      *
      * @throws IllegalArgumentException
      *         the item or the backpack is not effective
@@ -621,56 +1261,62 @@ public abstract class Creature {
      *        the backpack or the item belongs the another player.
      *        |backpack.getHolder() != this || item.getHolder() != null
      * @throws CarryLimitReachedException
-     *         The item cannot be picked up because the specified backpack doesn't have enough capacity left
-     *         |backpack.getCapacity() < backpack.getTotalWeight() + item.getWeight()
-     * @throws IllegalArgumentException
-     *         The item we want to pick up is a backpack which isn't empty.
-     *         |((Backpack) item).getTotalWeight() != item.getWeight()
-     * @throws IllegalArgumentException
-     *         The specified backpack is already being stored within another backpack.
-     *         |backpack.getParentbackpack() != null
+     *         The item cannot be picked up because the specified backpack, or a backpack it is nested in, doesn't have
+     *         enough capacity left, or because this creature cannot carry it.
+     *         |!backpack.hasRoomFor(item)
      */
     @Raw
     public void pickUpAndStore(Equipable item, Backpack backpack) throws OtherPlayersItemException, CarryLimitReachedException,
             ItemAlreadyobtainedException, IllegalArgumentException{
+        try {
+            beginTransaction().pickUpAndStore(item, backpack).commit();
+        } catch (AnchorslotOccupiedException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        //checkers invoeren i suppose om error te voorkomen in try catch blok
-        // is item of backapck niet al van iemand anders
-        if(item == null || backpack == null)
-            throw new IllegalArgumentException();
-        if(item.getHolder() == this)
-            throw new ItemAlreadyobtainedException(item);
-        if(backpack.getHolder() != this)
-            throw new OtherPlayersItemException(backpack);
-        if(item.getHolder() != null)
-            throw new OtherPlayersItemException(item);
-        if(backpack.getCapacity() < backpack.getTotalWeight() + item.getWeight())
-            throw new CarryLimitReachedException(item);
-        if(item instanceof Backpack)
-            if(((Backpack) item).getTotalWeight() != item.getWeight())
-                throw new IllegalArgumentException();
-        if(backpack.getParentbackpack() != null)
-            throw new IllegalArgumentException();
+    /**
+     * Starts a transaction that moves several items in and out of the inventory of this creature at once.
+     *
+     * @return A new, empty transaction on the inventory of this creature. Its moves are checked together and applied
+     *         all or none when it is committed.
+     *         |result == new InventoryTransaction(this)
+     */
+    @Raw
+    public InventoryTransaction beginTransaction(){
+        return new InventoryTransaction(this);
+    }
 
-        // het item in onze hand dat niet de rugzak is wordt even op de grond gelegd om een item op te pakken.
-        int i = 0;
-        Equipable currholding = getAnchorItemAt(0);
-        if(currholding == backpack){
-            i++;
-            currholding = getAnchorItemAt(i);
-        }
-        getAnchorAt(i).setItem(null);
+    /**
+     * A transaction on the inventory of this creature that is never committed, made the first time it is asked for.
+     */
+    private InventoryTransaction inventoryView;
 
-        //We proberen het item op te pakken
-        try {
-            pickUp(item, getAnchorAt(i).getAnchorType());
-            store(item, backpack);
-        }  catch (AnchorslotOccupiedException e) {
-            throw new RuntimeException(e);
-        }finally {
-            //Het wapen wordt weer vastgenomen
-            getAnchorAt(i).setItem(currholding);
+    /**
+     * Returns a transaction on the inventory of this creature in which nothing has been moved and which is never
+     * committed, so that the single moves on this creature are checked with the same rules as the moves of a
+     * transaction.
+     */
+    @Model @Raw
+    private InventoryTransaction getInventoryView(){
+        InventoryTransaction view = inventoryView;
+        if(view == null){
+            view = new InventoryTransaction(this);
+            inventoryView = view;
         }
+        return view;
+    }
+
+    /**
+     * Checks whether this creature can carry the given number of armors on top of the armors it carries now.
+     *
+     * @param nbOfArmors
+     *        The number of armors to add, can be negative.
+     * @return True, creatures in general carry any number of armors.
+     */
+    @Model @Raw
+    protected boolean canCarryExtraArmors(int nbOfArmors){
+        return true;
     }
 
     /**
@@ -694,13 +1340,15 @@ public abstract class Creature {
         if(i >= getNbOfAnchors())
             throw new IllegalArgumentException();
         Anchor anchor = getAnchorAt(i);
-        if(anchor.getItem() == null)
-            throw new IllegalArgumentException();
-
+        getLock().lock();
         try {
+            if(anchor.getItem() == null)
+                throw new IllegalArgumentException();
             drop(anchor.getItem());
         } catch (OtherPlayersItemException e) {
             throw new RuntimeException(e);
+        } finally {
+            unlockInventory();
         }
     }
 
@@ -714,9 +1362,37 @@ public abstract class Creature {
      */
     @Raw
     public void dropAllItems() {
-        for(int i=0; i < getAnchors().size();i++){
-            if (getAnchorAt(i).getItem() != null)
-                dropItemAtAnchor(i);
+        getLock().lock();
+        try {
+            for(int i=0; i < getAnchors().size();i++){
+                if (getAnchorAt(i).getItem() != null)
+                    dropItemAtAnchor(i);
+            }
+        } finally {
+            unlockInventory();
+        }
+    }
+
+    /**
+     * Performs the given action for every item this creature carries, in the order of its anchors. The content of a
+     * backpack, including the content of the backpacks stored in it, is visited before the backpack itself. Nothing is
+     * allocated per item.
+     *
+     * @param action
+     *        The action to perform. The action must not move the visited items.
+     * @effect Each item in an anchor is visited, after its content if it is a backpack.
+     *         |for each i in 0..getNbOfAnchors()-1:
+     *         |    if(getAnchorItemAt(i) instanceof Backpack) then ((Backpack) getAnchorItemAt(i)).forEachItem(action)
+     *         |    if(getAnchorItemAt(i) != null) then action.accept(getAnchorItemAt(i))
+     */
+    @Raw
+    public void forEachItem(Consumer<? super Equipable> action){
+        for(int i = 0; i < getNbOfAnchors(); i++){
+            Equipable item = getAnchorItemAt(i);
+            if(item instanceof Backpack)
+                ((Backpack) item).forEachItem(action);
+            if(item != null)
+                action.accept(item);
         }
     }
 
@@ -748,30 +1424,86 @@ public abstract class Creature {
      */
     @Raw
     public void equip(Equipable item, AnchorType location) throws IllegalArgumentException, OtherPlayersItemException, AnchorslotOccupiedException, BeltAnchorException{
-
-        Backpack parent = item.getParentbackpack();
-        if(parent == null)
-            throw new IllegalArgumentException();
-        if(parent.getHolder() != this)
-            throw new OtherPlayersItemException(parent);
-        if (location.getName() == "Riem" && !(item instanceof Purse))
-            throw new BeltAnchorException(item);
-
-        Anchor anchor = null;
-        Anchor curranchor = getAnchorAt(0);
-        for (int i = 0; i < getAnchors().size(); i++) {
-            curranchor = getAnchorAt(i);
-            if (curranchor.getAnchorType() == location) {
-                if(curranchor.getItem() == null){
-                    anchor = curranchor;
-                    break;
-                }
+        switch(equipIfPossible(item, location)){
+            case SUCCESS:
+                break;
+            case OTHER_PLAYERS_ITEM:
+                throw new OtherPlayersItemException(item.getParentbackpack());
+            case BELT_ANCHOR:
+                throw new BeltAnchorException(item);
+            case NO_FREE_ANCHOR: {
+                List<Anchor> occupied = getAnchorsOfType(location);
+                if(occupied.isEmpty())
+                    throw new AnchorslotOccupiedException(getAnchorAt(getNbOfAnchors() - 1));
+                throw new AnchorslotOccupiedException(occupied.get(occupied.size() - 1));
             }
+            default:
+                throw new IllegalArgumentException();
         }
-        if(anchor == null)
-            throw new AnchorslotOccupiedException(curranchor);
+    }
 
-        parent.removeEquipable(item);
+    /**
+     * Takes an item out of the backpack that the item is stored in and moves it to an empty anchor with the given
+     * anchortype, if possible.
+     *
+     * @param item
+     *        The item to be taken out of its backpack
+     * @param location
+     *        The anchortype of the anchor to move the item to
+     * @effect If the item can be equipped, it is removed from its backpack and put in the first free anchor with the
+     *         given type.
+     *         |if(checkEquip(item, location) == SUCCESS)
+     *         |then item.getParentbackpack().removeEquipable(item) && getFreeAnchor(location).setItem(item)
+     * @return The outcome of checking whether the item can be equipped. Nothing is thrown.
+     *         |result == checkEquip(item, location)
+     */
+    @Raw
+    public InventoryResult tryEquip(Equipable item, AnchorType location){
+        return equipIfPossible(item, location);
+    }
+
+    /**
+     * Equips the given item from its backpack if checkEquip allows it, holding the lock of this creature.
+     */
+    @Model
+    private InventoryResult equipIfPossible(Equipable item, AnchorType location){
+        getLock().lock();
+        try {
+            InventoryResult result = checkEquip(item, location);
+            if(result.isSuccess())
+                moveToAnchor(item, location);
+            return result;
+        } finally {
+            unlockInventory();
+        }
+    }
+
+    /**
+     * Checks whether this creature can take the given item out of its backpack and equip it in an anchor with the given
+     * anchortype.
+     *
+     * @param item
+     *        The item to check.
+     * @param location
+     *        The anchortype of the anchor to move the item to
+     * @return ILLEGAL_ITEM if the item is not effective or not stored in a backpack, OTHER_PLAYERS_ITEM if its backpack
+     *         is not held by this creature, BELT_ANCHOR if a non-purse goes to the belt, NO_FREE_ANCHOR if no anchor with
+     *         the given type is free, in that order. SUCCESS otherwise.
+     * @effect The rules of a transaction on this creature in which nothing has been moved yet are checked.
+     *         |getInventoryView().checkEquip(item, location)
+     */
+    @Model @Raw
+    protected InventoryResult checkEquip(Equipable item, AnchorType location){
+        return getInventoryView().checkEquip(item, location);
+    }
+
+    /**
+     * Moves the given item from its backpack to the first free anchor with the given type, after checkEquip allowed it.
+     */
+    @Model
+    private void moveToAnchor(Equipable item, AnchorType location){
+        Anchor anchor = getFreeAnchor(location);
+        item.getParentbackpack().removeEquipable(item);
         anchor.setItem(item);
     }
 
@@ -812,32 +1544,72 @@ public abstract class Creature {
         Anchor startanchor = getAnchorAt(start);
         Anchor endanchor = getAnchorAt(end);
 
-        if(startanchor.getItem() == null)
-            throw new NullPointerException();
+        getLock().lock();
+        try {
+            if(startanchor.getItem() == null)
+                throw new NullPointerException();
 
-        if(startanchor != endanchor){
-            Equipable startitem = startanchor.getItem();
+            if(startanchor != endanchor){
+                Equipable startitem = startanchor.getItem();
 
 
-            if(endanchor.getItem() != null)
-                throw new AnchorslotOccupiedException(endanchor);
-            if (endanchor.getAnchorType().getName() == "Riem" && !(startitem instanceof Purse))
-                throw new BeltAnchorException(startitem);
+                if(endanchor.getItem() != null)
+                    throw new AnchorslotOccupiedException(endanchor);
+                if (endanchor.getAnchorType().getName() == "Riem" && !(startitem instanceof Purse))
+                    throw new BeltAnchorException(startitem);
 
-            startanchor.setItem(null);
-            endanchor.setItem(startitem);
+                startanchor.setItem(null);
+                endanchor.setItem(startitem);
+            }
+        } finally {
+            unlockInventory();
         }
     }
 
+    /********
+     * Randomness
+     */
+
+    /**
+     * A variable referencing the random generator of this creature.
+     * Null means that the random generator of the thread using the creature is used.
+     */
+    private RandomGenerator random = null;
+
+    /**
+     * Returns the random generator this creature uses to hit and to heal.
+     * @return The random generator given to this creature, or the random generator of the current thread if none was given.
+     *         |if(random == null)
+     *         |then result == ThreadLocalRandom.current()
+     *         |else result == random
+     */
+    @Raw
+    public RandomGenerator getRandom() {
+        if(random == null)
+            return ThreadLocalRandom.current();
+        return random;
+    }
+
+    /**
+     * Sets the random generator of this creature, so that a fight can be replayed from a seed.
+     * @param random
+     *        The new random generator, or null to use the random generator of the thread using the creature.
+     * @post  The random generator of this creature is set to the given random generator.
+     *        |this.random == random
+     */
+    @Raw
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
     /**
      * Generates a value to see if the attack will hit.
      * @return A random integer between 0 and 100.
-     *         | result == rand.nextInt(101)
+     *         | result == getRandom().nextInt(101)
      */
     @Model
     protected int getHitValue(){
-        Random rand = new Random();
-        int randomNum = rand.nextInt(101);
+        int randomNum = getRandom().nextInt(101);
         return randomNum;
     }
     /**
@@ -853,7 +1625,23 @@ public abstract class Creature {
 
     /**
      * The creature dies and unequips all his items that can now be looted.
-     * @return  a list that contains all the items of the dead creature.
+     * @effect  The creature dies and all the items it owned are added to a new list.
+     *          |die(items)
+     * @return  All the items that the creature owned in a list. If he has a backpack equiped
+     *          then the backpack as well as all the items within the backpack are returned in the list.
+     *          | result == items
+     */
+    @Model
+    protected ArrayList<Equipable> die(){
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+        die(items);
+        return items;
+    }
+
+    /**
+     * The creature dies and unequips all his items that can now be looted.
+     * @param   loot
+     *          The list to which the items of the creature are added.
      * @effect  all the items that the dead creature owned will be dropped.
      *          Backpacks will also be dropped but the items in the backpack will
      *          remain inside the backpack.
@@ -861,39 +1649,44 @@ public abstract class Creature {
      *          |        drop(anchor.getItem)
      * @effect The creature is marked as dead.
      *         |setAlive(false)
-     * @return  All the items that the creature owned in a list. If he has a backpack equiped
-     *          then the backpack as well as all the items within the backpack are returned in the list.
-     *          |ArrayList<Equipable> items = new ArrayList<Equipable>()
+     * @effect  All the items that the creature owned are added to the given list. If he has a backpack equiped
+     *          then all the items within the backpack, and then the backpack itself, are added to the list.
+     *          No other list is built on the way.
      *          |for anchor in anchor.getAnchors
      *          |      if(anchor.getItem() instanceof Backpack)
-     *          |          then for item in anchor.getItem()).getAllItems()
-     *          |              items.add(item)
-     *          |      items.add(anchor.getItem())
-     *          | result == items
+     *          |          then ((Backpack) anchor.getItem()).forEachItem(loot::add)
+     *          |      loot.add(anchor.getItem())
      */
     @Model
-    protected ArrayList<Equipable> die(){
+    protected void die(ArrayList<Equipable> loot){
         setAlive(false);
-        ArrayList<Equipable> items = new ArrayList<Equipable>();
-        for(Anchor anchor : getAnchors()){
-            if(anchor.getItem() != null){
-                if(anchor.getItem() instanceof Backpack){
-                    ((Backpack) anchor.getItem()).getAllItems();
-                    for(Equipable item : ((Backpack) anchor.getItem()).getAllItems()){
-                        items.add(item);
-                    }
-                }
-                items.add(anchor.getItem());
+        for(int i = 0; i < getNbOfAnchors(); i++){
+            Equipable item = getAnchorItemAt(i);
+            if(item != null){
+                if(item instanceof Backpack)
+                    ((Backpack) item).forEachItem(loot::add);
+                loot.add(item);
                 try {
-                    drop(anchor.getItem());
+                    drop(item);
                 } catch (OtherPlayersItemException e) {
                     throw new RuntimeException(e);
                 }
             }
         }
-        return items;
     }
 
+    /**
+     * A list that is reused to hand the items of the creatures killed by this creature over to LootAndHeal.
+     * It is empty between two kills.
+     */
+    private final ArrayList<Equipable> loot = new ArrayList<Equipable>();
+
+    /**
+     * A set that is reused to collect the stripes of the items that change hands when this creature kills a creature.
+     * It is empty between two kills.
+     */
+    private final BitSet lootStripes = new BitSet();
+
     /**
      * Makes a creature loot and/or heal after a won battle.
      * @param items
@@ -913,6 +1706,13 @@ public abstract class Creature {
      *         |then creature.setHitPoints(creature.getHitPoints() - getTotalDamage())
      *         |if  creature.getHitPoints() <= 0
      *         |then creature.setHitPoints(0)
+     * @effect Both creatures are locked in their global order for the whole hit.
+     *         |lock(this, creature)
+     * @effect If the creature dies, its items are handed to LootAndHeal in a list that this creature reuses for every kill.
+     *         While the items change hands, the stripes of the items of both creatures are locked, so that no other
+     *         creature picks up the dropped items.
+     *         |if  creature.getHitPoints() <= 0
+     *         |then creature.die(loot) and LootAndHeal(loot)
      * @throws IllegalArgumentException
      *         The given creature is already dead.
      *         |creature.isAlive() == false
@@ -921,33 +1721,46 @@ public abstract class Creature {
      *         |this.isAlive() == false
      */
     public void Hit(Creature creature) throws IllegalArgumentException, IllegalCallerException {
-        if(!this.isAlive())
-            throw new IllegalCallerException();
-        if(!creature.isAlive())
-            throw new IllegalArgumentException();
+        lock(this, creature);
+        try {
+            if(!this.isAlive())
+                throw new IllegalCallerException();
+            if(!creature.isAlive())
+                throw new IllegalArgumentException();
 
 
-        int remainingHP = creature.getHitPoints();
-        if(getHitValue() >= creature.getTotalProtection()) {
-            remainingHP = creature.getHitPoints() - getTotalDamage();
-        }
-        if(remainingHP <= 0){
-            creature.setHitPoints(0);
-
-            try {
-                LootAndHeal(creature.die());
-            } catch (ItemNotEquipedException e) {
-                throw new RuntimeException(e);
-            } catch (ItemAlreadyobtainedException e) {
-                throw new RuntimeException(e);
-            } catch (CarryLimitReachedException e) {
-                throw new RuntimeException(e);
-            } catch (AnchorslotOccupiedException e) {
-                throw new RuntimeException(e);
+            int remainingHP = creature.getHitPoints();
+            if(getHitValue() >= creature.getTotalProtection()) {
+                remainingHP = creature.getHitPoints() - getTotalDamage();
             }
-        }
-        else{
-            creature.setHitPoints(remainingHP);
+            if(remainingHP <= 0){
+                creature.setHitPoints(0);
+
+                creature.forEachItem(item -> lootStripes.set(ItemLocks.stripeOf(item)));
+                forEachItem(item -> lootStripes.set(ItemLocks.stripeOf(item)));
+                ItemLocks.lockAll(lootStripes);
+                try {
+                    creature.die(loot);
+                    LootAndHeal(loot);
+                } catch (ItemNotEquipedException e) {
+                    throw new RuntimeException(e);
+                } catch (ItemAlreadyobtainedException e) {
+                    throw new RuntimeException(e);
+                } catch (CarryLimitReachedException e) {
+                    throw new RuntimeException(e);
+                } catch (AnchorslotOccupiedException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    ItemLocks.unlockAll(lootStripes);
+                    lootStripes.clear();
+                    loot.clear();
+                }
+            }
+            else{
+                creature.setHitPoints(remainingHP);
+            }
+        } finally {
+            unlock(this, creature);
         }
     }
 
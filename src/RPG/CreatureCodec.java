@@ -0,0 +1,543 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A class for saving creatures with their inventory in a compact binary format, and reading them back.
+ *
+ * A save starts with the magic number and the version of the format, followed by the creature: its kind, name and
+ * hit points, the strength and protection of a hero or the capacity, natural protection and damage of a monster, and
+ * the item of every anchor in order. The natural protection and damage are written as a hidden armor and weapon
+ * without identification number or weight, of which the armor keeps the time from which the protection wears.
+ * An item is written as its tag from CompactInventory, its identification number, weight and value, followed by the
+ * fields of its kind: the damage of a weapon and whether its value follows that damage, the armortype, maximum value,
+ * armorvalue and time of the last check of an armor, and the capacity and the content of a backpack, written depth
+ * first.
+ * Reading a save rebuilds the items with the identification numbers they had. Armors claim their prime directly and
+ * backpacks register their number directly, so the numbers must still be free in the world that reads the save.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public final class CreatureCodec {
+
+    /**
+     * The number every save starts with, "RPGS" in ASCII.
+     */
+    public static final int MAGIC = 0x52504753;
+
+    /**
+     * The version of the format written by this codec.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The kind of a saved hero.
+     */
+    private static final byte HERO = 1;
+
+    /**
+     * The kind of a saved monster.
+     */
+    private static final byte MONSTER = 2;
+
+    /**
+     * The number of bytes of the fields every item starts with: tag, id, weight and value.
+     */
+    private static final int ITEM_HEADER = 1 + 8 + 4 + 4;
+
+    /**
+     * The number of bytes of the natural protection and damage of a monster, written as a hidden armor and weapon.
+     */
+    private static final int TRAITS_SIZE = ITEM_HEADER + 1 + 4 + 4 + 8 + ITEM_HEADER + 4 + 1;
+
+    /**
+     * Codecs are not instantiated.
+     */
+    @Model
+    private CreatureCodec(){
+    }
+
+    /********
+     * Writing
+     */
+
+    /**
+     * Returns the number of bytes the save of the given creature takes.
+     *
+     * @param creature
+     *        The creature to save.
+     * @return The number of bytes write puts in a buffer for the given creature, as long as its inventory does not
+     *         change in between.
+     */
+    public static int getEncodedSize(Creature creature){
+        int size = 4 + 2 + 1 + 4 + creature.getName().getBytes(StandardCharsets.UTF_8).length + 4 + 4 + 1;
+        if(creature instanceof Hero)
+            size += 8 + 4;
+        else
+            size += 4 + TRAITS_SIZE;
+        size += 4;
+        for(int i = 0; i < creature.getNbOfAnchors(); i++)
+            size += getEncodedSize(creature.getAnchorItemAt(i));
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the given item takes, including the content of a backpack.
+     */
+    @Model
+    static int getEncodedSize(Equipable item){
+        if(item == null)
+            return 1;
+        if(item instanceof Weapon)
+            return ITEM_HEADER + 4 + 1;
+        if(item instanceof Armor)
+            return ITEM_HEADER + 1 + 4 + 4 + 8;
+        if(item instanceof Backpack){
+            int[] size = {ITEM_HEADER + 4 + 4};
+            ((Backpack) item).getContent().forEach(content -> size[0] += getEncodedSize(content));
+            return size[0];
+        }
+        return ITEM_HEADER;
+    }
+
+    /**
+     * Saves the given creature in a new buffer.
+     *
+     * @param creature
+     *        The creature to save.
+     * @return A buffer holding the save of the creature, ready to be read.
+     */
+    public static ByteBuffer encode(Creature creature){
+        creature.getLock().lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(getEncodedSize(creature));
+            write(creature, buffer);
+            return buffer.flip();
+        } finally {
+            creature.unlockInventory();
+        }
+    }
+
+    /**
+     * Writes the save of the given creature in the given buffer, from its position onwards.
+     * The inventory of the creature is locked while it is written.
+     *
+     * @param creature
+     *        The creature to save.
+     * @param buffer
+     *        The buffer to write in.
+     * @throws java.nio.BufferOverflowException
+     *         The buffer has fewer than getEncodedSize(creature) bytes remaining.
+     */
+    public static void write(Creature creature, ByteBuffer buffer){
+        creature.getLock().lock();
+        try {
+            buffer.putInt(MAGIC).putShort(VERSION);
+            buffer.put(creature instanceof Hero ? HERO : MONSTER);
+            byte[] name = creature.getName().getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(name.length).put(name);
+            buffer.putInt(creature.getMaxHitPoints()).putInt(creature.getHitPoints());
+            buffer.put((byte) (creature.isAlive() ? 1 : 0));
+            if(creature instanceof Hero){
+                Hero hero = (Hero) creature;
+                buffer.putDouble(hero.getStrength()).putInt(hero.getProtection());
+            }
+            else {
+                Monster monster = (Monster) creature;
+                buffer.putInt(monster.getMaxCapacity());
+                writeTraits(monster, buffer);
+            }
+            buffer.putInt(creature.getNbOfAnchors());
+            for(int i = 0; i < creature.getNbOfAnchors(); i++)
+                writeItem(creature.getAnchorItemAt(i), buffer);
+        } finally {
+            creature.unlockInventory();
+        }
+    }
+
+    /**
+     * Writes the natural protection and damage of the given monster in the given buffer, as the hidden armor and
+     * weapon they were written as before, without making those items.
+     */
+    @Model
+    private static void writeTraits(Monster monster, ByteBuffer buffer){
+        NaturalTraits traits = monster.getNaturalTraits();
+        buffer.put(CompactInventory.ARMOR).putLong(0).putInt(0).putInt(1);
+        buffer.put((byte) traits.getProtectionType().ordinal()).putInt(1);
+        buffer.putInt(monster.getTotalProtection()).putLong(monster.getWearStartMillis());
+        buffer.put(CompactInventory.WEAPON).putLong(0).putInt(0).putInt(1);
+        buffer.putInt(traits.getDamage()).put((byte) 0);
+    }
+
+    /**
+     * Writes the given item, and the content of a backpack, in the given buffer.
+     */
+    @Model
+    static void writeItem(Equipable item, ByteBuffer buffer){
+        byte tag = CompactInventory.tagOf(item);
+        if(tag == CompactInventory.OTHER)
+            throw new IllegalArgumentException();
+        buffer.put(tag);
+        if(item == null)
+            return;
+        buffer.putLong(item.getId()).putInt(item.getWeight()).putInt(item.getValue());
+        if(item instanceof Weapon){
+            Weapon weapon = (Weapon) item;
+            buffer.putInt(weapon.getDamage()).put((byte) (weapon.isDmgValLink() ? 1 : 0));
+        }
+        else if(item instanceof Armor){
+            Armor armor = (Armor) item;
+            buffer.put((byte) armor.getArmorType().ordinal()).putInt(armor.getMaxvalue());
+            buffer.putInt(armor.getCurrentArmor()).putLong(armor.getCheckMillis());
+        }
+        else if(item instanceof Backpack){
+            Backpack backpack = (Backpack) item;
+            buffer.putInt(backpack.getCapacity()).putInt(backpack.getNbOfItems());
+            backpack.getContent().forEach(content -> writeItem(content, buffer));
+        }
+    }
+
+    /**
+     * Saves the given creature in the file at the given path, replacing its content.
+     *
+     * @param creature
+     *        The creature to save.
+     * @param path
+     *        The path of the file.
+     * @throws IOException
+     *         The file could not be written.
+     */
+    public static void save(Creature creature, Path path) throws IOException{
+        ByteBuffer buffer = encode(creature);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /********
+     * Reading
+     */
+
+    /**
+     * Reads a creature from the given buffer, from its position onwards.
+     *
+     * @param buffer
+     *        The buffer holding the save.
+     * @return A new creature with the name, hit points, stats and items of the saved creature. Each item has the
+     *         identification number and the state it had when it was saved.
+     * @throws IllegalArgumentException
+     *         The buffer does not hold a save of this version, or the save does not describe a valid creature, or an
+     *         identification number of a saved armor or backpack is taken. Items read before the failure are destroyed,
+     *         so their identification numbers are free again.
+     */
+    public static Creature read(ByteBuffer buffer) throws IllegalArgumentException{
+        ArrayList<Equipable> built = new ArrayList<Equipable>();
+        try {
+            if(buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+                throw new IllegalArgumentException();
+            byte kind = buffer.get();
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            int maxHitPoints = buffer.getInt();
+            int hitPoints = buffer.getInt();
+            boolean alive = buffer.get() != 0;
+            Creature creature;
+            if(kind == HERO){
+                double strength = buffer.getDouble();
+                int protection = buffer.getInt();
+                int nbOfAnchors = buffer.getInt();
+                creature = new Hero(new String(name, StandardCharsets.UTF_8), maxHitPoints, strength, protection);
+                if(nbOfAnchors != creature.getNbOfAnchors())
+                    throw new IllegalArgumentException();
+            }
+            else if(kind == MONSTER){
+                int maxCapacity = buffer.getInt();
+                long wearStartMillis = buffer.getLong(buffer.position() + ITEM_HEADER + 1 + 4 + 4);
+                NaturalTraits traits = readTraits(buffer);
+                Monster monster = new Monster(new String(name, StandardCharsets.UTF_8), maxHitPoints, maxCapacity,
+                        traits, buffer.getInt());
+                monster.restoreWearStartMillis(wearStartMillis);
+                creature = monster;
+            }
+            else throw new IllegalArgumentException();
+            creature.setHitPoints(hitPoints);
+            creature.setAlive(alive);
+            for(int i = 0; i < creature.getNbOfAnchors(); i++){
+                Equipable item = readItem(buffer, (byte) -1, built);
+                if(item == null)
+                    continue;
+                Anchor anchor = creature.getAnchorAt(i);
+                if(!item.isValidAnchor(anchor))
+                    throw new IllegalArgumentException();
+                item.equip(anchor);
+                if(item instanceof Backpack)
+                    readContent((Backpack) item, buffer, built);
+            }
+            return creature;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            destroyAll(built);
+            throw new IllegalArgumentException(e);
+        } catch (RuntimeException e) {
+            destroyAll(built);
+            throw e;
+        }
+    }
+
+    /**
+     * Destroys the given items, read from a save that turned out to be invalid, so that their identification numbers
+     * are free again. The items are taken out of their anchors and backpacks in the reverse order they were read in,
+     * so the content of a backpack is destroyed before the backpack.
+     */
+    @Model
+    private static void destroyAll(List<Equipable> built){
+        for(int i = built.size() - 1; i >= 0; i--){
+            Equipable item = built.get(i);
+            if(item.getParentbackpack() != null)
+                item.getParentbackpack().removeEquipable(item);
+            else if(item.getAnchor() != null)
+                item.getAnchor().setItem(null);
+            item.setHolder(null);
+            item.destroy();
+        }
+    }
+
+    /**
+     * Reads the natural protection and damage of a monster from the given buffer, and returns the shared traits with
+     * their armortype and damage instead of making the saved items again. The time from which the protection wears is
+     * read by the caller.
+     */
+    @Model
+    private static NaturalTraits readTraits(ByteBuffer buffer){
+        if(buffer.get() != CompactInventory.ARMOR)
+            throw new IllegalArgumentException();
+        buffer.position(buffer.position() + 8 + 4 + 4);
+        int type = buffer.get();
+        buffer.position(buffer.position() + 4 + 4 + 8);
+        if(type < 0 || type >= ArmorType.values().length || buffer.get() != CompactInventory.WEAPON)
+            throw new IllegalArgumentException();
+        buffer.position(buffer.position() + 8 + 4 + 4);
+        int damage = buffer.getInt();
+        buffer.get();
+        return NaturalTraits.of(ArmorType.values()[type], damage);
+    }
+
+    /**
+     * Reads the next item from the given buffer. The content of a backpack is left in the buffer.
+     *
+     * @param buffer
+     *        The buffer to read from.
+     * @param expected
+     *        The tag the item must have, or -1 if any tag is allowed.
+     * @param built
+     *        The list the item is added to once it is made.
+     * @return The item, or null for an empty anchor.
+     */
+    @Model
+    private static Equipable readItem(ByteBuffer buffer, byte expected, List<Equipable> built){
+        Equipable item = makeItem(buffer, expected);
+        if(item != null)
+            built.add(item);
+        return item;
+    }
+
+    /**
+     * Makes the next item in the given buffer. The content of a backpack is left in the buffer.
+     */
+    @Model
+    private static Equipable makeItem(ByteBuffer buffer, byte expected){
+        byte tag = buffer.get();
+        if(expected >= 0 && tag != expected)
+            throw new IllegalArgumentException();
+        if(tag == CompactInventory.EMPTY)
+            return null;
+        long id = buffer.getLong();
+        int weight = buffer.getInt();
+        int value = buffer.getInt();
+        switch(tag){
+            case CompactInventory.WEAPON:
+                int damage = buffer.getInt();
+                return new Weapon(id, weight, damage, value, buffer.get() != 0);
+            case CompactInventory.ARMOR:
+                ArmorType[] types = ArmorType.values();
+                int type = buffer.get();
+                if(type < 0 || type >= types.length)
+                    throw new IllegalArgumentException();
+                int maxvalue = buffer.getInt();
+                int actualarmor = buffer.getInt();
+                return new Armor(id, weight, types[type], maxvalue, actualarmor, buffer.getLong(), false);
+            case CompactInventory.BACKPACK:
+                return new Backpack(id, weight, value, buffer.getInt(), false);
+            case CompactInventory.PURSE:
+                Purse purse = new Purse(weight);
+                if(value != purse.getValue())
+                    purse.setValue(value);
+                return purse;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Reads the content of the given backpack, which is held by a creature, from the given buffer and stores it in
+     * the backpack. The capacity of the holder is reduced with the weight of every stored item. Every item made is added
+     * to the given list.
+     */
+    @Model
+    private static void readContent(Backpack backpack, ByteBuffer buffer, List<Equipable> built){
+        Creature holder = backpack.getHolder();
+        int nbOfItems = buffer.getInt();
+        for(int i = 0; i < nbOfItems; i++){
+            Equipable item = readItem(buffer, (byte) -1, built);
+            if(item == null)
+                throw new IllegalArgumentException();
+            try {
+                backpack.addEquipable(item);
+            } catch (BackPackNotEmptyException | CarryLimitReachedException | OtherPlayersItemException
+                     | ItemAlreadyobtainedException e) {
+                throw new IllegalArgumentException(e);
+            }
+            holder.ChangeCapacity(-item.getWeight());
+            if(item instanceof Backpack)
+                readContent((Backpack) item, buffer, built);
+        }
+    }
+
+    /**
+     * Reads a creature from the file at the given path.
+     *
+     * @param path
+     *        The path of the file.
+     * @return The creature saved in the file.
+     *         |result == read(the content of the file)
+     * @throws IOException
+     *         The file could not be read.
+     * @throws IllegalArgumentException
+     *         The file does not hold a valid save.
+     */
+    public static Creature load(Path path) throws IOException, IllegalArgumentException{
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while(buffer.hasRemaining()){
+                if(channel.read(buffer) < 0)
+                    throw new IllegalArgumentException();
+            }
+            return read(buffer.flip());
+        }
+    }
+
+    /********
+     * Splitting saves
+     */
+
+    /**
+     * Splits the save at the position of the given buffer into the part before the items of the anchors and the
+     * items of each anchor, without reading any item into an object.
+     *
+     * @param buffer
+     *        The buffer holding the save. Its position is moved past the save.
+     * @return An array holding the part of the save before the first anchor, followed by the saved item of each
+     *         anchor, each as a buffer of its own.
+     * @throws IllegalArgumentException
+     *         The buffer does not hold a save of this version.
+     */
+    @Model
+    static ByteBuffer[] splitAnchors(ByteBuffer buffer) throws IllegalArgumentException{
+        try {
+            int start = buffer.position();
+            if(buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+                throw new IllegalArgumentException();
+            byte kind = buffer.get();
+            buffer.position(buffer.getInt() + buffer.position() + 4 + 4 + 1);
+            if(kind == HERO)
+                buffer.position(buffer.position() + 8 + 4);
+            else if(kind == MONSTER){
+                buffer.position(buffer.position() + 4);
+                skipItem(buffer);
+                skipItem(buffer);
+            }
+            else throw new IllegalArgumentException();
+            ByteBuffer[] parts = new ByteBuffer[buffer.getInt() + 1];
+            parts[0] = buffer.slice(start, buffer.position() - start);
+            for(int i = 1; i < parts.length; i++){
+                int itemStart = buffer.position();
+                skipItem(buffer);
+                parts[i] = buffer.slice(itemStart, buffer.position() - itemStart);
+            }
+            return parts;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Moves the position of the given buffer past the next saved item, including the content of a backpack.
+     */
+    @Model
+    static void skipItem(ByteBuffer buffer){
+        skipItem(buffer, null);
+    }
+
+    /**
+     * Moves the position of the given buffer past the next saved item, including the content of a backpack, and gives
+     * the tag and the identification number of every saved armor and backpack in it to the given visitor, if any.
+     */
+    @Model
+    static void skipItem(ByteBuffer buffer, ObjLongConsumer<Byte> ids){
+        byte tag = buffer.get();
+        if(tag == CompactInventory.EMPTY)
+            return;
+        if(ids != null && (tag == CompactInventory.ARMOR || tag == CompactInventory.BACKPACK))
+            ids.accept(tag, buffer.getLong(buffer.position()));
+        buffer.position(buffer.position() + 8 + 4 + 4);
+        switch(tag){
+            case CompactInventory.WEAPON:
+                buffer.position(buffer.position() + 4 + 1);
+                break;
+            case CompactInventory.ARMOR:
+                buffer.position(buffer.position() + 1 + 4 + 4 + 8);
+                break;
+            case CompactInventory.BACKPACK:
+                buffer.position(buffer.position() + 4);
+                int nbOfItems = buffer.getInt();
+                for(int i = 0; i < nbOfItems; i++)
+                    skipItem(buffer, ids);
+                break;
+            case CompactInventory.PURSE:
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Joins the given parts of a save, as split by splitAnchors, into one buffer ready to be read.
+     *
+     * @param parts
+     *        The parts of the save.
+     * @return A new buffer holding the parts one after the other.
+     */
+    @Model
+    static ByteBuffer joinAnchors(ByteBuffer[] parts){
+        int size = 0;
+        for(ByteBuffer part : parts)
+            size += part.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for(ByteBuffer part : parts)
+            buffer.put(part.duplicate());
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,186 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A JUnit test class for testing saving creatures and reading them back.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CreatureCodecTest {
+
+    private PrimeIdAllocator primeIds;
+
+    private IdRegistry backpackIds;
+
+    @Before
+    public void rememberIds(){
+        primeIds = Armor.getPrimeIds();
+        backpackIds = Backpack.getIdRegistry();
+    }
+
+    @After
+    public void restoreIds(){
+        Armor.setPrimeIds(primeIds);
+        Backpack.setIdRegistry(backpackIds);
+    }
+
+    /**
+     * Starts a new world, in which the ids of the saved armors and backpacks are free again.
+     */
+    private void startNewWorld(){
+        Armor.setPrimeIds(new PrimeIdAllocator());
+        Backpack.setIdRegistry(new LongIdRegistry());
+    }
+
+    @Test
+    public void testHeroRoundTrip() throws Exception{
+        Armor armor = new Armor(101, 10, ArmorType.DEFAULT, 100);
+        armor.DecrementArmor(7);
+        Hero hero = new Hero("Saver", 80, 15.25, 12, armor);
+        Backpack outer = new Backpack(40, 3, 30, 200);
+        Backpack inner = new Backpack(41, 2, 20, 100);
+        Weapon linked = new Weapon(6, 21);
+        Weapon fixed = new Weapon(4, 14, 55);
+        Purse purse = new Purse(1);
+        hero.pickUp(outer, AnchorType.RUG);
+        hero.pickUpAndStore(inner, outer);
+        hero.pickUpAndStore(fixed, inner);
+        hero.pickUp(linked, AnchorType.LINKERHAND);
+        hero.pickUp(purse, AnchorType.RIEM);
+
+        ByteBuffer buffer = CreatureCodec.encode(hero);
+        Assert.assertEquals(buffer.remaining(), CreatureCodec.getEncodedSize(hero));
+        startNewWorld();
+        Hero copy = (Hero) CreatureCodec.read(buffer);
+
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(copy.getName(), "Saver");
+        Assert.assertEquals(copy.getMaxHitPoints(), hero.getMaxHitPoints());
+        Assert.assertEquals(copy.getHitPoints(), hero.getHitPoints());
+        Assert.assertEquals(copy.getStrength(), 15.25, 0);
+        Assert.assertEquals(copy.getCapacity(), hero.getCapacity());
+        Assert.assertEquals(copy.getTotalValueOfItems(), hero.getTotalValueOfItems());
+        Assert.assertEquals(copy.getTotalDamage(), hero.getTotalDamage());
+        Assert.assertEquals(copy.getTotalProtection(), hero.getTotalProtection());
+
+        Armor armorCopy = (Armor) copy.getAnchorItemAt(3);
+        Assert.assertEquals(armorCopy.getId(), armor.getId());
+        Assert.assertEquals(armorCopy.getCurrentArmor(), armor.getCurrentArmor());
+        Assert.assertEquals(armorCopy.getCheckMillis(), armor.getCheckMillis());
+        Assert.assertTrue(Armor.getPrimeIds().isAllocated(armor.getId()));
+
+        Weapon linkedCopy = (Weapon) copy.getAnchorItemAt(0);
+        Assert.assertEquals(linkedCopy.getId(), linked.getId());
+        Assert.assertTrue(linkedCopy.isDmgValLink());
+        Assert.assertEquals(linkedCopy.getValue(), 42);
+        Assert.assertSame(copy.getAnchorItemAt(4).getClass(), Purse.class);
+
+        Backpack outerCopy = (Backpack) copy.getAnchorItemAt(2);
+        Assert.assertEquals(outerCopy.getId(), outer.getId());
+        Assert.assertEquals(outerCopy.getTotalWeight(), outer.getTotalWeight());
+        Assert.assertEquals(outerCopy.getNbOfItems(), 1);
+        Assert.assertTrue(Backpack.getIdRegistry().contains(outer.getId()));
+        Assert.assertTrue(Backpack.getIdRegistry().contains(inner.getId()));
+        for(Equipable item : outerCopy.getAllItems())
+            Assert.assertSame(item.getHolder(), copy);
+    }
+
+    /**
+     * Returns the id of a new weapon made on a new thread, which draws a new block from the sequence of weapon ids.
+     */
+    private long newWeaponIdOnNewThread() throws Exception{
+        long[] id = new long[1];
+        Thread thread = new Thread(() -> id[0] = new Weapon(1).getId());
+        thread.start();
+        thread.join();
+        return id[0];
+    }
+
+    @Test
+    public void testRestoredWeaponIdIsReserved() throws Exception{
+        Hero hero = new Hero("Saver", 80, 15, new Armor(107, 10, ArmorType.DEFAULT, 100));
+        Weapon weapon = new Weapon(4, 14, 55);
+        hero.pickUp(weapon, AnchorType.LINKERHAND);
+        ByteBuffer buffer = CreatureCodec.encode(hero);
+        // the save comes from a world that handed out more weapon ids than this one
+        long restoredId = newWeaponIdOnNewThread() + 6 * 10000;
+        for(int i = 0; i + 8 <= buffer.limit(); i++){
+            if(buffer.getLong(i) == weapon.getId())
+                buffer.putLong(i, restoredId);
+        }
+        startNewWorld();
+        Hero copy = (Hero) CreatureCodec.read(buffer);
+
+        Assert.assertEquals(copy.getAnchorItemAt(0).getId(), restoredId);
+        Assert.assertTrue(newWeaponIdOnNewThread() > restoredId);
+    }
+
+    @Test
+    public void testMonsterRoundTripThroughFile() throws Exception{
+        Monster monster = new Monster("Saved Monster", 60, 300, ArmorType.SCALE, 35, 3, new Weapon(5, 28, 70));
+        Path path = Files.createTempFile("monster", ".sav");
+        try {
+            CreatureCodec.save(monster, path);
+            startNewWorld();
+            Monster copy = (Monster) CreatureCodec.load(path);
+
+            Assert.assertEquals(copy.getNbOfAnchors(), 3);
+            Assert.assertEquals(copy.getTotalDamage(), 35);
+            Assert.assertEquals(copy.getTotalProtection(), monster.getTotalProtection());
+            Assert.assertSame(copy.getNaturalTraits(), monster.getNaturalTraits());
+            Assert.assertEquals(copy.getWearStartMillis(), monster.getWearStartMillis());
+            Assert.assertEquals(copy.getAnchorItemAt(0).getValue(), 70);
+            Assert.assertEquals(copy.getCapacity(), monster.getCapacity());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testTruncatedSaveLeavesNoIds() throws Exception{
+        Hero hero = new Hero("Saver", 80, 15, new Armor(151, 10, ArmorType.DEFAULT, 100));
+        Backpack outer = new Backpack(50, 3, 30, 200);
+        Backpack inner = new Backpack(51, 2, 20, 100);
+        hero.pickUp(outer, AnchorType.RUG);
+        hero.pickUpAndStore(inner, outer);
+        hero.pickUpAndStore(new Armor(157, 4, ArmorType.TICK, 50), inner);
+        hero.pickUp(new Purse(1), AnchorType.RIEM);
+        ByteBuffer buffer = CreatureCodec.encode(hero);
+        startNewWorld();
+        long primes = Armor.getPrimeIds().size();
+        long backpacks = Backpack.getIdRegistry().size();
+
+        buffer.limit(buffer.limit() - 3);
+        try {
+            CreatureCodec.read(buffer);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(Armor.getPrimeIds().size(), primes);
+            Assert.assertEquals(Backpack.getIdRegistry().size(), backpacks);
+        }
+        buffer.rewind().limit(buffer.capacity());
+        Hero copy = (Hero) CreatureCodec.read(buffer);
+        Assert.assertEquals(copy.getTotalValueOfItems(), hero.getTotalValueOfItems());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testTakenIdIsRejected() throws Exception{
+        Hero hero = new Hero("Saver", 80, 15, new Armor(103, 10, ArmorType.DEFAULT, 100));
+        CreatureCodec.read(CreatureCodec.encode(hero));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testUnknownVersionIsRejected(){
+        ByteBuffer buffer = ByteBuffer.allocate(16).putInt(CreatureCodec.MAGIC).putShort((short) 99);
+        CreatureCodec.read(buffer.flip());
+    }
+}
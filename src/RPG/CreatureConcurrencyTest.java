@@ -0,0 +1,210 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A JUnit test class for running many inventory moves between heroes on several threads at once.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CreatureConcurrencyTest {
+
+    private static final int NB_OF_THREADS = 8;
+
+    private static final int NB_OF_MOVES = 20000;
+
+    private static final AnchorType[] TYPES = {AnchorType.LINKERHAND, AnchorType.RECHTERHAND, AnchorType.RUG,
+            AnchorType.RIEM};
+
+    private Hero[] heroes;
+
+    private ArrayList<Equipable> items;
+
+    @Before
+    public void setUpWorld(){
+        heroes = new Hero[6];
+        for(int i = 0; i < heroes.length; i++)
+            heroes[i] = new Hero("Trader", 100, 20, new Armor(2 * i + 3, 2, ArmorType.DEFAULT, 10));
+        items = new ArrayList<Equipable>();
+        for(int i = 0; i < 40; i++)
+            items.add(new Weapon(1 + i % 5));
+        for(int i = 0; i < 6; i++)
+            items.add(new Purse(1));
+        for(int i = 0; i < 4; i++)
+            items.add(new Backpack(101 + i, 2, 5, 12));
+    }
+
+    /**
+     * Plays random moves on the shared items, as one of the threads of the test. The moves are single moves and, if
+     * fights are played as well, transactions and hits.
+     */
+    private void playMoves(long seed, boolean fights){
+        SplittableRandom random = new SplittableRandom(seed);
+        for(int n = 0; n < NB_OF_MOVES; n++){
+            Equipable item = items.get(random.nextInt(items.size()));
+            Hero hero = heroes[random.nextInt(heroes.length)];
+            AnchorType type = TYPES[random.nextInt(TYPES.length)];
+            Creature holder = item.getHolder();
+            switch(random.nextInt(fights ? 7 : 5)){
+                case 0:
+                    hero.tryPickUp(item, type);
+                    break;
+                case 1:
+                    if(holder != null)
+                        holder.tryGive(item, hero, type);
+                    break;
+                case 2:
+                    Equipable backpack = items.get(items.size() - 1 - random.nextInt(4));
+                    if(holder != null)
+                        holder.tryStore(item, (Backpack) backpack);
+                    break;
+                case 3:
+                    if(holder != null)
+                        holder.tryEquip(item, type);
+                    break;
+                case 5:
+                    commitTransaction(hero, item, type, random);
+                    break;
+                case 6:
+                    // hits are rare, so that most heroes live long enough to trade
+                    Hero target = heroes[random.nextInt(heroes.length)];
+                    if(target != hero && random.nextInt(200) == 0){
+                        try {
+                            hero.Hit(target);
+                        } catch (IllegalArgumentException | IllegalCallerException e) {
+                            // one of the heroes died
+                        }
+                    }
+                    break;
+                default:
+                    if(holder != null){
+                        try {
+                            holder.drop(item);
+                        } catch (OtherPlayersItemException e) {
+                            // another thread moved the item first
+                        }
+                    }
+            }
+        }
+    }
+
+    /**
+     * Lets the given hero commit a transaction that picks the given item up, or, if the hero holds it, stores it away
+     * and equips another item from a backpack, or drops the item and picks up another one.
+     */
+    private void commitTransaction(Hero hero, Equipable item, AnchorType type, SplittableRandom random){
+        Equipable other = items.get(random.nextInt(items.size()));
+        Backpack backpack = (Backpack) items.get(items.size() - 1 - random.nextInt(4));
+        InventoryTransaction transaction = hero.beginTransaction();
+        if(item.getHolder() != hero)
+            transaction.pickUp(item, type);
+        else if(random.nextBoolean())
+            transaction.store(item, backpack).equip(other, type);
+        else
+            transaction.drop(item).pickUpAndStore(other, backpack);
+        try {
+            transaction.commit();
+        } catch (IllegalArgumentException | IllegalCallerException | ItemAlreadyobtainedException
+                 | OtherPlayersItemException | BeltAnchorException | AnchorslotOccupiedException
+                 | CarryLimitReachedException e) {
+            // another thread moved one of the items first, or the moves do not fit
+        }
+    }
+
+    @Test
+    public void testConcurrentTradesKeepInvariants() throws Exception{
+        playConcurrently(false);
+    }
+
+    @Test
+    public void testConcurrentFightsAndTransactionsKeepInvariants() throws Exception{
+        playConcurrently(true);
+        int alive = 0;
+        for(Hero hero : heroes){
+            if(hero.isAlive())
+                alive++;
+            else {
+                for(int i = 0; i < hero.getNbOfAnchors(); i++)
+                    Assert.assertNull(hero.getAnchorItemAt(i));
+            }
+        }
+        Assert.assertTrue(alive >= 1);
+    }
+
+    /**
+     * Plays random moves on several threads at once and checks that every item ends up in one place, with the
+     * capacities and the weights of the backpacks matching the items carried.
+     */
+    private void playConcurrently(boolean fights) throws Exception{
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[NB_OF_THREADS];
+        for(int t = 0; t < NB_OF_THREADS; t++){
+            long seed = 31 * t + 7;
+            threads[t] = new Thread(() -> {
+                try {
+                    playMoves(seed, fights);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+            thread.join();
+        if(failure.get() != null)
+            throw new AssertionError(failure.get());
+
+        IdentityHashMap<Equipable, Hero> seen = new IdentityHashMap<Equipable, Hero>();
+        for(Hero hero : heroes){
+            int carried = 0;
+            for(int i = 0; i < hero.getNbOfAnchors(); i++){
+                Equipable item = hero.getAnchorItemAt(i);
+                if(item != null){
+                    Assert.assertSame(item.getAnchor(), hero.getAnchorAt(i));
+                    Assert.assertNull(item.getParentbackpack());
+                    carried += checkCarriedItem(item, hero, seen);
+                }
+            }
+            Assert.assertEquals(hero.getCapacity(), hero.getMaxCapacity() - carried);
+        }
+        for(Equipable item : items){
+            if(!seen.containsKey(item)){
+                Assert.assertNull(item.getHolder());
+                Assert.assertNull(item.getAnchor());
+                if(item.getParentbackpack() != null)
+                    Assert.assertFalse(seen.containsKey(item.getParentbackpack()));
+            }
+        }
+    }
+
+    /**
+     * Checks that the given item, and its content if it is a backpack, is held by the given hero and was not met
+     * before, and returns its total weight.
+     */
+    private int checkCarriedItem(Equipable item, Hero hero, IdentityHashMap<Equipable, Hero> seen){
+        Assert.assertNull(seen.put(item, hero));
+        Assert.assertSame(item.getHolder(), hero);
+        if(!(item instanceof Backpack))
+            return item.getWeight();
+        Backpack backpack = (Backpack) item;
+        ArrayList<Equipable> content = new ArrayList<Equipable>();
+        backpack.getContent().forEach(content::add);
+        int weight = backpack.getWeight();
+        for(Equipable stored : content){
+            Assert.assertSame(stored.getParentbackpack(), backpack);
+            Assert.assertNull(stored.getAnchor());
+            weight += checkCarriedItem(stored, hero, seen);
+        }
+        Assert.assertEquals(backpack.getTotalWeight(), weight);
+        Assert.assertTrue(weight <= backpack.getCapacity());
+        return weight;
+    }
+}
@@ -0,0 +1,266 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * A class of templates spawning creatures with their starting gear from a prototype.
+ *
+ * A template is checked once, when it is made: the prototype is a valid creature, since it went through the checks of
+ * its constructors, and the template copies it into a private prototype of its own, which nobody else can change.
+ * Spawning copies that prototype through the copy constructor of its class, without checking the name again or
+ * picking items up one by one, and gives the copy new items like the starting gear of the prototype in the same
+ * anchors and backpacks.
+ * New weapons draw their ids from the id sequence of weapons. New armors take the first free prime in one step of the
+ * allocator, which skips whole runs of allocated primes, so destroyed armors give their ids back to later spawns. New
+ * backpacks take the first free id from a cursor the template moves forward, so spawning does not probe the ids that
+ * earlier spawns already took.
+ * The gear of the private prototype keeps its ids until the template is released, after which the template spawns no
+ * more creatures.
+ *
+ * @param <C> The class of the creatures this template spawns.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public final class CreatureTemplate<C extends Creature> {
+
+    /**
+     * Returns a template spawning heroes like the given hero.
+     *
+     * @param prototype
+     *        The hero to spawn copies of.
+     * @return A template of which every spawn is a new hero like the prototype, with new starting gear like its items.
+     * @throws IllegalArgumentException
+     *         The prototype is not effective, is dead, or is of a subclass of hero that does not copy itself.
+     */
+    public static CreatureTemplate<Hero> of(Hero prototype) throws IllegalArgumentException{
+        return new CreatureTemplate<Hero>(prototype, Hero::copy);
+    }
+
+    /**
+     * Returns a template spawning monsters like the given monster.
+     *
+     * @param prototype
+     *        The monster to spawn copies of.
+     * @return A template of which every spawn is a new monster like the prototype, with its natural traits and new
+     *         starting gear like its items.
+     * @throws IllegalArgumentException
+     *         The prototype is not effective, is dead, or is of a subclass of monster that does not copy itself.
+     */
+    public static CreatureTemplate<Monster> of(Monster prototype) throws IllegalArgumentException{
+        return new CreatureTemplate<Monster>(prototype, Monster::copy);
+    }
+
+    /**
+     * Initialize a new template with a copy of the given prototype.
+     *
+     * @param prototype
+     *        The creature to spawn copies of.
+     * @param copier
+     *        The copy constructor of the class of the prototype.
+     * @post  The prototype of this template is a spawn of the given prototype.
+     * @throws IllegalArgumentException
+     *         The prototype is not effective, is dead, or is not copied into an instance of its own class.
+     *         |prototype == null || !prototype.isAlive() || copier.apply(prototype).getClass() != prototype.getClass()
+     */
+    @Model
+    private CreatureTemplate(C prototype, UnaryOperator<C> copier) throws IllegalArgumentException{
+        if(prototype == null || !prototype.isAlive())
+            throw new IllegalArgumentException();
+        this.copier = copier;
+        C copy = copier.apply(prototype);
+        if(copy.getClass() != prototype.getClass())
+            throw new IllegalArgumentException();
+        prototype.getLock().lock();
+        try {
+            copyGear(prototype, copy);
+        } finally {
+            prototype.unlockInventory();
+        }
+        this.prototype = copy;
+    }
+
+    /**
+     * The private prototype of this template, which is never changed after the template is made.
+     */
+    private final C prototype;
+
+    /**
+     * The lock spawns share and that releasing this template takes alone, so that the prototype is not destroyed while
+     * it is being copied.
+     */
+    private final ReentrantReadWriteLock releaseLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether this template has been released.
+     */
+    private boolean released;
+
+    /**
+     * The copy constructor of the class of the prototype.
+     */
+    private final UnaryOperator<C> copier;
+
+    /**
+     * The id from which the next backpack of a spawn looks for a free id.
+     */
+    private final AtomicLong nextBackpackId = new AtomicLong();
+
+    /**
+     * The cursor of backpack ids from which spawns look for free ids from zero again, far enough below the largest
+     * id that the probing never passes it.
+     */
+    private static final long MAX_BACKPACK_CURSOR = Integer.MAX_VALUE / 2;
+
+    /**
+     * Returns whether this template has been released.
+     */
+    @Basic
+    public boolean isReleased() {
+        releaseLock.readLock().lock();
+        try {
+            return released;
+        } finally {
+            releaseLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases this template: the gear of its private prototype is destroyed, so that the ids of its armors and
+     * backpacks are free again, and no creature is spawned from it anymore. Creatures spawned before keep their gear.
+     * Releasing a template that has been released has no effect.
+     *
+     * @post  The template is released.
+     *        |new.isReleased()
+     * @effect Every item of the private prototype is dropped and destroyed, the content of a backpack before the
+     *         backpack itself.
+     *         |CombatSimulator.destroyItems(the items of prototype)
+     */
+    public void release(){
+        releaseLock.writeLock().lock();
+        try {
+            if(released)
+                return;
+            released = true;
+            ArrayList<Equipable> items = new ArrayList<Equipable>();
+            CombatSimulator.collectItems(prototype, items);
+            CombatSimulator.destroyItems(items);
+        } finally {
+            releaseLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the name of the creatures this template spawns.
+     */
+    @Basic @Immutable
+    public String getName() {
+        return prototype.getName();
+    }
+
+    /**
+     * Returns the class of the creatures this template spawns.
+     */
+    @Immutable
+    public Class<? extends Creature> getCreatureClass() {
+        return prototype.getClass();
+    }
+
+    /**
+     * Returns the total weight of the starting gear of the creatures this template spawns.
+     */
+    @Immutable
+    public int getGearWeight() {
+        return prototype.getMaxCapacity() - prototype.getCapacity();
+    }
+
+    /**
+     * Returns a new creature like the prototype of this template, with full health and new starting gear.
+     *
+     * @return A new creature of the class of the prototype with its name, stats and number of anchors, holding in each
+     *         anchor a new item like the one the prototype holds in the same anchor, with the same content for a
+     *         backpack.
+     *         |result.getName() == getName() && result.getTotalValueOfItems() == prototype.getTotalValueOfItems()
+     * @throws IllegalStateException
+     *         This template has been released.
+     *         |isReleased()
+     */
+    public C spawn() throws IllegalStateException{
+        releaseLock.readLock().lock();
+        try {
+            if(released)
+                throw new IllegalStateException();
+            C creature = copier.apply(prototype);
+            copyGear(prototype, creature);
+            return creature;
+        } finally {
+            releaseLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gives the given creature new items like the items of the given source, in the same anchors and backpacks. The
+     * source is a valid creature and the creature has no items yet, so every item fits.
+     */
+    @Model
+    private void copyGear(Creature source, Creature creature){
+        for(int i = 0; i < source.getNbOfAnchors(); i++){
+            Equipable item = source.getAnchorItemAt(i);
+            if(item == null)
+                continue;
+            Equipable copy = copyItem(item);
+            copy.equip(creature.getAnchorAt(i));
+            if(item instanceof Backpack)
+                copyContent((Backpack) item, (Backpack) copy, creature);
+        }
+    }
+
+    /**
+     * Stores new items like the content of the given source backpack in the given backpack, held by the given creature.
+     */
+    @Model
+    private void copyContent(Backpack source, Backpack backpack, Creature holder){
+        source.getContent().forEach(item -> {
+            Equipable copy = copyItem(item);
+            try {
+                backpack.addEquipable(copy);
+            } catch (BackPackNotEmptyException | CarryLimitReachedException | OtherPlayersItemException
+                     | ItemAlreadyobtainedException e) {
+                throw new IllegalStateException(e);
+            }
+            holder.ChangeCapacity(-copy.getWeight());
+            if(item instanceof Backpack)
+                copyContent((Backpack) item, (Backpack) copy, holder);
+        });
+    }
+
+    /**
+     * Returns a new item like the given item, without content for a backpack.
+     *
+     * @throws IllegalArgumentException
+     *         The item is of a kind a template cannot copy.
+     */
+    @Model
+    private Equipable copyItem(Equipable item) throws IllegalArgumentException{
+        if(item instanceof Weapon)
+            return new Weapon((Weapon) item);
+        if(item instanceof Armor)
+            return new Armor((Armor) item, 2);
+        if(item instanceof Backpack){
+            long from = nextBackpackId.get();
+            Backpack backpack = new Backpack((Backpack) item, from < MAX_BACKPACK_CURSOR ? from : 0);
+            nextBackpackId.accumulateAndGet(backpack.getId() + 1, Math::max);
+            return backpack;
+        }
+        if(item instanceof Purse)
+            return new Purse(item.getWeight());
+        throw new IllegalArgumentException();
+    }
+}
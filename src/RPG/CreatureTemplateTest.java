@@ -0,0 +1,179 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * A JUnit test class for testing spawning creatures from templates.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class CreatureTemplateTest {
+
+    private Hero hero;
+
+    private Monster monster;
+
+    private ArrayList<Creature> spawned;
+
+    private ArrayList<CreatureTemplate<?>> templates;
+
+    @Before
+    public void setUpPrototypes() throws Exception{
+        hero = new Hero("Template", 80, 15, 12, new Armor(131, 10, ArmorType.DEFAULT, 100));
+        Backpack outer = new Backpack(60, 3, 30, 200);
+        Backpack inner = new Backpack(61, 2, 20, 100);
+        hero.pickUp(outer, AnchorType.RUG);
+        hero.pickUpAndStore(inner, outer);
+        hero.pickUpAndStore(new Weapon(4, 14, 55), inner);
+        hero.pickUp(new Weapon(6, 21), AnchorType.LINKERHAND);
+        hero.pickUp(new Purse(1), AnchorType.RIEM);
+        monster = new Monster("Template Monster", 60, 300, ArmorType.SCALE, 35, 3, new Weapon(5, 28, 70));
+        spawned = new ArrayList<Creature>();
+        spawned.add(hero);
+        spawned.add(monster);
+        templates = new ArrayList<CreatureTemplate<?>>();
+    }
+
+    /**
+     * Makes a template of the given hero that is released after the test.
+     */
+    private CreatureTemplate<Hero> templateOf(Hero prototype){
+        CreatureTemplate<Hero> template = CreatureTemplate.of(prototype);
+        templates.add(template);
+        return template;
+    }
+
+    /**
+     * Makes a template of the given monster that is released after the test.
+     */
+    private CreatureTemplate<Monster> templateOf(Monster prototype){
+        CreatureTemplate<Monster> template = CreatureTemplate.of(prototype);
+        templates.add(template);
+        return template;
+    }
+
+    @After
+    public void destroySpawns(){
+        for(CreatureTemplate<?> template : templates)
+            template.release();
+        ArrayList<Equipable> items = new ArrayList<Equipable>();
+        for(Creature creature : spawned)
+            CombatSimulator.collectItems(creature, items);
+        CombatSimulator.destroyItems(items);
+    }
+
+    @Test
+    public void testHeroSpawnCopiesGear(){
+        CreatureTemplate<Hero> template = templateOf(hero);
+        Hero first = template.spawn();
+        Hero second = template.spawn();
+        spawned.add(first);
+        spawned.add(second);
+
+        Assert.assertEquals(template.getName(), "Template");
+        Assert.assertEquals(template.getGearWeight(), hero.getMaxCapacity() - hero.getCapacity());
+        for(Hero copy : new Hero[]{first, second}){
+            Assert.assertEquals(copy.getName(), hero.getName());
+            Assert.assertEquals(copy.getStrength(), hero.getStrength(), 0);
+            Assert.assertEquals(copy.getProtection(), hero.getProtection());
+            Assert.assertEquals(copy.getCapacity(), hero.getCapacity());
+            Assert.assertEquals(copy.getTotalValueOfItems(), hero.getTotalValueOfItems());
+            Assert.assertEquals(copy.getTotalDamage(), hero.getTotalDamage());
+            Assert.assertEquals(copy.getTotalProtection(), hero.getTotalProtection());
+            for(int i = 0; i < hero.getNbOfAnchors(); i++){
+                Assert.assertEquals(copy.getAnchorItemAt(i) == null, hero.getAnchorItemAt(i) == null);
+                if(hero.getAnchorItemAt(i) != null)
+                    Assert.assertNotSame(copy.getAnchorItemAt(i), hero.getAnchorItemAt(i));
+            }
+            for(Equipable item : ((Backpack) copy.getAnchorItemAt(2)).getAllItems())
+                Assert.assertSame(item.getHolder(), copy);
+        }
+        Armor armor = (Armor) second.getAnchorItemAt(3);
+        Assert.assertNotEquals(armor.getId(), ((Armor) first.getAnchorItemAt(3)).getId());
+        Assert.assertTrue(Armor.getPrimeIds().isAllocated(armor.getId()));
+        Backpack backpack = (Backpack) second.getAnchorItemAt(2);
+        Assert.assertNotEquals(backpack.getId(), ((Backpack) first.getAnchorItemAt(2)).getId());
+        Assert.assertTrue(Backpack.getIdRegistry().contains(backpack.getId()));
+        Assert.assertEquals(backpack.getTotalWeight(), ((Backpack) hero.getAnchorItemAt(2)).getTotalWeight());
+    }
+
+    @Test
+    public void testTemplateIgnoresLaterChangesToPrototype() throws Exception{
+        CreatureTemplate<Hero> template = templateOf(hero);
+        int value = hero.getTotalValueOfItems();
+        hero.drop(hero.getAnchorItemAt(0));
+        Hero copy = template.spawn();
+        spawned.add(copy);
+        Assert.assertEquals(copy.getTotalValueOfItems(), value);
+        Assert.assertNotNull(copy.getAnchorItemAt(0));
+    }
+
+    @Test
+    public void testRegistrySpawnsMonsters(){
+        TemplateRegistry registry = new TemplateRegistry();
+        registry.register("wave", templateOf(monster));
+        for(int i = 0; i < 50; i++){
+            Monster copy = registry.spawn("wave", Monster.class);
+            spawned.add(copy);
+            Assert.assertSame(copy.getNaturalTraits(), monster.getNaturalTraits());
+            Assert.assertEquals(copy.getNbOfAnchors(), 3);
+            Assert.assertEquals(copy.getAnchorItemAt(0).getValue(), 70);
+            Assert.assertEquals(copy.getCapacity(), monster.getCapacity());
+        }
+        Assert.assertTrue(registry.getNames().contains("wave"));
+    }
+
+    @Test
+    public void testReleaseFreesPrototypeIds(){
+        long armors = Armor.getPrimeIds().size();
+        long backpacks = Backpack.getIdRegistry().size();
+        CreatureTemplate<Hero> template = CreatureTemplate.of(hero);
+        Assert.assertEquals(Armor.getPrimeIds().size(), armors + 1);
+        Assert.assertEquals(Backpack.getIdRegistry().size(), backpacks + 2);
+        Hero copy = template.spawn();
+        spawned.add(copy);
+
+        TemplateRegistry registry = new TemplateRegistry();
+        registry.register("party", template);
+        registry.unregister("party");
+        Assert.assertTrue(template.isReleased());
+        Assert.assertEquals(Armor.getPrimeIds().size(), armors + 1);
+        Assert.assertEquals(Backpack.getIdRegistry().size(), backpacks + 2);
+        Assert.assertTrue(Armor.getPrimeIds().isAllocated(copy.getAnchorItemAt(3).getId()));
+        template.release();
+        Assert.assertEquals(Armor.getPrimeIds().size(), armors + 1);
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testSpawnAfterRelease(){
+        CreatureTemplate<Monster> template = templateOf(monster);
+        template.release();
+        template.spawn();
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testSpawnOfWrongClass(){
+        TemplateRegistry registry = new TemplateRegistry();
+        registry.register("wave", templateOf(monster));
+        registry.spawn("wave", Hero.class);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testNameTakenTwice(){
+        TemplateRegistry registry = new TemplateRegistry();
+        registry.register("wave", templateOf(monster));
+        registry.register("wave", templateOf(monster));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testDeadPrototype(){
+        monster.setAlive(false);
+        templateOf(monster);
+    }
+}
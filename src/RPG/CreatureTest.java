@@ -120,7 +120,7 @@ public class CreatureTest {
         Assert.assertTrue(monster1.hasProperAnchors(monster1.getAnchors()));
         Assert.assertTrue(monster1.isAlive());
         Assert.assertEquals(monster1.getNbOfAnchors(), 2);
-        Assert.assertEquals(monster1.getDamage().getDamage(), 10);
+        Assert.assertEquals(monster1.getNaturalTraits().getDamage(), 10);
     }
 
     @Test
@@ -276,6 +276,147 @@ public class CreatureTest {
         Assert.assertEquals(weapon5.getHolder(), null);
     }
 
-}
+    @Test
+    public void TestAnchorIndex() throws Exception{
+        Assert.assertSame(hero1.getAnchorOf(weapon1), hero1.getAnchorAt(0));
+        Assert.assertSame(hero1.getAnchorOf(weapon2), hero1.getAnchorAt(2));
+        Assert.assertNull(hero1.getAnchorOf(weapon3));
+        Assert.assertEquals(hero1.getAnchorsOfType(AnchorType.LICHAAM).size(), 1);
+        Assert.assertSame(hero1.getAnchorIndex().getFreeAnchor(AnchorType.RECHTERHAND), hero1.getAnchorAt(1));
+        Assert.assertNull(hero1.getAnchorIndex().getFreeAnchor(AnchorType.LINKERHAND));
+
+        hero1.moveAnchorItemtoAnchor(0, 1);
+        Assert.assertSame(hero1.getAnchorOf(weapon1), hero1.getAnchorAt(1));
+        Assert.assertSame(hero1.getAnchorIndex().getFreeAnchor(AnchorType.LINKERHAND), hero1.getAnchorAt(0));
+
+        Assert.assertEquals(monster2.getAnchorsOfType(AnchorType.OTHER).size(), 4);
+        Assert.assertEquals(monster2.getAnchorIndex().getNbOfFreeAnchors(AnchorType.OTHER), 4);
+        Assert.assertSame(monster1.getAnchorOf(weapon3), monster1.getAnchorAt(0));
+        monster1.drop(weapon3);
+        Assert.assertNull(monster1.getAnchorOf(weapon3));
+        Assert.assertNull(weapon3.getAnchor());
+        Assert.assertNull(hero1.getAnchorOf(armor2));
+        Assert.assertSame(armor2.getAnchor(), hero2.getAnchorAt(3));
+        Assert.assertSame(monster1.getAnchorIndex().getFreeAnchor(AnchorType.OTHER), monster1.getAnchorAt(0));
+    }
+
+    @Test
+    public void testTryPickUpStoreAndEquip(){
+        Assert.assertEquals(hero1.tryPickUp(weapon4, AnchorType.RIEM), InventoryResult.BELT_ANCHOR);
+        Assert.assertEquals(hero1.tryPickUp(weapon4, AnchorType.LINKERHAND), InventoryResult.NO_FREE_ANCHOR);
+        Assert.assertEquals(hero1.tryPickUp(weapon1, AnchorType.RECHTERHAND), InventoryResult.ALREADY_OBTAINED);
+        Assert.assertEquals(hero1.tryPickUp(null, AnchorType.RECHTERHAND), InventoryResult.ILLEGAL_ITEM);
+        Assert.assertEquals(hero1.tryPickUp(armor3, AnchorType.RECHTERHAND), InventoryResult.ALREADY_OBTAINED);
+        Assert.assertNull(hero1.getAnchorItemAt(1));
+
+        hero1.dropItemAtAnchor(2);
+        Assert.assertEquals(hero1.tryPickUp(backpack1, AnchorType.RUG), InventoryResult.SUCCESS);
+        Assert.assertEquals(hero1.tryStore(weapon1, backpack1), InventoryResult.SUCCESS);
+        Assert.assertTrue(backpack1.contains(weapon1));
+        Assert.assertEquals(hero1.tryStore(weapon1, backpack1), InventoryResult.ILLEGAL_ITEM);
+        Assert.assertEquals(hero1.tryStore(weapon4, backpack1), InventoryResult.ILLEGAL_ITEM);
+        Assert.assertEquals(hero1.tryStore(weapon1, null), InventoryResult.ILLEGAL_BACKPACK);
+
+        Assert.assertEquals(hero1.tryEquip(weapon1, AnchorType.RIEM), InventoryResult.BELT_ANCHOR);
+        Assert.assertEquals(hero1.tryEquip(weapon1, AnchorType.LICHAAM), InventoryResult.NO_FREE_ANCHOR);
+        Assert.assertEquals(hero1.tryEquip(weapon1, AnchorType.RECHTERHAND), InventoryResult.SUCCESS);
+        Assert.assertSame(hero1.getAnchorItemAt(1), weapon1);
+        Assert.assertFalse(backpack1.contains(weapon1));
+        Assert.assertEquals(hero1.tryEquip(weapon1, AnchorType.LINKERHAND), InventoryResult.ILLEGAL_ITEM);
+    }
+
+    @Test
+    public void testTryPickUpArmorLimits(){
+        Armor spare = new Armor(3, 1, ArmorType.DEFAULT, 10);
+        Armor extra = new Armor(5, 1, ArmorType.DEFAULT, 10);
+        Assert.assertEquals(hero1.tryPickUp(spare, AnchorType.RECHTERHAND), InventoryResult.SUCCESS);
+        hero1.dropItemAtAnchor(0);
+        Assert.assertEquals(hero1.tryPickUp(extra, AnchorType.LINKERHAND), InventoryResult.CARRY_LIMIT);
+        Assert.assertNull(extra.getHolder());
+        Assert.assertEquals(monster2.tryPickUp(extra), InventoryResult.ILLEGAL_ITEM);
+        Assert.assertNull(extra.getHolder());
+    }
 
+    @Test
+    public void testRuleExceptionsHaveNoStackTrace(){
+        try {
+            hero1.pickUp(weapon1, AnchorType.RECHTERHAND);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof ItemAlreadyobtainedException);
+            Assert.assertEquals(e.getCause().getStackTrace().length, 0);
+        } catch (CarryLimitReachedException e) {
+            Assert.fail();
+        }
+    }
 
+    @Test
+    public void testCachedDamageFollowsHandsAndStrength() throws Exception{
+        Hero hero = new Hero("Fighter", 100, 20, new Armor(14, 2, ArmorType.DEFAULT, 40));
+        Weapon sword = new Weapon(5, 14, 28);
+        Assert.assertEquals(hero.getTotalDamage(), 5);
+        hero.pickUp(sword, AnchorType.RECHTERHAND);
+        Assert.assertEquals(hero.getTotalDamage(), 12);
+        sword.EnhanceDamage(7);
+        Assert.assertEquals(hero.getTotalDamage(), 15);
+        hero.setStrength(24);
+        Assert.assertEquals(hero.getTotalDamage(), 17);
+        hero.drop(sword);
+        Assert.assertEquals(hero.getTotalDamage(), 7);
+    }
+
+    @Test
+    public void testMonstersShareNaturalTraits(){
+        Monster first = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+        Monster second = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+        Assert.assertSame(second.getNaturalTraits(), first.getNaturalTraits());
+        Assert.assertEquals(second.getNaturalTraits().getProtectionType(), ArmorType.TOUGH);
+        Assert.assertEquals(second.getNaturalTraits().getDamage(), 21);
+        Assert.assertEquals(second.getTotalProtection(), ArmorType.TOUGH.getMaxvalue());
+        Assert.assertEquals(second.getTotalDamage(), 21);
+        long allocated = Armor.getPrimeIds().size();
+        new Monster("Twin", 50, 100, ArmorType.TICK, 35, 2).getTotalProtection();
+        Assert.assertEquals(Armor.getPrimeIds().size(), allocated);
+        Assert.assertNotSame(new Monster("Twin", 50, 100, ArmorType.SCALE, 21, 2).getNaturalTraits(),
+                first.getNaturalTraits());
+    }
+
+    @Test
+    public void testNaturalTraitsCannotBeChangedThroughAnotherMonster(){
+        Monster first = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+        Monster second = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+        first.getDamage().EnhanceDamage(7);
+        first.getNaturalProtection().destroy();
+        first.getDamage().destroy();
+        for(Monster monster : new Monster[]{first, second}){
+            Assert.assertEquals(monster.getTotalDamage(), 21);
+            Assert.assertEquals(monster.getDamage().getDamage(), 21);
+            Assert.assertEquals(monster.getTotalProtection(), ArmorType.TOUGH.getMaxvalue());
+            Assert.assertEquals(monster.getNaturalProtection().getCurrentArmor(), ArmorType.TOUGH.getMaxvalue());
+            Assert.assertFalse(monster.getNaturalProtection().isDestroyed());
+        }
+        Assert.assertEquals(new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2).getTotalDamage(), 21);
+    }
+
+    @Test
+    public void testNaturalProtectionWears(){
+        long[] now = {1000};
+        Armor.setDefaultClock(() -> now[0]);
+        try {
+            Monster first = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+            now[0] += 3 * GameClock.HOUR - 1;
+            Monster second = new Monster("Twin", 50, 100, ArmorType.TOUGH, 21, 2);
+            Assert.assertEquals(first.getTotalProtection(), ArmorType.TOUGH.getMaxvalue() - 2);
+            Assert.assertEquals(first.getNaturalProtectionValue(), first.getTotalProtection());
+            now[0] += 1;
+            Assert.assertEquals(first.getTotalProtection(), ArmorType.TOUGH.getMaxvalue() - 3);
+            Assert.assertEquals(second.getTotalProtection(), ArmorType.TOUGH.getMaxvalue());
+            Assert.assertSame(second.getNaturalTraits(), first.getNaturalTraits());
+            now[0] += 1000 * GameClock.HOUR;
+            Assert.assertEquals(first.getTotalProtection(), 1);
+        } finally {
+            Armor.setDefaultClock(GameClock.SYSTEM);
+        }
+    }
+
+}
@@ -101,6 +101,24 @@ public abstract class Equipable {
 
     }
 
+    /**
+     * Sets the id of this equipable item to an id that is already reserved for it, for instance in the registry of
+     * the identification numbers of its class while the item was kept outside the heap.
+     * @param id
+     *        the id reserved for this equipable item
+     * @post If the given id satisfies the rule common to all equipable items, this equipable item has the given id,
+     *       otherwise the id is set to zero. Whether the id is free is not checked.
+     *       | if(id >= 0 && id < Integer.MAX_VALUE)
+     *       | then new.getId() == id
+     *       | else new.getId() == 0
+     */
+    @Model @Raw
+    protected final void adoptId(long id) {
+        if(id >= 0 && id < Integer.MAX_VALUE)
+            Id = id;
+        else Id = 0;
+    }
+
     /**
      * Check whether the equipable item can have the given id as its id
      * @param id
@@ -118,6 +136,74 @@ public abstract class Equipable {
     }
 
 
+    /*********************************
+     * Destruction
+     */
+
+    /**
+     * A variable stating whether this equipable item has been destroyed.
+     */
+    private boolean destroyed = false;
+
+    /**
+     * Returns true if this equipable item has been destroyed.
+     */
+    @Basic
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * Destroys this equipable item, so that its identification number can be given to a new item.
+     *
+     * @effect If this item has not been destroyed yet, its identification number is released.
+     *         |if(!isDestroyed()) then releaseId()
+     * @post   This item is destroyed.
+     *         |new.isDestroyed() == true
+     * @throws IllegalStateException
+     *         This item cannot be destroyed in its current state.
+     *         |!canBeDestroyed()
+     */
+    public void destroy() throws IllegalStateException{
+        if(isDestroyed())
+            return;
+        if(!canBeDestroyed())
+            throw new IllegalStateException();
+        releaseId();
+        destroyed = true;
+    }
+
+    /**
+     * Destroys this equipable item without releasing its identification number, because another owner, like a
+     * catalog keeping the item, takes the number over.
+     *
+     * @post   This item is destroyed, and its identification number stays taken.
+     *         |new.isDestroyed() == true
+     */
+    @Model
+    void handOver(){
+        destroyed = true;
+    }
+
+    /**
+     * Checks whether this equipable item can be destroyed.
+     *
+     * @return True if this item is lying on the ground, which means it has no holder and is not stored in a backpack.
+     *         |result == (getHolder() == null && getParentbackpack() == null)
+     */
+    @Model
+    protected boolean canBeDestroyed(){
+        return getHolder() == null && getParentbackpack() == null;
+    }
+
+    /**
+     * Releases the identification number of this equipable item, so that it can be given to a new item.
+     *
+     * @note Only subclasses that keep track of the identification numbers in use need to release them.
+     */
+    @Model
+    protected void releaseId(){}
+
     /*********************************
      * Weight
      */
@@ -187,6 +273,15 @@ public abstract class Equipable {
      * @param value
      *        the new value for this equipable item
      *
+     * @effect If this item is stored in a backpack, the cached content value of that backpack is updated
+     *         with the difference between the new and the old value.
+     *         |if(getParentbackpack() != null)
+     *         |    then getParentbackpack().changeContentValue(value - getValue())
+     * @effect If this item is held in an anchor, the owner of that anchor is notified of the difference between the new
+     *         and the old value.
+     *         |if(getAnchor() != null && getAnchor().getOwner() != null)
+     *         |    then getAnchor().getOwner().itemValueChanged(getAnchor(), value - getValue())
+     *
      * @throws IllegalArgumentException
      *         The given value is a integer less thann one.
      *         |value < 1
@@ -195,7 +290,12 @@ public abstract class Equipable {
     protected void setValue(int value) throws IllegalArgumentException {
         if(!canHaveAsValue(value))
             throw new IllegalArgumentException();
+        int delta = value - this.value;
         this.value = value;
+        if(getParentbackpack() != null && delta != 0)
+            getParentbackpack().changeContentValue(delta);
+        if(getAnchor() != null && getAnchor().getOwner() != null && delta != 0)
+            getAnchor().getOwner().itemValueChanged(getAnchor(), delta);
     }
 
     /**
@@ -263,6 +363,28 @@ public abstract class Equipable {
     @Model
     protected void setParentbackpack(Backpack parentbackpack) {this.parentbackpack = parentbackpack;}
 
+    /**
+     * A variable referencing the anchor this equipable item is held in.
+     * Null means that the item is currently not held in an anchor.
+     */
+    private Anchor anchor = null;
+
+    /**
+     * Returns the anchor that the equipable is currently being held in.
+     */
+    @Basic
+    public Anchor getAnchor() { return anchor;}
+
+    /**
+     * Sets the anchor this item is held in to the specified anchor.
+     * Only the anchor itself keeps this reference up to date, every time its item changes.
+     *
+     * @param anchor
+     *        The new anchor for this equipable item.
+     */
+    @Model @Raw
+    void setAnchor(Anchor anchor) {this.anchor = anchor;}
+
     /**
      *
      * @param anchor
@@ -0,0 +1,40 @@
+package RPG;
+
+/**
+ * An interface for monotonic clocks that tell how much time has passed in the game.
+ * Time-dependent behaviour, like the wear of armors, reads the time from a game clock, so it can be tested with a
+ * clock that is moved forward by hand.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public interface GameClock {
+
+    /**
+     * The number of milliseconds in an hour.
+     */
+    long HOUR = 60 * 60 * 1000;
+
+    /**
+     * Returns the current time of this clock in milliseconds.
+     * The time never decreases between two calls.
+     */
+    long millis();
+
+    /**
+     * A clock following the system clock. It is based on System.nanoTime(), so it never runs backwards when the system
+     * time is adjusted, and is offset so that it starts at the system time in milliseconds since the epoch.
+     */
+    GameClock SYSTEM = new GameClock() {
+
+        /**
+         * The difference between the system time in milliseconds since the epoch and System.nanoTime() in milliseconds.
+         */
+        private final long offset = System.currentTimeMillis() - System.nanoTime() / 1000000;
+
+        @Override
+        public long millis() {
+            return offset + System.nanoTime() / 1000000;
+        }
+    };
+}
@@ -1,12 +1,10 @@
 package RPG;
 import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.BitSet;
 
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
-import java.util.Random;
 
 /**
  * A class of Heroes
@@ -26,6 +24,72 @@ import java.util.Random;
  */
 public class Hero extends Creature{
 
+    /**
+     * Generates a new Hero without any items, with a name, a maximum amount of hitpoints, a given strength stat and a
+     * given protection stat. Heroes are born wearing armor, so this is only used to rebuild a hero whose items are
+     * equipped afterwards, such as a hero read from a save.
+     *
+     * @param name
+     *        The given name of the new Hero
+     * @param maxHitPoints
+     *        The given maximum amount of hitpoints the Hero can have
+     * @param strength
+     *        The given strength the hero has
+     * @param protection
+     *        The given protection stat the hero has.
+     *@effect The Hero is generated as a creature with a given name, maxHitPoints and the calculated maxCapacity.
+     *        | super(name, maxHitPoints, maxCapacity)
+     *@effect The maximum capacity is calculated with the given strength and then set as the maximum and the remaining
+     *        capacity.
+     *        | setMaxCapacity(calculateMaxCapacity(strength))
+     *        | setCapacity(calculateMaxCapacity(strength))
+     *@effect The protection is set as the protection.
+     *        | setProtection(protection)
+     *@effect The strength is set as the strength.
+     *        | setStrength(strength)
+     *@effect five empty anchors are initialised and set as the anchors of this hero. One left hand, One right hand, one back, one chest and one belt.
+     *        | initialiseAnchors()
+     */
+    @Raw @Model
+    protected Hero(String name, int maxHitPoints, double strength, int protection) {
+        super(name, maxHitPoints, (int) Math.round(20*strength));
+        setMaxCapacity(calculateMaxCapacity(strength));
+        setCapacity(calculateMaxCapacity(strength));
+        setProtection(protection);
+        setStrength(strength);
+        initialiseAnchors();
+    }
+
+    /**
+     * Generates a new Hero like the given prototype, without items.
+     * @param prototype
+     *        The hero to copy.
+     *@effect The Hero is generated as a creature like the prototype.
+     *        | super(prototype)
+     *@post   The strength and protection of the prototype, which are already rounded and valid, are the strength and
+     *        protection of the new hero.
+     *        | new.getStrength() == prototype.getStrength() && new.getProtection() == prototype.getProtection()
+     *@effect five empty anchors are initialised and set as the anchors of this hero.
+     *        | initialiseAnchors()
+     */
+    @Raw @Model
+    protected Hero(Hero prototype) {
+        super(prototype);
+        this.Strength = prototype.getStrength();
+        this.protection = prototype.getProtection();
+        initialiseAnchors();
+    }
+
+    /**
+     * Returns a new hero like this hero, without items.
+     * @return A new hero made from this hero as its prototype.
+     *         | result == new Hero(this)
+     */
+    @Override @Model
+    protected Hero copy() {
+        return new Hero(this);
+    }
+
     /**
      * Generates a new Hero with a name, a maximum amount of hitpoints, a given strength stat, a given protection stat and a piece of armor.
      * Also initialises five Anchors of the anchor class
@@ -48,19 +112,14 @@ public class Hero extends Creature{
      *        | setProtection(protection)
      *@effect The strength is set as the strength.
      *        | setStrength(strength)
-     *@effect five empty anchors are initialised and set as the anchors of this hero. One left hand, One right hand, one back, one chest and one belt.
-     *        | initialiseAnchors()
+     *@effect A hero without items is generated with the given name, maxHitPoints, strength and protection.
+     *        | this(name, maxHitPoints, strength, protection)
      *@effect The armor gets equiped on the LICHAAM anchor.
      *        | pickUp(armor, AnchorType.LICHAAM)
      */
     @Raw
     public Hero(String name, int maxHitPoints, double strength, int protection, Armor armor) {
-        super(name, maxHitPoints, (int) Math.round(20*strength));
-        setMaxCapacity(calculateMaxCapacity(strength));
-        setCapacity(calculateMaxCapacity(strength));
-        setProtection(protection);
-        setStrength(strength);
-        initialiseAnchors();
+        this(name, maxHitPoints, strength, protection);
         try {
             pickUp(armor, AnchorType.LICHAAM);
         } catch (CarryLimitReachedException e) {
@@ -191,6 +250,10 @@ public class Hero extends Creature{
      *        |     this.protection = protection
      *        | else:
      *        |     this.protection = getDefaultProtection()
+     * @post  The total protection is computed again when it is asked for next.
+     *        | !new.protectionCached
+     * @effect The inventory is marked as changed, so that the next snapshot holds the new protection.
+     *        | inventoryChanged()
      */
     @Raw
     public void setProtection(int protection) {
@@ -200,6 +263,8 @@ public class Hero extends Creature{
         else{
             this.protection = getDefaultProtection();
         }
+        protectionCached = false;
+        inventoryChanged();
     }
 
     /**
@@ -209,10 +274,16 @@ public class Hero extends Creature{
      * @post  The strength of the hero is set to the given number rounded off to the amount of decimal
      *        places given by decimalPlacesStrength and made positive.
      *        |this.Strength == Math.abs(Math.round(strength * Math.pow(10, decimalPlacesStrength)) / Math.pow(10, decimalPlacesStrength))
+     * @post  The total damage is computed again when it is asked for next.
+     *        |!new.damageCached
+     * @effect The inventory is marked as changed, so that the next snapshot holds the new damage.
+     *        |inventoryChanged()
      */
     @Raw
     public void setStrength(double strength) {
         this.Strength = Math.abs(Math.round(strength * Math.pow(10, decimalPlacesStrength)) / Math.pow(10, decimalPlacesStrength));
+        damageCached = false;
+        inventoryChanged();
     }
 
     /**
@@ -254,20 +325,12 @@ public class Hero extends Creature{
      *          every colon is not followed by a whitespace.
      *        | if !name.matches(validCharacters) || name == null || !name.matches("^[A-Z].*")
      *        |           || apostrophecount >= 3  || allColonsnotFollowedBySpace then result == False
+     *        | result == NameValidator.HERO.isValid(name)
      */
     @Raw
     @Override
     public boolean canHaveAsName(String name){
-        int apostrophecount = 0;
-        for (int i = 0; i < name.length(); i++) {
-            if (name.charAt(i) == '\'') {
-                apostrophecount++;
-            }
-        }
-        Pattern pattern = Pattern.compile(":\\S");
-        Matcher matcher = pattern.matcher(name);
-        boolean allColonsFollowedBySpace = !matcher.find() && !(name.charAt(name.length() - 1) == ':');
-        return (name.matches(validCharacters) && name != null && name.matches("^[A-Z].*") && apostrophecount < 3  && allColonsFollowedBySpace);
+        return NameValidator.HERO.isValid(name);
     }
 
     /**
@@ -306,7 +369,7 @@ public class Hero extends Creature{
     @Model
     @Raw
     private void initialiseAnchors(){
-        ArrayList<Anchor> list = new ArrayList<>();
+        ArrayList<Anchor> list = new ArrayList<>(5);
         list.add(new Anchor(AnchorType.LINKERHAND,this));
         list.add(new Anchor(AnchorType.RECHTERHAND,this));
         list.add(new Anchor(AnchorType.RUG,this));
@@ -315,45 +378,139 @@ public class Hero extends Creature{
         setAnchors(list);
     }
 
+    /**
+     * The total damage of this hero, valid as long as damageCached is true.
+     */
+    private int totalDamage;
+
+    /**
+     * Whether totalDamage holds the total damage of this hero.
+     * It has no initializer, so that it is false while the creature constructor already fills the anchors.
+     */
+    private boolean damageCached;
+
+    /**
+     * The total protection of this hero, valid as long as protectionCached is true and the worn armor does not wear.
+     */
+    private int totalProtection;
+
+    /**
+     * Whether totalProtection holds the total protection of this hero, up to the next wear of the worn armor.
+     */
+    private boolean protectionCached;
+
+    /**
+     * The armor worn in the body anchor when the total protection was last computed, or null.
+     */
+    private Armor wornArmor;
+
     /**
      * Returns the damage that the hero will do if it hits.
+     * The damage is only computed again after the strength of the hero or the weapons in its hands changed.
      * @return The intrinsic strength + the damage values of weapons in left and right hand minus ten and then this number divided in half
      *         and rounded down.
      *         |result == Math.floor((getStrength() + leftWeapon.getDamage(). + RightWeapon.getDamage - 10)/2)
      */
     @Override
     public int getTotalDamage(){
-        double damage = getStrength();
-        for(Anchor anchor : getAnchors()){
-            if(anchor.getAnchorType() == AnchorType.LINKERHAND || anchor.getAnchorType() == AnchorType.RECHTERHAND){
-                if(anchor.getItem() != null && anchor.getItem() instanceof Weapon){
-                    Weapon weapon = (Weapon) anchor.getItem();
-                    damage += weapon.getDamage();
-                }
-            }
+        if(!damageCached){
+            double damage = getStrength();
+            damage += getWeaponDamage(AnchorType.LINKERHAND) + getWeaponDamage(AnchorType.RECHTERHAND);
+            totalDamage = (int) Math.floor((damage-10)/2);
+            damageCached = true;
         }
-        return (int) Math.floor((damage-10)/2);
+        return totalDamage;
     }
 
     /**
      * Gives the total protection stat of the hero.
+     * The protection is only computed again after the intrinsic protection or the body anchor changed, or when the
+     * worn armor is due to wear.
      * @return The total protection stat is the intrinsic protection in addition with the current protection that the
      *         equipped armor gives if the armor is equipped in the LICHAAM anchor.
      *         | result == getProtection() + armor.getCurrentArmor
      */
     @Override
     public int getTotalProtection(){
-        int protection = getProtection();
-        for(Anchor anchor : getAnchors()){
-            if(anchor.getAnchorType() == AnchorType.LICHAAM){
+        if(!protectionCached || (wornArmor != null && wornArmor.getClock().millis() >= wornArmor.getNextWearMillis())){
+            wornArmor = null;
+            for(Anchor anchor : getAnchorsOfType(AnchorType.LICHAAM)){
                 if(anchor.getItem() != null){
-                    Armor armor = (Armor) anchor.getItem();
-                    protection += armor.getCurrentArmor();
+                    wornArmor = (Armor) anchor.getItem();
                     break;
                 }
             }
+            int protection = getProtection();
+            if(wornArmor != null)
+                protection += wornArmor.getCurrentArmor();
+            totalProtection = protection;
+            protectionCached = true;
         }
-        return protection;
+        return totalProtection;
+    }
+
+    /**
+     * Forgets the cached combat stats that depend on the item of the given anchor.
+     * @param anchor
+     *        The anchor of which the item, or the damage or protection of its item, changed.
+     * @post  If the anchor is a hand, the total damage is computed again when it is asked for next.
+     *        |if(anchor.getAnchorType() == AnchorType.LINKERHAND || anchor.getAnchorType() == AnchorType.RECHTERHAND)
+     *        |    then !new.damageCached
+     * @post  If the anchor is the body, the total protection is computed again when it is asked for next.
+     *        |if(anchor.getAnchorType() == AnchorType.LICHAAM)
+     *        |    then !new.protectionCached
+     */
+    @Model @Raw
+    private void forgetCombatStats(Anchor anchor){
+        AnchorType type = anchor.getAnchorType();
+        if(type == AnchorType.LINKERHAND || type == AnchorType.RECHTERHAND)
+            damageCached = false;
+        else if(type == AnchorType.LICHAAM)
+            protectionCached = false;
+    }
+
+    /**
+     * Keeps this hero up to date after the item held by one of its anchors changed.
+     * @effect The creature is kept up to date.
+     *         | super.anchorChanged(anchor, oldItem, newItem)
+     * @effect The combat stats depending on the anchor are forgotten.
+     *         | forgetCombatStats(anchor)
+     */
+    @Model @Raw @Override
+    protected void anchorChanged(Anchor anchor, Equipable oldItem, Equipable newItem) {
+        super.anchorChanged(anchor, oldItem, newItem);
+        forgetCombatStats(anchor);
+    }
+
+    /**
+     * Keeps this hero up to date after the damage or the protection of the item held by one of its anchors changed.
+     * @effect The creature is kept up to date.
+     *         | super.itemStatsChanged(anchor)
+     * @effect The combat stats depending on the anchor are forgotten.
+     *         | forgetCombatStats(anchor)
+     */
+    @Model @Raw @Override
+    protected void itemStatsChanged(Anchor anchor) {
+        super.itemStatsChanged(anchor);
+        forgetCombatStats(anchor);
+    }
+
+    /**
+     * Returns the total damage of the weapons held in the anchors with the given type.
+     * @param anchortype
+     *        The type of the anchors.
+     * @return The sum of the damage of each weapon held in an anchor with the given type.
+     *         |result == sum(anchor.getItem().getDamage() for anchor in getAnchorsOfType(anchortype)
+     *         |              if anchor.getItem() instanceof Weapon)
+     */
+    @Model
+    private int getWeaponDamage(AnchorType anchortype){
+        int damage = 0;
+        for(Anchor anchor : getAnchorsOfType(anchortype)){
+            if(anchor.getItem() instanceof Weapon)
+                damage += ((Weapon) anchor.getItem()).getDamage();
+        }
+        return damage;
     }
 
     /**
@@ -361,23 +518,26 @@ public class Hero extends Creature{
      *             if there is such an item.
      * @param items
      *        The items that can be looted.
-     * @effect For every item in the lootable items, if this item is valid for an empty anchor and there is enough
-     *         remaining capacity, then the item will get equipped. The first anchors in the getAnchors() will get filled first
+     * @effect For every item in the lootable items, if this item has not been looted yet, is valid for an empty anchor and there
+     *         is enough remaining capacity, then the item will get equipped. The first anchors in the getAnchors() will get filled first
      *         and the first items in items will get equipped first for these anchors.
      *         | for every item in items, for anchor in getAnchors():
-     *         |       if item.isValidAnchor(anchor) && item.getWeight() <= getCapacity() && anchor.getItem() == null
+     *         |       if item.getHolder() == null && item.isValidAnchor(anchor) && item.getWeight() <= getCapacity()
+     *         |          && anchor.getItem() == null
      *         |       then item.equip(anchor)
      * @effect A random percentage gets generated between 0% and 100% this percentage then gets multiplied with the difference
      *         between the current hit points and the max hit points. This added with the current amount of hit points will be the new hit points
      *         but fist it needs to be rounded to the nearest prime number that isn't bigger than the max hit points. This is then set
      *         as the new remaining amount of hit points.
-     *         |setHitPoints(findClosestPrime(Math.round((getMaxHitPoints() - getHitPoints()) * random.nextDouble() + getHitPoints()),getMaxHitPoints()))
+     *         |setHitPoints(findClosestPrime(Math.round((getMaxHitPoints() - getHitPoints()) * getRandom().nextDouble() + getHitPoints()),getMaxHitPoints()))
      */
     @Override @Model
     protected void LootAndHeal(ArrayList<Equipable> items) {
-        for(Anchor anchor: getAnchors()){
-            for(Equipable item: items){
-                if(item.isValidAnchor(anchor) && item.getWeight() <= getCapacity() && anchor.getItem() == null){
+        for(int i = 0; i < getNbOfAnchors(); i++){
+            Anchor anchor = getAnchorAt(i);
+            for(int j = 0; j < items.size(); j++){
+                Equipable item = items.get(j);
+                if(item.getHolder() == null && item.isValidAnchor(anchor) && item.getWeight() <= getCapacity() && anchor.getItem() == null){
                     if(item.getParentbackpack() != null){
                         item.getParentbackpack().removeEquipable(item);
                     }
@@ -386,8 +546,7 @@ public class Hero extends Creature{
                         }
                     }
                 }
-        Random random = new Random();
-        double percentage = random.nextDouble();
+        double percentage = getRandom().nextDouble();
         int hp = (int) Math.round((getMaxHitPoints() - getHitPoints()) * percentage + getHitPoints());
         setHitPoints(findClosestPrime(hp,getMaxHitPoints()));
     }
@@ -408,14 +567,17 @@ public class Hero extends Creature{
      */
     @Override @Raw
     public void pickUp(Equipable item, AnchorType anchortype) throws CarryLimitReachedException{
-        if(!canPickUpArmor() && item instanceof Armor)
-            throw new CarryLimitReachedException(item);
+        getLock().lock();
         try {
+            if(!canPickUpArmor() && item instanceof Armor)
+                throw new CarryLimitReachedException(item);
             super.pickUp(item, anchortype);
         } catch (ItemAlreadyobtainedException e) {
             throw new RuntimeException(e);
         } catch (AnchorslotOccupiedException e) {
             throw new RuntimeException(e);
+        } finally {
+            unlockInventory();
         }
     }
 
@@ -446,6 +608,19 @@ public class Hero extends Creature{
     }
 
 
+    /**
+     * Checks whether this hero can carry the given number of armors on top of the armors it carries now.
+     *
+     * @param nbOfArmors
+     *        The number of armors to add, can be negative.
+     * @return True if the hero carries at most 2 armors afterwards.
+     *         |result == (getNbOfArmors() + nbOfArmors <= 2)
+     */
+    @Override @Model @Raw
+    protected boolean canCarryExtraArmors(int nbOfArmors){
+        return getNbOfArmors() + nbOfArmors <= 2;
+    }
+
     /**
      * Swaps the position of the armor in the body anchorslot with a given armor.
      *
@@ -492,9 +667,35 @@ public class Hero extends Creature{
      *         The armor to swap to is on the ground. We cant swap however because the weight of the armor to be picked up exceeds the
      *         maximum carry capacity for this hero.
      *         |getCapacity() - bodyitem.getWeight() + armor.getWeight() > getMaxCapacity()
+     * @note   The swap holds the lock of this hero and the stripes of both armors, because an armor can come from or go
+     *         to the ground.
      */
     @Raw
     public void swapArmors(Armor armor) throws CantFindArmortoSwapException, IllegalArgumentException, OtherPlayersItemException, CarryLimitReachedException {
+        getLock().lock();
+        BitSet stripes = new BitSet();
+        try {
+            Equipable bodyitem = getAnchorItemAt(3);
+            if(armor != null)
+                stripes.set(ItemLocks.stripeOf(armor));
+            if(bodyitem != null)
+                stripes.set(ItemLocks.stripeOf(bodyitem));
+            ItemLocks.lockAll(stripes);
+            try {
+                swapArmorsLocked(armor);
+            } finally {
+                ItemLocks.unlockAll(stripes);
+            }
+        } finally {
+            unlockInventory();
+        }
+    }
+
+    /**
+     * Swaps the armor in the body anchorslot with the given armor, while the locks of the swap are held.
+     */
+    @Model
+    private void swapArmorsLocked(Armor armor) throws CantFindArmortoSwapException, IllegalArgumentException, OtherPlayersItemException, CarryLimitReachedException {
         Equipable bodyitem = getAnchorItemAt(3);
         if (!(bodyitem instanceof Armor) || bodyitem == null)
             throw new CantFindArmortoSwapException();
@@ -525,12 +726,7 @@ public class Hero extends Creature{
                 getAnchorAt(3).setItem(armor);
             }
             else{ //armor in een anchor
-                Anchor curranchor = null;
-                for (int i = 0; i < getAnchors().size(); i++) {
-                    curranchor = getAnchorAt(i);
-                    if (curranchor.getItem() == armor)
-                        break;
-                }
+                Anchor curranchor = getAnchorOf(armor);
                 curranchor.setItem(bodyitem);
                 getAnchorAt(3).setItem(armor);
             }
@@ -560,23 +756,12 @@ public class Hero extends Creature{
      */
     @Model
     private static int findClosestPrime(int number, int max) {
-        if (isPrime(number)) {
-            return number;  // If the number itself is prime, return it
-        }
-        int smaller = number;
-        int larger = number;
-        while (true) {
-            if (isPrime(smaller)) {
-                return smaller;
-            }
-            if (isPrime(larger)) {
-                return larger;
-            }
-            if(smaller > 0){
-                smaller--;}
-            if(larger < max){
-                larger++;}
+        long smaller = PrimeIdAllocator.previousPrime(number);
+        long larger = PrimeIdAllocator.nextPrime(number);
+        if (larger > max || (smaller != -1 && number - smaller <= larger - number)) {
+            return (int) smaller;
         }
+        return (int) larger;
     }
 
     /**
@@ -592,15 +777,7 @@ public class Hero extends Creature{
      */
     @Model
     protected static boolean isPrime(int number) {
-        if (number <= 1) {
-            return false;
-        }
-        for (int i = 2; i <= Math.sqrt(number); i++) {
-            if (number % i == 0) {
-                return false;
-            }
-        }
-        return true;
+        return PrimeIdAllocator.isPrime(number);
     }
 
 }
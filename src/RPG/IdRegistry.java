@@ -0,0 +1,54 @@
+package RPG;
+
+/**
+ * An interface for registries of identification numbers that are currently in use.
+ * Implementations must be safe to use from several threads at the same time.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public interface IdRegistry {
+
+    /**
+     * Checks whether the given identification number is registered.
+     *
+     * @param id
+     *        the identification number to be checked.
+     * @return True if the given identification number has been registered and not released since.
+     */
+    boolean contains(long id);
+
+    /**
+     * Registers the given identification number.
+     *
+     * @param id
+     *        the identification number to register.
+     * @post  The given identification number is registered.
+     *        |new.contains(id)
+     * @return False if the given identification number was already registered, true otherwise.
+     *         |result == !contains(id)
+     */
+    boolean register(long id);
+
+    /**
+     * Releases the given identification number, so that it can be registered again.
+     *
+     * @param id
+     *        the identification number to release.
+     * @post  The given identification number is no longer registered.
+     *        |!new.contains(id)
+     * @return True if the given identification number was registered, false otherwise.
+     *         |result == contains(id)
+     */
+    boolean release(long id);
+
+    /**
+     * Returns the number of registered identification numbers.
+     */
+    long size();
+
+    /**
+     * Returns an estimate of the number of bytes of heap memory used by this registry.
+     */
+    long getFootprint();
+}
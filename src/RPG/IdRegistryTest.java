@@ -0,0 +1,127 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+/**
+ * A JUnit test class for testing the non-private methods of the id registries and the release of id's.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class IdRegistryTest {
+
+    private LongIdRegistry registry;
+
+    @Before
+    public void setUpRegistry(){
+        registry = new LongIdRegistry();
+    }
+
+    @Test
+    public void testRegisterAndRelease(){
+        for(long id = 0; id < 100000; id++){
+            Assert.assertTrue(registry.register(id));
+        }
+        Assert.assertFalse(registry.register(500));
+        Assert.assertEquals(registry.size(), 100000);
+        for(long id = 0; id < 100000; id += 2){
+            Assert.assertTrue(registry.release(id));
+        }
+        Assert.assertFalse(registry.release(0));
+        for(long id = 0; id < 100000; id++){
+            Assert.assertEquals(registry.contains(id), id % 2 == 1);
+        }
+        Assert.assertEquals(registry.size(), 50000);
+    }
+
+    @Test
+    public void testFootprintShrinks(){
+        long empty = registry.getFootprint();
+        for(long id = 0; id < 100000; id++){
+            registry.register(id * 7919);
+        }
+        Assert.assertTrue(registry.getFootprint() > empty);
+        for(long id = 0; id < 100000; id++){
+            registry.release(id * 7919);
+        }
+        Assert.assertEquals(registry.size(), 0);
+        Assert.assertEquals(registry.getFootprint(), empty);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterNegativeId(){
+        registry.register(-5);
+    }
+
+    @Test
+    public void testConcurrentRegistration() throws InterruptedException {
+        ArrayList<Thread> threads = new ArrayList<>();
+        int[] registered = new int[4];
+        for(int t = 0; t < 4; t++){
+            int index = t;
+            Thread thread = new Thread(() -> {
+                for(long id = 0; id < 20000; id++){
+                    if(registry.register(id))
+                        registered[index]++;
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        Assert.assertEquals(registered[0] + registered[1] + registered[2] + registered[3], 20000);
+        Assert.assertEquals(registry.size(), 20000);
+    }
+
+    @Test
+    public void testPrimeRelease(){
+        PrimeIdAllocator allocator = new PrimeIdAllocator();
+        for(int i = 0; i < 10; i++){
+            allocator.claim(allocator.nextFree(2));
+        }
+        Assert.assertEquals(allocator.getNbOfRuns(), 1);
+        Assert.assertTrue(allocator.release(11));
+        Assert.assertFalse(allocator.release(11));
+        Assert.assertFalse(allocator.release(12));
+        Assert.assertEquals(allocator.getNbOfRuns(), 2);
+        Assert.assertEquals(allocator.nextFree(2), 11);
+        Assert.assertEquals(allocator.size(), 9);
+        Assert.assertTrue(allocator.register(11));
+        Assert.assertEquals(allocator.getNbOfRuns(), 1);
+    }
+
+    @Test
+    public void testDestroyReleasesIds(){
+        Backpack backpack = new Backpack(424242, 2, 10, 10);
+        Armor armor = new Armor(424242, 2, ArmorType.DEFAULT, 10);
+        Assert.assertEquals(backpack.getId(), 424242);
+        backpack.destroy();
+        armor.destroy();
+        Assert.assertTrue(backpack.isDestroyed());
+        Assert.assertFalse(Backpack.getIdRegistry().contains(424242));
+        Assert.assertFalse(Armor.getPrimeIds().contains(armor.getId()));
+        Assert.assertEquals(new Backpack(424242, 2, 10, 10).getId(), 424242);
+        Assert.assertEquals(new Armor(424242, 2, ArmorType.DEFAULT, 10).getId(), armor.getId());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDestroyHeldItem(){
+        Armor armor = new Armor(2, 2, ArmorType.DEFAULT, 10);
+        new Hero("Holder", 20, 10, armor);
+        armor.destroy();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPickUpDestroyedItem() throws CarryLimitReachedException {
+        Hero hero = new Hero("Picker", 20, 10, new Armor(2, 2, ArmorType.DEFAULT, 10));
+        Weapon weapon = new Weapon(2, 14);
+        weapon.destroy();
+        hero.pickUp(weapon, AnchorType.LINKERHAND);
+    }
+}
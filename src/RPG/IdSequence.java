@@ -0,0 +1,163 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class of lock-free sequences of identification numbers that can be used from several threads at the same time.
+ *
+ * Each thread reserves a block of consecutive identification numbers with a single atomic update of the shared counter
+ * and hands them out without touching shared state until the block is used up. Creating many items in one thread
+ * therefore only contends on the shared counter once per block.
+ * Identification numbers are unique, but numbers of a block that a thread never used are skipped.
+ *
+ * @invar Each identification number handed out differs from the start of the sequence by a multiple of the step,
+ *        and is smaller than the limit.
+ *        | result % getStep() == getStart() % getStep() && result < getLimit()
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class IdSequence {
+
+    /**
+     * Initialize a new sequence of identification numbers.
+     *
+     * @param start
+     *        The first identification number of the sequence.
+     * @param step
+     *        The difference between two consecutive identification numbers.
+     * @param limit
+     *        The exclusive upper bound for the identification numbers. When the sequence reaches it,
+     *        it continues from the smallest non-negative number that differs from the start by a multiple of the step.
+     * @param blockSize
+     *        The amount of identification numbers a thread reserves at once.
+     * @throws IllegalArgumentException
+     *         The step or the block size is not strictly positive, or the start is not smaller than the limit.
+     *         | step <= 0 || blockSize <= 0 || start >= limit
+     */
+    public IdSequence(long start, long step, long limit, int blockSize) throws IllegalArgumentException{
+        if(step <= 0 || blockSize <= 0 || start >= limit)
+            throw new IllegalArgumentException();
+        this.start = start;
+        this.step = step;
+        this.limit = limit;
+        this.blockSpan = step * blockSize;
+        this.next = new AtomicLong(start);
+    }
+
+    /**
+     * The first identification number of this sequence.
+     */
+    private final long start;
+
+    /**
+     * The difference between two consecutive identification numbers.
+     */
+    private final long step;
+
+    /**
+     * The exclusive upper bound for the identification numbers.
+     */
+    private final long limit;
+
+    /**
+     * The distance between the first identification number of a block and the first one of the next block.
+     */
+    private final long blockSpan;
+
+    /**
+     * The first identification number that has not been reserved by any thread yet.
+     */
+    private final AtomicLong next;
+
+    /**
+     * The block reserved by the current thread. The first element is the next identification number to hand out,
+     * the second element is the exclusive end of the block.
+     */
+    private final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[]{0, 0});
+
+    /**
+     * Returns the first identification number of this sequence.
+     */
+    @Basic @Immutable
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the difference between two consecutive identification numbers of this sequence.
+     */
+    @Basic @Immutable
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the exclusive upper bound for the identification numbers of this sequence.
+     */
+    @Basic @Immutable
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the first identification number that has not been reserved by any thread yet.
+     */
+    @Basic
+    public long getCounter() {
+        return next.get();
+    }
+
+    /**
+     * Returns the next identification number for the current thread.
+     *
+     * @effect If the block of the current thread is used up, a new block is reserved.
+     *         | if(block[0] >= block[1]) then reserveBlock(block)
+     * @return The next unused identification number of the block of the current thread.
+     */
+    public long next(){
+        long[] current = block.get();
+        if(current[0] >= current[1])
+            reserveBlock(current);
+        long id = current[0];
+        current[0] += step;
+        return id;
+    }
+
+    /**
+     * Reserves the given identification number, which an item rebuilt from a save already has, so that the sequence
+     * hands out no number up to it anymore. Numbers below the shared counter are already reserved by some thread.
+     *
+     * @param id
+     *        The identification number to reserve.
+     * @post  If the number belongs to this sequence and is not the last number before the limit, the shared counter
+     *        is past it.
+     *        | if(id >= 0 && (id - getStart()) % getStep() == 0 && id + getStep() < getLimit())
+     *        |    then new.getCounter() == max(getCounter(), id + getStep())
+     */
+    public void reserve(long id){
+        if(id >= 0 && Math.floorMod(id - start, step) == 0 && id + step < limit)
+            next.accumulateAndGet(id + step, Math::max);
+    }
+
+    /**
+     * Reserves a new block of identification numbers for the current thread.
+     *
+     * @param current
+     *        The block of the current thread.
+     * @post  The block starts at the previous value of the shared counter and ends one block span further,
+     *        or at the limit, whichever comes first.
+     * @post  The shared counter is moved one block span further. If that reaches the limit, it continues from
+     *        the smallest non-negative number that differs from the start by a multiple of the step.
+     */
+    @Model
+    private void reserveBlock(long[] current){
+        long first = next.getAndUpdate(counter -> counter + blockSpan < limit ? counter + blockSpan : start % step);
+        current[0] = first;
+        current[1] = Math.min(first + blockSpan, limit);
+    }
+}
@@ -0,0 +1,103 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A JUnit test class for testing sequences of identification numbers shared by several threads.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class IdSequenceTest {
+
+    private static final int NB_OF_THREADS = 8;
+
+    private static final int NB_OF_IDS = 20000;
+
+    /**
+     * Draws ids from the given source on several threads at once, and returns the set of all ids drawn after checking
+     * that no id was drawn twice.
+     */
+    private ConcurrentHashMap.KeySetView<Long, Boolean> drawConcurrently(IdSource source) throws Exception{
+        ConcurrentHashMap.KeySetView<Long, Boolean> ids = ConcurrentHashMap.newKeySet();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[NB_OF_THREADS];
+        for(int t = 0; t < NB_OF_THREADS; t++){
+            threads[t] = new Thread(() -> {
+                try {
+                    for(int n = 0; n < NB_OF_IDS; n++){
+                        long id = source.next();
+                        if(!ids.add(id))
+                            throw new AssertionError("id " + id + " drawn twice");
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+            thread.join();
+        if(failure.get() != null)
+            throw new AssertionError(failure.get());
+        Assert.assertEquals(ids.size(), NB_OF_THREADS * NB_OF_IDS);
+        return ids;
+    }
+
+    /**
+     * A source of identification numbers.
+     */
+    private interface IdSource {
+        long next();
+    }
+
+    @Test
+    public void testConcurrentIdsAreUniqueMultiplesOfSix() throws Exception{
+        IdSequence sequence = new IdSequence(36936918, 6, Integer.MAX_VALUE, 64);
+        for(long id : drawConcurrently(sequence::next)){
+            Assert.assertEquals(id % 6, 0);
+            Assert.assertTrue(id >= 36936918 && id < Integer.MAX_VALUE);
+        }
+        Assert.assertTrue(sequence.getCounter() >= 36936918 + 6L * NB_OF_THREADS * NB_OF_IDS);
+    }
+
+    @Test
+    public void testConcurrentWeaponIdsAreUniqueMultiplesOfSix() throws Exception{
+        for(long id : drawConcurrently(() -> new Weapon(1).getId())){
+            Assert.assertEquals(id % 6, 0);
+            Assert.assertTrue(id > 0);
+        }
+    }
+
+    @Test
+    public void testSequenceWrapsAtLimit(){
+        IdSequence sequence = new IdSequence(14, 6, 40, 2);
+        Assert.assertEquals(sequence.next(), 14);
+        Assert.assertEquals(sequence.next(), 20);
+        Assert.assertEquals(sequence.next(), 26);
+        Assert.assertEquals(sequence.next(), 32);
+        Assert.assertEquals(sequence.next(), 38);
+        Assert.assertEquals(sequence.next(), 2);
+    }
+
+    @Test
+    public void testReserveMovesCounterPastId(){
+        IdSequence sequence = new IdSequence(12, 6, 1000, 4);
+        sequence.reserve(600);
+        Assert.assertEquals(sequence.getCounter(), 606);
+        Assert.assertEquals(sequence.next(), 606);
+        sequence.reserve(0);
+        sequence.reserve(301);
+        sequence.reserve(996);
+        Assert.assertEquals(sequence.getCounter(), 606 + 4 * 6);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testIllegalStep(){
+        new IdSequence(0, 0, 10, 4);
+    }
+}
@@ -0,0 +1,669 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * A class of journals to which the changes to the inventories of creatures are appended.
+ *
+ * A creature attached to a journal gets a key and a checkpoint holding its whole save, as written by CreatureCodec.
+ * From then on, every time the lock of its inventory is released after a change, the saved items of the anchors that
+ * changed are appended to the journal, and so are its hit points and whether it is alive when they changed, so a
+ * creature killed after its checkpoint is replayed dead. Records are collected in memory and written in batches:
+ * whoever commits first writes and forces the records of every thread at once, while the others wait for it. A record
+ * is a length, a type, the key of the creature, a payload and a checksum, so a record that was torn off by a crash is
+ * recognised and cut off when the journal is opened again.
+ * Replaying a journal takes the last checkpoint of every creature and puts the last saved item of each anchor in its
+ * place, before the creature is read, so the items of a creature are made only once. An anchor holding an armor or
+ * backpack that is already taken, by another anchor or by the world replaying the journal, is reported as a duplicate
+ * and replayed empty.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class InventoryJournal implements Closeable {
+
+    /**
+     * The number every journal file starts with, "RPGJ" in ASCII.
+     */
+    public static final int MAGIC = 0x52504A4C;
+
+    /**
+     * The version of the layout of journal files.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The number of bytes of the header of a journal file.
+     */
+    private static final int FILE_HEADER = 4 + 2;
+
+    /**
+     * The number of bytes of a record besides its payload: the length, the type, the key and the checksum.
+     */
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4 + 4;
+
+    /**
+     * The type of records holding the whole save of a creature.
+     */
+    private static final byte CHECKPOINT = 1;
+
+    /**
+     * The type of records holding the saved items of the anchors of a creature that changed.
+     */
+    private static final byte ANCHORS = 2;
+
+    /**
+     * The type of records holding the hit points of a creature and whether it is alive.
+     */
+    private static final byte STATS = 3;
+
+    /**
+     * The number of pending bytes after which the creatures appending to a journal write its records themselves.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    /**
+     * Initialize a journal on the given channel.
+     */
+    @Model
+    private InventoryJournal(FileChannel channel, int batchSize, int nextKey, long size){
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.nextKey = nextKey;
+        this.pending = ByteBuffer.allocate(batchSize);
+        this.spare = ByteBuffer.allocate(batchSize);
+        this.appended = size;
+        this.durable = size;
+    }
+
+    /**
+     * Opens the journal in the file at the given path with the default batch size.
+     *
+     * @effect The journal is opened with the default batch size.
+     *         |open(path, DEFAULT_BATCH_SIZE)
+     */
+    public static InventoryJournal open(Path path) throws IOException, IllegalArgumentException{
+        return open(path, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Opens the journal in the file at the given path, and creates it if the file does not exist or is empty.
+     * A record at the end of the file that was not written completely is cut off.
+     *
+     * @param path
+     *        The path of the file.
+     * @param batchSize
+     *        The number of pending bytes after which the records are written.
+     * @return A journal appending to the file. Creatures attached to it get keys no earlier record in the file uses.
+     * @throws IOException
+     *         The file could not be opened or read.
+     * @throws IllegalArgumentException
+     *         The file is not empty and does not hold a journal of this version, or the batch size is not positive.
+     */
+    public static InventoryJournal open(Path path, int batchSize) throws IOException, IllegalArgumentException{
+        if(batchSize <= 0)
+            throw new IllegalArgumentException();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            int[] nextKey = {0};
+            long size;
+            if(channel.size() == 0){
+                channel.write(ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).putShort(VERSION).flip(), 0);
+                channel.force(false);
+                size = FILE_HEADER;
+            }
+            else {
+                size = scan(readAll(channel), record -> nextKey[0] = Math.max(nextKey[0], record.getInt(1) + 1));
+                if(size < channel.size())
+                    channel.truncate(size);
+            }
+            channel.position(size);
+            return new InventoryJournal(channel, batchSize, nextKey[0], size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The channel of the file of this journal.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of pending bytes after which the records of this journal are written.
+     */
+    private final int batchSize;
+
+    /**
+     * The key the next creature attached to this journal gets.
+     */
+    private int nextKey;
+
+    /**
+     * The records appended to this journal that are not being written yet.
+     */
+    private ByteBuffer pending;
+
+    /**
+     * The buffer that takes the place of the pending records while they are written.
+     */
+    private ByteBuffer spare;
+
+    /**
+     * The size the file of this journal has once every appended record is written.
+     */
+    private long appended;
+
+    /**
+     * The size of the file of this journal that is written and forced to the disk.
+     */
+    private long durable;
+
+    /**
+     * Whether a thread is writing a batch of records.
+     */
+    private boolean flushing;
+
+    /**
+     * The failure of the last write, after which no records can be written anymore.
+     */
+    private IOException failure;
+
+    /**
+     * Returns the number of pending bytes after which the records of this journal are written.
+     */
+    @Basic @Immutable
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the size of the file of this journal that is written and forced to the disk.
+     */
+    @Basic
+    public synchronized long getDurableSize() {
+        return durable;
+    }
+
+    /********
+     * Appending
+     */
+
+    /**
+     * Attaches the given creature to this journal, and writes a checkpoint holding its whole save.
+     *
+     * @param creature
+     *        The creature to attach.
+     * @return The key of the creature in this journal.
+     * @post  The creature appends the changes to its inventory to this journal.
+     *        |creature.getJournal() == this && creature.getJournalKey() == result
+     * @throws IllegalArgumentException
+     *         The creature is already attached to a journal.
+     *         |creature.getJournal() != null
+     * @throws IOException
+     *         The checkpoint could not be written.
+     */
+    public int attach(Creature creature) throws IllegalArgumentException, IOException{
+        int key;
+        creature.getLock().lock();
+        try {
+            if(creature.getJournal() != null)
+                throw new IllegalArgumentException();
+            synchronized (this) {
+                key = nextKey++;
+            }
+            appendCheckpoint(creature, key);
+        } finally {
+            creature.unlockInventory();
+        }
+        commit();
+        return key;
+    }
+
+    /**
+     * Writes a checkpoint holding the whole save of the given creature, so that replaying no longer needs the
+     * records appended for it before. The stats of a creature that are not part of its inventory, like the strength
+     * of a hero, are only journaled by checkpoints.
+     *
+     * @param creature
+     *        The creature.
+     * @throws IllegalArgumentException
+     *         The creature is not attached to this journal.
+     *         |creature.getJournal() != this
+     * @throws IOException
+     *         The checkpoint could not be written.
+     */
+    public void checkpoint(Creature creature) throws IllegalArgumentException, IOException{
+        creature.getLock().lock();
+        try {
+            if(creature.getJournal() != this)
+                throw new IllegalArgumentException();
+            appendCheckpoint(creature, creature.getJournalKey());
+        } finally {
+            creature.unlockInventory();
+        }
+        commit();
+    }
+
+    /**
+     * Appends a checkpoint of the given creature, of which the caller holds the lock, under the given key.
+     */
+    @Model
+    private void appendCheckpoint(Creature creature, int key){
+        ByteBuffer record = startRecord(CHECKPOINT, key, CreatureCodec.getEncodedSize(creature));
+        CreatureCodec.write(creature, record);
+        append(record);
+        creature.setJournal(this, key);
+    }
+
+    /**
+     * Appends the saved items of the anchors with the given indexes of the given creature, of which the caller holds
+     * the lock.
+     *
+     * @param creature
+     *        The creature.
+     * @param anchors
+     *        The indexes of the anchors that changed.
+     * @return True if the pending records fill a batch and should be written.
+     */
+    @Model
+    boolean appendChanges(Creature creature, BitSet anchors){
+        int size = 4, count = 0;
+        for(int i = anchors.nextSetBit(0); i >= 0 && i < creature.getNbOfAnchors(); i = anchors.nextSetBit(i + 1)){
+            size += 4 + CreatureCodec.getEncodedSize(creature.getAnchorItemAt(i));
+            count++;
+        }
+        ByteBuffer record = startRecord(ANCHORS, creature.getJournalKey(), size);
+        record.putInt(count);
+        for(int i = anchors.nextSetBit(0); i >= 0 && i < creature.getNbOfAnchors(); i = anchors.nextSetBit(i + 1)){
+            record.putInt(i);
+            CreatureCodec.writeItem(creature.getAnchorItemAt(i), record);
+        }
+        return append(record);
+    }
+
+    /**
+     * Appends the hit points of the given creature and whether it is alive, of which the caller holds the lock.
+     *
+     * @param creature
+     *        The creature.
+     * @return True if the pending records fill a batch and should be written.
+     */
+    @Model
+    boolean appendStats(Creature creature){
+        ByteBuffer record = startRecord(STATS, creature.getJournalKey(), 4 + 1);
+        record.putInt(creature.getHitPoints()).put((byte) (creature.isAlive() ? 1 : 0));
+        return append(record);
+    }
+
+    /**
+     * Returns a buffer for a record of the given type and key with a payload of the given size, positioned at the
+     * start of the payload.
+     */
+    @Model
+    private static ByteBuffer startRecord(byte type, int key, int size){
+        return ByteBuffer.allocate(size + RECORD_OVERHEAD).putInt(size).put(type).putInt(key);
+    }
+
+    /**
+     * Adds the checksum to the given record, of which the payload is written, and adds it to the pending records.
+     *
+     * @return True if the pending records fill a batch.
+     */
+    @Model
+    private boolean append(ByteBuffer record){
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, record.position() - 4);
+        record.putInt((int) crc.getValue()).flip();
+        synchronized (this) {
+            if(pending.remaining() < record.remaining()){
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                        pending.position() + record.remaining()));
+                pending = larger.put(pending.flip());
+            }
+            pending.put(record);
+            appended += record.limit();
+            return pending.position() >= batchSize;
+        }
+    }
+
+    /********
+     * Committing
+     */
+
+    /**
+     * Writes every record appended to this journal so far and forces it to the disk. If another thread is writing,
+     * this thread waits for it, and then writes the records that were appended in the meantime in one batch if they
+     * are not written by then.
+     *
+     * @throws IOException
+     *         The records could not be written, now or by an earlier commit.
+     */
+    public void commit() throws IOException{
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        while(true){
+            ByteBuffer batch;
+            long end;
+            synchronized (this) {
+                while(flushing && durable < target && failure == null){
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+                if(durable >= target)
+                    return;
+                if(failure != null)
+                    throw new IOException(failure);
+                flushing = true;
+                batch = pending.flip();
+                pending = spare;
+                end = appended;
+            }
+            IOException thrown = null;
+            try {
+                while(batch.hasRemaining())
+                    channel.write(batch);
+                channel.force(false);
+            } catch (IOException e) {
+                thrown = e;
+            }
+            synchronized (this) {
+                spare = batch.clear();
+                flushing = false;
+                if(thrown == null)
+                    durable = end;
+                else
+                    failure = thrown;
+                notifyAll();
+            }
+            if(thrown != null)
+                throw thrown;
+        }
+    }
+
+    /**
+     * Writes every record appended to this journal so far, like commit, for callers that cannot throw an IOException.
+     *
+     * @throws UncheckedIOException
+     *         The records could not be written.
+     */
+    public void flush() throws UncheckedIOException{
+        try {
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commits the pending records and closes the file of this journal. Creatures attached to this journal should no
+     * longer change afterwards.
+     *
+     * @throws IOException
+     *         The records could not be written or the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException{
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /********
+     * Replaying
+     */
+
+    /**
+     * Rebuilds the creatures journaled in the file at the given path, without reporting the anchors replayed empty
+     * because of a duplicate armor or backpack.
+     *
+     * @effect The creatures are rebuilt and the duplicates are not reported.
+     *         |replay(path, duplicate -> {})
+     */
+    public static Map<Integer, Creature> replay(Path path) throws IOException, IllegalArgumentException{
+        return replay(path, duplicate -> {});
+    }
+
+    /**
+     * Rebuilds the creatures journaled in the file at the given path. Every creature starts from its last checkpoint,
+     * of which the item of every anchor is replaced by the last item journaled for it and the hit points and the
+     * alive flag by the last ones journaled, and is read only then, so the identification numbers of its armors and
+     * backpacks are claimed once. A record at the end of the file that was not written completely is left out.
+     * An anchor of which the item holds an armor or backpack with an identification number that is already taken, by
+     * an anchor of a creature with a lower key, an earlier anchor of the same creature or the world replaying the
+     * journal, is replayed empty and reported to the given consumer instead.
+     *
+     * @param path
+     *        The path of the file.
+     * @param duplicates
+     *        The consumer the anchors replayed empty because of a taken identification number are reported to.
+     * @return The creatures in the journal by their key, in the order of their keys.
+     * @throws IOException
+     *         The file could not be read.
+     * @throws IllegalArgumentException
+     *         The file does not hold a journal of this version, a record refers to a creature without a checkpoint or
+     *         to an anchor it does not have, or a creature cannot be read.
+     */
+    public static Map<Integer, Creature> replay(Path path, Consumer<Duplicate> duplicates) throws IOException,
+            IllegalArgumentException{
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = readAll(channel);
+        }
+        Map<Integer, ByteBuffer[]> saves = new TreeMap<>();
+        Map<Integer, ByteBuffer> stats = new HashMap<>();
+        scan(file, record -> {
+            byte type = record.get();
+            int key = record.getInt();
+            if(type == CHECKPOINT){
+                saves.put(key, CreatureCodec.splitAnchors(record));
+                stats.remove(key);
+            }
+            else if(type == ANCHORS)
+                replaceAnchors(saves.get(key), record);
+            else if(type == STATS){
+                if(!saves.containsKey(key))
+                    throw new IllegalArgumentException();
+                stats.put(key, record.slice());
+            }
+            else throw new IllegalArgumentException();
+        });
+        emptyDuplicates(saves, duplicates);
+        Map<Integer, Creature> creatures = new TreeMap<>();
+        for(Map.Entry<Integer, ByteBuffer[]> save : saves.entrySet()){
+            Creature creature = CreatureCodec.read(CreatureCodec.joinAnchors(save.getValue()));
+            ByteBuffer last = stats.get(save.getKey());
+            if(last != null){
+                creature.setHitPoints(last.getInt());
+                creature.setAlive(last.get() != 0);
+            }
+            creatures.put(save.getKey(), creature);
+        }
+        return creatures;
+    }
+
+    /**
+     * Replaces the saved item of every anchor in the given split saves that holds an armor or backpack of which the
+     * identification number is already taken by an empty anchor, and reports the anchor to the given consumer. The
+     * saves are visited in the order of their keys.
+     */
+    @Model
+    private static void emptyDuplicates(Map<Integer, ByteBuffer[]> saves, Consumer<Duplicate> duplicates){
+        Set<Long> armors = new HashSet<>();
+        Set<Long> backpacks = new HashSet<>();
+        for(Map.Entry<Integer, ByteBuffer[]> save : saves.entrySet()){
+            ByteBuffer[] parts = save.getValue();
+            for(int i = 1; i < parts.length; i++){
+                Set<Long> anchorArmors = new HashSet<>();
+                Set<Long> anchorBackpacks = new HashSet<>();
+                long[] taken = {-1};
+                CreatureCodec.skipItem(parts[i].duplicate(), (tag, id) -> {
+                    boolean free = (tag == CompactInventory.ARMOR)
+                            ? !armors.contains(id) && !Armor.getPrimeIds().contains(id) && anchorArmors.add(id)
+                            : !backpacks.contains(id) && !Backpack.getIdRegistry().contains(id)
+                              && anchorBackpacks.add(id);
+                    if(!free && taken[0] < 0)
+                        taken[0] = id;
+                });
+                if(taken[0] >= 0){
+                    parts[i] = ByteBuffer.wrap(new byte[]{CompactInventory.EMPTY});
+                    duplicates.accept(new Duplicate(save.getKey(), i - 1, taken[0]));
+                }
+                else {
+                    armors.addAll(anchorArmors);
+                    backpacks.addAll(anchorBackpacks);
+                }
+            }
+        }
+    }
+
+    /**
+     * A class of anchors that were replayed empty because an armor or backpack in their item was already taken.
+     */
+    @Immutable
+    public static final class Duplicate {
+
+        /**
+         * Initialize a new duplicate with the given key, anchor and identification number.
+         */
+        @Model
+        private Duplicate(int key, int anchor, long id){
+            this.key = key;
+            this.anchor = anchor;
+            this.id = id;
+        }
+
+        /**
+         * The key of the creature of the anchor.
+         */
+        private final int key;
+
+        /**
+         * The index of the anchor.
+         */
+        private final int anchor;
+
+        /**
+         * The identification number that was already taken.
+         */
+        private final long id;
+
+        /**
+         * Returns the key of the creature of the anchor.
+         */
+        @Basic @Immutable
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the index of the anchor.
+         */
+        @Basic @Immutable
+        public int getAnchor() {
+            return anchor;
+        }
+
+        /**
+         * Returns the identification number that was already taken.
+         */
+        @Basic @Immutable
+        public long getId() {
+            return id;
+        }
+    }
+
+    /**
+     * Replaces the saved items of the anchors in the given split save by the ones in the payload of the given record.
+     */
+    @Model
+    private static void replaceAnchors(ByteBuffer[] parts, ByteBuffer record){
+        if(parts == null)
+            throw new IllegalArgumentException();
+        int count = record.getInt();
+        for(int i = 0; i < count; i++){
+            int index = record.getInt();
+            if(index < 0 || index + 1 >= parts.length)
+                throw new IllegalArgumentException();
+            int start = record.position();
+            CreatureCodec.skipItem(record);
+            parts[index + 1] = record.slice(start, record.position() - start);
+        }
+    }
+
+    /**
+     * Reads the whole file of the given channel.
+     */
+    @Model
+    private static ByteBuffer readAll(FileChannel channel) throws IOException{
+        if(channel.size() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+        ByteBuffer file = ByteBuffer.allocate((int) channel.size());
+        while(file.hasRemaining())
+            if(channel.read(file, file.position()) < 0)
+                break;
+        return file.flip();
+    }
+
+    /**
+     * Gives the type, key and payload of every complete record in the given journal file to the given visitor, in the
+     * order they were appended.
+     *
+     * @return The size of the part of the file holding complete records.
+     * @throws IllegalArgumentException
+     *         The file does not start with the header of a journal of this version.
+     */
+    @Model
+    private static long scan(ByteBuffer file, Consumer<ByteBuffer> visitor) throws IllegalArgumentException{
+        if(file.remaining() < FILE_HEADER || file.getInt(0) != MAGIC || file.getShort(4) != VERSION)
+            throw new IllegalArgumentException();
+        int position = FILE_HEADER;
+        CRC32 crc = new CRC32();
+        while(file.limit() - position >= RECORD_OVERHEAD){
+            int size = file.getInt(position);
+            if(size < 0 || size > file.limit() - position - RECORD_OVERHEAD)
+                break;
+            crc.reset();
+            crc.update(file.slice(position + 4, 1 + 4 + size));
+            if((int) crc.getValue() != file.getInt(position + 4 + 1 + 4 + size))
+                break;
+            try {
+                visitor.accept(file.slice(position + 4, 1 + 4 + size));
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException(e);
+            }
+            position += size + RECORD_OVERHEAD;
+        }
+        return position;
+    }
+}
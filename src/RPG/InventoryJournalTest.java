@@ -0,0 +1,185 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JUnit test class for testing the journal of inventories and replaying it.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class InventoryJournalTest {
+
+    private PrimeIdAllocator primeIds;
+
+    private IdRegistry backpackIds;
+
+    private Path path;
+
+    @Before
+    public void setUpJournal() throws Exception{
+        primeIds = Armor.getPrimeIds();
+        backpackIds = Backpack.getIdRegistry();
+        path = Files.createTempFile("inventory", ".journal");
+    }
+
+    @After
+    public void restoreIds() throws Exception{
+        Armor.setPrimeIds(primeIds);
+        Backpack.setIdRegistry(backpackIds);
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Starts a new world, in which the ids of the journaled armors and backpacks are free again.
+     */
+    private void startNewWorld(){
+        Armor.setPrimeIds(new PrimeIdAllocator());
+        Backpack.setIdRegistry(new LongIdRegistry());
+    }
+
+    @Test
+    public void testReplayFollowsChanges() throws Exception{
+        Hero hero = new Hero("Journaled", 80, 15, new Armor(107, 10, ArmorType.DEFAULT, 100));
+        Backpack backpack = new Backpack(42, 3, 30, 200);
+        Weapon sword = new Weapon(6, 21);
+        Weapon dagger = new Weapon(2, 8);
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            Assert.assertEquals(journal.attach(hero), 0);
+            Assert.assertSame(hero.getJournal(), journal);
+            hero.pickUp(backpack, AnchorType.RUG);
+            hero.pickUp(sword, AnchorType.LINKERHAND);
+            hero.pickUp(dagger, AnchorType.RECHTERHAND);
+            hero.store(dagger, backpack);
+            journal.commit();
+            long size = journal.getDurableSize();
+            ((Armor) hero.getAnchorItemAt(3)).DecrementArmor(9);
+            journal.commit();
+            Assert.assertEquals(journal.getDurableSize(), size);
+            hero.flushChanges();
+            journal.commit();
+            Assert.assertTrue(journal.getDurableSize() > size);
+        }
+
+        startNewWorld();
+        Map<Integer, Creature> creatures = InventoryJournal.replay(path);
+        Hero copy = (Hero) creatures.get(0);
+        Assert.assertEquals(creatures.size(), 1);
+        Assert.assertEquals(copy.getName(), "Journaled");
+        Assert.assertEquals(copy.getTotalValueOfItems(), hero.getTotalValueOfItems());
+        Assert.assertEquals(copy.getCapacity(), hero.getCapacity());
+        Assert.assertEquals(copy.getTotalDamage(), hero.getTotalDamage());
+        Assert.assertNull(copy.getAnchorItemAt(1));
+        Assert.assertEquals(((Armor) copy.getAnchorItemAt(3)).getCurrentArmor(),
+                ((Armor) hero.getAnchorItemAt(3)).getCurrentArmor());
+        Assert.assertEquals(copy.getTotalProtection(), hero.getTotalProtection());
+        Backpack backpackCopy = (Backpack) copy.getAnchorItemAt(2);
+        Assert.assertEquals(backpackCopy.getId(), backpack.getId());
+        Assert.assertEquals(backpackCopy.getNbOfItems(), 1);
+    }
+
+    @Test
+    public void testCheckpointReplacesEarlierRecords() throws Exception{
+        Monster monster = new Monster("Journaled Monster", 60, 300, ArmorType.SCALE, 35, 3, new Weapon(5, 28, 70));
+        try (InventoryJournal journal = InventoryJournal.open(path, 64)) {
+            journal.attach(monster);
+            monster.drop(monster.getAnchorItemAt(0));
+            journal.checkpoint(monster);
+            monster.pickUp(new Purse(2), AnchorType.OTHER);
+        }
+
+        startNewWorld();
+        Monster copy = (Monster) InventoryJournal.replay(path).get(0);
+        Assert.assertEquals(copy.getNbOfAnchors(), 3);
+        Assert.assertEquals(copy.getTotalValueOfItems(), monster.getTotalValueOfItems());
+        Assert.assertEquals(copy.getCapacity(), monster.getCapacity());
+    }
+
+    @Test
+    public void testTornTailIsCutOff() throws Exception{
+        Hero first = new Hero("First", 50, 10, new Armor(109, 10, ArmorType.DEFAULT, 100));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            journal.attach(first);
+            first.pickUp(new Weapon(6, 21), AnchorType.LINKERHAND);
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(7).putInt(200).put((byte) 2).flip());
+        }
+
+        Hero second = new Hero("Second", 50, 10, new Armor(113, 10, ArmorType.DEFAULT, 100));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            Assert.assertEquals(Files.size(path), size);
+            Assert.assertEquals(journal.attach(second), 1);
+        }
+
+        startNewWorld();
+        Map<Integer, Creature> creatures = InventoryJournal.replay(path);
+        Assert.assertEquals(creatures.size(), 2);
+        Assert.assertEquals(creatures.get(0).getTotalValueOfItems(), first.getTotalValueOfItems());
+        Assert.assertEquals(creatures.get(1).getName(), "Second");
+    }
+
+    @Test
+    public void testDeathIsReplayed() throws Exception{
+        Hero hero = new Hero("Hunter", 80, 15, new Armor(131, 10, ArmorType.DEFAULT, 100));
+        Monster monster = new Monster("Prey", 60, 300, ArmorType.SCALE, 35, 3, new Weapon(5, 28, 70));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            journal.attach(monster);
+            while(monster.isAlive())
+                hero.Hit(monster);
+        }
+
+        startNewWorld();
+        Monster copy = (Monster) InventoryJournal.replay(path).get(0);
+        Assert.assertFalse(copy.isAlive());
+        Assert.assertEquals(copy.getHitPoints(), 0);
+        Assert.assertNull(copy.getAnchorItemAt(0));
+    }
+
+    @Test
+    public void testDuplicateArmorIsReported() throws Exception{
+        startNewWorld();
+        Hero first = new Hero("First", 50, 10, new Armor(137, 10, ArmorType.DEFAULT, 100));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            journal.attach(first);
+        }
+        startNewWorld();
+        Hero second = new Hero("Second", 50, 10, new Armor(137, 10, ArmorType.DEFAULT, 100));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            journal.attach(second);
+        }
+
+        startNewWorld();
+        List<InventoryJournal.Duplicate> duplicates = new ArrayList<>();
+        Map<Integer, Creature> creatures = InventoryJournal.replay(path, duplicates::add);
+        Assert.assertEquals(creatures.size(), 2);
+        Assert.assertEquals(creatures.get(0).getAnchorItemAt(3).getId(), 137L);
+        Assert.assertNull(creatures.get(1).getAnchorItemAt(3));
+        Assert.assertEquals(duplicates.size(), 1);
+        Assert.assertEquals(duplicates.get(0).getKey(), 1);
+        Assert.assertEquals(duplicates.get(0).getAnchor(), 3);
+        Assert.assertEquals(duplicates.get(0).getId(), 137L);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAttachTwice() throws Exception{
+        Hero hero = new Hero("Journaled", 80, 15, new Armor(127, 10, ArmorType.DEFAULT, 100));
+        try (InventoryJournal journal = InventoryJournal.open(path)) {
+            journal.attach(hero);
+            journal.attach(hero);
+        }
+    }
+}
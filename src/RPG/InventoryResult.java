@@ -0,0 +1,57 @@
+package RPG;
+
+/**
+ * An enumeration of the outcomes of moving an item in or out of the inventory of a creature.
+ *
+ * Each outcome other than SUCCESS corresponds to an exception of the throwing methods of creatures, so a caller that
+ * expects moves to fail, such as a creature trying to loot one item after the other, can check the outcome without
+ * creating and catching an exception.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public enum InventoryResult {
+    /**
+     * The item was moved.
+     */
+    SUCCESS,
+    /**
+     * The creature is dead.
+     */
+    CREATURE_DEAD,
+    /**
+     * The item is not effective, has been destroyed, or is not where the move takes it from.
+     */
+    ILLEGAL_ITEM,
+    /**
+     * The backpack is not effective, is not held by the creature, or is the item itself or stored in it.
+     */
+    ILLEGAL_BACKPACK,
+    /**
+     * The item is already held by a creature.
+     */
+    ALREADY_OBTAINED,
+    /**
+     * The item or its backpack is held by another creature.
+     */
+    OTHER_PLAYERS_ITEM,
+    /**
+     * The item is not a purse and cannot be equipped in the belt anchor.
+     */
+    BELT_ANCHOR,
+    /**
+     * The creature has no free anchor of the requested type.
+     */
+    NO_FREE_ANCHOR,
+    /**
+     * The item does not fit in the remaining capacity of the creature or of a backpack.
+     */
+    CARRY_LIMIT;
+
+    /**
+     * Returns whether this outcome means the item was moved.
+     */
+    public boolean isSuccess(){
+        return this == SUCCESS;
+    }
+}
@@ -0,0 +1,202 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A class of immutable snapshots of the inventory of a creature.
+ *
+ * A creature publishes a new snapshot, with a higher version, after every change to its inventory. Readers such as
+ * leaderboards get the latest snapshot without taking any lock and can read it for as long as they like, while the
+ * creature keeps changing. The aggregates of a snapshot are computed once, when it is published, and describe the
+ * inventory at that moment. The content of the backpacks the creature carries is copied as well, so walking it never
+ * reads a backpack another thread is changing. The items themselves are not copied, so their own properties may be
+ * more recent than the snapshot.
+ *
+ * @invar The total weight carried is not negative.
+ *        | getTotalWeight() >= 0
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@Immutable
+public final class InventorySnapshot {
+
+    /**
+     * Initialize a new snapshot with the given version, items and aggregates.
+     *
+     * @param version
+     *        The version of the snapshot.
+     * @param items
+     *        The items held by each anchor, null for an empty anchor. The array is owned by the snapshot.
+     * @param contents
+     *        The items stored directly in each backpack the creature carries. The map and its lists are owned by the
+     *        snapshot.
+     * @param capacity
+     *        The remaining capacity of the creature.
+     * @param totalWeight
+     *        The total weight the creature carries.
+     * @param totalValue
+     *        The total value of the items the creature carries.
+     * @param totalDamage
+     *        The total damage of the creature.
+     * @param totalProtection
+     *        The total protection of the creature.
+     */
+    @Model
+    protected InventorySnapshot(long version, Equipable[] items, IdentityHashMap<Backpack, List<Equipable>> contents,
+                                int capacity, int totalWeight, int totalValue, int totalDamage, int totalProtection){
+        this.version = version;
+        this.items = items;
+        this.contents = contents;
+        this.capacity = capacity;
+        this.totalWeight = totalWeight;
+        this.totalValue = totalValue;
+        this.totalDamage = totalDamage;
+        this.totalProtection = totalProtection;
+    }
+
+    /**
+     * The version of this snapshot.
+     */
+    private final long version;
+
+    /**
+     * The items held by each anchor when this snapshot was taken.
+     */
+    private final Equipable[] items;
+
+    /**
+     * The items stored directly in each backpack the creature carried when this snapshot was taken.
+     */
+    private final IdentityHashMap<Backpack, List<Equipable>> contents;
+
+    /**
+     * The remaining capacity of the creature when this snapshot was taken.
+     */
+    private final int capacity;
+
+    /**
+     * The total weight the creature carried when this snapshot was taken.
+     */
+    private final int totalWeight;
+
+    /**
+     * The total value of the items the creature carried when this snapshot was taken.
+     */
+    private final int totalValue;
+
+    /**
+     * The total damage of the creature when this snapshot was taken.
+     */
+    private final int totalDamage;
+
+    /**
+     * The total protection of the creature when this snapshot was taken.
+     */
+    private final int totalProtection;
+
+    /**
+     * Returns the version of this snapshot. Later snapshots of the same creature have higher versions.
+     */
+    @Basic @Immutable
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of anchors of the creature.
+     */
+    @Basic @Immutable
+    public int getNbOfAnchors() {
+        return items.length;
+    }
+
+    /**
+     * Returns the item held by the anchor with the given index when this snapshot was taken.
+     *
+     * @param i
+     *        The index of the anchor.
+     * @return The item of the anchor, or null if the anchor was empty.
+     * @throws IllegalArgumentException
+     *         The index is out of range.
+     *         |i < 0 || i >= getNbOfAnchors()
+     */
+    @Immutable
+    public Equipable getAnchorItemAt(int i) throws IllegalArgumentException{
+        if(i < 0 || i >= items.length)
+            throw new IllegalArgumentException();
+        return items[i];
+    }
+
+    /**
+     * Returns the items stored directly in the given backpack when this snapshot was taken.
+     *
+     * @param backpack
+     *        The backpack to look into.
+     * @return A list of the items in the backpack, which cannot be changed.
+     * @throws IllegalArgumentException
+     *         The creature did not carry the given backpack when this snapshot was taken.
+     *         |!carries(backpack)
+     */
+    @Immutable
+    public List<Equipable> getContentOf(Backpack backpack) throws IllegalArgumentException{
+        List<Equipable> content = contents.get(backpack);
+        if(content == null)
+            throw new IllegalArgumentException();
+        return Collections.unmodifiableList(content);
+    }
+
+    /**
+     * Returns whether the creature carried the given backpack when this snapshot was taken.
+     */
+    @Immutable
+    public boolean carries(Backpack backpack) {
+        return contents.containsKey(backpack);
+    }
+
+    /**
+     * Returns the remaining capacity of the creature when this snapshot was taken.
+     */
+    @Basic @Immutable
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the total weight the creature carried when this snapshot was taken.
+     */
+    @Basic @Immutable
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Returns the total value of the items the creature carried when this snapshot was taken.
+     */
+    @Basic @Immutable
+    public int getTotalValueOfItems() {
+        return totalValue;
+    }
+
+    /**
+     * Returns the total damage of the creature when this snapshot was taken.
+     */
+    @Basic @Immutable
+    public int getTotalDamage() {
+        return totalDamage;
+    }
+
+    /**
+     * Returns the total protection of the creature when this snapshot was taken.
+     */
+    @Basic @Immutable
+    public int getTotalProtection() {
+        return totalProtection;
+    }
+}
@@ -0,0 +1,105 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for testing the snapshots of the inventory of creatures.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class InventorySnapshotTest {
+
+    private Hero hero;
+
+    private Backpack backpack;
+
+    private Weapon sword;
+
+    @Before
+    public void setUpHero() throws Exception{
+        hero = new Hero("Dummy", 23, 14.20, new Armor(14, 2, ArmorType.DEFAULT, 40));
+        backpack = new Backpack(20, 5, 400, 20);
+        sword = new Weapon(6, 50);
+    }
+
+    @Test
+    public void testSnapshotMatchesCreature() throws Exception{
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUp(sword, AnchorType.LINKERHAND);
+        InventorySnapshot snapshot = hero.getSnapshot();
+
+        Assert.assertEquals(snapshot.getNbOfAnchors(), hero.getNbOfAnchors());
+        for(int i = 0; i < hero.getNbOfAnchors(); i++)
+            Assert.assertSame(snapshot.getAnchorItemAt(i), hero.getAnchorItemAt(i));
+        Assert.assertEquals(snapshot.getCapacity(), hero.getCapacity());
+        Assert.assertEquals(snapshot.getTotalWeight(), hero.getMaxCapacity() - hero.getCapacity());
+        Assert.assertEquals(snapshot.getTotalValueOfItems(), hero.getTotalValueOfItems());
+        Assert.assertEquals(snapshot.getTotalDamage(), hero.getTotalDamage());
+        Assert.assertEquals(snapshot.getTotalProtection(), hero.getTotalProtection());
+    }
+
+    @Test
+    public void testSnapshotIsReusedUntilInventoryChanges() throws Exception{
+        InventorySnapshot first = hero.getSnapshot();
+        Assert.assertSame(hero.getSnapshot(), first);
+
+        hero.pickUp(sword, AnchorType.RECHTERHAND);
+        InventorySnapshot second = hero.getSnapshot();
+        Assert.assertTrue(second.getVersion() > first.getVersion());
+        Assert.assertNull(first.getAnchorItemAt(1));
+        Assert.assertSame(second.getAnchorItemAt(1), sword);
+        Assert.assertEquals(second.getTotalWeight(), first.getTotalWeight() + 6);
+    }
+
+    @Test
+    public void testStoringPublishesNewVersion() throws Exception{
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUp(sword, AnchorType.LINKERHAND);
+        InventorySnapshot before = hero.getSnapshot();
+        hero.store(sword, backpack);
+        InventorySnapshot after = hero.getSnapshot();
+
+        Assert.assertTrue(after.getVersion() > before.getVersion());
+        Assert.assertSame(before.getAnchorItemAt(0), sword);
+        Assert.assertNull(after.getAnchorItemAt(0));
+        Assert.assertEquals(after.getTotalWeight(), before.getTotalWeight());
+        Assert.assertEquals(after.getTotalValueOfItems(), hero.getTotalValueOfItems());
+    }
+
+    @Test
+    public void testSnapshotCopiesBackpackContent() throws Exception{
+        Backpack inner = new Backpack(21, 2, 100, 20);
+        Weapon axe = new Weapon(7);
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUpAndStore(inner, backpack);
+        hero.pickUpAndStore(sword, backpack);
+        hero.pickUpAndStore(axe, inner);
+        InventorySnapshot before = hero.getSnapshot();
+
+        hero.equip(inner, AnchorType.LINKERHAND);
+        hero.drop(sword);
+        Assert.assertEquals(before.getContentOf(backpack).size(), 2);
+        Assert.assertTrue(before.getContentOf(backpack).contains(inner));
+        Assert.assertTrue(before.getContentOf(backpack).contains(sword));
+        Assert.assertEquals(before.getContentOf(inner).size(), 1);
+        Assert.assertSame(before.getContentOf(inner).get(0), axe);
+
+        InventorySnapshot after = hero.getSnapshot();
+        Assert.assertTrue(after.getContentOf(backpack).isEmpty());
+        Assert.assertTrue(after.carries(inner));
+        Assert.assertFalse(before.carries(new Backpack(22, 1, 10, 10)));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testContentOfUncarriedBackpack(){
+        hero.getSnapshot().getContentOf(backpack);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testAnchorOutOfRange(){
+        hero.getSnapshot().getAnchorItemAt(hero.getNbOfAnchors());
+    }
+}
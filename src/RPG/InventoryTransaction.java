@@ -0,0 +1,819 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A class of transactions moving several items in and out of the inventory of a creature at once.
+ *
+ * The moves of a transaction are only recorded until the transaction is committed. Committing first plays all moves
+ * against a single snapshot of the remaining capacity of the creature, of its free anchors and of the weight of its
+ * backpacks, checking every move with the rules of the single move on the state left by the moves before it. Only if
+ * all moves are valid, they are applied, each to the anchor chosen while checking, so the free anchors are not searched
+ * again and no anchor is temporarily emptied. If a move is not valid, nothing is applied.
+ *
+ * @invar The owner of a transaction is effective.
+ *        | getOwner() != null
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class InventoryTransaction {
+
+    /**
+     * Initialize a new, empty transaction on the inventory of the given creature.
+     *
+     * @param owner
+     *        The creature whose inventory the transaction changes.
+     * @post  The owner of the transaction is the given creature.
+     *        |new.getOwner() == owner
+     * @throws IllegalArgumentException
+     *         The owner is not effective.
+     *         |owner == null
+     */
+    @Model
+    protected InventoryTransaction(Creature owner) throws IllegalArgumentException{
+        if(owner == null)
+            throw new IllegalArgumentException();
+        this.owner = owner;
+    }
+
+    /**
+     * The creature whose inventory this transaction changes.
+     */
+    private final Creature owner;
+
+    /**
+     * Returns the creature whose inventory this transaction changes.
+     */
+    @Basic @Immutable
+    public Creature getOwner() {
+        return owner;
+    }
+
+    /*****
+     * Moves
+     */
+
+    /**
+     * The kinds of moves of a transaction.
+     */
+    private enum Kind {
+        PICK_UP, PICK_UP_AND_STORE, STORE, EQUIP, DROP
+    }
+
+    /**
+     * A class of moves recorded in a transaction.
+     */
+    private static final class Move {
+
+        private Move(Kind kind, Equipable item, AnchorType anchortype, Backpack backpack){
+            this.kind = kind;
+            this.item = item;
+            this.anchortype = anchortype;
+            this.backpack = backpack;
+        }
+
+        private final Kind kind;
+
+        private final Equipable item;
+
+        private final AnchorType anchortype;
+
+        private final Backpack backpack;
+
+        /**
+         * The anchor chosen for the item while checking the transaction, null if the move does not put the item in an
+         * anchor.
+         */
+        private Anchor anchor;
+    }
+
+    /**
+     * The moves of this transaction, in the order they were recorded.
+     */
+    private final ArrayList<Move> moves = new ArrayList<Move>();
+
+    /**
+     * A variable stating whether this transaction has been applied.
+     */
+    private boolean committed = false;
+
+    /**
+     * Returns the number of moves recorded in this transaction.
+     */
+    @Basic
+    public int getNbOfMoves() {
+        return moves.size();
+    }
+
+    /**
+     * Returns whether this transaction has been applied.
+     */
+    @Basic
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * Records a move of the given item from the ground to the first free anchor with the given type.
+     *
+     * @param item
+     *        The item to pick up.
+     * @param anchortype
+     *        The type of the anchor to equip the item in.
+     * @return This transaction.
+     * @see Creature#pickUp(Equipable, AnchorType)
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     */
+    public InventoryTransaction pickUp(Equipable item, AnchorType anchortype) throws IllegalStateException{
+        return record(new Move(Kind.PICK_UP, item, anchortype, null));
+    }
+
+    /**
+     * Records a move of the given item from the ground straight into the given backpack.
+     *
+     * @param item
+     *        The item to pick up.
+     * @param backpack
+     *        The backpack to store the item in.
+     * @return This transaction.
+     * @see Creature#pickUpAndStore(Equipable, Backpack)
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     */
+    public InventoryTransaction pickUpAndStore(Equipable item, Backpack backpack) throws IllegalStateException{
+        return record(new Move(Kind.PICK_UP_AND_STORE, item, null, backpack));
+    }
+
+    /**
+     * Records a move of the given item from its anchor into the given backpack.
+     *
+     * @param item
+     *        The item to store.
+     * @param backpack
+     *        The backpack to store the item in.
+     * @return This transaction.
+     * @see Creature#store(Equipable, Backpack)
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     */
+    public InventoryTransaction store(Equipable item, Backpack backpack) throws IllegalStateException{
+        return record(new Move(Kind.STORE, item, null, backpack));
+    }
+
+    /**
+     * Records a move of the given item from its backpack to the first free anchor with the given type.
+     *
+     * @param item
+     *        The item to take out of its backpack.
+     * @param anchortype
+     *        The type of the anchor to equip the item in.
+     * @return This transaction.
+     * @see Creature#equip(Equipable, AnchorType)
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     */
+    public InventoryTransaction equip(Equipable item, AnchorType anchortype) throws IllegalStateException{
+        return record(new Move(Kind.EQUIP, item, anchortype, null));
+    }
+
+    /**
+     * Records a move of the given item to the ground.
+     *
+     * @param item
+     *        The item to drop.
+     * @return This transaction.
+     * @see Creature#drop(Equipable)
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     */
+    public InventoryTransaction drop(Equipable item) throws IllegalStateException{
+        return record(new Move(Kind.DROP, item, null, null));
+    }
+
+    /**
+     * Adds the given move to the moves of this transaction.
+     */
+    @Model
+    private InventoryTransaction record(Move move) throws IllegalStateException{
+        if(isCommitted())
+            throw new IllegalStateException();
+        moves.add(move);
+        return this;
+    }
+
+    /*****
+     * Commit
+     */
+
+    /**
+     * Applies all moves of this transaction, or none of them.
+     *
+     * @effect All moves are checked in order against the state left by the moves before them, with the rules of
+     *         pickUp, pickUpAndStore, store, equip and drop of the owner. The limit on the number of armors of the owner
+     *         is checked for the armors picked up by the whole transaction.
+     * @post   If all moves are valid, they are applied in order and this transaction is committed. Otherwise the
+     *         inventory of the owner and of every backpack is left unchanged. The lock of the owner and the stripes of
+     *         the moved items are held from the first check to the last move.
+     * @throws IllegalStateException
+     *         This transaction has already been applied.
+     *         |isCommitted()
+     * @throws IllegalCallerException
+     *         The transaction picks up an item while the owner is dead.
+     *         |!getOwner().isAlive()
+     * @throws IllegalArgumentException
+     *         An item or backpack of a move is not effective, an item to pick up, with or without storing it, is
+     *         destroyed or lies in a backpack, an item to store is not in an anchor of the owner or would end up inside
+     *         itself, an item to equip is not in a backpack, or the owner has no free anchor of the type to pick up an
+     *         item in.
+     * @throws ItemAlreadyobtainedException
+     *         An item to pick up is already held by a creature, or by the owner for pickUpAndStore.
+     * @throws OtherPlayersItemException
+     *         An item to drop or a backpack to store in or to equip from is not held by the owner, or an item to pick
+     *         up and store is held by another creature.
+     * @throws BeltAnchorException
+     *         An item that is not a purse is equipped in the belt anchor.
+     * @throws AnchorslotOccupiedException
+     *         The owner has no free anchor of the type to equip an item in.
+     * @throws CarryLimitReachedException
+     *         A picked up item does not fit in the remaining capacity of the owner, an item does not fit in a backpack
+     *         or a backpack it is nested in, or the owner cannot carry the picked up armors.
+     */
+    public void commit() throws IllegalStateException, IllegalCallerException, IllegalArgumentException,
+            ItemAlreadyobtainedException, OtherPlayersItemException, BeltAnchorException,
+            AnchorslotOccupiedException, CarryLimitReachedException{
+        if(isCommitted())
+            throw new IllegalStateException();
+        BitSet stripes = new BitSet();
+        for(int i = 0; i < moves.size(); i++){
+            if(moves.get(i).item != null)
+                stripes.set(ItemLocks.stripeOf(moves.get(i).item));
+        }
+        getOwner().getLock().lock();
+        ItemLocks.lockAll(stripes);
+        try {
+            takeSnapshot();
+            try {
+                for(int i = 0; i < moves.size(); i++)
+                    check(moves.get(i));
+            } finally {
+                forgetSnapshot();
+            }
+            committed = true;
+            for(int i = 0; i < moves.size(); i++)
+                apply(moves.get(i));
+        } finally {
+            ItemLocks.unlockAll(stripes);
+            getOwner().unlockInventory();
+        }
+    }
+
+    /*****
+     * Snapshot
+     */
+
+    /**
+     * The location of the ground in the snapshot.
+     */
+    private static final Object GROUND = new Object();
+
+    /**
+     * The locations of the items moved by the moves checked so far: their anchor, their backpack or the ground.
+     */
+    private final IdentityHashMap<Equipable, Object> locations = new IdentityHashMap<Equipable, Object>();
+
+    /**
+     * The changes in the weight and in the number of armors of the backpacks changed by the moves checked so far.
+     */
+    private final IdentityHashMap<Backpack, int[]> backpackChanges = new IdentityHashMap<Backpack, int[]>();
+
+    /**
+     * The free anchors of the owner for each type touched by the moves checked so far, by their position among the
+     * anchors of that type.
+     */
+    private final EnumMap<AnchorType, BitSet> freeAnchors = new EnumMap<AnchorType, BitSet>(AnchorType.class);
+
+    /**
+     * The change in the remaining capacity of the owner by the moves checked so far.
+     */
+    private int capacityChange;
+
+    /**
+     * The number of armors the owner carries after the moves checked so far, minus the number it carries now.
+     */
+    private int extraArmors;
+
+    /**
+     * Takes a new snapshot of the owner, in which no move has been played yet.
+     */
+    @Model
+    private void takeSnapshot(){
+        forgetSnapshot();
+        capacityChange = 0;
+        extraArmors = 0;
+    }
+
+    /**
+     * Forgets the items, backpacks and anchors touched by the moves played on the snapshot.
+     */
+    @Model
+    private void forgetSnapshot(){
+        locations.clear();
+        backpackChanges.clear();
+        freeAnchors.clear();
+    }
+
+    /**
+     * Checks the given move on the snapshot with the rules of its kind and, if it is valid, plays it on the snapshot.
+     */
+    @Model
+    private void check(Move move) throws IllegalCallerException, IllegalArgumentException,
+            ItemAlreadyobtainedException, OtherPlayersItemException, BeltAnchorException,
+            AnchorslotOccupiedException, CarryLimitReachedException{
+        Equipable item = move.item;
+        switch(move.kind){
+            case PICK_UP: {
+                throwFor(checkPickUp(item, move.anchortype), move);
+                move.anchor = takeFreeAnchor(move.anchortype);
+                load(item);
+                locations.put(item, move.anchor);
+                break;
+            }
+            case PICK_UP_AND_STORE: {
+                throwFor(checkPickUpAndStore(item, move.backpack), move);
+                load(item);
+                moveToBackpack(item, move.backpack);
+                break;
+            }
+            case STORE: {
+                throwFor(checkStore(item, move.backpack), move);
+                releaseAnchor(anchorOf(item));
+                moveToBackpack(item, move.backpack);
+                break;
+            }
+            case EQUIP: {
+                throwFor(checkEquip(item, move.anchortype), move);
+                move.anchor = takeFreeAnchor(move.anchortype);
+                changeBackpacks(parentOf(item), -totalWeight(item), -nbOfArmors(item));
+                locations.put(item, move.anchor);
+                break;
+            }
+            case DROP: {
+                throwFor(checkDrop(item), move);
+                Anchor anchor = anchorOf(item);
+                Backpack parent = parentOf(item);
+                if(anchor != null)
+                    releaseAnchor(anchor);
+                else if(parent != null)
+                    changeBackpacks(parent, -totalWeight(item), -nbOfArmors(item));
+                capacityChange += totalWeight(item);
+                extraArmors -= nbOfArmors(item);
+                locations.put(item, GROUND);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Throws the exception of the given outcome of checking the given move, as the single move on the owner throws it.
+     * Nothing is thrown for SUCCESS.
+     */
+    @Model
+    private void throwFor(InventoryResult result, Move move) throws IllegalCallerException, IllegalArgumentException,
+            ItemAlreadyobtainedException, OtherPlayersItemException, BeltAnchorException,
+            AnchorslotOccupiedException, CarryLimitReachedException{
+        switch(result){
+            case SUCCESS:
+                return;
+            case CREATURE_DEAD:
+                throw new IllegalCallerException();
+            case ALREADY_OBTAINED:
+                throw new ItemAlreadyobtainedException(move.item);
+            case OTHER_PLAYERS_ITEM:
+                if(move.kind == Kind.EQUIP)
+                    throw new OtherPlayersItemException(parentOf(move.item));
+                if(move.kind == Kind.PICK_UP_AND_STORE && holderOf(move.backpack) != getOwner())
+                    throw new OtherPlayersItemException(move.backpack);
+                throw new OtherPlayersItemException(move.item);
+            case BELT_ANCHOR:
+                throw new BeltAnchorException(move.item);
+            case NO_FREE_ANCHOR: {
+                if(move.kind != Kind.EQUIP)
+                    throw new IllegalArgumentException();
+                List<Anchor> occupied = getOwner().getAnchorsOfType(move.anchortype);
+                if(occupied.isEmpty())
+                    throw new AnchorslotOccupiedException(getOwner().getAnchorAt(getOwner().getNbOfAnchors() - 1));
+                throw new AnchorslotOccupiedException(occupied.get(occupied.size() - 1));
+            }
+            case CARRY_LIMIT:
+                throw new CarryLimitReachedException(move.item);
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Charges the weight and the armors of the given item, picked up from the ground, to the owner on the snapshot.
+     */
+    @Model
+    private void load(Equipable item){
+        capacityChange -= totalWeight(item);
+        extraArmors += nbOfArmors(item);
+    }
+
+    /**
+     * Moves the given item into the given backpack on the snapshot.
+     */
+    @Model
+    private void moveToBackpack(Equipable item, Backpack backpack){
+        changeBackpacks(backpack, totalWeight(item), nbOfArmors(item));
+        locations.put(item, backpack);
+    }
+
+    /**
+     * Adds the given weight and number of armors to the given backpack and the backpacks it is nested in on the snapshot.
+     */
+    @Model
+    private void changeBackpacks(Backpack backpack, int weight, int armors){
+        for(Backpack current = backpack; current != null; current = parentOf(current)){
+            int[] change = backpackChanges.get(current);
+            if(change == null){
+                change = new int[2];
+                backpackChanges.put(current, change);
+            }
+            change[0] += weight;
+            change[1] += armors;
+        }
+    }
+
+    /**
+     * Returns the free anchors of the owner with the given type on the snapshot.
+     */
+    @Model
+    private BitSet getFreeAnchors(AnchorType anchortype){
+        BitSet free = freeAnchors.get(anchortype);
+        if(free == null){
+            free = getOwner().getAnchorIndex().getFreeAnchors(anchortype);
+            freeAnchors.put(anchortype, free);
+        }
+        return free;
+    }
+
+    /**
+     * Returns whether the owner has a free anchor with the given type on the snapshot, without touching the snapshot.
+     */
+    @Model
+    private boolean hasFreeAnchor(AnchorType anchortype){
+        BitSet free = freeAnchors.get(anchortype);
+        if(free == null)
+            return getOwner().getFreeAnchor(anchortype) != null;
+        return !free.isEmpty();
+    }
+
+    /**
+     * Returns the first free anchor of the owner with the given type on the snapshot and marks it as taken, or returns
+     * null if there is none.
+     */
+    @Model
+    private Anchor takeFreeAnchor(AnchorType anchortype){
+        BitSet free = getFreeAnchors(anchortype);
+        int index = free.nextSetBit(0);
+        if(index < 0)
+            return null;
+        free.clear(index);
+        return getOwner().getAnchorsOfType(anchortype).get(index);
+    }
+
+    /**
+     * Marks the given anchor as free on the snapshot.
+     */
+    @Model
+    private void releaseAnchor(Anchor anchor){
+        getFreeAnchors(anchor.getAnchorType()).set(anchor.getTypeIndex());
+    }
+
+    /**
+     * Returns the anchor of the owner holding the given item on the snapshot, or null if there is none.
+     */
+    @Model
+    private Anchor anchorOf(Equipable item){
+        Object location = locations.get(item);
+        if(location == null)
+            return getOwner().getAnchorOf(item);
+        if(location instanceof Anchor)
+            return (Anchor) location;
+        return null;
+    }
+
+    /**
+     * Returns the backpack holding the given item on the snapshot, or null if there is none.
+     */
+    @Model
+    private Backpack parentOf(Equipable item){
+        Object location = locations.get(item);
+        if(location == null)
+            return item.getParentbackpack();
+        if(location instanceof Backpack)
+            return (Backpack) location;
+        return null;
+    }
+
+    /**
+     * Returns the creature holding the given item on the snapshot, or null if the item lies on the ground.
+     */
+    @Model
+    private Creature holderOf(Equipable item){
+        Equipable current = item;
+        while(true){
+            Object location = locations.get(current);
+            if(location == null){
+                Backpack parent = current.getParentbackpack();
+                if(parent == null)
+                    return current.getHolder();
+                current = parent;
+            }
+            else if(location instanceof Backpack)
+                current = (Backpack) location;
+            else if(location instanceof Anchor)
+                return ((Anchor) location).getOwner();
+            else return null;
+        }
+    }
+
+    /**
+     * Returns the remaining capacity of the owner on the snapshot.
+     */
+    @Model
+    private int getCapacity(){
+        return getOwner().getCapacity() + capacityChange;
+    }
+
+    /**
+     * Returns the weight of the given item on the snapshot, including its content if it is a backpack.
+     */
+    @Model
+    private int totalWeight(Equipable item){
+        if(!(item instanceof Backpack))
+            return item.getWeight();
+        int[] change = backpackChanges.get(item);
+        return ((Backpack) item).getTotalWeight() + ((change == null) ? 0 : change[0]);
+    }
+
+    /**
+     * Returns the number of armors the given item is or holds on the snapshot.
+     */
+    @Model
+    private int nbOfArmors(Equipable item){
+        if(item instanceof Armor)
+            return 1;
+        if(!(item instanceof Backpack))
+            return 0;
+        int[] change = backpackChanges.get(item);
+        return ((Backpack) item).getNbOfArmors() + ((change == null) ? 0 : change[1]);
+    }
+
+    /**
+     * Returns whether the given backpack is the given item or is stored in it on the snapshot.
+     */
+    @Model
+    private boolean isWithin(Backpack backpack, Equipable item){
+        for(Backpack current = backpack; current != null; current = parentOf(current)){
+            if(current == item)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given item fits in the given backpack and the backpacks it is nested in on the snapshot.
+     */
+    @Model
+    private boolean hasRoomFor(Backpack backpack, Equipable item){
+        int weight = totalWeight(item);
+        for(Backpack current = backpack; current != null; current = parentOf(current)){
+            if(current.getCapacity() < totalWeight(current) + weight)
+                return false;
+        }
+        return true;
+    }
+
+    /*****
+     * Rules
+     */
+
+    /**
+     * Checks whether the owner can pick up the given item in an anchor with the given anchortype on the snapshot. These
+     * are the rules of Creature#tryPickUp, which checks them on an empty transaction.
+     *
+     * @param item
+     *        the item to check.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @return CREATURE_DEAD if the owner is dead, ILLEGAL_ITEM if the item is not effective, ALREADY_OBTAINED if the
+     *         item has a holder, ILLEGAL_ITEM if it has been destroyed or lies in a backpack on the ground, in that order.
+     *         Otherwise the outcome of checking whether the owner has room to carry the item.
+     *         |result == checkCarry(item, anchortype)
+     */
+    @Model
+    InventoryResult checkPickUp(Equipable item, AnchorType anchortype){
+        if(!getOwner().isAlive())
+            return InventoryResult.CREATURE_DEAD;
+        if(item == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(holderOf(item) != null)
+            return InventoryResult.ALREADY_OBTAINED;
+        if(item.isDestroyed() || parentOf(item) != null)
+            return InventoryResult.ILLEGAL_ITEM;
+        return checkCarry(item, anchortype);
+    }
+
+    /**
+     * Checks whether the owner has room to carry the given item in an anchor with the given anchortype on the snapshot.
+     *
+     * @param item
+     *        the effective item to check.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @return BELT_ANCHOR if a non-purse goes to the belt, NO_FREE_ANCHOR if no anchor with the given type is free, in
+     *         that order. Otherwise the outcome of checking whether the owner can carry the weight of the item.
+     *         |result == checkLoad(item)
+     */
+    @Model
+    InventoryResult checkCarry(Equipable item, AnchorType anchortype){
+        if(anchortype == AnchorType.RIEM && !(item instanceof Purse))
+            return InventoryResult.BELT_ANCHOR;
+        if(!hasFreeAnchor(anchortype))
+            return InventoryResult.NO_FREE_ANCHOR;
+        return checkLoad(item);
+    }
+
+    /**
+     * Checks whether the owner can carry the weight of the given item on the snapshot.
+     *
+     * @return CARRY_LIMIT if the item, with its content, or another armor is too much to carry. SUCCESS otherwise.
+     */
+    @Model
+    private InventoryResult checkLoad(Equipable item){
+        if(totalWeight(item) > getCapacity())
+            return InventoryResult.CARRY_LIMIT;
+        if(item instanceof Armor && !getOwner().canCarryExtraArmors(extraArmors + 1))
+            return InventoryResult.CARRY_LIMIT;
+        return InventoryResult.SUCCESS;
+    }
+
+    /**
+     * Checks whether the owner can pick the given item up from the ground and store it straight in the given backpack
+     * on the snapshot.
+     *
+     * @return CREATURE_DEAD if the owner is dead, ILLEGAL_ITEM or ILLEGAL_BACKPACK if the item or the backpack is not
+     *         effective, ALREADY_OBTAINED if the owner holds the item, OTHER_PLAYERS_ITEM if the backpack is not held by
+     *         the owner or the item is held by another creature, ILLEGAL_ITEM if the item has been destroyed or lies in
+     *         a backpack on the ground, ILLEGAL_BACKPACK if the backpack is the item or stored in it, CARRY_LIMIT if the
+     *         item does not fit in the backpack, in that order. Otherwise the outcome of checking whether the owner can
+     *         carry the weight of the item.
+     *         |result == checkLoad(item)
+     */
+    @Model
+    private InventoryResult checkPickUpAndStore(Equipable item, Backpack backpack){
+        if(!getOwner().isAlive())
+            return InventoryResult.CREATURE_DEAD;
+        if(item == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(backpack == null)
+            return InventoryResult.ILLEGAL_BACKPACK;
+        Creature holder = holderOf(item);
+        if(holder == getOwner())
+            return InventoryResult.ALREADY_OBTAINED;
+        if(holderOf(backpack) != getOwner() || holder != null)
+            return InventoryResult.OTHER_PLAYERS_ITEM;
+        if(item.isDestroyed() || parentOf(item) != null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(isWithin(backpack, item))
+            return InventoryResult.ILLEGAL_BACKPACK;
+        if(!hasRoomFor(backpack, item))
+            return InventoryResult.CARRY_LIMIT;
+        return checkLoad(item);
+    }
+
+    /**
+     * Checks whether the owner can store the given item away in the given backpack on the snapshot. These are the
+     * rules of Creature#tryStore, which checks them on an empty transaction.
+     *
+     * @param item
+     *        The item to check.
+     * @param backpack
+     *        The backpack to store the item away in.
+     * @return ILLEGAL_BACKPACK if the backpack is not effective or not held by the owner, ILLEGAL_ITEM if the item is
+     *         not effective, not held by the owner or not in one of its anchors, ILLEGAL_BACKPACK if the backpack is the
+     *         item or stored in it, CARRY_LIMIT if the item does not fit, in that order. SUCCESS otherwise.
+     */
+    @Model
+    InventoryResult checkStore(Equipable item, Backpack backpack){
+        if(backpack == null || holderOf(backpack) != getOwner())
+            return InventoryResult.ILLEGAL_BACKPACK;
+        if(item == null || holderOf(item) != getOwner() || anchorOf(item) == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(isWithin(backpack, item))
+            return InventoryResult.ILLEGAL_BACKPACK;
+        if(!hasRoomFor(backpack, item))
+            return InventoryResult.CARRY_LIMIT;
+        return InventoryResult.SUCCESS;
+    }
+
+    /**
+     * Checks whether the owner can take the given item out of its backpack and equip it in an anchor with the given
+     * anchortype on the snapshot. These are the rules of Creature#tryEquip, which checks them on an empty transaction.
+     *
+     * @param item
+     *        The item to check.
+     * @param location
+     *        The anchortype of the anchor to move the item to
+     * @return ILLEGAL_ITEM if the item is not effective or not stored in a backpack, OTHER_PLAYERS_ITEM if its backpack
+     *         is not held by the owner, BELT_ANCHOR if a non-purse goes to the belt, NO_FREE_ANCHOR if no anchor with
+     *         the given type is free, in that order. SUCCESS otherwise.
+     */
+    @Model
+    InventoryResult checkEquip(Equipable item, AnchorType location){
+        Backpack parent = (item == null) ? null : parentOf(item);
+        if(parent == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(holderOf(parent) != getOwner())
+            return InventoryResult.OTHER_PLAYERS_ITEM;
+        if(location == AnchorType.RIEM && !(item instanceof Purse))
+            return InventoryResult.BELT_ANCHOR;
+        if(!hasFreeAnchor(location))
+            return InventoryResult.NO_FREE_ANCHOR;
+        return InventoryResult.SUCCESS;
+    }
+
+    /**
+     * Checks whether the owner can drop the given item on the snapshot.
+     *
+     * @return ILLEGAL_ITEM if the item is not effective, OTHER_PLAYERS_ITEM if the owner does not hold it. SUCCESS
+     *         otherwise.
+     */
+    @Model
+    private InventoryResult checkDrop(Equipable item){
+        if(item == null)
+            return InventoryResult.ILLEGAL_ITEM;
+        if(holderOf(item) != getOwner())
+            return InventoryResult.OTHER_PLAYERS_ITEM;
+        return InventoryResult.SUCCESS;
+    }
+
+    /*****
+     * Apply
+     */
+
+    /**
+     * Applies the given move, which has been checked on the snapshot.
+     * The checks on the snapshot cover every case in which adding an item to a backpack or dropping it fails, on the
+     * state the moves before it leave behind, so applying a checked move does not fail and a commit is never left
+     * half applied.
+     */
+    @Model
+    private void apply(Move move){
+        Equipable item = move.item;
+        try {
+            switch(move.kind){
+                case PICK_UP:
+                    item.equip(move.anchor);
+                    break;
+                case PICK_UP_AND_STORE:
+                    move.backpack.addEquipable(item);
+                    getOwner().ChangeCapacity(-totalWeight(item));
+                    break;
+                case STORE: {
+                    Anchor anchor = getOwner().getAnchorOf(item);
+                    move.backpack.addEquipable(item);
+                    anchor.setItem(null);
+                    break;
+                }
+                case EQUIP:
+                    item.getParentbackpack().removeEquipable(item);
+                    move.anchor.setItem(item);
+                    break;
+                case DROP:
+                    getOwner().drop(item);
+                    break;
+            }
+        } catch (BackPackNotEmptyException | CarryLimitReachedException | OtherPlayersItemException
+                 | ItemAlreadyobtainedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for testing transactions on the inventory of creatures.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class InventoryTransactionTest {
+
+    private Hero hero;
+
+    private Backpack backpack;
+
+    private Weapon sword;
+
+    private Weapon axe;
+
+    private Purse purse;
+
+    @Before
+    public void setUpHero() throws Exception{
+        hero = new Hero("Dummy", 23, 14.20, new Armor(14, 2, ArmorType.DEFAULT, 40));
+        backpack = new Backpack(20, 5, 400, 20);
+        hero.pickUp(backpack, AnchorType.RUG);
+        sword = new Weapon(6);
+        axe = new Weapon(7);
+        purse = new Purse(1);
+    }
+
+    @Test
+    public void testCommitAppliesAllMoves() throws Exception{
+        int capacity = hero.getCapacity();
+        InventoryTransaction transaction = hero.beginTransaction()
+                .pickUp(sword, AnchorType.LINKERHAND)
+                .pickUpAndStore(axe, backpack)
+                .pickUp(purse, AnchorType.RIEM)
+                .store(sword, backpack);
+        Assert.assertEquals(transaction.getNbOfMoves(), 4);
+        transaction.commit();
+
+        Assert.assertTrue(transaction.isCommitted());
+        Assert.assertTrue(backpack.contains(sword));
+        Assert.assertTrue(backpack.contains(axe));
+        Assert.assertNull(hero.getAnchorItemAt(0));
+        Assert.assertSame(hero.getAnchorItemAt(4), purse);
+        Assert.assertSame(sword.getHolder(), hero);
+        Assert.assertSame(axe.getHolder(), hero);
+        Assert.assertEquals(backpack.getTotalWeight(), 5 + 6 + 7);
+        Assert.assertEquals(hero.getCapacity(), capacity - 6 - 7 - 1);
+    }
+
+    @Test
+    public void testFailingMoveAppliesNothing() throws Exception{
+        Weapon heavy = new Weapon(hero.getCapacity());
+        InventoryTransaction transaction = hero.beginTransaction()
+                .pickUp(sword, AnchorType.LINKERHAND)
+                .pickUp(heavy, AnchorType.RECHTERHAND);
+        int capacity = hero.getCapacity();
+        try {
+            transaction.commit();
+            Assert.fail();
+        } catch (CarryLimitReachedException e) {
+            Assert.assertSame(e.getItem(), heavy);
+        }
+        Assert.assertFalse(transaction.isCommitted());
+        Assert.assertNull(sword.getHolder());
+        Assert.assertNull(hero.getAnchorItemAt(0));
+        Assert.assertEquals(hero.getCapacity(), capacity);
+    }
+
+    @Test
+    public void testMovesSeeEarlierMoves() throws Exception{
+        hero.pickUp(sword, AnchorType.LINKERHAND);
+        try {
+            hero.beginTransaction().pickUp(axe, AnchorType.LINKERHAND).commit();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertNull(axe.getHolder());
+        }
+        hero.beginTransaction()
+                .drop(sword)
+                .pickUp(axe, AnchorType.LINKERHAND)
+                .commit();
+        Assert.assertSame(hero.getAnchorItemAt(0), axe);
+        Assert.assertNull(sword.getHolder());
+    }
+
+    @Test
+    public void testBackpackCapacityCountsEarlierMoves() throws Exception{
+        Weapon club = new Weapon(10);
+        InventoryTransaction transaction = hero.beginTransaction()
+                .pickUpAndStore(sword, backpack)
+                .pickUpAndStore(club, backpack);
+        try {
+            transaction.commit();
+            Assert.fail();
+        } catch (CarryLimitReachedException e) {
+            Assert.assertSame(e.getItem(), club);
+        }
+        Assert.assertFalse(backpack.contains(sword));
+        Assert.assertEquals(backpack.getTotalWeight(), 5);
+    }
+
+    @Test
+    public void testArmorLimitCountsEarlierMoves() throws Exception{
+        Armor first = new Armor(17, 1, ArmorType.DEFAULT, 10);
+        Armor second = new Armor(19, 1, ArmorType.DEFAULT, 10);
+        InventoryTransaction transaction = hero.beginTransaction()
+                .pickUpAndStore(first, backpack)
+                .pickUpAndStore(second, backpack);
+        try {
+            transaction.commit();
+            Assert.fail();
+        } catch (CarryLimitReachedException e) {
+            Assert.assertSame(e.getItem(), second);
+        }
+        Assert.assertEquals(backpack.getNbOfArmors(), 0);
+    }
+
+    @Test
+    public void testPickUpAndStoreRejectsDestroyedItem() throws Exception{
+        sword.destroy();
+        try {
+            hero.pickUpAndStore(sword, backpack);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertFalse(backpack.contains(sword));
+            Assert.assertNull(sword.getHolder());
+        }
+    }
+
+    @Test
+    public void testPickUpAndStoreRejectsItemInGroundBackpack() throws Exception{
+        Hero other = new Hero("Other", 80, 15, new Armor(23, 2, ArmorType.DEFAULT, 40));
+        Backpack ground = new Backpack(21, 2, 400, 20);
+        other.pickUp(ground, AnchorType.RUG);
+        other.pickUpAndStore(sword, ground);
+        other.drop(ground);
+        int capacity = hero.getCapacity();
+        try {
+            hero.pickUpAndStore(sword, backpack);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertSame(sword.getParentbackpack(), ground);
+            Assert.assertTrue(ground.contains(sword));
+            Assert.assertNull(sword.getHolder());
+            Assert.assertEquals(ground.getTotalWeight(), 2 + 6);
+            Assert.assertFalse(backpack.contains(sword));
+            Assert.assertEquals(hero.getCapacity(), capacity);
+        }
+    }
+
+    @Test
+    public void testSingleMovesFollowTransactionRules() throws Exception{
+        sword.destroy();
+        Assert.assertEquals(hero.tryPickUp(sword, AnchorType.LINKERHAND), InventoryResult.ILLEGAL_ITEM);
+        try {
+            hero.beginTransaction().pickUp(sword, AnchorType.LINKERHAND).commit();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertNull(sword.getHolder());
+        }
+
+        Assert.assertEquals(hero.tryPickUp(axe, AnchorType.RIEM), InventoryResult.BELT_ANCHOR);
+        try {
+            hero.beginTransaction().pickUp(axe, AnchorType.RIEM).commit();
+            Assert.fail();
+        } catch (BeltAnchorException e) {
+            Assert.assertNull(axe.getHolder());
+        }
+
+        Assert.assertEquals(hero.tryStore(axe, backpack), InventoryResult.ILLEGAL_ITEM);
+        try {
+            hero.beginTransaction().store(axe, backpack).commit();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertFalse(backpack.contains(axe));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitTwice() throws Exception{
+        InventoryTransaction transaction = hero.beginTransaction().pickUp(sword, AnchorType.LINKERHAND);
+        transaction.commit();
+        transaction.commit();
+    }
+}
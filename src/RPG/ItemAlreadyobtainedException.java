@@ -6,6 +6,8 @@ import be.kuleuven.cs.som.annotate.Immutable;
 /**
  * A class for signaling illegal attempts to equip or store an item has already been equipped.
  *
+ * The exception does not record a stack trace.
+ *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
@@ -23,6 +25,7 @@ public class ItemAlreadyobtainedException extends Exception{
      *        |this.item == item;
      */
     public ItemAlreadyobtainedException(Equipable item){
+        super(null, null, false, false);
         this.item = item;
     }
 
@@ -0,0 +1,556 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A class of catalogs keeping the items that lie on the ground in a memory-mapped file instead of on the heap.
+ *
+ * Every item takes one record of RECORD_SIZE bytes holding its identification number, its tag from CompactInventory,
+ * weight and value, the damage of a weapon, the armortype, maximum value, armorvalue and time of the last check of an
+ * armor or the capacity of a backpack, and the links to its parent backpack, first item and next sibling in the
+ * catalog. Freed records are chained in a free list, so that the catalog does not scan when items are added, and the
+ * header keeps the number of records in use, so that reopening the file is immediate.
+ * Items in the catalog are read through CatalogItem views, which hold no more than a position in the mapping. An item
+ * only becomes an Equipable again when it is taken out of the catalog.
+ * Adding an item hands it over to the catalog: the item and its content are destroyed, but the identification
+ * numbers of its armors and backpacks stay registered and are held by the catalog, so no new item can take them.
+ * Items taken out adopt the numbers the catalog holds, and an item of which the number is held by a live item is not
+ * taken out. Opening a catalog claims the identification numbers of its armors and backpacks that are free, as after
+ * a restart of the game, and closing it releases the numbers it holds.
+ * An item is taken out as a whole: its records are only freed once the item and all of its content have been rebuilt.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class ItemCatalog implements Closeable {
+
+    /**
+     * The number every catalog file starts with, "RPGC" in ASCII.
+     */
+    public static final int MAGIC = 0x52504743;
+
+    /**
+     * The version of the layout of catalog files.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The number of bytes of the header of a catalog file.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * The number of bytes of a record.
+     */
+    public static final int RECORD_SIZE = 48;
+
+    /**
+     * The index standing for no record.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The offset in the header of the number of records.
+     */
+    private static final int CAPACITY = 8;
+
+    /**
+     * The offset in the header of the number of records that have ever been used.
+     */
+    private static final int HIGH_WATER = 12;
+
+    /**
+     * The offset in the header of the index of the first free record below the high water mark.
+     */
+    private static final int FREE_HEAD = 16;
+
+    /**
+     * The offset in the header of the number of items in the catalog.
+     */
+    private static final int NB_OF_ITEMS = 20;
+
+    /**
+     * The offsets of the fields of a record: the identification number, the tag, the flags holding the armortype of
+     * an armor or whether the value of a weapon follows its damage, the weight, the value, the stat holding the
+     * damage of a weapon, the maximum value of an armor or the capacity of a backpack, the armorvalue and time of the
+     * last check of an armor, and the indexes of the parent backpack, the first item and the next sibling, or of the
+     * next free record.
+     */
+    static final int ID = 0, TAG = 4, FLAGS = 5, WEIGHT = 8, VALUE = 12, STAT = 16, ARMOR = 20, CHECK_MILLIS = 24,
+            PARENT = 32, FIRST_ITEM = 36, NEXT_SIBLING = 40;
+
+    /**
+     * The largest number of records a catalog can have, so that the whole file can be mapped at once.
+     */
+    public static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    /**
+     * Initialize a catalog on the given mapping.
+     */
+    @Model
+    private ItemCatalog(FileChannel channel, MappedByteBuffer mapping){
+        this.channel = channel;
+        this.mapping = mapping;
+    }
+
+    /**
+     * Opens the catalog in the file at the given path, and creates it with room for the given number of records if
+     * the file does not exist or is empty.
+     *
+     * @param path
+     *        The path of the file.
+     * @param capacity
+     *        The number of records of a new catalog.
+     * @return A catalog on the file. An existing catalog keeps its own capacity and its items.
+     * @effect The identification numbers of the armors and backpacks in an existing catalog that are free are claimed
+     *         and held by the catalog.
+     *         |registerIds()
+     * @throws IOException
+     *         The file could not be opened or mapped.
+     * @throws IllegalArgumentException
+     *         The file is not empty and does not hold a catalog of this version, holds an armor or backpack of which
+     *         the identification number is not valid, or the given capacity is not positive or greater than
+     *         MAX_CAPACITY.
+     */
+    public static ItemCatalog open(Path path, int capacity) throws IOException, IllegalArgumentException{
+        if(capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if(!created && channel.size() < HEADER_SIZE)
+                throw new IllegalArgumentException();
+            long size = created ? HEADER_SIZE + (long) RECORD_SIZE * capacity : channel.size();
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if(created){
+                mapping.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) RECORD_SIZE);
+                mapping.putInt(CAPACITY, capacity).putInt(HIGH_WATER, 0).putInt(FREE_HEAD, NONE)
+                        .putInt(NB_OF_ITEMS, 0);
+            }
+            else if(mapping.getInt(0) != MAGIC || mapping.getShort(4) != VERSION
+                    || mapping.getShort(6) != RECORD_SIZE
+                    || size < HEADER_SIZE + (long) RECORD_SIZE * mapping.getInt(CAPACITY))
+                throw new IllegalArgumentException();
+            ItemCatalog catalog = new ItemCatalog(channel, mapping);
+            if(!created)
+                catalog.registerIds();
+            return catalog;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Claims the identification numbers of the armors and backpacks in this catalog that are free, so that no new item
+     * takes them while they lie in the catalog, and holds them. Numbers taken by live items are not held, so the items
+     * with them are not taken out.
+     *
+     * @throws IllegalArgumentException
+     *         The identification number of an armor is not prime, or that of a backpack is not valid.
+     */
+    @Model
+    private void registerIds() throws IllegalArgumentException{
+        PrimeIdAllocator primeIds = Armor.getPrimeIds();
+        IdRegistry backpackIds = Backpack.getIdRegistry();
+        int highWater = mapping.getInt(HIGH_WATER);
+        for(int index = 0; index < highWater; index++){
+            int offset = offsetOf(index);
+            long id = mapping.getInt(offset + ID);
+            byte tag = mapping.get(offset + TAG);
+            if(tag == CompactInventory.ARMOR){
+                if(!PrimeIdAllocator.isPrime(id))
+                    throw new IllegalArgumentException();
+                if(primeIds.claim(id))
+                    heldArmorIds.add(id);
+            }
+            else if(tag == CompactInventory.BACKPACK && backpackIds.register(id))
+                heldBackpackIds.add(id);
+        }
+    }
+
+    /**
+     * The identification numbers of the armors in this catalog that this catalog holds.
+     */
+    private final Set<Long> heldArmorIds = new HashSet<Long>();
+
+    /**
+     * The identification numbers of the backpacks in this catalog that this catalog holds.
+     */
+    private final Set<Long> heldBackpackIds = new HashSet<Long>();
+
+    /**
+     * Returns whether this catalog holds the identification number of the given armor or backpack.
+     *
+     * @param item
+     *        The item to check.
+     * @return True if the item is an armor or backpack of which this catalog holds the identification number.
+     */
+    public synchronized boolean holdsIdOf(Equipable item){
+        if(item instanceof Armor)
+            return heldArmorIds.contains(item.getId());
+        if(item instanceof Backpack)
+            return heldBackpackIds.contains(item.getId());
+        return false;
+    }
+
+    /**
+     * Adds the identification number of the given item to the numbers this catalog holds, if it is an armor or a
+     * backpack.
+     */
+    @Model
+    private void hold(Equipable item){
+        if(item instanceof Armor)
+            heldArmorIds.add(item.getId());
+        else if(item instanceof Backpack)
+            heldBackpackIds.add(item.getId());
+    }
+
+    /**
+     * The channel of the file of this catalog.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapping of the file of this catalog.
+     */
+    private final MappedByteBuffer mapping;
+
+    /**
+     * Returns the mapping of the file of this catalog.
+     */
+    @Basic @Immutable @Model
+    MappedByteBuffer getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Returns the offset of the record with the given index in the mapping.
+     */
+    @Model
+    static int offsetOf(int index){
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the number of records of this catalog.
+     */
+    @Basic @Immutable
+    public int getCapacity() {
+        return mapping.getInt(CAPACITY);
+    }
+
+    /**
+     * Returns the number of items in this catalog, including the items stored in backpacks in this catalog.
+     */
+    @Basic
+    public synchronized int getNbOfItems() {
+        return mapping.getInt(NB_OF_ITEMS);
+    }
+
+    /**
+     * Returns a view on the item in the record with the given index.
+     *
+     * @param index
+     *        The index of the record.
+     * @return A view on the record.
+     * @throws IllegalArgumentException
+     *         The record does not hold an item.
+     *         |!isInUse(index)
+     */
+    public CatalogItem get(int index) throws IllegalArgumentException{
+        if(!isInUse(index))
+            throw new IllegalArgumentException();
+        return new CatalogItem(this, index);
+    }
+
+    /**
+     * Returns whether the record with the given index holds an item.
+     *
+     * @param index
+     *        The index of the record.
+     */
+    public synchronized boolean isInUse(int index){
+        return index >= 0 && index < mapping.getInt(HIGH_WATER)
+                && mapping.get(offsetOf(index) + TAG) != CompactInventory.EMPTY;
+    }
+
+    /**
+     * Performs the given action for every item in this catalog, including the items stored in backpacks, through a
+     * single view that is moved from record to record.
+     *
+     * @param action
+     *        The action to perform. The action must not keep the view, nor add or take items.
+     */
+    public synchronized void forEach(Consumer<? super CatalogItem> action){
+        CatalogItem view = new CatalogItem(this, 0);
+        int highWater = mapping.getInt(HIGH_WATER);
+        for(int index = 0; index < highWater; index++){
+            if(mapping.get(offsetOf(index) + TAG) != CompactInventory.EMPTY){
+                view.moveTo(index);
+                action.accept(view);
+            }
+        }
+    }
+
+    /********
+     * Adding and taking items
+     */
+
+    /**
+     * Adds the given item, which lies on the ground, to this catalog, together with its content if it is a backpack.
+     * The item is handed over to the catalog: it lives on in the catalog and is taken out as a new object.
+     *
+     * @param item
+     *        The item to add.
+     * @return The index of the record of the item.
+     * @post   The item and its content are destroyed, and this catalog holds the identification numbers of its armors
+     *         and backpacks, which stay taken.
+     *         |item.isDestroyed() && holdsIdOf(item)
+     * @throws IllegalArgumentException
+     *         The item is not effective, has been destroyed, is held by a creature or lies in a backpack, or is not a
+     *         weapon, armor, backpack or purse.
+     * @throws IllegalStateException
+     *         There are not enough free records for the item and its content.
+     */
+    public synchronized int add(Equipable item) throws IllegalArgumentException, IllegalStateException{
+        if(item == null || item.isDestroyed() || item.getHolder() != null || item.getParentbackpack() != null)
+            throw new IllegalArgumentException();
+        int[] needed = {1};
+        byte tag = CompactInventory.tagOf(item);
+        if(tag == CompactInventory.OTHER)
+            throw new IllegalArgumentException();
+        if(item instanceof Backpack){
+            ((Backpack) item).forEachItem(content -> {
+                if(CompactInventory.tagOf(content) == CompactInventory.OTHER)
+                    throw new IllegalArgumentException();
+                needed[0]++;
+            });
+        }
+        if(getCapacity() - getNbOfItems() < needed[0])
+            throw new IllegalStateException();
+        int index = write(item, NONE);
+        hold(item);
+        if(item instanceof Backpack)
+            ((Backpack) item).forEachItem(this::hold);
+        item.handOver();
+        return index;
+    }
+
+    /**
+     * Writes the given item in a free record with the given parent, followed by its content if it is a backpack.
+     *
+     * @return The index of the record of the item.
+     */
+    @Model
+    private int write(Equipable item, int parent){
+        int index = allocate();
+        int offset = offsetOf(index);
+        mapping.putInt(offset + ID, (int) item.getId());
+        mapping.put(offset + TAG, CompactInventory.tagOf(item));
+        mapping.put(offset + FLAGS, (byte) 0);
+        mapping.putInt(offset + WEIGHT, item.getWeight());
+        mapping.putInt(offset + VALUE, item.getValue());
+        mapping.putInt(offset + STAT, 0);
+        mapping.putInt(offset + ARMOR, 0);
+        mapping.putLong(offset + CHECK_MILLIS, 0);
+        mapping.putInt(offset + PARENT, parent);
+        mapping.putInt(offset + FIRST_ITEM, NONE);
+        mapping.putInt(offset + NEXT_SIBLING, NONE);
+        if(item instanceof Weapon){
+            mapping.putInt(offset + STAT, ((Weapon) item).getDamage());
+            mapping.put(offset + FLAGS, (byte) (((Weapon) item).isDmgValLink() ? 1 : 0));
+        }
+        else if(item instanceof Armor){
+            Armor armor = (Armor) item;
+            mapping.put(offset + FLAGS, (byte) armor.getArmorType().ordinal());
+            mapping.putInt(offset + STAT, armor.getMaxvalue());
+            mapping.putInt(offset + ARMOR, armor.getCurrentArmor());
+            mapping.putLong(offset + CHECK_MILLIS, armor.getCheckMillis());
+        }
+        else if(item instanceof Backpack){
+            mapping.putInt(offset + STAT, ((Backpack) item).getCapacity());
+            ((Backpack) item).getContent().forEach(content -> {
+                int child = write(content, index);
+                mapping.putInt(offsetOf(child) + NEXT_SIBLING, mapping.getInt(offset + FIRST_ITEM));
+                mapping.putInt(offset + FIRST_ITEM, child);
+            });
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of a free record and counts it as used, taking the first record of the free list if there
+     * is one.
+     */
+    @Model
+    private int allocate(){
+        int index = mapping.getInt(FREE_HEAD);
+        if(index != NONE)
+            mapping.putInt(FREE_HEAD, mapping.getInt(offsetOf(index) + NEXT_SIBLING));
+        else {
+            index = mapping.getInt(HIGH_WATER);
+            mapping.putInt(HIGH_WATER, index + 1);
+        }
+        mapping.putInt(NB_OF_ITEMS, mapping.getInt(NB_OF_ITEMS) + 1);
+        return index;
+    }
+
+    /**
+     * Takes the item in the record with the given index out of this catalog, together with its content if it is a
+     * backpack. The records of the item and its content are only freed once the whole item has been rebuilt, so an
+     * item that cannot be rebuilt stays in the catalog as it was.
+     *
+     * @param index
+     *        The index of the record of an item lying on the ground.
+     * @return A new item lying on the ground, with the identification number, state and content of the item in the
+     *         record. The item takes over the identification numbers this catalog held for it.
+     * @throws IllegalArgumentException
+     *         The record does not hold an item or holds an item stored in a backpack, or the identification number of
+     *         an armor or backpack in it is taken by a live item.
+     */
+    public synchronized Equipable take(int index) throws IllegalArgumentException{
+        if(!isInUse(index) || mapping.getInt(offsetOf(index) + PARENT) != NONE)
+            throw new IllegalArgumentException();
+        ArrayList<Equipable> claimed = new ArrayList<Equipable>();
+        Equipable item;
+        try {
+            item = read(index, claimed);
+        } catch (RuntimeException e) {
+            for(Equipable built : claimed)
+                built.releaseId();
+            throw e;
+        }
+        heldArmorIds.remove(item.getId());
+        heldBackpackIds.remove(item.getId());
+        if(item instanceof Backpack){
+            ((Backpack) item).forEachItem(content -> {
+                if(content instanceof Armor)
+                    heldArmorIds.remove(content.getId());
+                else if(content instanceof Backpack)
+                    heldBackpackIds.remove(content.getId());
+            });
+        }
+        freeAll(index);
+        return item;
+    }
+
+    /**
+     * Rebuilds the item in the record with the given index with its content, without freeing the records. An armor or
+     * backpack adopts its identification number if this catalog holds it and it is still registered, and claims it
+     * again if it is free; the items that claimed their number are added to the given list. An identification number
+     * that is registered without this catalog holding it belongs to a live item, and is rejected.
+     */
+    @Model
+    private Equipable read(int index, ArrayList<Equipable> claimed){
+        int offset = offsetOf(index);
+        long id = mapping.getInt(offset + ID);
+        int weight = mapping.getInt(offset + WEIGHT);
+        int value = mapping.getInt(offset + VALUE);
+        int stat = mapping.getInt(offset + STAT);
+        byte flags = mapping.get(offset + FLAGS);
+        Equipable item;
+        switch(mapping.get(offset + TAG)){
+            case CompactInventory.WEAPON:
+                item = new Weapon(id, weight, stat, value, flags != 0);
+                break;
+            case CompactInventory.ARMOR: {
+                boolean registered = Armor.getPrimeIds().isAllocated(id);
+                if(registered && !heldArmorIds.contains(id))
+                    throw new IllegalArgumentException();
+                item = new Armor(id, weight, ArmorType.values()[flags], stat, mapping.getInt(offset + ARMOR),
+                        mapping.getLong(offset + CHECK_MILLIS), registered);
+                if(!registered)
+                    claimed.add(item);
+                break;
+            }
+            case CompactInventory.BACKPACK: {
+                boolean registered = Backpack.getIdRegistry().contains(id);
+                if(registered && !heldBackpackIds.contains(id))
+                    throw new IllegalArgumentException();
+                Backpack backpack = new Backpack(id, weight, value, stat, registered);
+                if(!registered)
+                    claimed.add(backpack);
+                for(int child = mapping.getInt(offset + FIRST_ITEM); child != NONE;
+                    child = mapping.getInt(offsetOf(child) + NEXT_SIBLING))
+                    backpack.restoreEquipable(read(child, claimed));
+                item = backpack;
+                break;
+            }
+            default:
+                item = new Purse(weight);
+                if(value != item.getValue())
+                    item.setValue(value);
+        }
+        return item;
+    }
+
+    /**
+     * Frees the record with the given index and the records of its content.
+     */
+    @Model
+    private void freeAll(int index){
+        for(int child = mapping.getInt(offsetOf(index) + FIRST_ITEM); child != NONE; ){
+            int next = mapping.getInt(offsetOf(child) + NEXT_SIBLING);
+            freeAll(child);
+            child = next;
+        }
+        free(index);
+    }
+
+    /**
+     * Puts the record with the given index at the front of the free list.
+     */
+    @Model
+    private void free(int index){
+        int offset = offsetOf(index);
+        mapping.put(offset + TAG, CompactInventory.EMPTY);
+        mapping.putInt(offset + NEXT_SIBLING, mapping.getInt(FREE_HEAD));
+        mapping.putInt(FREE_HEAD, index);
+        mapping.putInt(NB_OF_ITEMS, mapping.getInt(NB_OF_ITEMS) - 1);
+    }
+
+    /**
+     * Writes the changes to this catalog to its file.
+     *
+     * @throws IOException
+     *         The changes could not be written.
+     */
+    public synchronized void force() throws IOException{
+        mapping.force();
+    }
+
+    /**
+     * Writes the changes to this catalog to its file, releases the identification numbers it holds and closes the
+     * file. The numbers are claimed again when the file is opened again. The mapping stays valid until it is
+     * collected, but the catalog must no longer be used.
+     *
+     * @throws IOException
+     *         The file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        mapping.force();
+        for(long id : heldArmorIds)
+            Armor.getPrimeIds().release(id);
+        for(long id : heldBackpackIds)
+            Backpack.getIdRegistry().release(id);
+        heldArmorIds.clear();
+        heldBackpackIds.clear();
+        channel.close();
+    }
+}
@@ -0,0 +1,234 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A JUnit test class for testing item catalogs.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class ItemCatalogTest {
+
+    private Path path;
+
+    private ItemCatalog catalog;
+
+    private PrimeIdAllocator primeIds;
+
+    private IdRegistry backpackIds;
+
+    @Before
+    public void openCatalog() throws Exception{
+        primeIds = Armor.getPrimeIds();
+        backpackIds = Backpack.getIdRegistry();
+        path = Files.createTempFile("items", ".cat");
+        Files.delete(path);
+        catalog = ItemCatalog.open(path, 16);
+    }
+
+    @After
+    public void deleteCatalog() throws Exception{
+        Armor.setPrimeIds(primeIds);
+        Backpack.setIdRegistry(backpackIds);
+        catalog.close();
+        Files.delete(path);
+    }
+
+    @Test
+    public void testViewsReadRecords(){
+        Weapon sword = new Weapon(6, 21, 90);
+        Armor armor = new Armor(211, 8, ArmorType.DEFAULT, 60);
+        int swordIndex = catalog.add(sword);
+        int armorIndex = catalog.add(armor);
+
+        CatalogItem view = catalog.get(swordIndex);
+        Assert.assertEquals(view.getTag(), CompactInventory.WEAPON);
+        Assert.assertEquals(view.getId(), sword.getId());
+        Assert.assertEquals(view.getWeight(), 6);
+        Assert.assertEquals(view.getValue(), 90);
+        Assert.assertEquals(view.getDamage(), 21);
+        Assert.assertEquals(view.getParentIndex(), ItemCatalog.NONE);
+        view = catalog.get(armorIndex);
+        Assert.assertEquals(view.getArmorType(), ArmorType.DEFAULT);
+        Assert.assertEquals(view.getActualArmor(), armor.getCurrentArmor());
+        Assert.assertEquals(catalog.getNbOfItems(), 2);
+    }
+
+    @Test
+    public void testItemsSurviveReopening() throws Exception{
+        Backpack backpack = new Backpack(70, 3, 40, 100);
+        Hero hero = new Hero("Packer", 80, 15, new Armor(223, 10, ArmorType.DEFAULT, 100));
+        Weapon axe = new Weapon(5, 14, 30);
+        Backpack pouch = new Backpack(71, 1, 10, 20);
+        Purse purse = new Purse(2);
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUpAndStore(axe, backpack);
+        hero.pickUpAndStore(pouch, backpack);
+        hero.pickUpAndStore(purse, pouch);
+        hero.drop(backpack);
+        int index = catalog.add(backpack);
+        Assert.assertEquals(catalog.getNbOfItems(), 4);
+
+        catalog.close();
+        catalog = ItemCatalog.open(path, 1);
+        Assert.assertEquals(catalog.getCapacity(), 16);
+        Assert.assertEquals(catalog.getNbOfItems(), 4);
+        int[] stored = {0};
+        catalog.forEach(view -> {
+            if(view.getParentIndex() != ItemCatalog.NONE)
+                stored[0]++;
+        });
+        Assert.assertEquals(stored[0], 3);
+
+        Backpack copy = (Backpack) catalog.take(index);
+        Assert.assertEquals(catalog.getNbOfItems(), 0);
+        Assert.assertEquals(copy.getId(), backpack.getId());
+        Assert.assertNull(copy.getHolder());
+        Assert.assertEquals(copy.getNbOfItems(), 2);
+        Assert.assertEquals(copy.getTotalWeight(), backpack.getTotalWeight());
+        Assert.assertEquals(copy.getTotalValue(), backpack.getTotalValue());
+        Assert.assertTrue(Backpack.getIdRegistry().contains(copy.getId()));
+
+        Hero taker = new Hero("Taker", 80, 15, new Armor(227, 10, ArmorType.DEFAULT, 100));
+        taker.pickUp(copy, AnchorType.RUG);
+        Assert.assertEquals(taker.getCapacity(), taker.getMaxCapacity() - 10 - copy.getTotalWeight());
+    }
+
+    @Test
+    public void testItemsSurviveRestart() throws Exception{
+        Armor armor = new Armor(233, 8, ArmorType.TICK, 70);
+        Backpack backpack = new Backpack(72, 2, 30, 100);
+        Hero hero = new Hero("Packer", 80, 15, new Armor(239, 10, ArmorType.DEFAULT, 100));
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUpAndStore(new Weapon(3, 14, 25), backpack);
+        hero.drop(backpack);
+        int armorIndex = catalog.add(armor);
+        int backpackIndex = catalog.add(backpack);
+        catalog.close();
+
+        Armor.setPrimeIds(new PrimeIdAllocator());
+        Backpack.setIdRegistry(new LongIdRegistry());
+        catalog = ItemCatalog.open(path, 16);
+        Assert.assertTrue(Armor.getPrimeIds().isAllocated(armor.getId()));
+        Assert.assertTrue(Backpack.getIdRegistry().contains(backpack.getId()));
+        Assert.assertNotEquals(new Armor(armor.getId(), 1, ArmorType.DEFAULT, 10).getId(), armor.getId());
+
+        Armor armorCopy = (Armor) catalog.take(armorIndex);
+        Backpack backpackCopy = (Backpack) catalog.take(backpackIndex);
+        Assert.assertEquals(armorCopy.getId(), armor.getId());
+        Assert.assertEquals(armorCopy.getCurrentArmor(), armor.getCurrentArmor());
+        Assert.assertEquals(backpackCopy.getId(), backpack.getId());
+        Assert.assertEquals(backpackCopy.getTotalValue(), backpack.getTotalValue());
+        Assert.assertEquals(catalog.getNbOfItems(), 0);
+    }
+
+    @Test
+    public void testFailedTakeKeepsRecords() throws Exception{
+        Backpack backpack = new Backpack(73, 2, 30, 100);
+        Hero hero = new Hero("Packer", 80, 15, new Armor(241, 10, ArmorType.DEFAULT, 100));
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUpAndStore(new Purse(1), backpack);
+        hero.pickUpAndStore(new Weapon(3, 14, 25), backpack);
+        hero.drop(backpack);
+        int index = catalog.add(backpack);
+        int[] weapon = {ItemCatalog.NONE};
+        catalog.forEach(view -> {
+            if(view.getTag() == CompactInventory.WEAPON)
+                weapon[0] = view.getIndex();
+        });
+        int offset = ItemCatalog.offsetOf(weapon[0]) + ItemCatalog.ID;
+        int id = catalog.getMapping().getInt(offset);
+        catalog.getMapping().putInt(offset, 7);
+        try {
+            catalog.take(index);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(catalog.getNbOfItems(), 3);
+            Assert.assertTrue(catalog.isInUse(weapon[0]));
+        }
+        catalog.getMapping().putInt(offset, id);
+        Backpack copy = (Backpack) catalog.take(index);
+        Assert.assertEquals(copy.getNbOfItems(), 2);
+        Assert.assertEquals(catalog.getNbOfItems(), 0);
+    }
+
+    @Test
+    public void testAddedItemIsHandedOver() throws Exception{
+        Backpack backpack = new Backpack(74, 2, 30, 100);
+        Armor armor = new Armor(251, 4, ArmorType.DEFAULT, 40);
+        Hero hero = new Hero("Packer", 80, 15, new Armor(257, 10, ArmorType.DEFAULT, 100));
+        hero.pickUp(backpack, AnchorType.RUG);
+        hero.pickUpAndStore(armor, backpack);
+        hero.drop(backpack);
+        int index = catalog.add(backpack);
+
+        Assert.assertTrue(backpack.isDestroyed());
+        Assert.assertTrue(armor.isDestroyed());
+        Assert.assertTrue(catalog.holdsIdOf(backpack));
+        Assert.assertTrue(catalog.holdsIdOf(armor));
+        try {
+            hero.pickUp(backpack, AnchorType.RUG);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertNull(backpack.getHolder());
+        }
+        backpack.destroy();
+        Assert.assertTrue(Backpack.getIdRegistry().contains(backpack.getId()));
+        Assert.assertTrue(Armor.getPrimeIds().isAllocated(armor.getId()));
+
+        Backpack copy = (Backpack) catalog.take(index);
+        Assert.assertFalse(catalog.holdsIdOf(copy));
+        Assert.assertTrue(Backpack.getIdRegistry().contains(copy.getId()));
+        hero.pickUp(copy, AnchorType.RUG);
+        Assert.assertSame(copy.getHolder(), hero);
+    }
+
+    @Test
+    public void testIdOfLiveItemIsRejected() throws Exception{
+        Backpack backpack = new Backpack(75, 2, 30, 100);
+        int index = catalog.add(backpack);
+        catalog.close();
+
+        Armor.setPrimeIds(new PrimeIdAllocator());
+        Backpack.setIdRegistry(new LongIdRegistry());
+        Backpack live = new Backpack(backpack.getId(), 1, 10, 50);
+        catalog = ItemCatalog.open(path, 16);
+        Assert.assertFalse(catalog.holdsIdOf(live));
+        try {
+            catalog.take(index);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(catalog.isInUse(index));
+        }
+        catalog.close();
+        Assert.assertTrue(Backpack.getIdRegistry().contains(live.getId()));
+        catalog = ItemCatalog.open(path, 16);
+    }
+
+    @Test
+    public void testFreedRecordsAreReused(){
+        int first = catalog.add(new Weapon(1, 7, 10));
+        catalog.take(first);
+        Assert.assertFalse(catalog.isInUse(first));
+        Assert.assertEquals(catalog.add(new Purse(1)), first);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testHeldItemIsRejected(){
+        Hero hero = new Hero("Holder", 80, 15, new Armor(229, 10, ArmorType.DEFAULT, 100));
+        catalog.add(hero.getAnchorItemAt(3));
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testFullCatalogIsRejected(){
+        for(int i = 0; i <= catalog.getCapacity(); i++)
+            catalog.add(new Purse(1));
+    }
+}
@@ -0,0 +1,91 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A class of striped locks guarding the items that lie on the ground.
+ *
+ * An item held by a creature is guarded by the lock of that creature, but an item on the ground belongs to nobody, so
+ * two creatures could pick it up at the same time. Claiming an item from the ground, and putting it there, therefore
+ * happens under the stripe of the item, chosen by its identification number. Items share a stripe when their numbers
+ * collide, which only costs some contention.
+ * Stripes are always taken after the locks of the creatures involved, and several stripes are taken in ascending
+ * order, so that no two threads can wait for each other.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public final class ItemLocks {
+
+    /**
+     * The number of stripes, a power of two.
+     */
+    public static final int NB_OF_STRIPES = 64;
+
+    /**
+     * The stripes.
+     */
+    private static final ReentrantLock[] stripes = new ReentrantLock[NB_OF_STRIPES];
+
+    static {
+        for(int i = 0; i < NB_OF_STRIPES; i++)
+            stripes[i] = new ReentrantLock();
+    }
+
+    /**
+     * Item locks are not instantiated.
+     */
+    @Model
+    private ItemLocks(){
+    }
+
+    /**
+     * Returns the index of the stripe guarding the given item.
+     *
+     * @param item
+     *        The item.
+     * @return An index between 0 and NB_OF_STRIPES - 1 derived from the identification number of the item.
+     */
+    public static int stripeOf(Equipable item){
+        long id = item.getId();
+        int hash = (int) (id ^ (id >>> 32));
+        return (hash ^ (hash >>> 16)) & (NB_OF_STRIPES - 1);
+    }
+
+    /**
+     * Returns the lock of the stripe guarding the given item.
+     *
+     * @param item
+     *        The item.
+     * @return The lock of the stripe of the item.
+     *         |result == stripes[stripeOf(item)]
+     */
+    public static ReentrantLock of(Equipable item){
+        return stripes[stripeOf(item)];
+    }
+
+    /**
+     * Takes the locks of the given stripes in ascending order.
+     *
+     * @param indexes
+     *        The set of indexes of the stripes to take.
+     */
+    public static void lockAll(BitSet indexes){
+        for(int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1))
+            stripes[i].lock();
+    }
+
+    /**
+     * Releases the locks of the given stripes, taken by lockAll.
+     *
+     * @param indexes
+     *        The set of indexes of the stripes to release.
+     */
+    public static void unlockAll(BitSet indexes){
+        for(int i = indexes.length() - 1; i >= 0; i = indexes.previousSetBit(i - 1))
+            stripes[i].unlock();
+    }
+}
@@ -0,0 +1,266 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.Arrays;
+
+/**
+ * A class of identification number registries that store the registered numbers as primitive longs.
+ *
+ * The registry is split into segments that each hold an open-addressing hash table of longs with linear probing.
+ * Each segment has its own lock, so threads registering different identification numbers rarely wait for each other.
+ * A registered number costs 8 bytes per slot of the table, instead of the hash map node and the boxed Long that a
+ * HashSet of Longs needs. Tables grow when they fill up and shrink again when most of their numbers are released,
+ * so a registry of which the numbers are released keeps a bounded size.
+ *
+ * @invar Each registered identification number is not negative.
+ *        | for each id in registry: id >= 0
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class LongIdRegistry implements IdRegistry {
+
+    /**
+     * Initialize a new, empty registry.
+     */
+    public LongIdRegistry(){
+        for(int i = 0; i < NB_OF_SEGMENTS; i++)
+            segments[i] = new Segment();
+    }
+
+    /**
+     * The value marking an empty slot in the tables.
+     */
+    private static final long EMPTY = -1;
+
+    /**
+     * The number of segments, a power of two.
+     */
+    private static final int NB_OF_SEGMENTS = 16;
+
+    /**
+     * The smallest amount of slots in the table of a segment, a power of two.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * The segments of this registry.
+     */
+    private final Segment[] segments = new Segment[NB_OF_SEGMENTS];
+
+    /**
+     * A class of segments, each holding an open-addressing table of registered identification numbers.
+     */
+    private static final class Segment {
+
+        /**
+         * The slots of the table. Empty slots contain EMPTY.
+         */
+        private long[] slots = newTable(MIN_CAPACITY);
+
+        /**
+         * The number of registered identification numbers in this segment.
+         */
+        private int size = 0;
+    }
+
+    /**
+     * Returns a new table with the given amount of empty slots.
+     */
+    @Model
+    private static long[] newTable(int capacity){
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    /**
+     * Returns a well mixed hash of the given identification number.
+     */
+    @Model
+    private static long mix(long id){
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Returns the segment for the given identification number.
+     */
+    @Model
+    private Segment segmentFor(long id){
+        return segments[(int) (mix(id) >>> 60) & (NB_OF_SEGMENTS - 1)];
+    }
+
+    /**
+     * Returns the index of the slot where the search for the given identification number starts, in a table with the
+     * given mask.
+     */
+    @Model
+    private static int home(long id, int mask){
+        return (int) mix(id) & mask;
+    }
+
+    /**
+     * Returns the index of the slot holding the given identification number in the given table, or -1 if the table
+     * does not contain it.
+     */
+    @Model
+    private static int indexOf(long[] slots, long id){
+        int mask = slots.length - 1;
+        for(int i = home(id, mask); slots[i] != EMPTY; i = (i + 1) & mask){
+            if(slots[i] == id)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the given identification number is registered.
+     *
+     * @param id
+     *        the identification number to be checked.
+     * @return True if the given identification number has been registered and not released since.
+     */
+    @Override
+    public boolean contains(long id){
+        if(id < 0)
+            return false;
+        Segment segment = segmentFor(id);
+        synchronized (segment){
+            return indexOf(segment.slots, id) != -1;
+        }
+    }
+
+    /**
+     * Registers the given identification number.
+     *
+     * @param id
+     *        the identification number to register.
+     * @post  The given identification number is registered.
+     *        |new.contains(id)
+     * @effect If the table of the segment becomes more than half full, it is doubled in size.
+     * @return False if the given identification number was already registered, true otherwise.
+     *         |result == !contains(id)
+     * @throws IllegalArgumentException
+     *         The given identification number is negative.
+     *         |id < 0
+     */
+    @Override
+    public boolean register(long id) throws IllegalArgumentException{
+        if(id < 0)
+            throw new IllegalArgumentException();
+        Segment segment = segmentFor(id);
+        synchronized (segment){
+            long[] slots = segment.slots;
+            int mask = slots.length - 1;
+            int i = home(id, mask);
+            while(slots[i] != EMPTY){
+                if(slots[i] == id)
+                    return false;
+                i = (i + 1) & mask;
+            }
+            slots[i] = id;
+            segment.size++;
+            if(segment.size * 2 > slots.length)
+                resize(segment, slots.length * 2);
+            return true;
+        }
+    }
+
+    /**
+     * Releases the given identification number, so that it can be registered again.
+     *
+     * @param id
+     *        the identification number to release.
+     * @post  The given identification number is no longer registered.
+     *        |!new.contains(id)
+     * @effect If the table of the segment becomes less than one eighth full, it is halved in size.
+     * @return True if the given identification number was registered, false otherwise.
+     *         |result == contains(id)
+     */
+    @Override
+    public boolean release(long id){
+        if(id < 0)
+            return false;
+        Segment segment = segmentFor(id);
+        synchronized (segment){
+            long[] slots = segment.slots;
+            int i = indexOf(slots, id);
+            if(i == -1)
+                return false;
+
+            // Shift the following numbers of the cluster back, so that no search stops early at the freed slot.
+            int mask = slots.length - 1;
+            int j = i;
+            while(true){
+                j = (j + 1) & mask;
+                if(slots[j] == EMPTY)
+                    break;
+                int k = home(slots[j], mask);
+                boolean staysInPlace = (i <= j) ? (i < k && k <= j) : (i < k || k <= j);
+                if(!staysInPlace){
+                    slots[i] = slots[j];
+                    i = j;
+                }
+            }
+            slots[i] = EMPTY;
+            segment.size--;
+            if(slots.length > MIN_CAPACITY && segment.size * 8 < slots.length)
+                resize(segment, slots.length / 2);
+            return true;
+        }
+    }
+
+    /**
+     * Moves the identification numbers of the given segment to a new table with the given capacity.
+     *
+     * @param segment
+     *        the segment to resize, of which the lock is held by the current thread.
+     * @param capacity
+     *        the new amount of slots, a power of two greater than twice the size of the segment.
+     */
+    @Model
+    private static void resize(Segment segment, int capacity){
+        long[] table = newTable(capacity);
+        int mask = capacity - 1;
+        for(long id : segment.slots){
+            if(id != EMPTY){
+                int i = home(id, mask);
+                while(table[i] != EMPTY)
+                    i = (i + 1) & mask;
+                table[i] = id;
+            }
+        }
+        segment.slots = table;
+    }
+
+    /**
+     * Returns the number of registered identification numbers.
+     */
+    @Override
+    public long size(){
+        long total = 0;
+        for(Segment segment : segments){
+            synchronized (segment){
+                total += segment.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap memory used by this registry: the registry and its array of
+     * segments, and for each segment the segment itself and its table of 8 byte slots.
+     */
+    @Override
+    public long getFootprint(){
+        long total = 16 + 16 + 4L * NB_OF_SEGMENTS;
+        for(Segment segment : segments){
+            synchronized (segment){
+                total += 24 + 16 + 8L * segment.slots.length;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,240 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A class of maps from identification numbers to the equipable items with that identification number.
+ *
+ * The map uses open addressing with linear probing over a primitive array of keys, so looking up an identification
+ * number does not box it. An identification number held by a single item stores that item inline in its slot. Only
+ * when a second item with the same identification number is added, the slot switches to a list of items, and it
+ * switches back as soon as one item is left. Removed keys are not marked with tombstones, but the keys after them
+ * are shifted back, so lookups never have to walk over removed slots.
+ *
+ * @invar The number of items is at least the number of keys.
+ *        | getNbOfItems() >= getNbOfKeys()
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class LongItemMap {
+
+    /**
+     * The number of slots of a new map.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The keys of the slots.
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    /**
+     * The values of the slots: null for a free slot, an equipable item for a key held by a single item or a list of
+     * items for a key held by several items.
+     */
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    /**
+     * The number of keys in this map.
+     */
+    private int nbOfKeys = 0;
+
+    /**
+     * The number of items in this map.
+     */
+    private int nbOfItems = 0;
+
+    /**
+     * Returns the number of distinct keys in this map.
+     */
+    @Basic
+    public int getNbOfKeys() {
+        return nbOfKeys;
+    }
+
+    /**
+     * Returns the number of items in this map.
+     */
+    @Basic
+    public int getNbOfItems() {
+        return nbOfItems;
+    }
+
+    /**
+     * Returns the slot where the given key starts its search in a table of the given length.
+     */
+    @Model
+    private static int home(long key, int length){
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (length - 1);
+    }
+
+    /**
+     * Returns the slot holding the given key, or the free slot where the search for the key ended.
+     */
+    @Model
+    private int slotOf(long key){
+        int mask = keys.length - 1;
+        int i = home(key, keys.length);
+        while(values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Checks whether this map holds an item with the given key.
+     *
+     * @param key
+     *        The key to look for.
+     * @return True if and only if an item was added with the given key and not removed since.
+     */
+    public boolean containsKey(long key){
+        return values[slotOf(key)] != null;
+    }
+
+    /**
+     * Adds the given item with the given key.
+     *
+     * @param key
+     *        The key of the item.
+     * @param item
+     *        The item to add.
+     * @post  This map holds the item with the given key.
+     *        | new.containsKey(key) && new.getNbOfItems() == getNbOfItems() + 1
+     * @throws IllegalArgumentException
+     *         The item is not effective.
+     *         | item == null
+     */
+    @SuppressWarnings("unchecked")
+    public void add(long key, Equipable item) throws IllegalArgumentException{
+        if(item == null)
+            throw new IllegalArgumentException();
+        if(2 * (nbOfKeys + 1) > keys.length)
+            resize(2 * keys.length);
+        int i = slotOf(key);
+        Object value = values[i];
+        if(value == null){
+            keys[i] = key;
+            values[i] = item;
+            nbOfKeys++;
+        }
+        else if(value instanceof Equipable){
+            ArrayList<Equipable> bucket = new ArrayList<Equipable>(2);
+            bucket.add((Equipable) value);
+            bucket.add(item);
+            values[i] = bucket;
+        }
+        else ((ArrayList<Equipable>) value).add(item);
+        nbOfItems++;
+    }
+
+    /**
+     * Removes the given item with the given key.
+     *
+     * @param key
+     *        The key of the item.
+     * @param item
+     *        The item to remove.
+     * @return True if the item was held by this map with the given key, false otherwise.
+     * @post  The item is no longer held by this map.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(long key, Equipable item){
+        int i = slotOf(key);
+        Object value = values[i];
+        if(value == null)
+            return false;
+        if(value instanceof Equipable){
+            if(value != item)
+                return false;
+            removeSlot(i);
+            nbOfKeys--;
+        }
+        else {
+            ArrayList<Equipable> bucket = (ArrayList<Equipable>) value;
+            int index = indexOfIdentical(bucket, item);
+            if(index < 0)
+                return false;
+            bucket.remove(index);
+            if(bucket.size() == 1)
+                values[i] = bucket.get(0);
+        }
+        nbOfItems--;
+        return true;
+    }
+
+    /**
+     * Returns the position of the given item in the given list, comparing references, or -1 if it is not in the list.
+     */
+    @Model
+    private static int indexOfIdentical(ArrayList<Equipable> bucket, Equipable item){
+        for(int i = 0; i < bucket.size(); i++){
+            if(bucket.get(i) == item)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the given slot and shifts back the keys after it that would no longer be found.
+     */
+    @Model
+    private void removeSlot(int i){
+        int mask = keys.length - 1;
+        int j = i;
+        while(true){
+            j = (j + 1) & mask;
+            if(values[j] == null)
+                break;
+            int home = home(keys[j], keys.length);
+            boolean reachable = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+            if(!reachable){
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = null;
+    }
+
+    /**
+     * Moves all keys to a table with the given number of slots.
+     */
+    @Model
+    private void resize(int length){
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[length];
+        values = new Object[length];
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldValues[i] != null){
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for every item in this map, without allocating anything per item.
+     *
+     * @param action
+     *        The action to perform.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super Equipable> action){
+        for(Object value : values){
+            if(value instanceof Equipable)
+                action.accept((Equipable) value);
+            else if(value != null){
+                ArrayList<Equipable> bucket = (ArrayList<Equipable>) value;
+                for(int i = 0; i < bucket.size(); i++)
+                    action.accept(bucket.get(i));
+            }
+        }
+    }
+}
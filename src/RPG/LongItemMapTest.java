@@ -0,0 +1,80 @@
+package RPG;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * A JUnit test class for testing the maps from identification numbers to items used by backpacks.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class LongItemMapTest {
+
+    private LongItemMap map;
+
+    private ArrayList<Purse> purses;
+
+    @Before
+    public void setUpMap(){
+        map = new LongItemMap();
+        purses = new ArrayList<Purse>();
+        for(int i = 0; i < 200; i++)
+            purses.add(new Purse(1));
+    }
+
+    @After
+    public void destroyPurses(){
+        for(Purse purse : purses)
+            purse.destroy();
+    }
+
+    @Test
+    public void testItemsWithTheSameKey(){
+        map.add(7, purses.get(0));
+        map.add(7, purses.get(1));
+        map.add(7, purses.get(2));
+        Assert.assertEquals(map.getNbOfKeys(), 1);
+        Assert.assertEquals(map.getNbOfItems(), 3);
+        Assert.assertFalse(map.remove(7, purses.get(3)));
+        Assert.assertTrue(map.remove(7, purses.get(1)));
+        Assert.assertTrue(map.remove(7, purses.get(0)));
+        Assert.assertTrue(map.containsKey(7));
+        Assert.assertTrue(map.remove(7, purses.get(2)));
+        Assert.assertFalse(map.containsKey(7));
+        Assert.assertEquals(map.getNbOfItems(), 0);
+    }
+
+    @Test
+    public void testMatchesHashMap(){
+        HashMap<Long, ArrayList<Equipable>> expected = new HashMap<Long, ArrayList<Equipable>>();
+        Random random = new Random(3);
+        for(int step = 0; step < 20000; step++){
+            long key = random.nextInt(64) * 1024L;
+            Purse purse = purses.get(random.nextInt(purses.size()));
+            ArrayList<Equipable> list = expected.get(key);
+            if(list != null && list.contains(purse)){
+                list.remove(purse);
+                if(list.isEmpty())
+                    expected.remove(key);
+                Assert.assertTrue(map.remove(key, purse));
+            }
+            else {
+                expected.computeIfAbsent(key, k -> new ArrayList<Equipable>()).add(purse);
+                map.add(key, purse);
+            }
+            Assert.assertEquals(map.getNbOfKeys(), expected.size());
+        }
+        for(long key = 0; key < 64 * 1024L; key += 1024)
+            Assert.assertEquals(map.containsKey(key), expected.containsKey(key));
+        int[] count = {0};
+        map.forEach(item -> count[0]++);
+        Assert.assertEquals(count[0], map.getNbOfItems());
+    }
+}
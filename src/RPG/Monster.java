@@ -6,7 +6,6 @@ import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 
 import java.util.ArrayList;
-import java.util.Random;
 /**
  * A class of Monsters
  *
@@ -39,25 +38,16 @@ public class Monster extends Creature{
      *        | nboofanchors => items.size()
      * @pre   The strength must be high enough so that the Hero can carry all the items.
      *        | TotalWeight(items) + armor.getWeight() =< CalculateMaxCapacity(Strength)
-     * @effect The Hero is generated as a creature with a given name, maxHitPoints and the given maxCapacity.
-     *         | super(name, maxHitPoints, maxCapacity)
-     * @effect A new armor with the given type is generated and set as the naturalProtection.
-     *         The weight and ID of the new armor is set to 0 and the value to 1.
-     *         | this.naturalProtection == new Armor(0,0, protectionType, 1 )
-     * @effect A new weapon with the given damage value is generated with 0 weight and 1 value.
-     *         | this.damage == new Weapon(0, damage, 1)
-     * @effect The given amount of Anchors is initialized.
-     *         | initialiseAnchors(nbofanchors)
+     * @effect The monster is generated without items, with the shared natural traits of the given type and damage,
+     *         so no armor or weapon is made for the monster itself.
+     *         | this(name, maxHitPoints, maxCapacity, NaturalTraits.of(protectionType, damage), nbofanchors)
      * @effect The items are equipped in a random anchor of the monster.
      *         |for(Equipable item : items)
      *         |   pickUp(item, AnchorType.OTHER)
      */
     @Raw
     public Monster(String name, int maxHitPoints, int maxCapacity, ArmorType protectionType, int damage, int nbofanchors, Equipable... items){
-        super(name, maxHitPoints, maxCapacity);
-        this.naturalProtection = new Armor(0,0, protectionType, 1 );
-        this.damage = new Weapon(0, damage, 1);
-        initialiseAnchors(nbofanchors);
+        this(name, maxHitPoints, maxCapacity, NaturalTraits.of(protectionType, damage), nbofanchors);
         for(Equipable item : items){
             try {
                 pickUp(item, AnchorType.OTHER);
@@ -72,22 +62,133 @@ public class Monster extends Creature{
         }
     }
 
+    /**
+     * Generates a new monster without any items, with the given natural traits.
+     * @param name
+     *        The name of the monster.
+     * @param maxHitPoints
+     *        The maximum amount of hitpoints the monster can have.
+     * @param maxCapacity
+     *        The maximum capacity the monster can have.
+     * @param naturalTraits
+     *        The traits giving the natural protection and the damage of the monster.
+     * @param nbofanchors
+     *        The amount of anchors that the monster gets.
+     * @effect The monster is generated as a creature with a given name, maxHitPoints and the given maxCapacity.
+     *         | super(name, maxHitPoints, maxCapacity)
+     * @post   The given traits are the natural traits of the monster.
+     *         | new.getNaturalTraits() == naturalTraits
+     * @post   The natural protection of the monster wears from now on, with the default clock for armors.
+     *         | new.getWearStartMillis() == Armor.getDefaultClock().millis()
+     * @effect The given amount of Anchors is initialized.
+     *         | initialiseAnchors(nbofanchors)
+     */
+    @Raw @Model
+    protected Monster(String name, int maxHitPoints, int maxCapacity, NaturalTraits naturalTraits, int nbofanchors){
+        super(name, maxHitPoints, maxCapacity);
+        this.naturalTraits = naturalTraits;
+        this.clock = Armor.getDefaultClock();
+        this.wearStartMillis = clock.millis();
+        initialiseAnchors(nbofanchors);
+    }
 
     /**
-     * variable stating how much protection the monster has, how easily he can dodge or deflect attacks.
+     * Generates a new monster like the given prototype, without items.
+     * @param prototype
+     *        The monster to copy.
+     * @effect The monster is generated as a creature like the prototype.
+     *         | super(prototype)
+     * @post   The natural traits of the prototype are the natural traits of the new monster.
+     *         | new.getNaturalTraits() == prototype.getNaturalTraits()
+     * @post   The natural protection of the new monster wears from now on, with the default clock for armors.
+     *         | new.getWearStartMillis() == Armor.getDefaultClock().millis()
+     * @effect As many anchors as the prototype has are initialized.
+     *         | initialiseAnchors(prototype.getNbOfAnchors())
      */
-    protected final Armor naturalProtection;
+    @Raw @Model
+    protected Monster(Monster prototype){
+        super(prototype);
+        this.naturalTraits = prototype.getNaturalTraits();
+        this.clock = Armor.getDefaultClock();
+        this.wearStartMillis = clock.millis();
+        initialiseAnchors(prototype.getNbOfAnchors());
+    }
+
     /**
-     * Variable stating how much damage the monster does.
+     * Returns a new monster like this monster, without items.
+     * @return A new monster made from this monster as its prototype.
+     *         | result == new Monster(this)
      */
-    protected final Weapon damage;
+    @Override @Model
+    protected Monster copy() {
+        return new Monster(this);
+    }
 
     /**
-     * @return the natural protection of the monster.
+     * Variable referencing the traits stating how much protection the monster has, how easily he can dodge or deflect
+     * attacks, and how much damage the monster does.
+     */
+    private final NaturalTraits naturalTraits;
+
+    /**
+     * @return the natural traits of the monster, shared with the other monsters with the same traits.
      */
     @Basic @Immutable
+    public NaturalTraits getNaturalTraits() {
+        return naturalTraits;
+    }
+
+    /**
+     * Variable referencing the clock the natural protection of the monster wears with.
+     */
+    private final GameClock clock;
+
+    /**
+     * Variable referencing the time, in milliseconds of the clock of the monster, from which its natural protection
+     * wears.
+     */
+    private long wearStartMillis;
+
+    /**
+     * Returns the time, in milliseconds of the clock of the monster, from which its natural protection wears.
+     */
+    @Basic
+    public long getWearStartMillis() {
+        return wearStartMillis;
+    }
+
+    /**
+     * Sets the time from which the natural protection of the monster wears, as it was saved.
+     * @param wearStartMillis
+     *        The time from which the natural protection wears.
+     * @post  The natural protection of the monster wears from the given time.
+     *        | new.getWearStartMillis() == wearStartMillis
+     */
+    @Model
+    void restoreWearStartMillis(long wearStartMillis) {
+        this.wearStartMillis = wearStartMillis;
+    }
+
+    /**
+     * Returns the natural protection the monster has left, after wearing since it was generated.
+     * @return the protection of the natural traits after wearing since the wear start of the monster.
+     *         | result == getNaturalTraits().getProtectionAfter(clock.millis() - getWearStartMillis())
+     */
+    public int getNaturalProtectionValue() {
+        return naturalTraits.getProtectionAfter(clock.millis() - wearStartMillis);
+    }
+
+    /**
+     * @return the natural protection of the monster before it wears, as a new hidden armor. This is a factory: every
+     *         call makes a new armor, which is not shared with the monster or with other monsters, so changing it does
+     *         not change the natural traits, and it does not follow the wear of the monster.
+     *         | result == getNaturalTraits().newNaturalProtection()
+     * @deprecated The armor is made again on every call. Use getNaturalProtectionValue() or getNaturalTraits() to read
+     *             the natural protection.
+     */
+    @Deprecated
     public Armor getNaturalProtection() {
-        return naturalProtection;
+        return naturalTraits.newNaturalProtection();
     }
 
     /**
@@ -96,23 +197,24 @@ public class Monster extends Creature{
      *        the given name that gets checked.
      * @return False if the name is not valid for a creature or the name contains a double point.
      *        | if (!super.canHaveAsName(name) || for a character in name: character == ':')
+     *        | result == NameValidator.MONSTER.isValid(name)
      */
     @Raw @Override
     public boolean canHaveAsName(String name){
-        for (int i = 0; i < name.length(); i++) {
-            if (name.charAt(i) == ':') {
-                return false;
-            }
-        }
-        return super.canHaveAsName(name);
+        return NameValidator.MONSTER.isValid(name);
     }
 
     /**
-     * @return the natural damage of the monster
+     * @return the natural damage of the monster, as a new hidden weapon. This is a factory: every call makes a new
+     *         weapon, which is not shared with the monster or with other monsters, so changing it does not change the
+     *         natural traits.
+     *         | result == getNaturalTraits().newNaturalWeapon()
+     * @deprecated The weapon is made again on every call. Use getTotalDamage() or getNaturalTraits().getDamage() to read
+     *             the natural damage.
      */
-    @Basic @Immutable
+    @Deprecated
     public Weapon getDamage() {
-        return damage;
+        return naturalTraits.newNaturalWeapon();
     }
 
     /**
@@ -148,13 +250,118 @@ public class Monster extends Creature{
      */
     @Raw @Model
     private void initialiseAnchors(int nbofanchors){
-        ArrayList<Anchor> list = new ArrayList<Anchor>();
+        ArrayList<Anchor> list = new ArrayList<Anchor>(nbofanchors);
         for(int i=0; i < nbofanchors; i++){
             list.add(new Anchor(AnchorType.OTHER,this));
         }
         setAnchors(list);
     }
 
+    /**
+     * The compact inventory mirroring the items held by the anchors of this monster.
+     * It has no initializer, so that the inventory built when the anchors are set is not replaced by an empty one.
+     */
+    private CompactInventory inventory;
+
+    /**
+     * Returns the compact inventory mirroring the items held by the anchors of this monster.
+     */
+    @Basic @Model
+    protected CompactInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Sets the list of anchors to the given list.
+     * @param anchors
+     *        The new anchors for this monster.
+     * @effect The anchors are set as the anchors of this creature.
+     *         | super.setAnchors(anchors)
+     * @post  The compact inventory is rebuilt for the given anchors.
+     *        | new.getInventory() == new CompactInventory(anchors)
+     */
+    @Model @Raw @Override
+    protected void setAnchors(ArrayList<Anchor> anchors) {
+        super.setAnchors(anchors);
+        this.inventory = new CompactInventory(anchors);
+    }
+
+    /**
+     * Returns the first free anchor of this monster with the given type, found with a scan over the tags of the compact
+     * inventory. All the anchors of a monster have the type OTHER.
+     * @param anchortype
+     *        The type of the anchor.
+     * @return The anchor at the first empty position of the compact inventory if the type is OTHER, null otherwise or
+     *         if there is no empty position.
+     *         | if(anchortype != AnchorType.OTHER || getInventory().findEmptyPosition() < 0)
+     *         |     then result == null
+     *         | else result == getAnchorAt(getInventory().findEmptyPosition())
+     */
+    @Model @Raw @Override
+    protected Anchor getFreeAnchor(AnchorType anchortype) {
+        if(anchortype != AnchorType.OTHER)
+            return null;
+        int i = getInventory().findEmptyPosition();
+        return (i < 0) ? null : getAnchorAt(i);
+    }
+
+    /**
+     * Keeps this monster up to date after the item held by one of its anchors changed.
+     * All the anchors of a monster have the type OTHER, so the position of an anchor among the anchors of its type is
+     * its position among all the anchors of the monster.
+     * @effect The index over the anchors is updated.
+     *         | super.anchorChanged(anchor, oldItem, newItem)
+     * @effect The item is set at the position of the anchor in the compact inventory.
+     *         | getInventory().set(anchor.getTypeIndex(), newItem)
+     */
+    @Model @Raw @Override
+    protected void anchorChanged(Anchor anchor, Equipable oldItem, Equipable newItem) {
+        super.anchorChanged(anchor, oldItem, newItem);
+        if(anchor.getTypeIndex() >= 0)
+            getInventory().set(anchor.getTypeIndex(), newItem);
+    }
+
+    /**
+     * Keeps the compact inventory up to date after the value of the item held by one of the anchors changed.
+     * @effect The inventory is marked as changed.
+     *         | super.itemValueChanged(anchor, delta)
+     * @effect The value at the position of the anchor in the compact inventory is changed with the given difference.
+     *         | getInventory().changeValue(anchor.getTypeIndex(), delta)
+     */
+    @Model @Raw @Override
+    protected void itemValueChanged(Anchor anchor, int delta) {
+        super.itemValueChanged(anchor, delta);
+        if(anchor.getTypeIndex() >= 0)
+            getInventory().changeValue(anchor.getTypeIndex(), delta);
+    }
+
+    /**
+     * Returns the item being stored in the anchor with given index i, read from the compact inventory.
+     * @param i
+     *        The given index for the anchor.
+     * @throws IllegalArgumentException
+     *         the index i is out of range
+     *         |i >= getNbOfAnchors()
+     * @return The item of the anchor at the given index.
+     *         |result == getAnchorAt(i).getItem()
+     */
+    @Raw @Basic @Override
+    public Equipable getAnchorItemAt(int i) throws IllegalArgumentException{
+        if(i >= getNbOfAnchors())
+            throw new IllegalArgumentException();
+        return getInventory().getItem(i);
+    }
+
+    /**
+     * Gives the total value of all the items equipped in the anchors and in the backpacks, scanning the compact inventory.
+     * @return  The total value of all the items equipped in the anchors and in the backpacks equipped in these anchors.
+     *          |result == getInventory().getTotalValue()
+     */
+    @Override
+    public int getTotalValueOfItems(){
+        return getInventory().getTotalValue();
+    }
+
     /**
      * Picks an item up and places it in an anchor.
      * @param item
@@ -174,38 +381,66 @@ public class Monster extends Creature{
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Picks an item up and places it in an anchor, if possible.
+     * @param item
+     *        the item that will be picked up.
+     * @return The outcome of picking the item up in an anchor with the anchortype OTHER. Nothing is thrown.
+     *         |result == tryPickUp(item, AnchorType.OTHER)
+     */
+    public InventoryResult tryPickUp(Equipable item){
+        return tryPickUp(item, AnchorType.OTHER);
+    }
+
+    /**
+     * Picks an item up from the ground and equips it in an empty anchor with the given anchortype, if possible.
+     * @param item
+     *        the item that will be picked up.
+     * @param anchortype
+     *        the type of the anchor where the item has to be equipped to.
+     * @return ILLEGAL_ITEM if the item is a piece of armor, which monsters do not pick up.
+     *         |if(item instanceof Armor) then result == InventoryResult.ILLEGAL_ITEM
+     * @effect Otherwise the item is picked up as by any creature.
+     *         |super.tryPickUp(item, anchortype)
+     */
+    @Override
+    public InventoryResult tryPickUp(Equipable item, AnchorType anchortype){
+        if(item instanceof Armor)
+            return InventoryResult.ILLEGAL_ITEM;
+        return super.tryPickUp(item, anchortype);
+    }
     /**
      * Gives the total damage that the monster does.
-     * @return the damage stat of the hidden weapon.
-     *         | result == getDamage().getDamage()
+     * @return the damage of the natural traits.
+     *         | result == getNaturalTraits().getDamage()
      */
     @Override
     public int getTotalDamage() {
-        return getDamage().getDamage();
+        return naturalTraits.getDamage();
     }
 
     /**
      * Gives the total protection of the monster.
-     * @return the current armor stat of the natural protection armor
-     *         | result == getNaturalProtection().getCurrentArmor
+     * @return the natural protection the monster has left.
+     *         | result == getNaturalProtectionValue()
      */
     @Override
     public int getTotalProtection() {
-        return getNaturalProtection().getCurrentArmor();
+        return getNaturalProtectionValue();
     }
     /**
      * Generates a value to see if the attack will hit.
      * @return A random integer between 0 and 100 however if this integer however is higher than the current
      *         amount of hit points then the amount of hit points is returned.
-     *         |int randomNum = rand.nextInt(101)
+     *         |int randomNum = getRandom().nextInt(101)
      *         |if randomNum > getHitPoints()
      *         |    then result == getHitPoints()
      *         |else result == randomNum
      */
     @Model @Override
     protected int getHitValue(){
-        Random rand = new Random();
-        int randomNum = rand.nextInt(101);
+        int randomNum = getRandom().nextInt(101);
         if(randomNum > getHitPoints()){
             return getHitPoints();
         }
@@ -226,30 +461,34 @@ public class Monster extends Creature{
      *         |         then item.equip(anchor) and item.getParentbackpack().removeEquipable(item)
      *         |         else if item.getShinyValue() > anchor.getItem().getShinyValue() && anchor.getItem().getWeight()-item.getWeight() <= getCapacity()
      *         |              then drop(anchor.getItem()) and item.equip(anchor) and item.getParentbackpack().removeEquipable(item)
+     *         The anchor is found with a scan over the compact inventory. An item that is too heavy for an empty anchor
+     *         is skipped for that anchor.
+     *         | anchor == getAnchorAt(getInventory().findLootPosition(item.getShinyValue(), item.getWeight(), getCapacity()))
      */
     @Override @Model
     protected void LootAndHeal(ArrayList<Equipable> items) {
-        for(Equipable item: items){
-            for(Anchor anchor : getAnchors()){
-                if(anchor.getItem() == null && item.getWeight() <= getCapacity()){
-                        item.equip(anchor);
-                    if(item.getParentbackpack() != null){
-                        item.getParentbackpack().removeEquipable(item);
-                    }
-                    break;
+        for(int j = 0; j < items.size(); j++){
+            Equipable item = items.get(j);
+            int i = getInventory().findLootPosition(item.getShinyValue(), item.getWeight(), getCapacity());
+            if(i < 0)
+                continue;
+            Anchor anchor = getAnchorAt(i);
+            if(anchor.getItem() == null){
+                item.equip(anchor);
+                if(item.getParentbackpack() != null){
+                    item.getParentbackpack().removeEquipable(item);
+                }
+            }
+            else{
+                try {
+                    drop(anchor.getItem());
+                } catch (OtherPlayersItemException e) {
+                    throw new RuntimeException(e);
                 }
-                else if(item.getShinyValue() > anchor.getItem().getShinyValue() && anchor.getItem().getWeight()-item.getWeight() <= getCapacity()){
-                        try {
-                            drop(anchor.getItem());
-                        } catch (OtherPlayersItemException e) {
-                            throw new RuntimeException(e);
-                        }
-                        if(item.getParentbackpack() != null){
-                            item.getParentbackpack().removeEquipable(item);
-                        }
-                        item.equip(anchor);
-                        break;
+                if(item.getParentbackpack() != null){
+                    item.getParentbackpack().removeEquipable(item);
                 }
+                item.equip(anchor);
             }
         }
     }
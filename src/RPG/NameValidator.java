@@ -0,0 +1,194 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class of validators for the names of creatures.
+ *
+ * A validator checks all the rules for a name in a single pass over its characters, without building regular
+ * expressions. Every name consists of letters, apostrophes, colons and spaces only, and starts with a capital letter.
+ * On top of that a validator can limit the number of apostrophes and restrict where colons may appear.
+ * Creatures are often spawned with the same names, so a validator remembers the outcome for up to a fixed number of
+ * distinct names. Validators can be shared by any number of threads.
+ *
+ * @invar The maximum number of apostrophes of a validator is not negative.
+ *        | getMaxApostrophes() >= 0
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class NameValidator {
+
+    /**
+     * The ways in which colons are allowed in a name.
+     */
+    public enum ColonRule {
+        /**
+         * Colons can appear anywhere in the name.
+         */
+        ALLOWED,
+        /**
+         * Every colon is followed by a space.
+         */
+        FOLLOWED_BY_SPACE,
+        /**
+         * The name contains no colons.
+         */
+        FORBIDDEN
+    }
+
+    /**
+     * The default number of distinct names of which a validator remembers the outcome.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /**
+     * The validator for the names of creatures in general.
+     */
+    public static final NameValidator CREATURE = new NameValidator(Integer.MAX_VALUE, ColonRule.ALLOWED,
+            DEFAULT_CACHE_SIZE);
+
+    /**
+     * The validator for the names of heroes: at most two apostrophes and every colon followed by a space.
+     */
+    public static final NameValidator HERO = new NameValidator(2, ColonRule.FOLLOWED_BY_SPACE, DEFAULT_CACHE_SIZE);
+
+    /**
+     * The validator for the names of monsters: no colons.
+     */
+    public static final NameValidator MONSTER = new NameValidator(Integer.MAX_VALUE, ColonRule.FORBIDDEN,
+            DEFAULT_CACHE_SIZE);
+
+    /**
+     * Initialize a new validator with the given rules.
+     *
+     * @param maxApostrophes
+     *        The maximum number of apostrophes in a valid name.
+     * @param colonRule
+     *        The rule for the colons in a valid name.
+     * @param cacheSize
+     *        The number of distinct names of which the validator remembers the outcome, 0 to remember none.
+     * @throws IllegalArgumentException
+     *         The maximum number of apostrophes or the size of the cache is negative, or the colon rule is not effective.
+     *         | maxApostrophes < 0 || colonRule == null || cacheSize < 0
+     */
+    public NameValidator(int maxApostrophes, ColonRule colonRule, int cacheSize) throws IllegalArgumentException{
+        if(maxApostrophes < 0 || colonRule == null || cacheSize < 0)
+            throw new IllegalArgumentException();
+        this.maxApostrophes = maxApostrophes;
+        this.colonRule = colonRule;
+        this.cacheSize = cacheSize;
+        this.cache = (cacheSize == 0) ? null : new ConcurrentHashMap<String, Boolean>();
+    }
+
+    /**
+     * The maximum number of apostrophes in a valid name.
+     */
+    private final int maxApostrophes;
+
+    /**
+     * The rule for the colons in a valid name.
+     */
+    private final ColonRule colonRule;
+
+    /**
+     * The number of distinct names of which this validator remembers the outcome.
+     */
+    private final int cacheSize;
+
+    /**
+     * The outcomes of the names validated so far, null if this validator remembers nothing.
+     */
+    private final ConcurrentHashMap<String, Boolean> cache;
+
+    /**
+     * Returns the maximum number of apostrophes in a valid name.
+     */
+    @Basic @Immutable
+    public int getMaxApostrophes() {
+        return maxApostrophes;
+    }
+
+    /**
+     * Returns the rule for the colons in a valid name.
+     */
+    @Basic @Immutable
+    public ColonRule getColonRule() {
+        return colonRule;
+    }
+
+    /**
+     * Returns the number of distinct names of which this validator remembers the outcome.
+     */
+    @Basic @Immutable
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Checks whether the given name is valid.
+     *
+     * @param name
+     *        The name to check.
+     * @return The outcome of checking the characters of the name. Once the cache is full, the outcomes of new names are
+     *         no longer remembered, but still computed.
+     *         | result == checkCharacters(name)
+     */
+    public boolean isValid(String name){
+        if(name == null)
+            return false;
+        if(cache == null)
+            return checkCharacters(name);
+        Boolean known = cache.get(name);
+        if(known != null)
+            return known;
+        boolean valid = checkCharacters(name);
+        if(cache.size() < getCacheSize())
+            cache.put(name, valid);
+        return valid;
+    }
+
+    /**
+     * Checks the characters of the given name in a single pass.
+     *
+     * @param name
+     *        The name to check.
+     * @return False if the name is empty, does not start with a capital letter, contains a character that is not a
+     *         letter, apostrophe, colon or space, contains more apostrophes than allowed or breaks the colon rule.
+     *         | if name.isEmpty() || !name.matches("^[A-Z][a-zA-Z': ]*") then result == false
+     *         | if apostrophecount > getMaxApostrophes() then result == false
+     *         | if getColonRule() == FORBIDDEN && name.contains(":") then result == false
+     *         | if getColonRule() == FOLLOWED_BY_SPACE && name.matches(".*:(\\S.*)?") then result == false
+     */
+    @Model
+    private boolean checkCharacters(String name){
+        int length = name.length();
+        if(length == 0)
+            return false;
+        char first = name.charAt(0);
+        if(first < 'A' || first > 'Z')
+            return false;
+        int apostrophes = 0;
+        for(int i = 1; i < length; i++){
+            char c = name.charAt(i);
+            if((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == ' ')
+                continue;
+            if(c == '\''){
+                if(++apostrophes > getMaxApostrophes())
+                    return false;
+            }
+            else if(c == ':'){
+                if(getColonRule() == ColonRule.FORBIDDEN)
+                    return false;
+                if(getColonRule() == ColonRule.FOLLOWED_BY_SPACE && (i == length - 1 || name.charAt(i + 1) != ' '))
+                    return false;
+            }
+            else return false;
+        }
+        return true;
+    }
+}
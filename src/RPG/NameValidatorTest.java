@@ -0,0 +1,58 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for testing the validators of names.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class NameValidatorTest {
+
+    @Test
+    public void testCreatureNames(){
+        Assert.assertTrue(NameValidator.CREATURE.isValid("Destroyer o'Hope"));
+        Assert.assertTrue(NameValidator.CREATURE.isValid("A:b'''c"));
+        Assert.assertFalse(NameValidator.CREATURE.isValid("destroyer"));
+        Assert.assertFalse(NameValidator.CREATURE.isValid("Destroyer2"));
+        Assert.assertFalse(NameValidator.CREATURE.isValid("'Destroyer"));
+        Assert.assertFalse(NameValidator.CREATURE.isValid(""));
+        Assert.assertFalse(NameValidator.CREATURE.isValid(null));
+    }
+
+    @Test
+    public void testHeroNames(){
+        Assert.assertTrue(NameValidator.HERO.isValid("Hero: One"));
+        Assert.assertTrue(NameValidator.HERO.isValid("James o'Ha'ra"));
+        Assert.assertFalse(NameValidator.HERO.isValid("James' o'Hara'"));
+        Assert.assertFalse(NameValidator.HERO.isValid("James:Hara"));
+        Assert.assertFalse(NameValidator.HERO.isValid("James:"));
+        Assert.assertFalse(NameValidator.HERO.isValid("James::"));
+    }
+
+    @Test
+    public void testMonsterNames(){
+        Assert.assertTrue(NameValidator.MONSTER.isValid("Destroyer'''''''Hope"));
+        Assert.assertFalse(NameValidator.MONSTER.isValid("Destroyer: Hope"));
+    }
+
+    @Test
+    public void testCacheKeepsOutcomes(){
+        NameValidator validator = new NameValidator(0, NameValidator.ColonRule.FORBIDDEN, 2);
+        Assert.assertEquals(validator.getCacheSize(), 2);
+        for(int i = 0; i < 10; i++){
+            Assert.assertTrue(validator.isValid("Goblin"));
+            Assert.assertFalse(validator.isValid("Gob'lin"));
+            // Names beyond the size of the cache are still validated.
+            Assert.assertFalse(validator.isValid("Go:blin"));
+            Assert.assertTrue(validator.isValid("Orc"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeApostrophes(){
+        new NameValidator(-1, NameValidator.ColonRule.ALLOWED, 0);
+    }
+}
@@ -0,0 +1,158 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Immutable;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class of natural traits of monsters: the armortype of their natural protection and the damage they do.
+ *
+ * There is one set of traits for every armortype and damage, shared by all the monsters spawned with them. The traits
+ * are plain values, so a wave of monsters makes no armor or weapon and claims no prime id or weapon id, and no monster
+ * can change the traits of another one. The natural protection still wears like an armor: each monster keeps the time
+ * from which its protection wears, and asks these traits for the protection left after that time.
+ * Hidden items giving the traits can be made as new items, but changing them does not change the traits.
+ *
+ * @invar The armortype of these traits is effective.
+ *        | getProtectionType() != null
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+@Immutable
+public final class NaturalTraits {
+
+    /**
+     * The clock the natural protections wear with, which stands still.
+     */
+    private static final GameClock STILL = () -> 0;
+
+    /**
+     * A map referencing, for each armortype, the traits made so far by their damage.
+     */
+    private static final EnumMap<ArmorType, ConcurrentHashMap<Integer, NaturalTraits>> traits = new EnumMap<>(ArmorType.class);
+
+    static {
+        for(ArmorType type : ArmorType.values())
+            traits.put(type, new ConcurrentHashMap<Integer, NaturalTraits>());
+    }
+
+    /**
+     * Returns the traits with the given armortype and damage, made the first time they are asked for.
+     *
+     * @param protectionType
+     *        The type of the natural protection.
+     * @param damage
+     *        The damage of the natural weapon.
+     * @return Traits with the given armortype and damage, the same ones every time.
+     *         |result.getProtectionType() == protectionType && result.getDamage() == damage
+     *         |result == of(protectionType, damage)
+     * @throws IllegalArgumentException
+     *         The armortype is not effective.
+     *         |protectionType == null
+     */
+    public static NaturalTraits of(ArmorType protectionType, int damage) throws IllegalArgumentException{
+        if(protectionType == null)
+            throw new IllegalArgumentException();
+        ConcurrentHashMap<Integer, NaturalTraits> byDamage = traits.get(protectionType);
+        NaturalTraits found = byDamage.get(damage);
+        if(found != null)
+            return found;
+        return byDamage.computeIfAbsent(damage, key -> new NaturalTraits(protectionType, damage));
+    }
+
+    /**
+     * Initialize new traits with the given armortype and damage.
+     *
+     * @param protectionType
+     *        The type of the natural protection.
+     * @param damage
+     *        The damage of the natural weapon.
+     * @post  The traits have the given armortype and damage.
+     *        |new.getProtectionType() == protectionType && new.getDamage() == damage
+     */
+    @Model
+    private NaturalTraits(ArmorType protectionType, int damage){
+        this.protectionType = protectionType;
+        this.damage = damage;
+    }
+
+    /**
+     * The type of the natural protection.
+     */
+    private final ArmorType protectionType;
+
+    /**
+     * The damage of the natural weapon.
+     */
+    private final int damage;
+
+    /**
+     * Returns the type of the natural protection.
+     */
+    @Basic @Immutable
+    public ArmorType getProtectionType() {
+        return protectionType;
+    }
+
+    /**
+     * Returns the damage of the natural weapon.
+     */
+    @Basic @Immutable
+    public int getDamage() {
+        return damage;
+    }
+
+    /**
+     * Returns the protection these traits give before they wear.
+     *
+     * @return The maximum protection of the armortype of these traits.
+     *         |result == getProtectionType().getMaxvalue()
+     */
+    @Immutable
+    public int getProtection() {
+        return protectionType.getMaxvalue();
+    }
+
+    /**
+     * Returns the protection these traits give after wearing for the given time, losing one point for every full hour
+     * like an armor.
+     *
+     * @param millis
+     *        The time the protection has been wearing, in milliseconds.
+     * @return The protection of these traits decremented by the number of full hours in the given time, but at least 1.
+     *         |result == Math.max(1, getProtection() - Math.max(0, millis) / GameClock.HOUR)
+     */
+    public int getProtectionAfter(long millis) {
+        if(millis < GameClock.HOUR)
+            return getProtection();
+        return (int) Math.max(1, getProtection() - millis / GameClock.HOUR);
+    }
+
+    /**
+     * Returns a new hidden armor giving the natural protection of these traits before they wear. This is a factory:
+     * every call makes a new armor, and changing it does not change these traits.
+     *
+     * @return A new armor of the armortype of these traits without weight and with value 1, without an identification
+     *         number of its own and wearing with a clock that stands still.
+     *         |result == new Armor(0, getProtectionType(), 1, STILL)
+     */
+    public Armor newNaturalProtection() {
+        return new Armor(0, protectionType, 1, STILL);
+    }
+
+    /**
+     * Returns a new hidden weapon giving the damage of these traits. This is a factory: every call makes a new weapon,
+     * and changing it does not change these traits.
+     *
+     * @return A new weapon with the damage of these traits, without weight and with value 1, without an identification
+     *         number of its own.
+     *         |result == new Weapon(0, 0, getDamage(), 1, false)
+     */
+    public Weapon newNaturalWeapon() {
+        return new Weapon(0, 0, damage, 1, false);
+    }
+}
@@ -6,6 +6,8 @@ import be.kuleuven.cs.som.annotate.Immutable;
 /**
  * A class for signaling illegal attempts to do something to an item that is equipped by another creature.
  *
+ * The exception does not record a stack trace.
+ *
  * @author 	Wout Thiers & Bram Oreel
  * @version 1.0
  */
@@ -23,6 +25,7 @@ public class OtherPlayersItemException extends Exception{
      *        |this.item == item;
      */
     public OtherPlayersItemException(Equipable item) {
+        super(null, null, false, false);
         this.item = item;
     }
 
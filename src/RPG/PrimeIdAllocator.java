@@ -0,0 +1,369 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+import be.kuleuven.cs.som.annotate.Model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A class for allocating unique, prime identification numbers and for checking whether numbers are prime.
+ *
+ * Primality is decided with a deterministic Miller-Rabin test, so checking a number costs a handful of modular
+ * exponentiations instead of a trial division up to the number itself.
+ * The allocated primes are recorded as runs of consecutive primes. A run from start to end means that every prime
+ * between start and end, both included, is allocated. Identification numbers are typically allocated upwards from
+ * a few seeds, so the number of runs stays small and finding the next free prime only needs one lookup in the runs.
+ *
+ * @invar Each run starts and ends with a prime number and does not start before the end of the previous run.
+ *        | for each run in runs: isPrime(run.start) && isPrime(run.end) && run.start <= run.end
+ * @invar Runs are maximal: the first prime after the end of a run is never allocated.
+ *        | for each run in runs: !isAllocated(nextPrime(run.end + 1))
+ *
+ * @note The allocation methods are synchronized, so an allocator can be shared by several threads.
+ *       Released primes split the run they belong to, so the record shrinks again when allocated primes are released.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class PrimeIdAllocator implements IdRegistry {
+
+    /**
+     * Initialize a new prime identification number allocator without any allocated numbers.
+     */
+    public PrimeIdAllocator(){}
+
+    /***********************
+     * Primality
+     */
+
+    /**
+     * The small primes used to quickly reject composite numbers before running the Miller-Rabin test.
+     */
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    /**
+     * The Miller-Rabin bases that give a deterministic answer for every number smaller than 4 759 123 141.
+     */
+    private static final long[] BASES_32 = {2, 7, 61};
+
+    /**
+     * The Miller-Rabin bases that give a deterministic answer for every 64 bit number.
+     */
+    private static final long[] BASES_64 = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    /**
+     * Checks if a number is prime or not.
+     *
+     * @param number
+     *        the number to be checked
+     * @return True if and only if the number is only divisible by 1 and itself.
+     *         |if number <= 1
+     *         |then result == false
+     *         |or if number % i == 0 for some integer i from 2 to sqrt(number)
+     *         |then result == false
+     *         |else result == true
+     */
+    public static boolean isPrime(long number){
+        if(number < 2)
+            return false;
+        for(int prime : SMALL_PRIMES){
+            if(number % prime == 0)
+                return number == prime;
+        }
+        if(number < 37 * 37)
+            return true;
+
+        long d = number - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        long[] bases = number < (1L << 32) ? BASES_32 : BASES_64;
+        for(long base : bases){
+            long a = base % number;
+            if(a != 0 && !passesMillerRabin(a, d, s, number))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the given number passes one round of the Miller-Rabin test with the given base.
+     *
+     * @param a
+     *        the base of this round, strictly positive and smaller than the number.
+     * @param d
+     *        the odd part of number - 1.
+     * @param s
+     *        the number of times 2 divides number - 1.
+     * @param number
+     *        the number to be checked.
+     * @return True if a^d is 1 modulo the number or if a^(d*2^r) is number - 1 modulo the number for some r smaller than s.
+     */
+    @Model
+    private static boolean passesMillerRabin(long a, long d, int s, long number){
+        long x = powMod(a, d, number);
+        if(x == 1 || x == number - 1)
+            return true;
+        for(int r = 1; r < s; r++){
+            x = mulMod(x, x, number);
+            if(x == number - 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the given base to the power of the given exponent, modulo the given modulus.
+     */
+    @Model
+    private static long powMod(long base, long exponent, long modulus){
+        long result = 1;
+        base %= modulus;
+        while(exponent > 0){
+            if((exponent & 1) == 1)
+                result = mulMod(result, base, modulus);
+            base = mulMod(base, base, modulus);
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the product of the given numbers, modulo the given modulus.
+     * Both numbers must be non-negative and smaller than the modulus.
+     */
+    @Model
+    private static long mulMod(long a, long b, long modulus){
+        if(modulus < (1L << 32))
+            return Long.remainderUnsigned(a * b, modulus);
+        long result = 0;
+        while(b > 0){
+            if((b & 1) == 1){
+                result += a - modulus;
+                if(result < 0)
+                    result += modulus;
+            }
+            a += a - modulus;
+            if(a < 0)
+                a += modulus;
+            b >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest prime that is greater than or equal to the given number.
+     *
+     * @param number
+     *        the lower bound for the prime.
+     * @return The smallest prime p for which p >= number.
+     *         |isPrime(result) && result >= number && for each p in number..result-1: !isPrime(p)
+     */
+    public static long nextPrime(long number){
+        if(number <= 2)
+            return 2;
+        long candidate = number | 1;
+        while(!isPrime(candidate))
+            candidate += 2;
+        return candidate;
+    }
+
+    /**
+     * Returns the largest prime that is smaller than or equal to the given number.
+     *
+     * @param number
+     *        the upper bound for the prime.
+     * @return The largest prime p for which p <= number, or -1 if there is no such prime.
+     *         |if(number < 2) then result == -1
+     *         |else isPrime(result) && result <= number && for each p in result+1..number: !isPrime(p)
+     */
+    public static long previousPrime(long number){
+        if(number < 2)
+            return -1;
+        if(number == 2)
+            return 2;
+        long candidate = (number & 1) == 0 ? number - 1 : number;
+        while(candidate > 2 && !isPrime(candidate))
+            candidate -= 2;
+        return candidate;
+    }
+
+    /***********************
+     * Allocation
+     */
+
+    /**
+     * A variable referencing the runs of allocated primes. The key of each entry is the first prime of the run,
+     * the value is the last prime of the run.
+     */
+    private final TreeMap<Long, Long> runs = new TreeMap<Long, Long>();
+
+    /**
+     * A variable referencing the number of allocated primes.
+     */
+    private long size = 0;
+
+    /**
+     * Returns the number of runs used to record the allocated primes.
+     */
+    @Basic
+    public synchronized int getNbOfRuns(){
+        return runs.size();
+    }
+
+    /**
+     * Returns the number of allocated primes.
+     */
+    @Basic @Override
+    public synchronized long size(){
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the number of bytes of heap memory used by this allocator: the allocator, its tree map and,
+     * for each run, a tree map entry and two boxed Longs.
+     */
+    @Override
+    public synchronized long getFootprint(){
+        return 24 + 48 + 72L * runs.size();
+    }
+
+    /**
+     * Checks whether the given prime has already been allocated.
+     *
+     * @param prime
+     *        the prime to be checked.
+     * @pre   The given number is prime.
+     *        |isPrime(prime)
+     * @return True if the given prime lies within one of the runs of allocated primes.
+     *         |result == (for some run in runs: run.start <= prime <= run.end)
+     */
+    public synchronized boolean isAllocated(long prime){
+        Map.Entry<Long, Long> run = runs.floorEntry(prime);
+        return run != null && prime <= run.getValue();
+    }
+
+    /**
+     * Checks whether the given number is an allocated prime.
+     *
+     * @param id
+     *        the number to be checked.
+     * @return True if the given number is prime and allocated.
+     *         |result == isPrime(id) && isAllocated(id)
+     */
+    @Override
+    public boolean contains(long id){
+        return isPrime(id) && isAllocated(id);
+    }
+
+    /**
+     * Returns the smallest prime that is greater than or equal to the given number and has not been allocated yet.
+     *
+     * @param number
+     *        the lower bound for the prime.
+     * @return The smallest free prime p for which p >= number.
+     *         |isPrime(result) && !isAllocated(result) && result >= number
+     */
+    public synchronized long nextFree(long number){
+        long prime = nextPrime(number);
+        Map.Entry<Long, Long> run = runs.floorEntry(prime);
+        if(run != null && prime <= run.getValue())
+            prime = nextPrime(run.getValue() + 1);
+        return prime;
+    }
+
+    /**
+     * Allocates the smallest free prime that is greater than or equal to the given number.
+     *
+     * @param number
+     *        the lower bound for the prime.
+     * @effect The smallest free prime from the given number onwards is claimed.
+     *         |claim(nextFree(number))
+     * @return The claimed prime.
+     *         |result == old.nextFree(number)
+     */
+    public synchronized long claimNext(long number){
+        long prime = nextFree(number);
+        claim(prime);
+        return prime;
+    }
+
+    /**
+     * Registers the given prime as allocated.
+     *
+     * @param prime
+     *        the prime to allocate.
+     * @pre   The given number is prime.
+     *        |isPrime(prime)
+     * @post  The given prime is allocated. If it directly follows or precedes an existing run, that run is extended
+     *        so that the runs stay maximal.
+     *        |new.isAllocated(prime)
+     * @return False if the given prime was already allocated, true otherwise.
+     *         |result == !isAllocated(prime)
+     */
+    public synchronized boolean claim(long prime){
+        Map.Entry<Long, Long> lower = runs.floorEntry(prime);
+        if(lower != null && prime <= lower.getValue())
+            return false;
+
+        long start = prime;
+        if(lower != null && lower.getValue() == previousPrime(prime - 1))
+            start = lower.getKey();
+
+        long end = prime;
+        Long upper = runs.remove(nextPrime(prime + 1));
+        if(upper != null)
+            end = upper;
+
+        runs.put(start, end);
+        size++;
+        return true;
+    }
+
+    /**
+     * Registers the given prime as allocated.
+     *
+     * @param id
+     *        the prime to allocate.
+     * @effect The given prime is claimed.
+     *         |claim(id)
+     * @throws IllegalArgumentException
+     *         The given number is not prime.
+     *         |!isPrime(id)
+     */
+    @Override
+    public boolean register(long id) throws IllegalArgumentException{
+        if(!isPrime(id))
+            throw new IllegalArgumentException();
+        return claim(id);
+    }
+
+    /**
+     * Releases the given prime, so that it can be allocated again.
+     *
+     * @param id
+     *        the prime to release.
+     * @post  The given prime is no longer allocated. The run it belonged to is shortened or split in two.
+     *        |!new.contains(id)
+     * @return True if the given number was an allocated prime, false otherwise.
+     *         |result == contains(id)
+     */
+    @Override
+    public synchronized boolean release(long id){
+        if(!isPrime(id))
+            return false;
+        Map.Entry<Long, Long> run = runs.floorEntry(id);
+        if(run == null || id > run.getValue())
+            return false;
+
+        long start = run.getKey();
+        long end = run.getValue();
+        runs.remove(start);
+        if(start < id)
+            runs.put(start, previousPrime(id - 1));
+        if(id < end)
+            runs.put(nextPrime(id + 1), end);
+        size--;
+        return true;
+    }
+}
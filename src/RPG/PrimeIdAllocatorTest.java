@@ -0,0 +1,97 @@
+package RPG;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for testing the non-private methods of the PrimeIdAllocator class.
+ *
+ * @author  Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class PrimeIdAllocatorTest {
+
+    private PrimeIdAllocator allocator;
+
+    @Before
+    public void setUpAllocator(){
+        allocator = new PrimeIdAllocator();
+    }
+
+    private static boolean isPrimeByTrialDivision(long number){
+        if(number < 2)
+            return false;
+        for(long i = 2; i * i <= number; i++){
+            if(number % i == 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Test
+    public void testIsPrimeSmallNumbers(){
+        for(long i = -5; i < 20000; i++){
+            Assert.assertEquals(isPrimeByTrialDivision(i), PrimeIdAllocator.isPrime(i));
+        }
+    }
+
+    @Test
+    public void testIsPrimeLargeNumbers(){
+        for(long i = Integer.MAX_VALUE - 2000; i <= Integer.MAX_VALUE; i++){
+            Assert.assertEquals(isPrimeByTrialDivision(i), PrimeIdAllocator.isPrime(i));
+        }
+        Assert.assertTrue(PrimeIdAllocator.isPrime(4294967291L));
+        Assert.assertFalse(PrimeIdAllocator.isPrime(4294967297L));
+        Assert.assertTrue(PrimeIdAllocator.isPrime(1000000000000000003L));
+        Assert.assertFalse(PrimeIdAllocator.isPrime(3215031751L));
+    }
+
+    @Test
+    public void testNextAndPreviousPrime(){
+        Assert.assertEquals(PrimeIdAllocator.nextPrime(-3), 2);
+        Assert.assertEquals(PrimeIdAllocator.nextPrime(14), 17);
+        Assert.assertEquals(PrimeIdAllocator.nextPrime(17), 17);
+        Assert.assertEquals(PrimeIdAllocator.previousPrime(1), -1);
+        Assert.assertEquals(PrimeIdAllocator.previousPrime(2), 2);
+        Assert.assertEquals(PrimeIdAllocator.previousPrime(16), 13);
+        Assert.assertEquals(PrimeIdAllocator.previousPrime(Integer.MAX_VALUE - 1), 2147483629);
+    }
+
+    @Test
+    public void testAllocateUpwards(){
+        long previous = 0;
+        for(int i = 0; i < 1000; i++){
+            long prime = allocator.nextFree(14);
+            Assert.assertTrue(prime > previous);
+            Assert.assertTrue(allocator.claim(prime));
+            previous = prime;
+        }
+        Assert.assertEquals(allocator.getNbOfRuns(), 1);
+        Assert.assertFalse(allocator.claim(17));
+        Assert.assertTrue(allocator.isAllocated(previous));
+        Assert.assertFalse(allocator.isAllocated(13));
+    }
+
+    @Test
+    public void testRunsMerge(){
+        allocator.claim(2);
+        allocator.claim(7);
+        Assert.assertEquals(allocator.getNbOfRuns(), 2);
+        Assert.assertEquals(allocator.nextFree(2), 3);
+        allocator.claim(5);
+        Assert.assertEquals(allocator.getNbOfRuns(), 2);
+        allocator.claim(3);
+        Assert.assertEquals(allocator.getNbOfRuns(), 1);
+        Assert.assertEquals(allocator.nextFree(2), 11);
+    }
+
+    @Test
+    public void testArmorIdsNearMaximum(){
+        Armor first = new Armor(Integer.MAX_VALUE - 100000, 2, ArmorType.DEFAULT, 10);
+        Armor second = new Armor(Integer.MAX_VALUE - 100000, 2, ArmorType.DEFAULT, 10);
+        Assert.assertTrue(PrimeIdAllocator.isPrime(first.getId()));
+        Assert.assertTrue(second.getId() > first.getId());
+        Assert.assertTrue(PrimeIdAllocator.isPrime(second.getId()));
+    }
+}
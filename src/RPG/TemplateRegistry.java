@@ -0,0 +1,127 @@
+package RPG;
+
+import be.kuleuven.cs.som.annotate.Basic;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class of registries of creature templates by name, from which creatures are spawned.
+ *
+ * Templates are checked when they are made, so registering one only checks that its name is still free. Spawning looks
+ * the template up and spawns from it, so a registry can be shared by the threads spawning creatures.
+ *
+ * @author Wout Thiers & Bram Oreel
+ * @version 1.0
+ */
+public class TemplateRegistry {
+
+    /**
+     * Initialize a new registry without templates.
+     */
+    public TemplateRegistry(){}
+
+    /**
+     * A map referencing the registered templates by their name.
+     */
+    private final ConcurrentHashMap<String, CreatureTemplate<?>> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the names of the registered templates.
+     *
+     * @return An unmodifiable view on the names of the registered templates.
+     */
+    @Basic
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(templates.keySet());
+    }
+
+    /**
+     * Returns the template registered with the given name, or null if there is none.
+     *
+     * @param name
+     *        The name of the template.
+     */
+    @Basic
+    public CreatureTemplate<?> getTemplate(String name) {
+        return templates.get(name);
+    }
+
+    /**
+     * Registers the given template with the given name.
+     *
+     * @param name
+     *        The name of the template.
+     * @param template
+     *        The template to register.
+     * @post  The template is registered with the given name.
+     *        |new.getTemplate(name) == template
+     * @throws IllegalArgumentException
+     *         The name or the template is not effective, or another template is registered with the name.
+     *         |name == null || template == null || getTemplate(name) != null
+     */
+    public void register(String name, CreatureTemplate<?> template) throws IllegalArgumentException{
+        if(name == null || template == null || templates.putIfAbsent(name, template) != null)
+            throw new IllegalArgumentException();
+    }
+
+    /**
+     * Removes the template registered with the given name, if any, and releases it.
+     *
+     * @param name
+     *        The name of the template.
+     * @post  No template is registered with the given name.
+     *        |new.getTemplate(name) == null
+     * @effect The removed template, if any, is released, so the ids of its gear are free again.
+     *         |getTemplate(name).release()
+     */
+    public void unregister(String name){
+        CreatureTemplate<?> template = templates.remove(name);
+        if(template != null)
+            template.release();
+    }
+
+    /**
+     * Spawns a creature from the template registered with the given name.
+     *
+     * @param name
+     *        The name of the template.
+     * @return A new creature spawned from the template.
+     *         |result == getTemplate(name).spawn()
+     * @throws IllegalArgumentException
+     *         No template is registered with the given name.
+     *         |getTemplate(name) == null
+     * @throws IllegalStateException
+     *         The template was unregistered, and released, while it was being looked up.
+     */
+    public Creature spawn(String name) throws IllegalArgumentException, IllegalStateException{
+        CreatureTemplate<?> template = name == null ? null : templates.get(name);
+        if(template == null)
+            throw new IllegalArgumentException();
+        return template.spawn();
+    }
+
+    /**
+     * Spawns a creature of the given class from the template registered with the given name.
+     *
+     * @param name
+     *        The name of the template.
+     * @param type
+     *        The class the creature must be an instance of.
+     * @return A new creature spawned from the template.
+     *         |result == getTemplate(name).spawn()
+     * @throws IllegalArgumentException
+     *         No template is registered with the given name, or it does not spawn instances of the given class.
+     *         |getTemplate(name) == null || !type.isAssignableFrom(getTemplate(name).getCreatureClass())
+     * @throws IllegalStateException
+     *         The template was unregistered, and released, while it was being looked up.
+     */
+    public <C extends Creature> C spawn(String name, Class<C> type) throws IllegalArgumentException,
+            IllegalStateException{
+        CreatureTemplate<?> template = name == null ? null : templates.get(name);
+        if(template == null || !type.isAssignableFrom(template.getCreatureClass()))
+            throw new IllegalArgumentException();
+        return type.cast(template.spawn());
+    }
+}
@@ -5,7 +5,8 @@ import be.kuleuven.cs.som.annotate.Immutable;
 import be.kuleuven.cs.som.annotate.Model;
 import be.kuleuven.cs.som.annotate.Raw;
 
-import java.security.SecureRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * A class for weapons within an RPG
@@ -33,9 +34,7 @@ public class Weapon extends Equipable{
      *      |isValidDamage(damagevalue)
      *
      * @effect A unique identification number is generated for this weapon
-     *         |setId(getIdcounter())
-     * @effect The id counter is incremented to the next allowed value and updated for all weapons
-     *         |incrementId()
+     *         |setId(getIdSequence().next())
      * @effect The parameter which calculates the value of this weapon, based on the weapons damage
      *         is set to true.
      *         |dmgvallink = true
@@ -49,8 +48,7 @@ public class Weapon extends Equipable{
     @Raw
     public Weapon(int weight, int damagevalue){ // value gegenereerd
         super(weight);
-        setId(getIdcounter());
-        incrementId();
+        setId(getIdSequence().next());
         this.dmgvallink = true;
         ModifyDamage(damagevalue);
     }
@@ -62,12 +60,29 @@ public class Weapon extends Equipable{
      *        The weight of the new weapon in kilograms.
      *
      * @effect This new file is initialized with the given weight.
-     *         The weapon has a random, allowed value.
-     *         |this(weight, Weapon.generateRandomDamage())
+     *         The weapon has a random, allowed value drawn from the random generator of the current thread.
+     *         |this(weight, ThreadLocalRandom.current())
      */
     @Raw
     public Weapon(int weight){
-       this(weight, Weapon.generateRandomDamage());
+       this(weight, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Initialize a new weapon with given weight and random damage drawn from the given random generator.
+     *
+     * @param weight
+     *        The weight of the new weapon in kilograms.
+     * @param random
+     *        The random generator to draw the damage from.
+     *
+     * @effect This new file is initialized with the given weight.
+     *         The weapon has a random, allowed value.
+     *         |this(weight, Weapon.generateRandomDamage(random))
+     */
+    @Raw
+    public Weapon(int weight, RandomGenerator random){
+       this(weight, Weapon.generateRandomDamage(random));
     }
 
     /**
@@ -84,9 +99,7 @@ public class Weapon extends Equipable{
      *      |isValidDamage(damagevalue)
      *
      * @effect A unique identification number is generated for this weapon
-     *         |setId(getIdcounter())
-     * @effect The id counter is incremented to the next allowed value and updated for all weapons
-     *         |incrementId()
+     *         |setId(getIdSequence().next())
      * @effect The parameter which calculates the value of this weapon, based on the weapons damage
      *         is set to false
      *         |dmgvallink = false
@@ -104,8 +117,7 @@ public class Weapon extends Equipable{
     @Raw
     public Weapon(int weight, int damagevalue, int value) throws IllegalArgumentException{
         super(weight);
-        setId(getIdcounter());
-        incrementId();
+        setId(getIdSequence().next());
         this.dmgvallink = false;
         ModifyDamage(damagevalue);
         if(!canHaveAsValue(value))
@@ -113,6 +125,73 @@ public class Weapon extends Equipable{
         setValue(value);
     }
 
+    /**
+     * Initialize a weapon that existed before, with its identification number, weight, damage and value. This
+     * rebuilds a weapon read from a save, so no new identification number is drawn, and the sequence of weapon ids
+     * moves past the one it had.
+     *
+     * @param id
+     *        The identification number the weapon had.
+     * @param weight
+     *        The weight in kilograms of the weapon
+     * @param damagevalue
+     *        The damage of the weapon
+     * @param value
+     *        The value of the weapon, ignored if its value follows its damage.
+     * @param dmgvallink
+     *        Whether the value of the weapon follows its damage.
+     * @effect The new weapon is an equipable with the given weight
+     *         |super(weight)
+     * @effect The damage is set to the given damage, and the value follows it if they are linked.
+     *         |ModifyDamage(damagevalue)
+     * @effect If the value does not follow the damage, the weapon has the given value as its value.
+     *         |if(!dmgvallink) then setValue(value)
+     * @post   The weapon has the given id.
+     *         |new.getId() == id
+     * @effect The id is reserved in the sequence of weapon ids, so that no new weapon gets it.
+     *         |getIdSequence().reserve(id)
+     * @throws IllegalArgumentException
+     *         The given id is not a valid id for a weapon, or the given value is not valid.
+     *         |!canHaveAsId(id) || (!dmgvallink && !canHaveAsValue(value))
+     */
+    @Raw @Model
+    protected Weapon(long id, int weight, int damagevalue, int value, boolean dmgvallink) throws IllegalArgumentException{
+        super(weight);
+        setId(id);
+        if(getId() != id)
+            throw new IllegalArgumentException();
+        getIdSequence().reserve(id);
+        this.dmgvallink = dmgvallink;
+        ModifyDamage(damagevalue);
+        if(!dmgvallink){
+            if(!canHaveAsValue(value))
+                throw new IllegalArgumentException();
+            setValue(value);
+        }
+    }
+
+    /**
+     * Initialize a new weapon like the given prototype, with a new identification number from the id sequence of
+     * weapons. The prototype is a valid weapon, so nothing is checked again.
+     *
+     * @param prototype
+     *        The weapon to copy.
+     * @effect A unique identification number is generated for this weapon
+     *         |setId(getIdSequence().next())
+     * @post   The weapon has the weight, damage and value of the prototype, and its value follows its damage if the
+     *         value of the prototype does.
+     *         |new.getWeight() == prototype.getWeight() && new.getDamage() == prototype.getDamage()
+     *         |new.getValue() == prototype.getValue() && new.isDmgValLink() == prototype.isDmgValLink()
+     */
+    @Raw @Model
+    protected Weapon(Weapon prototype){
+        super(prototype.getWeight());
+        setId(getIdSequence().next());
+        this.dmgvallink = prototype.isDmgValLink();
+        setDamage(prototype.getDamage());
+        setValue(prototype.getValue());
+    }
+
 
     /**
      * A static final value referencing the maximum allowed value in dukaten for weapons.
@@ -132,17 +211,18 @@ public class Weapon extends Equipable{
 
 
     /**
-     * A static variable referencing the current idvalue. This value must always be divisible by three and even.
+     * A static variable referencing the sequence of weapon ids. Every id in the sequence is divisible by three and even,
+     * and the sequence can be used by several threads at the same time.
      */
-    private static long idcounter = 36936918;
+    private static final IdSequence idSequence = new IdSequence(36936918, 6, Integer.MAX_VALUE, 64);
 
     /**
      *
-     * Returns the current value of the idcounter
+     * Returns the sequence of weapon ids
      */
     @Basic @Model
-    private static long getIdcounter() {
-        return idcounter;
+    private static IdSequence getIdSequence() {
+        return idSequence;
     }
 
     /**
@@ -156,31 +236,6 @@ public class Weapon extends Equipable{
         return (anchor.getAnchorType() == AnchorType.RECHTERHAND || anchor.getAnchorType() == AnchorType.LINKERHAND||anchor.getAnchorType() == AnchorType.OTHER);
     }
 
-    /**
-     * Sets the idcounter to the specified value.
-     * @param idcounter
-     *        the value of the next, unused id.
-     * @post If the given id is unique and valid, this weapon id is set to the given id, otherwise the id is set to zero.
-     *       This should never happen however, seeing that the weapon id is always internally generated.
-     *       | if(canHaveAsId(id))
-     * 	     | then new.getId().equals(id)
-     * 	     | else new.getId().equals(0)
-     */
-    @Model @Raw
-    private void setIdcounter(long idcounter) {
-        if(canHaveAsId(idcounter))
-            Weapon.idcounter = idcounter;
-        else Weapon.idcounter = 0;
-    }
-
-    /**
-     * Increments the value of the idcounter by 6. Thus guaranteeing it will always be divisible by two and three.
-     */
-    @Model @Raw
-    private void incrementId(){
-        setIdcounter(getIdcounter() + 6);
-    }
-
     /**
      * check if the weapon can have the given id as its id.
      * @param idcounter
@@ -240,10 +295,17 @@ public class Weapon extends Equipable{
      *
      * @post The given damage is registered as the damage of the weapon
      *       |new.getDamage() == damage
-     *
+     * @effect If the weapon is held in an anchor of a creature and its damage changed, that creature is told.
+     *       |if(getAnchor() != null && getAnchor().getOwner() != null && damage != getDamage())
+     *       |    then getAnchor().getOwner().itemStatsChanged(getAnchor())
      */
     @Model @Raw
-    private void setDamage(int damage) {this.damage = damage;}
+    private void setDamage(int damage) {
+        boolean changed = damage != this.damage;
+        this.damage = damage;
+        if(changed && getAnchor() != null && getAnchor().getOwner() != null)
+            getAnchor().getOwner().itemStatsChanged(getAnchor());
+    }
 
     /**
      * Check whether the given damage is a valid damageNumber
@@ -259,13 +321,15 @@ public class Weapon extends Equipable{
 
     /**
      * Returns a random damage value between 1 and the maximum damagevalue which is a multiple of seven.
+     *
+     * @param random
+     *        The random generator to draw the damage from.
      */
     @Model @Raw
-    private static int generateRandomDamage(){
-        SecureRandom R = new SecureRandom();
+    private static int generateRandomDamage(RandomGenerator random){
         int upperbound = Math.floorDiv(getDamageMaxvalue(),7) - 1;
 
-        int int1 = R.nextInt(upperbound);
+        int int1 = random.nextInt(upperbound);
         int1 = (7 * int1) + 7;
         return int1;
     }